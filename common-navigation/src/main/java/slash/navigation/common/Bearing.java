@@ -71,6 +71,11 @@ public class Bearing {
      */
     private static final double R = 1.0 - F;
 
+    /**
+     * square of the first eccentricity
+     */
+    private static final double E2 = F * (2.0 - F);
+
     /**
      * conversion for degrees to radians
      */
@@ -233,5 +238,38 @@ public class Bearing {
         double backazimuth = BAZ * deg;  // radians to degrees; already in 0 to 360 range
         return new Bearing(azimuth, backazimuth, roundMeterToMillimeterPrecision(S));
     }
+
+    /**
+     * Computes the distance (in meters) from latitude-longitude point pt1 to
+     * latitude-longitude pt2 on a plane tangent to the WGS-84 ellipsoid at the
+     * mean latitude of both points.<p>
+     * Compared to {@link #calculateBearing} the error is below 1 mm for distances
+     * up to 5 km between 60 degrees south and north and below 5 mm up to 80 degrees.
+     * The error grows with the third power of the distance and towards the poles.
+     *
+     * @param longitude1 Lon of point 1
+     * @param latitude1 Lat of point 1
+     * @param longitude2 Lon of point 2
+     * @param latitude2 Lat of point 2
+     * @return the distance in meters with millimeter precision
+     */
+    public static double calculateFastDistance(double longitude1, double latitude1,
+                                               double longitude2, double latitude2) {
+        double meanLatitude = rad * (latitude1 + latitude2) / 2.0;
+        double sinLatitude = sin(meanLatitude);
+        double W = 1.0 - E2 * sinLatitude * sinLatitude;
+        // radii of curvature in the prime vertical and in the meridian
+        double N = EARTH_RADIUS / sqrt(W);
+        double M = N * (1.0 - E2) / W;
+
+        double deltaLongitude = rad * (longitude2 - longitude1);
+        if (deltaLongitude > PI)
+            deltaLongitude -= 2.0 * PI;
+        else if (deltaLongitude < -PI)
+            deltaLongitude += 2.0 * PI;
+        double X = N * cos(meanLatitude) * deltaLongitude;
+        double Y = M * rad * (latitude2 - latitude1);
+        return roundMeterToMillimeterPrecision(sqrt(X * X + Y * Y));
+    }
 }
 
@@ -0,0 +1,74 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.common;
+
+import static java.lang.Math.abs;
+import static slash.navigation.common.Bearing.calculateBearing;
+import static slash.navigation.common.Bearing.calculateFastDistance;
+
+/**
+ * Enumeration of strategies to calculate the distance between two positions.
+ *
+ * @author Christian Pesch
+ */
+
+public enum DistanceCalculation {
+    /**
+     * Solves the geodetic inverse problem on the WGS-84 ellipsoid after Vincenty.
+     */
+    Exact {
+        public double calculateDistance(double longitude1, double latitude1, double longitude2, double latitude2) {
+            return calculateBearing(longitude1, latitude1, longitude2, latitude2).getDistance();
+        }
+    },
+
+    /**
+     * Approximates the ellipsoid with a plane at the mean latitude, see {@link Bearing#calculateFastDistance}.
+     */
+    Fast {
+        public double calculateDistance(double longitude1, double latitude1, double longitude2, double latitude2) {
+            return calculateFastDistance(longitude1, latitude1, longitude2, latitude2);
+        }
+    },
+
+    /**
+     * Uses {@link #Fast} for distances up to 5 km between 80 degrees south and north
+     * where its error is below 5 mm and {@link #Exact} otherwise.
+     */
+    Automatic {
+        public double calculateDistance(double longitude1, double latitude1, double longitude2, double latitude2) {
+            if (abs(latitude1) <= MAXIMUM_FAST_LATITUDE && abs(latitude2) <= MAXIMUM_FAST_LATITUDE) {
+                double distance = calculateFastDistance(longitude1, latitude1, longitude2, latitude2);
+                if (distance <= MAXIMUM_FAST_DISTANCE)
+                    return distance;
+            }
+            return Exact.calculateDistance(longitude1, latitude1, longitude2, latitude2);
+        }
+    };
+
+    private static final double MAXIMUM_FAST_DISTANCE = 5000.0;
+    private static final double MAXIMUM_FAST_LATITUDE = 80.0;
+
+    /**
+     * Calculates the distance in meters with millimeter precision.
+     */
+    public abstract double calculateDistance(double longitude1, double latitude1, double longitude2, double latitude2);
+}
@@ -25,6 +25,8 @@ import slash.common.io.Transfer;
 import java.math.BigDecimal;
 import java.util.prefs.Preferences;
 
+import static java.lang.Double.isInfinite;
+import static java.lang.Double.isNaN;
 import static java.lang.Math.*;
 import static slash.common.io.Transfer.ceilFraction;
 import static slash.common.io.Transfer.roundFraction;
@@ -319,11 +321,40 @@ public class NavigationConversion {
     public static BigDecimal formatBigDecimal(Double aDouble, int maximumFractionCount) {
         if (aDouble == null)
             return null;
-        if (isReduceDecimalPlaceToReasonablePrecision())
+        if (isReduceDecimalPlaceToReasonablePrecision()) {
+            BigDecimal bigDecimal = toBigDecimal(aDouble, maximumFractionCount);
+            if (bigDecimal != null)
+                return bigDecimal;
             aDouble = roundFraction(aDouble, maximumFractionCount);
+        }
         return BigDecimal.valueOf(aDouble);
     }
 
+    private static final long MAXIMUM_EXACT_UNSCALED = 1L << 53;
+
+    /**
+     * Rounds to the given fraction count like {@link Transfer#roundFraction(double, int)} and
+     * creates the BigDecimal from the unscaled value and the scale instead of parsing the
+     * string representation of the rounded double. Returns null for values where the scale of
+     * {@link BigDecimal#valueOf(double)} would differ from one fraction digit or more.
+     */
+    private static BigDecimal toBigDecimal(double aDouble, int maximumFractionCount) {
+        if (maximumFractionCount < 1 || maximumFractionCount > 15 || isNaN(aDouble) || isInfinite(aDouble))
+            return null;
+        double factor = pow(10, maximumFractionCount);
+        long unscaled = round(aDouble * factor);
+        double rounded = unscaled / factor;
+        if (abs(unscaled) >= MAXIMUM_EXACT_UNSCALED || unscaled != 0 && (abs(rounded) < 1e-3 || abs(rounded) >= 1e7))
+            return null;
+
+        int scale = maximumFractionCount;
+        while (scale > 1 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
     private static String formatDoubleAsString(Double aDouble, int maximumFractionCount) {
         if (aDouble != null && isReduceDecimalPlaceToReasonablePrecision())
             aDouble = roundFraction(aDouble, maximumFractionCount);
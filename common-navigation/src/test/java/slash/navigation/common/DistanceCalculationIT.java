@@ -0,0 +1,62 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.common;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.lang.Math.abs;
+import static org.junit.Assert.assertEquals;
+import static slash.navigation.common.DistanceCalculation.*;
+
+/**
+ * Checks {@link DistanceCalculation#Automatic} against the ellipsoidal distances of
+ * {@link DistanceCalculation#Exact} for random segments all over the globe.
+ */
+public class DistanceCalculationIT {
+    private static final int SEGMENTS = 1000000;
+
+    @Test
+    public void testAutomaticAgainstExact() {
+        Random random = new Random(7);
+        double exactSum = 0.0, automaticSum = 0.0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            double longitude = random.nextDouble() * 359.0 - 179.5;
+            double latitude = random.nextDouble() * 178.0 - 89.0;
+            // mostly track segments, some longer legs of routes
+            double delta = i % 10 == 0 ? 0.5 : 0.0005;
+            double nextLongitude = longitude + (random.nextDouble() - 0.5) * delta;
+            double nextLatitude = latitude + (random.nextDouble() - 0.5) * delta;
+
+            double exact = Exact.calculateDistance(longitude, latitude, nextLongitude, nextLatitude);
+            double automatic = Automatic.calculateDistance(longitude, latitude, nextLongitude, nextLatitude);
+            String segment = longitude + "," + latitude + " -> " + nextLongitude + "," + nextLatitude;
+            // beyond the polar circles Automatic falls back to Exact
+            if (abs(latitude) > 80.0 || abs(nextLatitude) > 80.0)
+                assertEquals(segment, exact, automatic, 0.0);
+            else
+                assertEquals(segment, exact, automatic, 0.005);
+            exactSum += exact;
+            automaticSum += automatic;
+        }
+        assertEquals(exactSum, automaticSum, SEGMENTS * 0.005);
+    }
+}
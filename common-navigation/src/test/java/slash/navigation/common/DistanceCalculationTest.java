@@ -0,0 +1,98 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.common;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.lang.Math.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.common.DistanceCalculation.*;
+
+public class DistanceCalculationTest {
+    private final Random random = new Random(4711);
+
+    private void assertFastError(double maximumDistance, double maximumLatitude, double maximumError) {
+        for (int i = 0; i < 20000; i++) {
+            double latitude1 = (random.nextDouble() * 2 - 1) * maximumLatitude;
+            double longitude1 = (random.nextDouble() * 2 - 1) * 180;
+            double angle = random.nextDouble() * 2 * PI;
+            double distance = random.nextDouble() * maximumDistance;
+            // degrees on the sphere, so some pairs exceed the latitude and distance
+            double latitude2 = max(-maximumLatitude, min(maximumLatitude, latitude1 + cos(angle) * distance / 111320.0));
+            double longitude2 = longitude1 + sin(angle) * distance / 111320.0 / cos(toRadians(latitude1));
+
+            double exact = Exact.calculateDistance(longitude1, latitude1, longitude2, latitude2);
+            double fast = Fast.calculateDistance(longitude1, latitude1, longitude2, latitude2);
+            assertEquals("from " + longitude1 + "," + latitude1 + " to " + longitude2 + "," + latitude2,
+                    exact, fast, maximumError);
+        }
+    }
+
+    @Test
+    public void testFastErrorForShortDistances() {
+        assertFastError(1000.0, 80.0, 0.0005);
+    }
+
+    @Test
+    public void testFastErrorUpTo60Degrees() {
+        assertFastError(5000.0, 60.0, 0.001);
+    }
+
+    @Test
+    public void testFastErrorUpTo80Degrees() {
+        assertFastError(5000.0, 80.0, 0.005);
+    }
+
+    @Test
+    public void testFastAcrossDateLine() {
+        assertEquals(Exact.calculateDistance(179.9995, 10.0, -179.9995, 10.0),
+                Fast.calculateDistance(179.9995, 10.0, -179.9995, 10.0), 0.001);
+    }
+
+    @Test
+    public void testSamePosition() {
+        for (DistanceCalculation calculation : values())
+            assertEquals(0.0, calculation.calculateDistance(11.0, 47.0, 11.0, 47.0), 0.0);
+    }
+
+    @Test
+    public void testAutomaticUsesExactForLongDistances() {
+        assertEquals(Exact.calculateDistance(11.0, 47.0, 12.0, 48.0),
+                Automatic.calculateDistance(11.0, 47.0, 12.0, 48.0), 0.0);
+        assertTrue(abs(Exact.calculateDistance(11.0, 47.0, 12.0, 48.0) -
+                Fast.calculateDistance(11.0, 47.0, 12.0, 48.0)) > 0.01);
+    }
+
+    @Test
+    public void testAutomaticUsesExactNearThePoles() {
+        assertEquals(Exact.calculateDistance(11.0, 85.0, 11.05, 85.01),
+                Automatic.calculateDistance(11.0, 85.0, 11.05, 85.01), 0.0);
+    }
+
+    @Test
+    public void testAutomaticUsesFastForShortDistances() {
+        assertEquals(Fast.calculateDistance(11.0, 47.0, 11.01, 47.01),
+                Automatic.calculateDistance(11.0, 47.0, 11.01, 47.01), 0.0);
+    }
+}
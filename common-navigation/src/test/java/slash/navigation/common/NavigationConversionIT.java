@@ -0,0 +1,51 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.common;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static slash.common.io.Transfer.roundFraction;
+import static slash.navigation.common.NavigationConversion.formatBigDecimal;
+
+/**
+ * Checks that the {@link BigDecimal}s written for coordinates and elevations to GPX and KML
+ * equal {@link BigDecimal#valueOf(double)} of the rounded value in value and scale.
+ */
+public class NavigationConversionIT {
+    private static final int VALUES = 1000000;
+    private static final int[] FRACTION_COUNTS = {1, 6, 7};
+
+    @Test
+    public void testFormatBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < VALUES; i++) {
+            // coordinates around the globe and elevations from the dead sea to the stratosphere
+            double value = i % 2 == 0 ? random.nextDouble() * 360.0 - 180.0 : random.nextDouble() * 20000.0 - 500.0;
+            for (int fractionCount : FRACTION_COUNTS) {
+                BigDecimal expected = BigDecimal.valueOf(roundFraction(value, fractionCount));
+                assertEquals(value + " with " + fractionCount + " fraction digits", expected, formatBigDecimal(value, fractionCount));
+            }
+        }
+    }
+}
@@ -23,10 +23,12 @@ package slash.navigation.common;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static slash.common.TestCase.assertDoubleEquals;
 import static slash.common.TestCase.assertNearBy;
+import static slash.common.io.Transfer.roundFraction;
 import static slash.navigation.common.NavigationConversion.*;
 
 public class NavigationConversionTest {
@@ -128,4 +130,15 @@ public class NavigationConversionTest {
         assertEquals(new BigDecimal("1.000004"), formatBigDecimal(1.000004, 6));
         assertEquals(new BigDecimal("1.000005"), formatBigDecimal(1.000005, 6));
     }
+
+    @Test
+    public void testFormatBigDecimalMatchesValueOfRoundedDouble() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+            int fractionCount = random.nextInt(8);
+            assertEquals(BigDecimal.valueOf(roundFraction(value, fractionCount)), formatBigDecimal(value, fractionCount));
+        }
+        assertEquals(new BigDecimal("0.0"), formatBigDecimal(-0.00001, 3));
+    }
 }
@@ -0,0 +1,206 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.common.helpers;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.XMLEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * Records the events of an element that is read with an {@link XMLStreamReader} so that an
+ * {@link Unmarshaller} can read the element afterwards. The parts of the element that have
+ * been read already are added as elements with their text.
+ *
+ * @author Christian Pesch
+ */
+
+public class ElementRecorder {
+    private static final ThreadLocal<XMLEventFactory> eventFactory = new ThreadLocal<XMLEventFactory>() {
+        protected XMLEventFactory initialValue() {
+            return XMLEventFactory.newInstance();
+        }
+    };
+
+    private final XMLEventFactory factory = eventFactory.get();
+    private final List<XMLEvent> events = new ArrayList<>();
+
+    public void startElement(QName name, List<Attribute> attributes) {
+        events.add(factory.createStartElement(name, attributes.iterator(), Collections.<Namespace>emptyIterator()));
+    }
+
+    public Attribute createAttribute(String localName, String value) {
+        return factory.createAttribute(localName, value);
+    }
+
+    public void endElement(QName name) {
+        events.add(factory.createEndElement(name, Collections.<Namespace>emptyIterator()));
+    }
+
+    public void characters(String text) {
+        events.add(factory.createCharacters(text));
+    }
+
+    public void element(QName name, String text) {
+        startElement(name, Collections.<Attribute>emptyList());
+        characters(text);
+        endElement(name);
+    }
+
+    private void startElement(XMLStreamReader reader) {
+        List<Attribute> attributes = new ArrayList<>(reader.getAttributeCount());
+        for (int i = 0; i < reader.getAttributeCount(); i++)
+            attributes.add(factory.createAttribute(reader.getAttributeName(i), reader.getAttributeValue(i)));
+        List<Namespace> namespaces = new ArrayList<>(reader.getNamespaceCount());
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            namespaces.add(prefix != null ? factory.createNamespace(prefix, reader.getNamespaceURI(i)) :
+                    factory.createNamespace(reader.getNamespaceURI(i)));
+        }
+        events.add(factory.createStartElement(reader.getName(), attributes.iterator(), namespaces.iterator()));
+    }
+
+    /**
+     * Records the current event and the following ones up to the end element of the
+     * enclosing element which is not recorded. Comments and processing instructions are
+     * skipped.
+     *
+     * @param reader the reader which is left at the end element of the enclosing element
+     * @throws XMLStreamException if the reader fails
+     */
+    public void recordContent(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        int event = reader.getEventType();
+        while (true) {
+            switch (event) {
+                case START_ELEMENT:
+                    startElement(reader);
+                    depth++;
+                    break;
+                case END_ELEMENT:
+                    if (depth == 0)
+                        return;
+                    endElement(reader.getName());
+                    depth--;
+                    break;
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                    characters(reader.getText());
+                    break;
+                case END_DOCUMENT:
+                    throw new XMLStreamException("Unexpected end of document", reader.getLocation());
+            }
+            event = reader.next();
+        }
+    }
+
+    /**
+     * Records the element at the current start element.
+     *
+     * @param reader the reader which is left at the end element of the element
+     * @throws XMLStreamException if the reader fails
+     */
+    public void record(XMLStreamReader reader) throws XMLStreamException {
+        QName name = reader.getName();
+        startElement(reader);
+        reader.next();
+        recordContent(reader);
+        endElement(name);
+    }
+
+    public <T> T unmarshal(Unmarshaller unmarshaller, Class<T> type) throws JAXBException {
+        return unmarshaller.unmarshal(new RecordedEventReader(events), type).getValue();
+    }
+
+    private static class RecordedEventReader implements XMLEventReader {
+        private final List<XMLEvent> events;
+        private int index;
+
+        private RecordedEventReader(List<XMLEvent> events) {
+            this.events = events;
+        }
+
+        public boolean hasNext() {
+            return index < events.size();
+        }
+
+        public XMLEvent nextEvent() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return events.get(index++);
+        }
+
+        public Object next() {
+            return nextEvent();
+        }
+
+        public XMLEvent peek() {
+            return hasNext() ? events.get(index) : null;
+        }
+
+        public String getElementText() throws XMLStreamException {
+            StringBuilder buffer = new StringBuilder();
+            while (hasNext()) {
+                XMLEvent event = nextEvent();
+                if (event.isEndElement())
+                    return buffer.toString();
+                if (!event.isCharacters())
+                    throw new XMLStreamException("Expected text of element but found " + event);
+                buffer.append(event.asCharacters().getData());
+            }
+            throw new XMLStreamException("Unexpected end of element");
+        }
+
+        public XMLEvent nextTag() throws XMLStreamException {
+            while (hasNext()) {
+                XMLEvent event = nextEvent();
+                if (event.isStartElement() || event.isEndElement())
+                    return event;
+                if (!event.isCharacters() || !event.asCharacters().isWhiteSpace())
+                    throw new XMLStreamException("Expected start or end tag but found " + event);
+            }
+            throw new XMLStreamException("Unexpected end of element");
+        }
+
+        public Object getProperty(String name) {
+            return null;
+        }
+
+        public void close() {
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.helpers;
+
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static javax.xml.stream.XMLStreamConstants.*;
+
+/**
+ * An {@link XMLStreamReader} that lets an {@link ElementHandler} read selected elements
+ * instead of passing them to the {@link Unmarshaller} that reads from it. This allows to
+ * unmarshal the skeleton of a large document while its repeated elements are processed
+ * as they are read.
+ *
+ * @author Christian Pesch
+ */
+
+public class ElementStreamReader extends StreamReaderDelegate {
+    private final Unmarshaller unmarshaller;
+    private final ElementHandler handler;
+    private final List<String> path = new ArrayList<>();
+    private final List<String> unmodifiablePath = unmodifiableList(path);
+
+    public interface ElementHandler {
+        /**
+         * Called for every start element that is about to be read starting with the root element.
+         *
+         * @param path the local names of the enclosing elements starting with the root element
+         * @param reader the reader positioned at the start element
+         * @param unmarshaller unmarshals the parts of the element that the handler doesn't read itself
+         * @return <tt>true</tt> if the handler has read the element and left the reader at the event
+         * after its end element or <tt>false</tt> to leave the element to the enclosing {@link Unmarshaller}
+         * which is required for the root element
+         * @throws XMLStreamException if the element cannot be read
+         */
+        boolean readElement(List<String> path, XMLStreamReader reader, Unmarshaller unmarshaller) throws XMLStreamException;
+    }
+
+    public ElementStreamReader(XMLStreamReader reader, Unmarshaller unmarshaller, ElementHandler handler) throws XMLStreamException {
+        super(reader);
+        this.unmarshaller = unmarshaller;
+        this.handler = handler;
+        if (reader.getEventType() == START_ELEMENT) {
+            if (handler.readElement(unmodifiablePath, reader, unmarshaller))
+                throw new XMLStreamException("Root element " + reader.getLocalName() + " has to be left to the unmarshaller", getLocation());
+            path.add(reader.getLocalName());
+        }
+    }
+
+    public int next() throws XMLStreamException {
+        int event = super.next();
+        while (event == START_ELEMENT && handler.readElement(unmodifiablePath, getParent(), unmarshaller))
+            event = getEventType();
+
+        if (event == START_ELEMENT)
+            path.add(getLocalName());
+        else if (event == END_ELEMENT)
+            path.remove(path.size() - 1);
+        return event;
+    }
+
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while (event == CHARACTERS && isWhiteSpace() || event == CDATA && isWhiteSpace() ||
+                event == SPACE || event == COMMENT || event == PROCESSING_INSTRUCTION)
+            event = next();
+        if (event != START_ELEMENT && event != END_ELEMENT)
+            throw new XMLStreamException("Expected start or end tag", getLocation());
+        return event;
+    }
+}
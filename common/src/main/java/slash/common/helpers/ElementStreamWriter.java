@@ -0,0 +1,408 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.helpers;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * An {@link XMLStreamWriter} that lets an {@link ElementHandler} write elements into the
+ * output of the {@link Marshaller} that writes to it. This allows to marshal the skeleton
+ * of a large document while its repeated elements are marshalled one by one as they are
+ * created. Without an {@link ElementHandler} the document may be written element by
+ * element instead. Namespace declarations that are already in scope are not repeated and
+ * the output is indented if requested.
+ *
+ * @author Christian Pesch
+ */
+
+public class ElementStreamWriter implements XMLStreamWriter {
+    private static final String INDENT = "    ";
+
+    private final XMLStreamWriter delegate;
+    private final Marshaller documentMarshaller, elementMarshaller;
+    private final ElementHandler handler;
+    private final boolean indent;
+    private final List<String> path = new ArrayList<>();
+    private final List<String> unmodifiablePath = unmodifiableList(path);
+    private final List<Scope> scopes = new ArrayList<>();
+    private final List<Boolean> hasChildElements = new ArrayList<>();
+    private boolean emptyElement, handling;
+
+    public interface ElementHandler {
+        /**
+         * Called for every start element that is about to be written by the {@link Marshaller}.
+         *
+         * @param path the local names of the enclosing elements starting with the root element
+         * @param localName the local name of the element
+         * @param writer the writer to write additional elements with
+         * @throws XMLStreamException if the additional elements cannot be written
+         */
+        void startElement(List<String> path, String localName, ElementStreamWriter writer) throws XMLStreamException;
+
+        /**
+         * Called for every end element that is about to be written by the {@link Marshaller}.
+         *
+         * @param path the local names of the open elements starting with the root element and
+         *             ending with the element to be closed
+         * @param writer the writer to write additional elements with
+         * @throws XMLStreamException if the additional elements cannot be written
+         */
+        void endElement(List<String> path, ElementStreamWriter writer) throws XMLStreamException;
+    }
+
+    public ElementStreamWriter(XMLStreamWriter writer, Marshaller documentMarshaller, Marshaller elementMarshaller,
+                               ElementHandler handler, boolean indent) {
+        this.delegate = writer;
+        this.documentMarshaller = documentMarshaller;
+        this.elementMarshaller = elementMarshaller;
+        this.handler = handler;
+        this.indent = indent;
+    }
+
+    /**
+     * Marshals the given value as an element. Called with the document this triggers the
+     * {@link ElementHandler} which in turn may call this method for the elements it adds.
+     *
+     * @param name the name of the element
+     * @param type the type of the value
+     * @param value the value to marshal
+     * @param <T> the type of the value
+     * @throws XMLStreamException if the value cannot be marshalled
+     */
+    public <T> void writeElement(QName name, Class<T> type, T value) throws XMLStreamException {
+        // a Marshaller cannot be used again while it is marshalling
+        Marshaller marshaller = handling ? elementMarshaller : documentMarshaller;
+        try {
+            marshaller.marshal(new JAXBElement<>(name, type, value), this);
+        } catch (JAXBException e) {
+            throw new XMLStreamException("Cannot marshal " + name.getLocalPart() + ": " + e, e);
+        }
+    }
+
+    private static class Scope {
+        private Map<String, String> namespaces;
+        private Map<String, String> aliases;
+    }
+
+    private void beforeStartElement(String localName) throws XMLStreamException {
+        if (!handling && handler != null) {
+            handling = true;
+            try {
+                handler.startElement(unmodifiablePath, localName, this);
+            } finally {
+                handling = false;
+            }
+        }
+
+        if (!hasChildElements.isEmpty())
+            hasChildElements.set(hasChildElements.size() - 1, true);
+        writeIndent(path.size());
+    }
+
+    private void afterStartElement(String localName, String prefix, String alias) {
+        path.add(localName);
+        Scope scope = null;
+        if (alias != null) {
+            scope = new Scope();
+            scope.aliases = new HashMap<>();
+            scope.aliases.put(prefix, alias);
+        }
+        scopes.add(scope);
+        hasChildElements.add(false);
+        emptyElement = false;
+    }
+
+    private void writeIndent(int depth) throws XMLStreamException {
+        if (!indent)
+            return;
+        StringBuilder builder = new StringBuilder("\n");
+        for (int i = 0; i < depth; i++)
+            builder.append(INDENT);
+        delegate.writeCharacters(builder.toString());
+    }
+
+    private String getNamespaceURI(String prefix) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Scope scope = scopes.get(i);
+            if (scope != null && scope.namespaces != null && scope.namespaces.containsKey(prefix))
+                return scope.namespaces.get(prefix);
+        }
+        return null;
+    }
+
+    private String getAlias(String prefix) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Scope scope = scopes.get(i);
+            if (scope != null && scope.aliases != null && scope.aliases.containsKey(prefix))
+                return scope.aliases.get(prefix);
+        }
+        return null;
+    }
+
+    private boolean isInScope(String prefix, String namespaceURI) {
+        return namespaceURI.equals(getNamespaceURI(prefix));
+    }
+
+    private String getPrefixInScope(String namespaceURI) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Scope scope = scopes.get(i);
+            if (scope == null || scope.namespaces == null)
+                continue;
+            for (Map.Entry<String, String> entry : scope.namespaces.entrySet()) {
+                if (namespaceURI.equals(entry.getValue()) && isInScope(entry.getKey(), namespaceURI))
+                    return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the prefix that is already bound to the namespace of an element if the
+     * {@link Marshaller} of a fragment chose a different one.
+     */
+    private String getElementAlias(String prefix, String namespaceURI) {
+        if (namespaceURI == null || namespaceURI.isEmpty())
+            return null;
+        String alias = getAlias(prefix);
+        if (alias != null && isInScope(alias, namespaceURI))
+            return alias;
+        if (isInScope(prefix, namespaceURI))
+            return null;
+        return getPrefixInScope(namespaceURI);
+    }
+
+    private boolean declareNamespace(String prefix, String namespaceURI) {
+        if (isInScope(prefix, namespaceURI))
+            return false;
+        if (emptyElement || scopes.isEmpty())
+            return true;
+
+        Scope scope = scopes.get(scopes.size() - 1);
+        String alias = scope != null && scope.aliases != null ? scope.aliases.get(prefix) : null;
+        if (alias != null && isInScope(alias, namespaceURI))
+            return false;
+        addNamespace(prefix, namespaceURI);
+        return true;
+    }
+
+    private void addNamespace(String prefix, String namespaceURI) {
+        if (emptyElement || scopes.isEmpty())
+            return;
+
+        int index = scopes.size() - 1;
+        Scope scope = scopes.get(index);
+        if (scope == null) {
+            scope = new Scope();
+            scopes.set(index, scope);
+        }
+        if (scope.namespaces == null)
+            scope.namespaces = new HashMap<>();
+        scope.namespaces.put(prefix, namespaceURI);
+    }
+
+    public void writeStartElement(String localName) throws XMLStreamException {
+        beforeStartElement(localName);
+        delegate.writeStartElement(localName);
+        afterStartElement(localName, null, null);
+    }
+
+    public void writeStartElement(String namespaceURI, String localName) throws XMLStreamException {
+        beforeStartElement(localName);
+        delegate.writeStartElement(namespaceURI, localName);
+        afterStartElement(localName, null, null);
+    }
+
+    public void writeStartElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        beforeStartElement(localName);
+        String alias = getElementAlias(prefix, namespaceURI);
+        delegate.writeStartElement(alias != null ? alias : prefix, localName, namespaceURI);
+        afterStartElement(localName, prefix, alias);
+    }
+
+    public void writeEmptyElement(String namespaceURI, String localName) throws XMLStreamException {
+        beforeStartElement(localName);
+        delegate.writeEmptyElement(namespaceURI, localName);
+        emptyElement = true;
+    }
+
+    public void writeEmptyElement(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+        beforeStartElement(localName);
+        delegate.writeEmptyElement(prefix, localName, namespaceURI);
+        emptyElement = true;
+    }
+
+    public void writeEmptyElement(String localName) throws XMLStreamException {
+        beforeStartElement(localName);
+        delegate.writeEmptyElement(localName);
+        emptyElement = true;
+    }
+
+    public void writeEndElement() throws XMLStreamException {
+        if (!handling && handler != null) {
+            handling = true;
+            try {
+                handler.endElement(unmodifiablePath, this);
+            } finally {
+                handling = false;
+            }
+        }
+
+        int index = path.size() - 1;
+        if (hasChildElements.get(index))
+            writeIndent(index);
+        delegate.writeEndElement();
+        path.remove(index);
+        scopes.remove(index);
+        hasChildElements.remove(index);
+        emptyElement = false;
+    }
+
+    public void writeEndDocument() throws XMLStreamException {
+        while (!path.isEmpty())
+            writeEndElement();
+        delegate.writeEndDocument();
+    }
+
+    public void close() throws XMLStreamException {
+        delegate.close();
+    }
+
+    public void flush() throws XMLStreamException {
+        delegate.flush();
+    }
+
+    public void writeAttribute(String localName, String value) throws XMLStreamException {
+        delegate.writeAttribute(localName, value);
+    }
+
+    public void writeAttribute(String prefix, String namespaceURI, String localName, String value) throws XMLStreamException {
+        if (namespaceURI != null && !namespaceURI.isEmpty() && !isInScope(prefix, namespaceURI)) {
+            String alias = getAlias(prefix);
+            // attributes cannot use the default namespace
+            if (alias != null && !alias.isEmpty() && isInScope(alias, namespaceURI))
+                prefix = alias;
+            else {
+                addNamespace(prefix, namespaceURI);
+                delegate.writeNamespace(prefix, namespaceURI);
+            }
+        }
+        delegate.writeAttribute(prefix, namespaceURI, localName, value);
+    }
+
+    public void writeAttribute(String namespaceURI, String localName, String value) throws XMLStreamException {
+        delegate.writeAttribute(namespaceURI, localName, value);
+    }
+
+    public void writeNamespace(String prefix, String namespaceURI) throws XMLStreamException {
+        if (prefix == null || prefix.isEmpty() || "xmlns".equals(prefix))
+            writeDefaultNamespace(namespaceURI);
+        else if (declareNamespace(prefix, namespaceURI))
+            delegate.writeNamespace(prefix, namespaceURI);
+    }
+
+    public void writeDefaultNamespace(String namespaceURI) throws XMLStreamException {
+        if (declareNamespace("", namespaceURI))
+            delegate.writeDefaultNamespace(namespaceURI);
+    }
+
+    public void writeComment(String data) throws XMLStreamException {
+        if (!hasChildElements.isEmpty())
+            hasChildElements.set(hasChildElements.size() - 1, true);
+        writeIndent(path.size());
+        delegate.writeComment(data);
+    }
+
+    public void writeProcessingInstruction(String target) throws XMLStreamException {
+        delegate.writeProcessingInstruction(target);
+    }
+
+    public void writeProcessingInstruction(String target, String data) throws XMLStreamException {
+        delegate.writeProcessingInstruction(target, data);
+    }
+
+    public void writeCData(String data) throws XMLStreamException {
+        delegate.writeCData(data);
+    }
+
+    public void writeDTD(String dtd) throws XMLStreamException {
+        delegate.writeDTD(dtd);
+    }
+
+    public void writeEntityRef(String name) throws XMLStreamException {
+        delegate.writeEntityRef(name);
+    }
+
+    public void writeStartDocument() throws XMLStreamException {
+        delegate.writeStartDocument();
+    }
+
+    public void writeStartDocument(String version) throws XMLStreamException {
+        delegate.writeStartDocument(version);
+    }
+
+    public void writeStartDocument(String encoding, String version) throws XMLStreamException {
+        delegate.writeStartDocument(encoding, version);
+    }
+
+    public void writeCharacters(String text) throws XMLStreamException {
+        delegate.writeCharacters(text);
+    }
+
+    public void writeCharacters(char[] text, int start, int len) throws XMLStreamException {
+        delegate.writeCharacters(text, start, len);
+    }
+
+    public String getPrefix(String uri) throws XMLStreamException {
+        return delegate.getPrefix(uri);
+    }
+
+    public void setPrefix(String prefix, String uri) throws XMLStreamException {
+        delegate.setPrefix(prefix, uri);
+    }
+
+    public void setDefaultNamespace(String uri) throws XMLStreamException {
+        delegate.setDefaultNamespace(uri);
+    }
+
+    public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+        delegate.setNamespaceContext(context);
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return delegate.getNamespaceContext();
+    }
+
+    public Object getProperty(String name) throws IllegalArgumentException {
+        return delegate.getProperty(name);
+    }
+}
@@ -20,70 +20,221 @@
 
 package slash.common.helpers;
 
+import slash.common.helpers.ElementStreamWriter.ElementHandler;
+
 import javax.xml.bind.*;
-import java.util.HashMap;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.prefs.Preferences;
 
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
 import static java.util.Arrays.asList;
-import static javax.xml.bind.Marshaller.JAXB_FORMATTED_OUTPUT;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static javax.xml.bind.Marshaller.*;
 
 /**
  * Provides JAXB helpers.
  *
+ * Contexts are cached for all threads. Marshallers and unmarshallers are cached per thread
+ * and context since they are not thread-safe. A cached marshaller gets its properties reset
+ * each time it is handed out, so callers may change them for a single use.
+ *
  * @author Christian Pesch
  */
 
 public class JAXBHelper {
     private static final Preferences preferences = Preferences.userNodeForPackage(JAXBHelper.class);
-    private static final String HEADER_LINE = "\n<!-- Generated by Christian Peschs RouteConverter. See https://www.routeconverter.com -->\n";
+    private static final String HEADER_COMMENT = " Generated by Christian Peschs RouteConverter. See https://www.routeconverter.com ";
+    private static final String HEADER_LINE = "\n<!--" + HEADER_COMMENT + "-->\n";
     private static final String JAXB_IMPL_HEADER = "com.sun.xml.internal.bind.xmlHeaders";
 
-    private static Map<List<Class<?>>, JAXBContext> classesToContext = new HashMap<>();
-    private static boolean cacheContexts;
+    private static final String DEFAULT_ENCODING = "UTF-8";
 
-    public static void setCacheContexts(boolean cacheContexts) {
-        JAXBHelper.cacheContexts = cacheContexts;
-    }
+    private static final ConcurrentMap<List<Class<?>>, JAXBContext> classesToContext = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<JAXBContext, Marshaller>> contextToMarshaller = new ThreadLocal<Map<JAXBContext, Marshaller>>() {
+        protected Map<JAXBContext, Marshaller> initialValue() {
+            return new IdentityHashMap<>();
+        }
+    };
+    private static final ThreadLocal<Map<JAXBContext, Unmarshaller>> contextToUnmarshaller = new ThreadLocal<Map<JAXBContext, Unmarshaller>>() {
+        protected Map<JAXBContext, Unmarshaller> initialValue() {
+            return new IdentityHashMap<>();
+        }
+    };
+
+    private static final Statistics contextStatistics = new Statistics();
+    private static final Statistics marshallerStatistics = new Statistics();
+    private static final Statistics unmarshallerStatistics = new Statistics();
 
     public static JAXBContext newContext(Class<?>... classes) {
         List<Class<?>> key = asList(classes);
         JAXBContext context = classesToContext.get(key);
-        if (context == null) {
-            try {
-                context = JAXBContext.newInstance(classes);
-                if (cacheContexts)
-                    classesToContext.put(key, context);
-            } catch (JAXBException e) {
-                throw new RuntimeException(e);
-            }
-        }
-        return context;
+        if (context != null) {
+            contextStatistics.hit();
+            return context;
+        }
+
+        long start = nanoTime();
+        try {
+            context = JAXBContext.newInstance(classes);
+        } catch (JAXBException e) {
+            throw new RuntimeException(e);
+        }
+        contextStatistics.created(nanoTime() - start);
+
+        JAXBContext previous = classesToContext.putIfAbsent(key, context);
+        return previous != null ? previous : context;
     }
 
-    public static Marshaller newMarshaller(JAXBContext context) {
-        Marshaller result;
+    private static Marshaller createMarshaller(JAXBContext context) {
+        long start = nanoTime();
+        try {
+            Marshaller result = context.createMarshaller();
+            marshallerStatistics.created(nanoTime() - start);
+            return result;
+        } catch (JAXBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Marshaller initializeMarshaller(Marshaller marshaller) {
         try {
-            result = context.createMarshaller();
-            result.setProperty(JAXB_FORMATTED_OUTPUT, preferences.getBoolean("prettyPrintXml", true));
+            marshaller.setProperty(JAXB_FORMATTED_OUTPUT, preferences.getBoolean("prettyPrintXml", true));
+            marshaller.setProperty(JAXB_ENCODING, DEFAULT_ENCODING);
+            marshaller.setProperty(JAXB_FRAGMENT, false);
         } catch (JAXBException e) {
             throw new RuntimeException(e);
         }
 
         try {
-            result.setProperty(JAXB_IMPL_HEADER, HEADER_LINE);
+            marshaller.setProperty(JAXB_IMPL_HEADER, HEADER_LINE);
         } catch (PropertyException e) {
             // intentionally left empty
         }
+        return marshaller;
+    }
+
+    public static Marshaller newMarshaller(JAXBContext context) {
+        Map<JAXBContext, Marshaller> marshallers = contextToMarshaller.get();
+        Marshaller result = marshallers.get(context);
+        if (result != null)
+            marshallerStatistics.hit();
+        else {
+            result = createMarshaller(context);
+            marshallers.put(context, result);
+        }
+        return initializeMarshaller(result);
+    }
+
+    private static Marshaller newFragmentMarshaller(JAXBContext context) {
+        // the element stream writer keeps its marshallers for the whole document
+        Marshaller result = initializeMarshaller(createMarshaller(context));
+        try {
+            result.setProperty(JAXB_FRAGMENT, true);
+        } catch (PropertyException e) {
+            throw new RuntimeException(e);
+        }
         return result;
     }
 
-    public static Unmarshaller newUnmarshaller(JAXBContext context) {
+    public static ElementStreamWriter newElementStreamWriter(OutputStream outputStream, JAXBContext context,
+                                                             ElementHandler handler) throws XMLStreamException {
+        ElementStreamWriter writer = new ElementStreamWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8"),
+                newFragmentMarshaller(context), newFragmentMarshaller(context), handler,
+                preferences.getBoolean("prettyPrintXml", true));
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeComment(HEADER_COMMENT);
+        return writer;
+    }
+
+    public static ElementStreamReader newElementStreamReader(XMLStreamReader reader, JAXBContext context,
+                                                             ElementStreamReader.ElementHandler handler) throws XMLStreamException {
+        // the element unmarshaller is used while the cached one unmarshals the document
+        return new ElementStreamReader(reader, createUnmarshaller(context), handler);
+    }
+
+    private static Unmarshaller createUnmarshaller(JAXBContext context) {
+        long start = nanoTime();
         try {
-            return context.createUnmarshaller();
+            Unmarshaller result = context.createUnmarshaller();
+            unmarshallerStatistics.created(nanoTime() - start);
+            return result;
         } catch (JAXBException e) {
             throw new RuntimeException(e);
         }
     }
+
+    public static Unmarshaller newUnmarshaller(JAXBContext context) {
+        Map<JAXBContext, Unmarshaller> unmarshallers = contextToUnmarshaller.get();
+        Unmarshaller result = unmarshallers.get(context);
+        if (result != null) {
+            unmarshallerStatistics.hit();
+            return result;
+        }
+
+        result = createUnmarshaller(context);
+        unmarshallers.put(context, result);
+        return result;
+    }
+
+    public static Statistics getContextStatistics() {
+        return contextStatistics;
+    }
+
+    public static Statistics getMarshallerStatistics() {
+        return marshallerStatistics;
+    }
+
+    public static Statistics getUnmarshallerStatistics() {
+        return unmarshallerStatistics;
+    }
+
+    /**
+     * Counts cache hits and creations together with the time spent for creations.
+     */
+    public static class Statistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong creations = new AtomicLong();
+        private final AtomicLong creationNanos = new AtomicLong();
+
+        void hit() {
+            hits.incrementAndGet();
+        }
+
+        void created(long nanos) {
+            creations.incrementAndGet();
+            creationNanos.addAndGet(nanos);
+        }
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getCreations() {
+            return creations.get();
+        }
+
+        public long getCreationMilliseconds() {
+            return NANOSECONDS.toMillis(creationNanos.get());
+        }
+
+        public double getHitRate() {
+            long total = getHits() + getCreations();
+            return total > 0 ? (double) getHits() / total : 0.0;
+        }
+
+        public String toString() {
+            return format("%d hits, %d creations in %d ms, hit rate %.1f%%",
+                    getHits(), getCreations(), getCreationMilliseconds(), getHitRate() * 100.0);
+        }
+    }
 }
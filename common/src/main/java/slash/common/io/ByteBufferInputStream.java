@@ -0,0 +1,106 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import static java.lang.Math.min;
+
+/**
+ * An {@link InputStream} that reads from a view of a {@link ByteBuffer} without copying it.
+ * {@link #mark(int)} and {@link #reset()} are supported without a read limit.
+ *
+ * @author Christian Pesch
+ */
+
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+    private int mark;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.mark = this.buffer.position();
+    }
+
+    public int read() throws IOException {
+        if (!buffer.hasRemaining())
+            return -1;
+        return buffer.get() & 0xff;
+    }
+
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+        if (!buffer.hasRemaining())
+            return -1;
+        int count = min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    public long skip(long count) throws IOException {
+        if (count <= 0)
+            return 0;
+        int skip = (int) min(count, buffer.remaining());
+        buffer.position(buffer.position() + skip);
+        return skip;
+    }
+
+    public int available() {
+        return buffer.remaining();
+    }
+
+    public boolean markSupported() {
+        return true;
+    }
+
+    public synchronized void mark(int readlimit) {
+        mark = buffer.position();
+    }
+
+    public synchronized void reset() {
+        buffer.position(mark);
+    }
+
+    /**
+     * Returns a view of the remaining bytes which starts with the given prefix if
+     * the prefix are the bytes just read, and consumes the remaining bytes.
+     *
+     * @param prefix the bytes that have been read last
+     * @return the view or null if the prefix are not the bytes just read
+     */
+    ByteBuffer readRemaining(byte[] prefix) {
+        int start = buffer.position() - prefix.length;
+        if (start < 0)
+            return null;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(start + i) != prefix[i])
+                return null;
+        }
+
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        buffer.position(buffer.limit());
+        return view.slice();
+    }
+}
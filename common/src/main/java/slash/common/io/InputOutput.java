@@ -21,9 +21,17 @@
 package slash.common.io;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static org.apache.commons.io.IOUtils.copyLarge;
+import static slash.common.system.Platform.isWindows;
 
 /**
  * As a pipe reads from input and writes to output.
@@ -69,6 +77,82 @@ public class InputOutput {
         return output.toByteArray();
     }
 
+    /**
+     * Reads the remaining bytes of the input into a {@link ByteBuffer} whose capacity is the
+     * number of bytes read. The input is not closed.
+     *
+     * The buffers of a {@link ByteBufferInputStream} are viewed and the files of a
+     * {@link FileInputStream} are mapped without copying; other inputs are read into a direct
+     * buffer outside of the heap that grows as needed instead of relying on
+     * {@link InputStream#available()}. Files are read into a buffer of their size on Windows
+     * since a mapping keeps them locked until it is garbage collected.
+     *
+     * @param input the input to read from
+     * @param prefix the bytes that have already been read from the input and that
+     *               the buffer should start with
+     * @return a buffer with the prefix and the remaining bytes of the input at position 0
+     * @throws IOException if the input cannot be read or is larger than 2 GB
+     */
+    public static ByteBuffer readByteBuffer(InputStream input, byte[] prefix) throws IOException {
+        if (input instanceof ByteBufferInputStream) {
+            ByteBuffer buffer = ((ByteBufferInputStream) input).readRemaining(prefix);
+            if (buffer != null)
+                return buffer;
+        }
+
+        long size = prefix.length + (long) input.available();
+        if (input instanceof FileInputStream) {
+            FileChannel channel = ((FileInputStream) input).getChannel();
+            if (!isWindows()) {
+                ByteBuffer buffer = mapRemaining(channel, prefix);
+                if (buffer != null)
+                    return buffer;
+            }
+            size = prefix.length + max(channel.size() - channel.position(), 0);
+        }
+
+        ByteBuffer buffer = allocateDirect((int) min(max(size, DEFAULT_BUFFER_SIZE), MAX_VALUE));
+        buffer.put(prefix);
+        byte[] chunk = new byte[DEFAULT_BUFFER_SIZE];
+        int count;
+        while ((count = input.read(chunk)) != -1) {
+            if (buffer.remaining() < count)
+                buffer = grow(buffer, count);
+            buffer.put(chunk, 0, count);
+        }
+        buffer.flip();
+        return buffer.slice();
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int count) throws IOException {
+        long required = (long) buffer.position() + count;
+        if (required > MAX_VALUE)
+            throw new IOException("Cannot read more than " + MAX_VALUE + " bytes");
+        ByteBuffer grown = allocateDirect((int) min(max(buffer.capacity() * 2L, required), MAX_VALUE));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    private static ByteBuffer mapRemaining(FileChannel channel, byte[] prefix) throws IOException {
+        long start = channel.position() - prefix.length;
+        long size = channel.size();
+        if (start < 0 || size - start > MAX_VALUE)
+            return null;
+
+        ByteBuffer buffer = channel.map(READ_ONLY, start, size - start);
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(i) != prefix[i])
+                return null;
+        }
+        channel.position(size);
+        return buffer;
+    }
+
+    public static ByteBuffer readByteBuffer(InputStream input) throws IOException {
+        return readByteBuffer(input, new byte[0]);
+    }
+
     public static String readFileToString(File file) throws IOException {
         return new String(readBytes(new FileInputStream(file)), StandardCharsets.UTF_8);
     }
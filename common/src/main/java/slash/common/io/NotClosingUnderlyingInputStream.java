@@ -57,6 +57,14 @@ public class NotClosingUnderlyingInputStream extends InputStream {
         return delegate.read();
     }
 
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        return delegate.read(bytes, offset, length);
+    }
+
+    public long skip(long count) throws IOException {
+        return delegate.skip(count);
+    }
+
     public void closeUnderlyingInputStream() throws IOException {
         delegate.close();
     }
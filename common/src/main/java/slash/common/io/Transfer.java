@@ -38,6 +38,7 @@ import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 
 import static java.lang.Double.POSITIVE_INFINITY;
+import static java.lang.Double.isInfinite;
 import static java.lang.Double.isNaN;
 import static java.lang.Integer.toHexString;
 import static java.lang.Math.*;
@@ -179,26 +180,60 @@ public class Transfer {
         return aBoolean == null || aBoolean;
     }
 
-    private static final NumberFormat DECIMAL_NUMBER_FORMAT = DecimalFormat.getNumberInstance(US);
-
-    static {
-        DECIMAL_NUMBER_FORMAT.setGroupingUsed(false);
-        DECIMAL_NUMBER_FORMAT.setMinimumFractionDigits(1);
-        DECIMAL_NUMBER_FORMAT.setMaximumFractionDigits(20);
+    private static final ThreadLocal<NumberFormat> DECIMAL_NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+        protected NumberFormat initialValue() {
+            NumberFormat numberFormat = DecimalFormat.getNumberInstance(US);
+            numberFormat.setGroupingUsed(false);
+            numberFormat.setMinimumFractionDigits(1);
+            numberFormat.setMaximumFractionDigits(20);
+            return numberFormat;
+        }
+    };
+
+    /**
+     * Creates a US number format without grouping for each thread since a
+     * {@link NumberFormat} must not be shared between threads.
+     */
+    public static ThreadLocal<NumberFormat> createNumberFormat(final int minimumIntegerDigits, final int maximumIntegerDigits,
+                                                             final int minimumFractionDigits, final int maximumFractionDigits) {
+        return new ThreadLocal<NumberFormat>() {
+            protected NumberFormat initialValue() {
+                NumberFormat numberFormat = DecimalFormat.getNumberInstance(US);
+                numberFormat.setGroupingUsed(false);
+                numberFormat.setMinimumFractionDigits(minimumFractionDigits);
+                numberFormat.setMaximumFractionDigits(maximumFractionDigits);
+                numberFormat.setMinimumIntegerDigits(minimumIntegerDigits);
+                numberFormat.setMaximumIntegerDigits(maximumIntegerDigits);
+                return numberFormat;
+            }
+        };
     }
 
     public static String formatDoubleAsString(Double aDouble) {
         if (aDouble == null || isNaN(aDouble))
             return "0.0";
-        return DECIMAL_NUMBER_FORMAT.format(aDouble);
+        // Double.toString() uses the same digits as DecimalFormat and is plain from 10^-3 to 10^7
+        String string = Double.toString(aDouble);
+        if (string.indexOf('E') == -1 && !isInfinite(aDouble))
+            return string;
+        return DECIMAL_NUMBER_FORMAT.get().format(aDouble);
     }
 
     public static String formatDoubleAsString(Double aDouble, int exactFractionCount) {
-        StringBuilder buffer = new StringBuilder(formatDoubleAsString(aDouble));
-        int index = buffer.indexOf(".");
-        if (index == -1) {
-            buffer.append(".");
+        String string = formatDoubleAsString(aDouble);
+        int index = string.indexOf('.');
+        if (index != -1) {
+            int length = index + 1 + exactFractionCount;
+            if (string.length() >= length)
+                return string.substring(0, length);
+            char[] chars = new char[length];
+            string.getChars(0, string.length(), chars, 0);
+            Arrays.fill(chars, string.length(), length, '0');
+            return new String(chars);
         }
+
+        StringBuilder buffer = new StringBuilder(string);
+        buffer.append(".");
         while (buffer.length() - index <= exactFractionCount)
             buffer.append("0");
         while (buffer.length() - index > exactFractionCount + 1)
@@ -240,9 +275,8 @@ public class Transfer {
     public static Double parseDouble(String string) {
         String trimmed = trim(string);
         if (trimmed != null) {
-            trimmed = trimmed.replaceAll(",", ".");
             try {
-                return Double.parseDouble(trimmed);
+                return parseDouble(trimmed, 0, trimmed.length());
             } catch (NumberFormatException e) {
                 if (trimmed.equals("\u221e"))
                     return POSITIVE_INFINITY;
@@ -252,6 +286,92 @@ public class Transfer {
             return null;
     }
 
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAXIMUM_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Parses a decimal number from the characters between start and end. Both '.' and ','
+     * are accepted as decimal separator. Numbers with up to 15 significant digits and a small
+     * exponent are converted without allocations; all other notations are handed over to
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param chars the characters to parse
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @return the parsed number
+     * @throws NumberFormatException if the characters do not form a number
+     */
+    public static double parseDouble(CharSequence chars, int start, int end) {
+        int index = start;
+        boolean negative = false;
+        if (index < end) {
+            char c = chars.charAt(index);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                index++;
+            }
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0, exponent = 0;
+        boolean digits = false, separator = false;
+        for (; index < end; index++) {
+            char c = chars.charAt(index);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (mantissa != 0 || c != '0') {
+                    if (++significantDigits > 18)
+                        return parseDoubleWithDoubleParser(chars, start, end);
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (separator)
+                    exponent--;
+            } else if ((c == '.' || c == ',') && !separator)
+                separator = true;
+            else
+                break;
+        }
+        if (!digits)
+            return parseDoubleWithDoubleParser(chars, start, end);
+
+        if (index < end && (chars.charAt(index) == 'e' || chars.charAt(index) == 'E')) {
+            index++;
+            boolean negativeExponent = false;
+            if (index < end && (chars.charAt(index) == '-' || chars.charAt(index) == '+')) {
+                negativeExponent = chars.charAt(index) == '-';
+                index++;
+            }
+            int exponentStart = index, explicitExponent = 0;
+            for (; index < end && index - exponentStart < 4; index++) {
+                char c = chars.charAt(index);
+                if (c < '0' || c > '9')
+                    break;
+                explicitExponent = explicitExponent * 10 + (c - '0');
+            }
+            if (index == exponentStart)
+                return parseDoubleWithDoubleParser(chars, start, end);
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (index != end)
+            return parseDoubleWithDoubleParser(chars, start, end);
+
+        double value;
+        if (mantissa == 0)
+            value = 0.0;
+        else if (mantissa < MAXIMUM_EXACT_MANTISSA && exponent >= -22 && exponent <= 22)
+            value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        else
+            return parseDoubleWithDoubleParser(chars, start, end);
+        return negative ? -value : value;
+    }
+
+    private static double parseDoubleWithDoubleParser(CharSequence chars, int start, int end) {
+        return Double.parseDouble(chars.subSequence(start, end).toString().replace(',', '.'));
+    }
+
     public static String formatDuration(long milliseconds) {
         long seconds = milliseconds / 1000;
         long minutes = seconds / 60;
@@ -426,6 +546,23 @@ public class Transfer {
         return fromMillis(gregorianCalendar.getTimeInMillis());
     }
 
+    /**
+     * Parses the lexical representation of an xsd:dateTime like JAXB does.
+     *
+     * @param string the text of the element
+     * @return the time or null if there is no text
+     * @throws IllegalArgumentException if the text is no valid lexical representation
+     */
+    public static CompactCalendar parseXMLTime(String string) {
+        if (string == null)
+            return null;
+        try {
+            return parseXMLTime(getDataTypeFactory().newXMLGregorianCalendar(string.trim()));
+        } catch (DatatypeConfigurationException e) {
+            return null;
+        }
+    }
+
     private static DatatypeFactory datatypeFactory;
 
     private static synchronized DatatypeFactory getDataTypeFactory() throws DatatypeConfigurationException {
@@ -26,9 +26,13 @@ import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.logging.Logger;
 
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
 import static java.text.DateFormat.MEDIUM;
 import static java.text.DateFormat.SHORT;
+import static java.util.Calendar.DAY_OF_MONTH;
 import static java.util.Calendar.DAY_OF_YEAR;
+import static java.util.Calendar.MONTH;
 import static java.util.Calendar.YEAR;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
@@ -43,6 +47,12 @@ import static java.util.Collections.unmodifiableMap;
 public class CompactCalendar {
     private static final Logger log = Logger.getLogger(CompactCalendar.class.getName());
     public static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    // days from 0000-03-01 to 1970-01-01 and per 400 years in the proleptic gregorian calendar
+    private static final long DAYS_0000_TO_1970 = 719468L;
+    private static final long DAYS_PER_400_YEARS = 146097L;
+    // a day after 1583-01-01, the first year completely in the gregorian calendar of java.util.Calendar
+    private static final long GREGORIAN_YEARS = -12212553600000L + MILLIS_PER_DAY;
 
     private final long timeInMillis;
     private final String timeZoneId;
@@ -58,11 +68,27 @@ public class CompactCalendar {
         return simpleDateFormat;
     }
 
+    private static final ThreadLocal<Map<String, DateFormat>> patternToDateFormat = new ThreadLocal<Map<String, DateFormat>>() {
+        protected Map<String, DateFormat> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    private static DateFormat getDateFormat(String pattern) {
+        Map<String, DateFormat> dateFormats = patternToDateFormat.get();
+        DateFormat dateFormat = dateFormats.get(pattern);
+        if (dateFormat == null) {
+            dateFormat = createDateFormat(pattern);
+            dateFormats.put(pattern, dateFormat);
+        }
+        return dateFormat;
+    }
+
     public static CompactCalendar parseDate(String dateString, String dateFormatString) {
         if (dateString == null)
             return null;
         try {
-            DateFormat dateFormat = createDateFormat(dateFormatString);
+            DateFormat dateFormat = getDateFormat(dateFormatString);
             Date parsed = dateFormat.parse(dateString);
             return fromDate(parsed);
         } catch (ParseException e) {
@@ -111,13 +137,102 @@ public class CompactCalendar {
         return result;
     }
 
+    private long getLocalMillis() {
+        return "UTC".equals(getTimeZoneId()) ? timeInMillis : timeInMillis + getTimeZone().getOffset(timeInMillis);
+    }
+
+    /**
+     * Returns the number of days since 1970-01-01 in the time zone of this calendar.
+     */
+    private long getLocalEpochDay() {
+        return floorDiv(getLocalMillis(), MILLIS_PER_DAY);
+    }
+
+    private static long toYear(long epochDay) {
+        long days = epochDay + DAYS_0000_TO_1970;
+        long era = floorDiv(days, DAYS_PER_400_YEARS);
+        long dayOfEra = days - era * DAYS_PER_400_YEARS;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        // the year starts on March 1st
+        long month = (5 * dayOfYear + 2) / 153;
+        return yearOfEra + era * 400 + (month >= 10 ? 1 : 0);
+    }
+
+    private static long toEpochDay(long year, int month, int day) {
+        // January and February belong to the year before that starts on March 1st
+        long marchYear = month <= 2 ? year - 1 : year;
+        long era = floorDiv(marchYear, 400);
+        long yearOfEra = marchYear - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    public static boolean isLeapYear(int year) {
+        return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Creates a calendar in UTC from year, month from 1 to 12, day of the month and the
+     * milliseconds of the day without the lenient field arithmetic of {@link Calendar}.
+     * The date has to be a valid date of the gregorian calendar from 1583 on.
+     */
+    public static CompactCalendar fromDateAndMillisOfDay(int year, int month, int day, long millisOfDay) {
+        return fromMillis(toEpochDay(year, month, day) * MILLIS_PER_DAY + millisOfDay);
+    }
+
     public boolean hasDateDefined() {
+        // not January 1st, 1970 in the time zone of this calendar
+        return getLocalEpochDay() != 0;
+    }
+
+    public int getYear() {
+        if (timeInMillis < GREGORIAN_YEARS)
+            return getCalendar().get(YEAR);
+        return (int) toYear(getLocalEpochDay());
+    }
+
+    public int getDayOfYear() {
+        if (timeInMillis < GREGORIAN_YEARS)
+            return getCalendar().get(DAY_OF_YEAR);
+        long epochDay = getLocalEpochDay();
+        return (int) (epochDay - toEpochDay(toYear(epochDay), 1, 1) + 1);
+    }
+
+    /**
+     * Returns whether year, month and day of both calendars are equal in their time zones.
+     */
+    public boolean isSameDay(CompactCalendar other) {
+        if (timeInMillis < GREGORIAN_YEARS || other.timeInMillis < GREGORIAN_YEARS) {
+            Calendar calendar = getCalendar();
+            Calendar otherCalendar = other.getCalendar();
+            return calendar.get(YEAR) == otherCalendar.get(YEAR) &&
+                    calendar.get(MONTH) == otherCalendar.get(MONTH) &&
+                    calendar.get(DAY_OF_MONTH) == otherCalendar.get(DAY_OF_MONTH);
+        }
+        return getLocalEpochDay() == other.getLocalEpochDay();
+    }
+
+    /**
+     * Returns a calendar with the time of day of this calendar and year, month
+     * and day of the given calendar in its time zone.
+     */
+    public CompactCalendar withDateOf(CompactCalendar date) {
+        if ("UTC".equals(getTimeZoneId()) && timeInMillis >= GREGORIAN_YEARS && date.timeInMillis >= GREGORIAN_YEARS) {
+            long timeOfDay = floorMod(timeInMillis, MILLIS_PER_DAY);
+            return new CompactCalendar(date.getLocalEpochDay() * MILLIS_PER_DAY + timeOfDay, "UTC");
+        }
         Calendar calendar = getCalendar();
-        return !(calendar.get(YEAR) == 1970 && calendar.get(DAY_OF_YEAR) == 1);
+        Calendar dateCalendar = date.getCalendar();
+        calendar.set(YEAR, dateCalendar.get(YEAR));
+        calendar.set(MONTH, dateCalendar.get(MONTH));
+        calendar.set(DAY_OF_MONTH, dateCalendar.get(DAY_OF_MONTH));
+        return fromCalendar(calendar);
     }
 
     public Date getTime() {
-        return getCalendar().getTime();
+        return new Date(getTimeInMillis());
     }
 
     private static volatile Map<String, TimeZone> timeZones = emptyMap();
@@ -147,15 +262,12 @@ public class CompactCalendar {
     }
 
     public boolean after(CompactCalendar other) {
-        if (getTimeZoneId().equals(other.getTimeZoneId()))
-            return getTimeInMillis() > other.getTimeInMillis();
-        return getCalendar().after(other.getCalendar());
+        // calendars compare their instants regardless of the time zone
+        return getTimeInMillis() > other.getTimeInMillis();
     }
 
     public boolean before(CompactCalendar other) {
-        if (getTimeZoneId().equals(other.getTimeZoneId()))
-            return getTimeInMillis() < other.getTimeInMillis();
-        return getCalendar().before(other.getCalendar());
+        return getTimeInMillis() < other.getTimeInMillis();
     }
 
     public boolean equals(Object o) {
@@ -20,7 +20,6 @@
 
 package slash.common.type;
 
-import java.text.DecimalFormat;
 import java.util.Calendar;
 import java.util.TimeZone;
 
@@ -60,10 +59,6 @@ import static slash.common.type.CompactCalendar.UTC;
  */
 
 public final class ISO8601 {
-    private static final DecimalFormat XX_FORMAT = new DecimalFormat("00");
-    private static final DecimalFormat XXX_FORMAT = new DecimalFormat("000");
-    private static final DecimalFormat XXXX_FORMAT = new DecimalFormat("0000");
-
     /**
      * Parses an ISO8601-compliant date/time string.
      *
@@ -259,26 +254,26 @@ public final class ISO8601 {
          */
         StringBuilder buffer = new StringBuilder();
         // year ([-]YYYY)
-        buffer.append(XXXX_FORMAT.format(year));
+        appendDigits(buffer, year, 4);
         buffer.append('-');
         // month (MM)
-        buffer.append(XX_FORMAT.format(calendar.get(MONTH) + 1));
+        appendDigits(buffer, calendar.get(MONTH) + 1, 2);
         buffer.append('-');
         // day (DD)
-        buffer.append(XX_FORMAT.format(calendar.get(DAY_OF_MONTH)));
+        appendDigits(buffer, calendar.get(DAY_OF_MONTH), 2);
         buffer.append('T');
         // hour (hh)
-        buffer.append(XX_FORMAT.format(calendar.get(HOUR_OF_DAY)));
+        appendDigits(buffer, calendar.get(HOUR_OF_DAY), 2);
         buffer.append(':');
         // minute (mm)
-        buffer.append(XX_FORMAT.format(calendar.get(MINUTE)));
+        appendDigits(buffer, calendar.get(MINUTE), 2);
         buffer.append(':');
         // second (ss)
-        buffer.append(XX_FORMAT.format(calendar.get(SECOND)));
+        appendDigits(buffer, calendar.get(SECOND), 2);
         if (includeMilliseconds) {
             // millisecond (SSS)
             buffer.append('.');
-            buffer.append(XXX_FORMAT.format(calendar.get(MILLISECOND)));
+            appendDigits(buffer, calendar.get(MILLISECOND), 3);
         }
         if (calendar.getTimeZone().equals(UTC))
             buffer.append('Z');
@@ -286,10 +281,24 @@ public final class ISO8601 {
             buffer.append('+');
             int offsetHours = calendar.getTimeZone().getRawOffset() / 1000 / 3600;
             int offsetMinutes = calendar.getTimeZone().getRawOffset() / 1000 / 60 - offsetHours * 60;
-            buffer.append(XX_FORMAT.format(offsetHours));
+            appendDigits(buffer, offsetHours, 2);
             buffer.append(':');
-            buffer.append(XX_FORMAT.format(offsetMinutes));
+            appendDigits(buffer, offsetMinutes, 2);
         }
         return buffer.toString();
     }
+
+    /**
+     * Appends the value with leading zeros like a DecimalFormat, which must not be shared between threads.
+     */
+    private static void appendDigits(StringBuilder buffer, int value, int digitCount) {
+        if (value < 0) {
+            buffer.append('-');
+            value = -value;
+        }
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < digitCount; i++)
+            buffer.append('0');
+        buffer.append(digits);
+    }
 }
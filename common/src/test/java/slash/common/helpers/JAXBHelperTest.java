@@ -0,0 +1,93 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.helpers;
+
+import org.junit.Test;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static javax.xml.bind.Marshaller.JAXB_ENCODING;
+import static javax.xml.bind.Marshaller.JAXB_FRAGMENT;
+import static org.junit.Assert.*;
+import static slash.common.helpers.JAXBHelper.*;
+
+public class JAXBHelperTest {
+
+    @XmlRootElement
+    public static class Sample {
+        public String name;
+    }
+
+    @Test
+    public void testContextIsCached() {
+        long hits = getContextStatistics().getHits();
+        JAXBContext context = newContext(Sample.class);
+        assertSame(context, newContext(Sample.class));
+        assertTrue(getContextStatistics().getHits() > hits);
+    }
+
+    @Test
+    public void testMarshallerIsCachedPerThread() throws Exception {
+        JAXBContext context = newContext(Sample.class);
+        final Marshaller marshaller = newMarshaller(context);
+        assertSame(marshaller, newMarshaller(context));
+        assertSame(newUnmarshaller(context), newUnmarshaller(context));
+
+        final Marshaller[] other = new Marshaller[1];
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                other[0] = newMarshaller(newContext(Sample.class));
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotNull(other[0]);
+        assertNotSame(marshaller, other[0]);
+    }
+
+    @Test
+    public void testMarshallerPropertiesAreReset() throws JAXBException {
+        JAXBContext context = newContext(Sample.class);
+        Marshaller marshaller = newMarshaller(context);
+        marshaller.setProperty(JAXB_FRAGMENT, true);
+        marshaller.setProperty(JAXB_ENCODING, "ISO-8859-1");
+
+        marshaller = newMarshaller(context);
+        assertEquals(false, marshaller.getProperty(JAXB_FRAGMENT));
+        assertEquals("UTF-8", marshaller.getProperty(JAXB_ENCODING));
+
+        Sample sample = new Sample();
+        sample.name = "a";
+        StringWriter writer = new StringWriter();
+        marshaller.marshal(sample, writer);
+        assertTrue(writer.toString().startsWith("<?xml"));
+
+        Unmarshaller unmarshaller = newUnmarshaller(context);
+        Sample read = (Sample) unmarshaller.unmarshal(new StringReader(writer.toString()));
+        assertEquals("a", read.name);
+    }
+}
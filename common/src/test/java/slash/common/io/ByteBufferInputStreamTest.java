@@ -0,0 +1,62 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ByteBufferInputStreamTest {
+
+    @Test
+    public void testReadAndReset() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1, 2, 3, (byte) 255});
+        ByteBufferInputStream stream = new ByteBufferInputStream(buffer);
+        assertTrue(stream.markSupported());
+        stream.mark(0);
+        assertEquals(1, stream.read());
+        byte[] bytes = new byte[8];
+        assertEquals(3, stream.read(bytes, 0, bytes.length));
+        assertEquals(255, bytes[2] & 0xff);
+        assertEquals(-1, stream.read());
+        assertEquals(-1, stream.read(bytes, 0, bytes.length));
+
+        stream.reset();
+        assertEquals(4, stream.available());
+        assertEquals(2, stream.skip(2));
+        assertEquals(3, stream.read());
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void testIndependentViews() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1, 2});
+        ByteBufferInputStream first = new ByteBufferInputStream(buffer);
+        ByteBufferInputStream second = new ByteBufferInputStream(buffer);
+        assertEquals(1, first.read());
+        assertEquals(2, first.read());
+        assertEquals(1, second.read());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static java.io.File.createTempFile;
+import static org.junit.Assert.*;
+import static slash.common.io.InputOutput.readByteBuffer;
+
+public class InputOutputTest {
+    private static byte[] createBytes(int count) {
+        byte[] bytes = new byte[count];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        assertEquals(0, buffer.position());
+        assertEquals(buffer.capacity(), buffer.limit());
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testReadByteBufferViewsByteBufferInputStream() throws IOException {
+        byte[] bytes = createBytes(100);
+        ByteBuffer source = ByteBuffer.wrap(bytes);
+        ByteBufferInputStream input = new ByteBufferInputStream(source);
+        byte[] header = new byte[10];
+        assertEquals(10, input.read(header));
+
+        ByteBuffer buffer = readByteBuffer(input, header);
+        assertArrayEquals(bytes, toBytes(buffer));
+        assertEquals(-1, input.read());
+
+        // a view and not a copy
+        bytes[50] = (byte) ~bytes[50];
+        assertEquals(bytes[50], buffer.get(50));
+    }
+
+    @Test
+    public void testReadByteBufferMapsFileInputStream() throws IOException {
+        byte[] bytes = createBytes(10000);
+        File file = createTempFile("input", ".bin");
+        try {
+            try (OutputStream output = new FileOutputStream(file)) {
+                output.write(bytes);
+            }
+            try (InputStream input = new FileInputStream(file)) {
+                byte[] header = new byte[2];
+                assertEquals(2, input.read(header));
+                assertEquals(2, input.skip(2));
+
+                ByteBuffer buffer = readByteBuffer(input);
+                // mapped or read into a buffer of the remaining size of the file on Windows
+                assertTrue(buffer.isDirect());
+                assertEquals(bytes.length - 4, buffer.capacity());
+                assertArrayEquals(Arrays.copyOfRange(bytes, 4, bytes.length), toBytes(buffer));
+                assertEquals(-1, input.read());
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testReadByteBufferGrowsBeyondAvailable() throws IOException {
+        byte[] bytes = createBytes(100000);
+        // returns at most 1000 bytes per read and nothing from available()
+        InputStream input = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 1000));
+            }
+
+            public int available() {
+                return 0;
+            }
+        };
+        byte[] header = new byte[16];
+        assertEquals(16, input.read(header));
+
+        ByteBuffer buffer = readByteBuffer(input, header);
+        assertTrue(buffer.isDirect());
+        assertArrayEquals(bytes, toBytes(buffer));
+    }
+
+    @Test
+    public void testReadByteBufferWithExactAvailable() throws IOException {
+        byte[] bytes = createBytes(InputOutput.DEFAULT_BUFFER_SIZE * 3);
+        assertArrayEquals(bytes, toBytes(readByteBuffer(new ByteArrayInputStream(bytes))));
+        assertEquals(0, readByteBuffer(new ByteArrayInputStream(new byte[0])).capacity());
+    }
+}
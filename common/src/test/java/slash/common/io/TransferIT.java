@@ -0,0 +1,84 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Random;
+
+import static java.util.Locale.US;
+import static org.junit.Assert.assertEquals;
+import static slash.common.io.Transfer.formatDoubleAsString;
+import static slash.common.io.Transfer.parseDouble;
+import static slash.common.io.Transfer.roundFraction;
+
+/**
+ * Checks the hand written number parsing and formatting of {@link Transfer} against
+ * {@link Double#parseDouble(String)} and {@link DecimalFormat} for a million random coordinates.
+ */
+public class TransferIT {
+    private static final int VALUES = 1000000;
+
+    private static double[] createValues(int count) {
+        Random random = new Random(42);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            double value = random.nextDouble() * 360.0 - 180.0;
+            // mixes the precision of written files with full doubles and tiny values
+            switch (i % 3) {
+                case 0:
+                    values[i] = roundFraction(value, 7);
+                    break;
+                case 1:
+                    values[i] = value;
+                    break;
+                default:
+                    values[i] = value / 1000000.0;
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void testParseDouble() {
+        for (double value : createValues(VALUES)) {
+            String string = Double.toString(value);
+            assertEquals(string, Double.parseDouble(string), parseDouble(string), 0.0);
+            assertEquals(string, Double.parseDouble(string), parseDouble(" " + string.replace('.', ',') + " "), 0.0);
+        }
+    }
+
+    @Test
+    public void testFormatDoubleAsString() {
+        NumberFormat decimalFormat = DecimalFormat.getNumberInstance(US);
+        decimalFormat.setGroupingUsed(false);
+        decimalFormat.setMinimumFractionDigits(1);
+        decimalFormat.setMaximumFractionDigits(20);
+
+        for (double value : createValues(VALUES)) {
+            String string = formatDoubleAsString(value);
+            assertEquals(decimalFormat.format(value), string);
+            // DecimalFormat stops after 20 fraction digits for values below 10^-3
+            assertEquals(value, Double.parseDouble(string), 1.0E-20);
+        }
+    }
+}
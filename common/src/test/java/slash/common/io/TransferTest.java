@@ -22,8 +22,14 @@ package slash.common.io;
 
 import org.junit.Test;
 
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
+import static java.util.Locale.US;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static slash.common.TestCase.assertDoubleEquals;
 import static slash.common.io.Transfer.*;
 
@@ -67,6 +73,26 @@ public class TransferTest {
         assertEquals("1.00000", formatDoubleAsString(1.0000005, 5));
     }
 
+    @Test
+    public void testCreateNumberFormat() throws InterruptedException {
+        final ThreadLocal<NumberFormat> numberFormat = createNumberFormat(4, 4, 2, 3);
+        assertEquals("0012.346", numberFormat.get().format(12.3456));
+        assertEquals("1234.50", numberFormat.get().format(1234.5));
+        assertEquals("2345.00", numberFormat.get().format(12345.0));
+        assertEquals("-0001.25", numberFormat.get().format(-1.25));
+
+        final NumberFormat[] other = new NumberFormat[1];
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                other[0] = numberFormat.get();
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotSame(numberFormat.get(), other[0]);
+        assertEquals("0012.346", other[0].format(12.3456));
+    }
+
     @Test
     public void testFormatIntAsString() {
         assertEquals("1", formatIntAsString(1, 1));
@@ -132,4 +158,64 @@ public class TransferTest {
         assertEquals(expected, encodeFileName(original));
         assertEquals(original, decodeUri(expected));
     }
+
+    @Test
+    public void testParseDoubleWithSeparatorsAndExponents() {
+        assertDoubleEquals(1.5, parseDoubleAndAssertNotNull("1,5"));
+        assertDoubleEquals(-0.5, parseDoubleAndAssertNotNull(" -,5 "));
+        assertDoubleEquals(1500.0, parseDoubleAndAssertNotNull("1.5e3"));
+        assertDoubleEquals(5.0, parseDoubleAndAssertNotNull("+5."));
+        assertDoubleEquals(Double.POSITIVE_INFINITY, parseDoubleAndAssertNotNull("\u221e"));
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(parseDoubleAndAssertNotNull("-0.0")));
+        assertDoubleEquals(12.25, parseDouble("$12.25*", 1, 6));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseDoubleWithTwoSeparators() {
+        parseDouble("1,234,5");
+    }
+
+    @Test
+    public void testParseDoubleMatchesDoubleParser() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                continue;
+            String string;
+            switch (i % 4) {
+                case 0:
+                    string = Double.toString(value);
+                    break;
+                case 1:
+                    string = Long.toString(random.nextLong() % 100000000000L) + "." + random.nextInt(10000000);
+                    break;
+                case 2:
+                    string = formatDoubleAsString(random.nextDouble() * 360.0 - 180.0);
+                    break;
+                default:
+                    string = random.nextInt(1000) + "." + random.nextInt(1000) + "E" + (random.nextInt(60) - 30);
+                    break;
+            }
+            assertEquals(string, Double.parseDouble(string), parseDoubleAndAssertNotNull(string), 0.0);
+        }
+    }
+
+    @Test
+    public void testFormatDoubleAsStringMatchesDecimalFormat() {
+        NumberFormat numberFormat = DecimalFormat.getNumberInstance(US);
+        numberFormat.setGroupingUsed(false);
+        numberFormat.setMinimumFractionDigits(1);
+        numberFormat.setMaximumFractionDigits(20);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 15);
+            if (i % 3 == 0)
+                value = Transfer.roundFraction(value, random.nextInt(8));
+            assertEquals(numberFormat.format(value), formatDoubleAsString(value));
+        }
+        assertEquals(numberFormat.format(Double.POSITIVE_INFINITY), formatDoubleAsString(Double.POSITIVE_INFINITY));
+        assertEquals(numberFormat.format(-0.0), formatDoubleAsString(-0.0));
+    }
 }
\ No newline at end of file
@@ -23,12 +23,13 @@ package slash.common.type;
 import org.junit.Test;
 
 import java.util.Calendar;
+import java.util.Random;
 import java.util.TimeZone;
 
+import static java.util.Calendar.*;
 import static org.junit.Assert.*;
 import static slash.common.TestCase.assertCalendarEquals;
-import static slash.common.type.CompactCalendar.UTC;
-import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.common.type.CompactCalendar.*;
 
 public class CompactCalendarTest {
 
@@ -72,4 +73,48 @@ public class CompactCalendarTest {
         assertEquals("UTC", inTimeZone.getTimeZoneId());
     }
 
+    @Test
+    public void testHasDateDefined() {
+        assertFalse(fromMillis(0).hasDateDefined());
+        assertFalse(fromMillis(24 * 60 * 60 * 1000 - 1).hasDateDefined());
+        assertTrue(fromMillis(24 * 60 * 60 * 1000).hasDateDefined());
+        assertTrue(fromMillis(-1).hasDateDefined());
+        assertTrue(fromMillisAndTimeZone(0, "America/New_York").hasDateDefined());
+        assertFalse(fromMillisAndTimeZone(6 * 60 * 60 * 1000, "America/New_York").hasDateDefined());
+    }
+
+    @Test
+    public void testDateFieldsMatchCalendar() {
+        String[] timeZoneIds = {"UTC", "Europe/Berlin", "America/New_York", "Asia/Kolkata", "Pacific/Kiritimati"};
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            // from 1500 to 2400 with a focus on days around new year
+            long millis = i % 2 == 0 ? (long) ((random.nextDouble() * 900 - 470) * 365.25 * 24 * 60 * 60 * 1000) :
+                    (random.nextInt(600) - 300) * 365L * 24 * 60 * 60 * 1000 + random.nextInt(4 * 24 * 60 * 60 * 1000) - 2 * 24 * 60 * 60 * 1000;
+            String timeZoneId = timeZoneIds[i % timeZoneIds.length];
+            CompactCalendar compactCalendar = fromMillisAndTimeZone(millis, timeZoneId);
+            Calendar calendar = compactCalendar.getCalendar();
+
+            assertEquals(calendar.get(YEAR), compactCalendar.getYear());
+            assertEquals(calendar.get(DAY_OF_YEAR), compactCalendar.getDayOfYear());
+            assertEquals(!(calendar.get(YEAR) == 1970 && calendar.get(DAY_OF_YEAR) == 1), compactCalendar.hasDateDefined());
+            assertEquals(calendar.getTime(), compactCalendar.getTime());
+
+            CompactCalendar other = fromMillis(millis + random.nextInt(2 * 24 * 60 * 60 * 1000) - 24 * 60 * 60 * 1000);
+            Calendar otherCalendar = other.getCalendar();
+            assertEquals(calendar.get(YEAR) == otherCalendar.get(YEAR) &&
+                            calendar.get(MONTH) == otherCalendar.get(MONTH) &&
+                            calendar.get(DAY_OF_MONTH) == otherCalendar.get(DAY_OF_MONTH),
+                    compactCalendar.isSameDay(other));
+            assertEquals(calendar.after(otherCalendar), compactCalendar.after(other));
+            assertEquals(calendar.before(otherCalendar), compactCalendar.before(other));
+
+            Calendar expected = other.getCalendar();
+            expected.set(YEAR, calendar.get(YEAR));
+            expected.set(MONTH, calendar.get(MONTH));
+            expected.set(DAY_OF_MONTH, calendar.get(DAY_OF_MONTH));
+            assertEquals(fromCalendar(expected), other.withDateOf(compactCalendar));
+        }
+    }
+
 }
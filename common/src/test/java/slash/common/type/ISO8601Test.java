@@ -25,7 +25,10 @@ import org.junit.Test;
 import java.util.Calendar;
 import java.util.TimeZone;
 
+import static java.util.Calendar.*;
+import static java.util.GregorianCalendar.BC;
 import static org.junit.Assert.assertEquals;
+import static slash.common.type.CompactCalendar.UTC;
 import static slash.common.TestCase.calendar;
 import static slash.common.type.ISO8601.formatDate;
 import static slash.common.type.ISO8601.parseDate;
@@ -88,6 +91,16 @@ public class ISO8601Test {
         assertEquals(string, formatDate(actual, false));
     }
 
+    @Test
+    public void testFormatBeforeChrist() {
+        Calendar calendar = Calendar.getInstance(UTC);
+        calendar.clear();
+        calendar.set(ERA, BC);
+        calendar.set(5, JANUARY, 2, 3, 4, 5);
+        calendar.set(MILLISECOND, 6);
+        assertEquals("-0004-01-02T03:04:05.006Z", formatDate(calendar, true));
+    }
+
     @Test
     public void testFormatWithMilliSeconds1() {
         Calendar actual = parseDate("2010-09-18T03:13:32.2Z");
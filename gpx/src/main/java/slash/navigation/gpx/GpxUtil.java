@@ -20,11 +20,17 @@
 
 package slash.navigation.gpx;
 
+import slash.common.helpers.ElementStreamReader;
+import slash.common.helpers.ElementStreamReader.ElementHandler;
+import slash.common.helpers.ElementStreamWriter;
 import slash.navigation.gpx.binding10.Gpx;
 import slash.navigation.gpx.binding11.GpxType;
 
 import javax.xml.bind.*;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.*;
 
 import static slash.common.helpers.JAXBHelper.*;
@@ -83,6 +89,32 @@ public class GpxUtil {
         return result;
     }
 
+    private static <T> T unmarshal(InputStream inputStream, JAXBContext context, String namespaceUri, Class<T> type,
+                                   ElementHandler handler) throws IOException {
+        try {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext() && !reader.isStartElement())
+                    reader.next();
+                if (!reader.isStartElement() || !"gpx".equals(reader.getLocalName()) ||
+                        !namespaceUri.equals(reader.getNamespaceURI()))
+                    throw new IOException("Parse error: no gpx element in namespace " + namespaceUri);
+
+                ElementStreamReader elementReader = newElementStreamReader(reader, context, handler);
+                return newUnmarshaller(context).unmarshal(elementReader, type).getValue();
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IOException("Parse error: " + e, e);
+        }
+    }
+
+    public static Gpx unmarshal10(InputStream inputStream, ElementHandler handler) throws IOException {
+        return unmarshal(inputStream, newContext(slash.navigation.gpx.binding10.ObjectFactory.class),
+                GPX_10_NAMESPACE_URI, Gpx.class, handler);
+    }
+
     public static void marshal10(Gpx gpx, OutputStream outputStream) throws JAXBException {
         try {
             try {
@@ -124,6 +156,10 @@ public class GpxUtil {
         return result;
     }
 
+    public static GpxType unmarshal11(InputStream inputStream, ElementHandler handler) throws IOException {
+        return unmarshal(inputStream, newContext11(), GPX_11_NAMESPACE_URI, GpxType.class, handler);
+    }
+
     public static void marshal11(GpxType gpxType, Writer writer) throws JAXBException {
         newMarshaller11().marshal(new slash.navigation.gpx.binding11.ObjectFactory().createGpx(gpxType), writer);
     }
@@ -142,6 +178,27 @@ public class GpxUtil {
         }
     }
 
+    public static void marshal11(GpxType gpxType, ElementStreamWriter.ElementHandler handler, OutputStream outputStream) throws JAXBException {
+        try {
+            try {
+                ElementStreamWriter writer = newElementStreamWriter(outputStream, newContext11(), handler);
+                writer.writeElement(new QName(GPX_11_NAMESPACE_URI, "gpx"), GpxType.class, gpxType);
+                writer.writeEndDocument();
+                writer.flush();
+            }
+            finally {
+                outputStream.flush();
+                outputStream.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            throw new JAXBException("Error while marshalling: " + e, e);
+        }
+    }
+
+    public static ElementStreamWriter newElementStreamWriter11(OutputStream outputStream) throws XMLStreamException {
+        return newElementStreamWriter(outputStream, newContext11(), null);
+    }
+
     public static String toXml(GpxType gpxType) throws IOException {
         StringWriter writer = new StringWriter();
         try {
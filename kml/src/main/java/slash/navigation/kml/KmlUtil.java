@@ -49,11 +49,11 @@ public class KmlUtil {
         return newUnmarshaller(newContext(slash.navigation.kml.binding21.ObjectFactory.class));
     }
 
-    private static Unmarshaller newUnmarshaller22Beta() {
+    public static Unmarshaller newUnmarshaller22Beta() {
         return newUnmarshaller(newContext(slash.navigation.kml.binding22beta.ObjectFactory.class));
     }
 
-    private static Unmarshaller newUnmarshaller22() {
+    public static Unmarshaller newUnmarshaller22() {
         return newUnmarshaller(newContext(slash.navigation.kml.binding22.ObjectFactory.class));
     }
 
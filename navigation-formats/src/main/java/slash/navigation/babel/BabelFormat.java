@@ -21,6 +21,7 @@
 package slash.navigation.babel;
 
 import slash.navigation.base.BaseNavigationFormat;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.ParserContextImpl;
 import slash.navigation.base.RouteCharacteristics;
@@ -89,6 +90,11 @@ public abstract class BabelFormat extends BaseNavigationFormat<GpxRoute> {
 
     protected abstract String getFormatName();
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // every attempt starts a gpsbabel process; the binary and text formats are neither XML nor ZIP
+        return !signature.isEmpty() && !signature.isXml() && !signature.isZip();
+    }
+
     public boolean isWritingRouteCharacteristics() {
         return false;
     }
@@ -21,6 +21,7 @@
 package slash.navigation.babel;
 
 import slash.navigation.base.MultipleRoutesFormat;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.gpx.GpxRoute;
 
 /**
@@ -42,6 +43,10 @@ public class GarminMapSource5Format extends BabelFormat implements MultipleRoute
         return "mapsource";
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        return signature.startsWith("MsRcd");
+    }
+
     public boolean isSupportsMultipleRoutes() {
         return true;
     }
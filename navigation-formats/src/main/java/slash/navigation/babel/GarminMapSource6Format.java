@@ -21,6 +21,7 @@
 package slash.navigation.babel;
 
 import slash.navigation.base.MultipleRoutesFormat;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.gpx.GpxRoute;
 
 /**
@@ -46,6 +47,10 @@ public class GarminMapSource6Format extends BabelFormat implements MultipleRoute
         return ",ver=3";
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        return signature.startsWith("MsRcf");
+    }
+
     public boolean isSupportsMultipleRoutes() {
         return true;
     }
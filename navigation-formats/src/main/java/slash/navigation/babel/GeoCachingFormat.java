@@ -20,6 +20,8 @@
 
 package slash.navigation.babel;
 
+import slash.navigation.base.NavigationFormatSignature;
+
 /**
  * Reads and writes Geocaching.com/EasyGPS (.loc) files.
  *
@@ -39,6 +41,11 @@ public class GeoCachingFormat extends BabelFormat {
         return "geo";
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        String rootElement = signature.getRootElement();
+        return signature.isXml() && (rootElement == null || rootElement.equals("loc"));
+    }
+
     public boolean isSupportsMultipleRoutes() {
         return false;
     }
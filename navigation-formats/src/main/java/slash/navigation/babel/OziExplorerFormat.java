@@ -21,6 +21,7 @@
 package slash.navigation.babel;
 
 import slash.navigation.base.MultipleRoutesFormat;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.gpx.GpxPosition;
 import slash.navigation.gpx.GpxRoute;
@@ -46,6 +47,11 @@ public abstract class OziExplorerFormat extends BabelFormat implements MultipleR
         return "ozi,pack";
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // the first line of waypoint, route and track files names the file type
+        return signature.startsWith("OziExplorer");
+    }
+
     protected boolean isStreamingCapable() {
         return true;
     }
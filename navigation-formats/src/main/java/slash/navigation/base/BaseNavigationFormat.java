@@ -106,6 +106,10 @@ public abstract class BaseNavigationFormat<R extends BaseRoute> implements Navig
         return true;
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        return true;
+    }
+
     public int getMaximumFileNameLength() {
         return preferences.getInt("maximumFileNameLength", 64);
     }
@@ -23,6 +23,7 @@ package slash.navigation.base;
 import slash.common.type.CompactCalendar;
 import slash.navigation.bcr.BcrPosition;
 import slash.navigation.common.Bearing;
+import slash.navigation.common.DistanceCalculation;
 import slash.navigation.common.NavigationPosition;
 import slash.navigation.csv.CsvPosition;
 import slash.navigation.excel.ExcelPosition;
@@ -35,12 +36,8 @@ import slash.navigation.nmea.NmeaPosition;
 import slash.navigation.nmn.NmnPosition;
 import slash.navigation.tour.TourPosition;
 
-import java.util.Calendar;
-
 import static java.lang.Math.*;
-import static java.util.Calendar.*;
 import static slash.common.io.Transfer.isEmpty;
-import static slash.common.type.CompactCalendar.fromCalendar;
 import static slash.navigation.common.Bearing.EARTH_RADIUS;
 import static slash.navigation.common.UnitConversion.MILLISECONDS_OF_A_SECOND;
 
@@ -65,14 +62,8 @@ public abstract class BaseNavigationPosition implements NavigationPosition {
     }
 
     public void setStartDate(CompactCalendar startDate) {
-        if (hasTime() && startDate != null) {
-            Calendar calendar = getTime().getCalendar();
-            Calendar startDateCalendar = startDate.getCalendar();
-            calendar.set(YEAR, startDateCalendar.get(YEAR));
-            calendar.set(MONTH, startDateCalendar.get(MONTH));
-            calendar.set(DAY_OF_MONTH, startDateCalendar.get(DAY_OF_MONTH));
-            setTime(fromCalendar(calendar));
-        }
+        if (hasTime() && startDate != null)
+            setTime(getTime().withDateOf(startDate));
     }
 
     public Bearing calculateBearing(NavigationPosition other) {
@@ -90,6 +81,12 @@ public abstract class BaseNavigationPosition implements NavigationPosition {
         return null;
     }
 
+    public Double calculateDistance(NavigationPosition other, DistanceCalculation calculation) {
+        if (hasCoordinates() && other.hasCoordinates())
+            return calculation.calculateDistance(getLongitude(), getLatitude(), other.getLongitude(), other.getLatitude());
+        return null;
+    }
+
     public Double calculateAngle(NavigationPosition other) {
         if (hasCoordinates() && other.hasCoordinates()) {
             Bearing bearing = calculateBearing(other);
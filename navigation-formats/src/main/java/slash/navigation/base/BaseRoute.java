@@ -84,11 +84,14 @@ import slash.navigation.wbt.WintecWbt202TesFormat;
 import java.util.*;
 
 import static java.lang.Double.MAX_VALUE;
+import static java.lang.Double.isNaN;
 import static java.lang.Math.*;
 import static java.util.Arrays.asList;
-import static java.util.Arrays.binarySearch;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.copyOfRange;
 import static slash.common.io.Transfer.*;
 import static slash.common.type.CompactCalendar.*;
+import static slash.navigation.common.DistanceCalculation.Automatic;
 import static slash.navigation.base.RouteCalculations.getSignificantPositions;
 
 /**
@@ -99,8 +102,19 @@ import static slash.navigation.base.RouteCalculations.getSignificantPositions;
 
 public abstract class BaseRoute<P extends BaseNavigationPosition, F extends BaseNavigationFormat> {
     private static final String REVERSE_ROUTE_NAME_POSTFIX = " (rev)";
+    private static final int MINIMUM_POSITION_GRID_SIZE = 1000;
+    // conservative lower bound of the meters per degree of latitude and longitude at the equator
+    private static final double METERS_PER_DEGREE = 110000.0;
     private F format;
     private RouteCharacteristics characteristics;
+    // values cumulated from the first position, valid up to validPrefixSums
+    private double[] distancesFromStart, ascendsFromStart, descendsFromStart;
+    private long[] timesFromStart;
+    private int validPrefixSums, prefixSumsPositionCount;
+    private PositionGrid positionGrid;
+    private TimeIndex timeIndex;
+    private PositionIndex positionIndex;
+    private final RouteStatisticsCalculator statistics = new RouteStatisticsCalculator(this);
 
     protected BaseRoute(F format, RouteCharacteristics characteristics) {
         this.format = format;
@@ -127,6 +141,14 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
 
     public abstract List<P> getPositions();
 
+    /**
+     * Wraps the given positions to invalidate the caches of this route whenever
+     * they are added, removed or replaced through {@link #getPositions()}.
+     */
+    protected List<P> asPositionList(List<P> positions) {
+        return positions != null ? new PositionList<>(positions, this) : null;
+    }
+
     public abstract int getPositionCount();
 
     public void top(int index, int topOffset) {
@@ -135,6 +157,7 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         for (int i = index; i > topOffset; i--)
             positions.set(i, positions.get(i - 1));
         positions.set(topOffset, move);
+        invalidateCaches(topOffset);
     }
 
     public void move(int firstIndex, int secondIndex) {
@@ -143,6 +166,7 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         P to = positions.get(secondIndex);
         positions.set(firstIndex, to);
         positions.set(secondIndex, from);
+        invalidateCaches(min(firstIndex, secondIndex));
     }
 
     public void bottom(int index, int bottomOffset) {
@@ -151,13 +175,66 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         for (int i = index; i < getPositionCount() - 1 - bottomOffset; i++)
             positions.set(i, positions.get(i + 1));
         positions.set(getPositionCount() - 1 - bottomOffset, move);
+        invalidateCaches(index);
     }
 
-    public abstract void add(int index, P position);
+    public void add(int index, P position) {
+        getPositions().add(index, position);
+        invalidateCaches(index);
+    }
+
+    public P set(int index, P position) {
+        P replaced = getPositions().set(index, position);
+        invalidateCaches(index);
+        return replaced;
+    }
 
     public P remove(int index) {
         List<P> positions = getPositions();
-        return positions.remove(index);
+        P removed = positions.remove(index);
+        invalidateCaches(index);
+        return removed;
+    }
+
+    /**
+     * Removes the {@link #getPositions() positions} with the given indices in one pass
+     *
+     * @param indices the indices of the positions to remove in any order
+     * @return the removed positions in the order of this route
+     */
+    public List<P> removeAll(int[] indices) {
+        BitSet bitSet = new BitSet(getPositionCount());
+        for (int index : indices)
+            bitSet.set(index);
+        return removeAll(bitSet);
+    }
+
+    /**
+     * Removes the {@link #getPositions() positions} whose indices are set in one pass
+     *
+     * @param indices the indices of the positions to remove
+     * @return the removed positions in the order of this route
+     */
+    public List<P> removeAll(BitSet indices) {
+        List<P> positions = getPositions();
+        int first = indices.nextSetBit(0);
+        if (first == -1 || first >= positions.size())
+            return new ArrayList<>();
+
+        List<P> removed = new ArrayList<>(indices.cardinality());
+        List<P> kept = new ArrayList<>(positions.size() - first);
+        for (int i = first; i < positions.size(); i++) {
+            P position = positions.get(i);
+            if (indices.get(i))
+                removed.add(position);
+            else
+                kept.add(position);
+        }
+        // compacts the tail of the list at once instead of shifting it for every position
+        positions.subList(first, positions.size()).clear();
+        positions.addAll(kept);
+        invalidateCaches(first);
+        return removed;
     }
 
     /**
@@ -166,16 +243,16 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
      */
     public void removeDuplicates() {
         List<P> positions = getPositions();
+        BitSet duplicates = new BitSet(positions.size());
         P previous = null;
-        int index = 0;
-        while (index < positions.size()) {
-            P next = positions.get(index);
-            if (previous != null && (!next.hasCoordinates() || toDouble(next.calculateDistance(previous)) <= 0.0)) {
-                positions.remove(index);
-            } else
-                index++;
+        for (int i = 0; i < positions.size(); i++) {
+            P next = positions.get(i);
+            if (previous != null && (!next.hasCoordinates() || toDouble(next.calculateDistance(previous, Automatic)) <= 0.0))
+                duplicates.set(i);
             previous = next;
         }
+        removeAll(duplicates);
+        invalidateCaches(0);
     }
 
     public void ensureIncreasingTime() {
@@ -204,15 +281,29 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
             }
             previous = next;
         }
+        invalidateCaches(0);
     }
 
     public int[] getContainedPositions(BoundingBox boundingBox) {
-        List<Integer> result = new ArrayList<>();
         List<P> positions = getPositions();
-        for (int i = 0; i < positions.size(); i++) {
-            P position = positions.get(i);
-            if (position.hasCoordinates() && boundingBox.contains(position))
-                result.add(i);
+        PositionGrid grid = getPositionGrid();
+        int[] candidates = grid != null ? grid.getCandidates(boundingBox.getSouthWest().getLongitude(),
+                boundingBox.getSouthWest().getLatitude(), boundingBox.getNorthEast().getLongitude(),
+                boundingBox.getNorthEast().getLatitude()) : null;
+
+        List<Integer> result = new ArrayList<>();
+        if (candidates != null) {
+            for (int candidate : candidates) {
+                P position = positions.get(candidate);
+                if (position.hasCoordinates() && boundingBox.contains(position))
+                    result.add(candidate);
+            }
+        } else {
+            for (int i = 0; i < positions.size(); i++) {
+                P position = positions.get(i);
+                if (position.hasCoordinates() && boundingBox.contains(position))
+                    result.add(i);
+            }
         }
         return toArray(result);
     }
@@ -225,7 +316,7 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         List<Integer> result = new ArrayList<>();
         for (int i = 1; i < positions.size() - 1; i++) {
             P next = positions.get(i);
-            if (!next.hasCoordinates() || toDouble(next.calculateDistance(previous)) <= distance)
+            if (!next.hasCoordinates() || toDouble(next.calculateDistance(previous, Automatic)) <= distance)
                 result.add(i);
             else
                 previous = next;
@@ -248,38 +339,95 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
     }
 
     public int getClosestPosition(double longitude, double latitude, double threshold) {
+        int[] candidates = null;
+        double latitudeDelta = threshold / METERS_PER_DEGREE;
+        // the grid does not wrap around the poles and the date line
+        if (abs(latitude) + latitudeDelta < 85.0) {
+            double longitudeDelta = latitudeDelta / cos(toRadians(abs(latitude) + latitudeDelta));
+            if (abs(longitude) + longitudeDelta < 180.0) {
+                PositionGrid grid = getPositionGrid();
+                if (grid != null)
+                    candidates = grid.getCandidates(longitude - longitudeDelta, latitude - latitudeDelta,
+                            longitude + longitudeDelta, latitude + latitudeDelta);
+            }
+        }
+
         int closestIndex = -1;
         double closestDistance = MAX_VALUE;
-
+        SimpleNavigationPosition target = new SimpleNavigationPosition(longitude, latitude);
         List<P> positions = getPositions();
-        for (int i = 0; i < positions.size(); ++i) {
-            P position = positions.get(i);
-            Double distance = position.calculateDistance(new SimpleNavigationPosition(longitude, latitude));
+        int count = candidates != null ? candidates.length : positions.size();
+        for (int i = 0; i < count; ++i) {
+            int index = candidates != null ? candidates[i] : i;
+            P position = positions.get(index);
+            Double distance = position.calculateDistance(target, Automatic);
             if (distance != null && distance < closestDistance && distance <= threshold) {
                 closestDistance = distance;
-                closestIndex = i;
+                closestIndex = index;
             }
         }
         return closestIndex;
     }
 
-    public int getClosestPosition(CompactCalendar time, long threshold) {
-        int closestIndex = -1;
-        long closestDistance = Long.MAX_VALUE;
-
+    private PositionGrid getPositionGrid() {
         List<P> positions = getPositions();
-        for (int i = 0; i < positions.size(); ++i) {
-            P position = positions.get(i);
-            if (!position.hasTime())
-                continue;
+        if (positions.size() < MINIMUM_POSITION_GRID_SIZE) {
+            positionGrid = null;
+            return null;
+        }
+        if (positionGrid == null || !positionGrid.update(positions))
+            positionGrid = new PositionGrid(positions);
+        return positionGrid;
+    }
 
-            long distance = abs(position.getTime().getTimeInMillis() - time.getTimeInMillis());
-            if (distance < closestDistance && distance <= threshold) {
-                closestDistance = distance;
-                closestIndex = i;
+    public int getClosestPosition(CompactCalendar time, long threshold) {
+        return getTimeIndex().getClosestIndex(time.getTimeInMillis(), threshold);
+    }
+
+    /**
+     * Interpolates the coordinates and elevation at the given time between the positions
+     * before and after it if both are within the threshold. Otherwise, the coordinates of
+     * the closest position within the threshold are used.
+     *
+     * @param time the time to find the position for
+     * @param threshold the maximum time difference in milliseconds to the positions
+     * @return a new position with the given time or null if there is no position within the threshold
+     */
+    public NavigationPosition getInterpolatedPosition(CompactCalendar time, long threshold) {
+        TimeIndex index = getTimeIndex();
+        long millis = time.getTimeInMillis();
+        int before = index.getIndexAtOrBefore(millis);
+        int after = index.getIndexAfter(millis);
+        if (before != -1 && after != -1) {
+            P predecessor = getPosition(before);
+            P successor = getPosition(after);
+            long predecessorMillis = predecessor.getTime().getTimeInMillis();
+            long successorMillis = successor.getTime().getTimeInMillis();
+            if (predecessorMillis < millis && millis - predecessorMillis <= threshold && successorMillis - millis <= threshold &&
+                    predecessor.hasCoordinates() && successor.hasCoordinates()) {
+                double fraction = (double) (millis - predecessorMillis) / (successorMillis - predecessorMillis);
+                Double elevation = predecessor.getElevation() != null && successor.getElevation() != null ?
+                        interpolate(predecessor.getElevation(), successor.getElevation(), fraction) : null;
+                return new SimpleNavigationPosition(interpolate(predecessor.getLongitude(), successor.getLongitude(), fraction),
+                        interpolate(predecessor.getLatitude(), successor.getLatitude(), fraction), elevation, null, time);
             }
         }
-        return closestIndex;
+
+        int closest = index.getClosestIndex(millis, threshold);
+        if (closest == -1)
+            return null;
+        P position = getPosition(closest);
+        return new SimpleNavigationPosition(position.getLongitude(), position.getLatitude(), position.getElevation(), null, time);
+    }
+
+    private static double interpolate(double first, double second, double fraction) {
+        return first + (second - first) * fraction;
+    }
+
+    private TimeIndex getTimeIndex() {
+        if (timeIndex == null || timeIndex.getPositionCount() != getPositionCount())
+            timeIndex = new TimeIndex(getPositions());
+        return timeIndex;
     }
 
     public P getPosition(int index) {
@@ -287,12 +435,18 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
     }
 
     public int getIndex(P position) {
-        return getPositions().indexOf(position);
+        List<P> positions = getPositions();
+        if (positionIndex == null)
+            positionIndex = new PositionIndex();
+
+        int index = positionIndex.getIndex(positions, position);
+        // positions that are equal to but not the same as a position of this route
+        return index != -1 ? index : positions.indexOf(position);
     }
 
     public P getSuccessor(P position) {
         List<P> positions = getPositions();
-        int index = positions.indexOf(position);
+        int index = getIndex(position);
         return index != -1 && index < positions.size() - 1 ? positions.get(index + 1) : null;
     }
 
@@ -327,66 +481,41 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         return getDistance(0, getPositionCount() - 1);
     }
 
+    /**
+     * Returns distance, times, elevations, speeds and bounds of this route which are
+     * calculated in one pass and recalculated for the changed parts of the route only.
+     */
+    public RouteStatistics getStatistics() {
+        return statistics.getStatistics();
+    }
+
     public double getDistance(int startIndex, int endIndex) {
-        double result = 0;
-        List<P> positions = getPositions();
-        NavigationPosition previous = null;
-        for (int i = startIndex; i <= endIndex; i++) {
-            NavigationPosition next = positions.get(i);
-            if (previous != null) {
-                Double distance = previous.calculateDistance(next);
-                if (!isEmpty(distance))
-                    result += distance;
-            }
-            previous = next;
-        }
-        return result;
+        if (endIndex <= startIndex)
+            return 0.0;
+        ensurePrefixSums();
+        // may differ from summing up the distances between the positions by rounding errors
+        return distancesFromStart[endIndex] - distancesFromStart[startIndex];
+    }
+
+    private void checkRange(int startIndex, int endIndex) {
+        if (startIndex < 0 || endIndex >= getPositionCount())
+            throw new IndexOutOfBoundsException("Range " + startIndex + " to " + endIndex + " is not within " +
+                    getPositionCount() + " positions");
     }
 
     public double[] getDistancesFromStart(int startIndex, int endIndex) {
-        double[] result = new double[endIndex - startIndex + 1];
-        List<P> positions = getPositions();
-        int index = 0;
-        double distance = 0.0;
-        NavigationPosition previous = positions.size() > 0 ? positions.get(0) : null;
-        while (index <= endIndex) {
-            NavigationPosition next = positions.get(index);
-            if (previous != null) {
-                Double delta = previous.calculateDistance(next);
-                if (!isEmpty(delta))
-                    distance += delta;
-                if (index >= startIndex)
-                    result[index - startIndex] = distance;
-            }
-            index++;
-            previous = next;
-        }
-        return result;
+        checkRange(startIndex, endIndex);
+        ensurePrefixSums();
+        return copyOfRange(distancesFromStart, startIndex, endIndex + 1);
     }
 
     public double[] getDistancesFromStart(int[] indices) {
         double[] result = new double[indices.length];
         if (indices.length > 0 && getPositionCount() > 0) {
+            ensurePrefixSums();
             Arrays.sort(indices);
-            int endIndex = min(indices[indices.length - 1], getPositionCount() - 1);
-
-            int index = 0;
-            double distance = 0.0;
-            List<P> positions = getPositions();
-            NavigationPosition previous = positions.get(0);
-            while (index <= endIndex) {
-                NavigationPosition next = positions.get(index);
-                if (previous != null) {
-                    Double delta = previous.calculateDistance(next);
-                    if (!isEmpty(delta))
-                        distance += delta;
-                    int indexInIndices = binarySearch(indices, index);
-                    if (indexInIndices >= 0)
-                        result[indexInIndices] = distance;
-                }
-                index++;
-                previous = next;
-            }
+            for (int i = 0; i < indices.length && indices[i] < getPositionCount(); i++)
+                result[i] = distancesFromStart[indices[i]];
         }
         return result;
     }
@@ -404,83 +533,116 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
     }
 
     public long[] getTimesFromStart(int startIndex, int endIndex) {
-        long[] result = new long[endIndex - startIndex + 1];
-        List<P> positions = getPositions();
-        int index = 0;
-        long time = 0L;
-        NavigationPosition previous = positions.size() > 0 ? positions.get(0) : null;
-        while (index <= endIndex) {
-            NavigationPosition next = positions.get(index);
-            if (previous != null) {
-                Long delta = previous.calculateTime(next);
-                if (delta != null)
-                    time += delta;
-                if (index >= startIndex)
-                    result[index - startIndex] = time;
-            }
-            index++;
-            previous = next;
-        }
-        return result;
+        checkRange(startIndex, endIndex);
+        ensurePrefixSums();
+        return copyOfRange(timesFromStart, startIndex, endIndex + 1);
     }
 
     public long[] getTimesFromStart(int[] indices) {
         long[] result = new long[indices.length];
         if (indices.length > 0 && getPositionCount() > 0) {
+            ensurePrefixSums();
             Arrays.sort(indices);
-            int endIndex = min(indices[indices.length - 1], getPositionCount() - 1);
-
-            int index = 0;
-            long time = 0L;
-            List<P> positions = getPositions();
-            NavigationPosition previous = positions.get(0);
-            while (index <= endIndex) {
-                NavigationPosition next = positions.get(index);
-                if (previous != null) {
-                    Long delta = previous.calculateTime(next);
-                    if (delta != null)
-                        time += delta;
-                    int indexInIndices = binarySearch(indices, index);
-                    if (indexInIndices >= 0)
-                        result[indexInIndices] = time;
-                }
-                index++;
-                previous = next;
-            }
+            for (int i = 0; i < indices.length && indices[i] < getPositionCount(); i++)
+                result[i] = timesFromStart[indices[i]];
         }
         return result;
     }
 
     public double getElevationAscend(int startIndex, int endIndex) {
-        double result = 0;
-        List<P> positions = getPositions();
-        NavigationPosition previous = null;
-        for (int i = startIndex; i <= endIndex; i++) {
-            NavigationPosition next = positions.get(i);
-            if (previous != null) {
-                Double elevation = previous.calculateElevation(next);
-                if (elevation != null && elevation > 0)
-                    result += elevation;
-            }
-            previous = next;
-        }
-        return result;
+        if (endIndex <= startIndex)
+            return 0.0;
+        ensurePrefixSums();
+        return ascendsFromStart[endIndex] - ascendsFromStart[startIndex];
     }
 
     public double getElevationDescend(int startIndex, int endIndex) {
-        double result = 0;
-        List<P> positions = getPositions();
-        NavigationPosition previous = null;
-        for (int i = startIndex; i <= endIndex; i++) {
-            NavigationPosition next = positions.get(i);
-            if (previous != null) {
-                Double elevation = previous.calculateElevation(next);
-                if (elevation != null && elevation < 0)
-                    result += abs(elevation);
-            }
-            previous = next;
+        if (endIndex <= startIndex)
+            return 0.0;
+        ensurePrefixSums();
+        return descendsFromStart[endIndex] - descendsFromStart[startIndex];
+    }
+
+    /**
+     * Returns the distance in meters between two positions or 0 if it is unknown.
+     */
+    protected double getDistanceBetween(int firstIndex, int secondIndex) {
+        Double distance = getPosition(firstIndex).calculateDistance(getPosition(secondIndex), Automatic);
+        return isEmpty(distance) ? 0.0 : distance;
+    }
+
+    /**
+     * Returns the time in milliseconds between two positions or 0 if it is unknown.
+     */
+    protected long getTimeBetween(int firstIndex, int secondIndex) {
+        Long time = getPosition(firstIndex).calculateTime(getPosition(secondIndex));
+        return time != null ? time : 0L;
+    }
+
+    /**
+     * Returns the elevation difference in meters between two positions or 0 if it is unknown.
+     */
+    protected double getElevationBetween(int firstIndex, int secondIndex) {
+        Double elevation = getPosition(firstIndex).calculateElevation(getPosition(secondIndex));
+        return elevation != null && !isNaN(elevation) ? elevation : 0.0;
+    }
+
+    /**
+     * Announces that the positions from the given index on have been changed
+     * without the methods of this route.
+     */
+    public void invalidateCaches(int fromIndex) {
+        validPrefixSums = max(min(validPrefixSums, fromIndex), 0);
+        prefixSumsPositionCount = getPositionCount();
+        if (positionGrid != null) {
+            // start over to adapt the cell size
+            if (fromIndex <= 0)
+                positionGrid = null;
+            else
+                positionGrid.invalidate(fromIndex, getPositionCount());
         }
-        return result;
+        timeIndex = null;
+        if (positionIndex != null)
+            positionIndex.invalidate();
+        statistics.invalidate(fromIndex, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Announces that the positions between the given indices have been changed in place
+     * without the methods of this route.
+     */
+    public void invalidateCaches(int fromIndex, int toIndex) {
+        validPrefixSums = max(min(validPrefixSums, fromIndex), 0);
+        if (positionGrid != null)
+            positionGrid.invalidate(max(fromIndex, 0), getPositionCount());
+        timeIndex = null;
+        statistics.invalidate(fromIndex, toIndex);
+    }
+
+    private void ensurePrefixSums() {
+        int count = getPositionCount();
+        // positions added or removed through the list of positions
+        if (count != prefixSumsPositionCount)
+            validPrefixSums = 0;
+        if (validPrefixSums == count && distancesFromStart != null)
+            return;
+
+        if (distancesFromStart == null || distancesFromStart.length != count) {
+            distancesFromStart = distancesFromStart != null ? copyOf(distancesFromStart, count) : new double[count];
+            timesFromStart = timesFromStart != null ? copyOf(timesFromStart, count) : new long[count];
+            ascendsFromStart = ascendsFromStart != null ? copyOf(ascendsFromStart, count) : new double[count];
+            descendsFromStart = descendsFromStart != null ? copyOf(descendsFromStart, count) : new double[count];
+        }
+
+        for (int i = max(validPrefixSums, 1); i < count; i++) {
+            distancesFromStart[i] = distancesFromStart[i - 1] + getDistanceBetween(i - 1, i);
+            timesFromStart[i] = timesFromStart[i - 1] + getTimeBetween(i - 1, i);
+            double elevation = getElevationBetween(i - 1, i);
+            ascendsFromStart[i] = ascendsFromStart[i - 1] + (elevation > 0 ? elevation : 0.0);
+            descendsFromStart[i] = descendsFromStart[i - 1] + (elevation < 0 ? abs(elevation) : 0.0);
+        }
+        validPrefixSums = count;
+        prefixSumsPositionCount = count;
     }
 
     public double getElevationDifference(int index) {
@@ -504,9 +666,13 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
 
     public void order(List<P> positions) {
         List<P> existing = getPositions();
+        int first = -1;
         for (int i = 0; i < positions.size(); i++) {
-            existing.set(i, positions.get(i));
+            if (existing.set(i, positions.get(i)) != positions.get(i) && first == -1)
+                first = i;
         }
+        if (first != -1)
+            invalidateCaches(first);
     }
 
     public void revert() {
@@ -0,0 +1,63 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link PositionSink} that collects the positions of a route in a list.
+ *
+ * @author Christian Pesch
+ */
+
+public class ListPositionSink<P extends BaseNavigationPosition> implements PositionSink<P> {
+    private final List<P> positions = new ArrayList<>();
+    private RouteCharacteristics characteristics;
+    private String name;
+
+    public void begin(RouteCharacteristics characteristics, String name) {
+        this.characteristics = characteristics;
+        this.name = name;
+    }
+
+    public void add(P position) {
+        positions.add(position);
+    }
+
+    public void end() {
+    }
+
+    public void close() {
+    }
+
+    public RouteCharacteristics getCharacteristics() {
+        return characteristics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<P> getPositions() {
+        return positions;
+    }
+}
@@ -43,6 +43,7 @@ public interface NavigationFormat<R extends BaseRoute> {
     boolean isSupportsWriting();
     boolean isSupportsMultipleRoutes();
     boolean isWritingRouteCharacteristics();
+    boolean isSupportsSignature(NavigationFormatSignature signature);
 
     <P extends NavigationPosition> R createRoute(RouteCharacteristics characteristics, String name, List<P> positions);
 
@@ -23,19 +23,30 @@ import slash.navigation.babel.BabelFormat;
 import slash.navigation.common.NavigationPosition;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import static java.lang.invoke.MethodHandles.publicLookup;
 import static slash.common.io.Transfer.trim;
 
 /**
  * Converts between different {@link NavigationFormat}.
  *
+ * The as...() method of a position or route class for a format is looked up once
+ * and then called through a cached {@link MethodHandle}.
+ *
  * @author Christian Pesch
  */
 
 public class NavigationFormatConverter {
+    private static final MethodType CONVERTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, MethodHandle>> positionConverters = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, MethodHandle>> routeConverters = new ConcurrentHashMap<>();
+
     private static String removeDigits(String string) {
         StringBuilder buffer = new StringBuilder(string);
         for (int i = 0; i < buffer.length(); i++) {
@@ -62,37 +73,82 @@ public class NavigationFormatConverter {
         return formatName;
     }
 
-    /*package local for tests*/static BaseNavigationPosition asFormat(NavigationPosition position, NavigationFormat format) throws IOException {
-        BaseNavigationPosition result;
+    /*package local for tests*/static String getPositionMethodName(NavigationFormat format) {
         String formatName = getFormatName(format);
         formatName = formatName.replace("Format", "Position");
-        formatName = removeDigits(formatName);
+        return "as" + removeDigits(formatName);
+    }
+
+    private static String getRouteMethodName(NavigationFormat format) {
+        return "as" + getFormatName(format);
+    }
+
+    private static MethodHandle getConverter(Class<?> sourceClass, NavigationFormat format, boolean forPosition)
+            throws ReflectiveOperationException {
+        ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, MethodHandle>> converters = forPosition ? positionConverters : routeConverters;
+        ConcurrentMap<Class<?>, MethodHandle> formatConverters = converters.get(format.getClass());
+        if (formatConverters == null) {
+            formatConverters = new ConcurrentHashMap<>();
+            ConcurrentMap<Class<?>, MethodHandle> previous = converters.putIfAbsent(format.getClass(), formatConverters);
+            if (previous != null)
+                formatConverters = previous;
+        }
+
+        MethodHandle converter = formatConverters.get(sourceClass);
+        if (converter == null) {
+            String methodName = forPosition ? getPositionMethodName(format) : getRouteMethodName(format);
+            converter = publicLookup().unreflect(sourceClass.getMethod(methodName)).asType(CONVERTER_TYPE);
+            formatConverters.put(sourceClass, converter);
+        }
+        return converter;
+    }
+
+    private static MethodHandle getPositionConverter(Class<?> positionClass, NavigationFormat format) throws IOException {
         try {
-            Method method = position.getClass().getMethod("as" + formatName);
-            result = (BaseNavigationPosition) method.invoke(position);
-        } catch (Exception e) {
-            throw new IOException("Cannot call as" + formatName + "() on " + position, e);
+            return getConverter(positionClass, format, true);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Cannot call " + getPositionMethodName(format) + "() on " + positionClass.getName(), e);
         }
-        return result;
+    }
+
+    private static BaseNavigationPosition invoke(MethodHandle converter, NavigationPosition position) throws IOException {
+        try {
+            return (BaseNavigationPosition) (Object) converter.invokeExact((Object) position);
+        } catch (Throwable e) {
+            throw new IOException("Cannot convert " + position, e);
+        }
+    }
+
+    /*package local for tests*/static BaseNavigationPosition asFormat(NavigationPosition position, NavigationFormat format) throws IOException {
+        return invoke(getPositionConverter(position.getClass(), format), position);
     }
 
     @SuppressWarnings("unchecked")
     public static BaseRoute<BaseNavigationPosition, BaseNavigationFormat> asFormat(BaseRoute route, NavigationFormat format) throws IOException {
-        BaseRoute<BaseNavigationPosition, BaseNavigationFormat> result;
-        String formatName = getFormatName(format);
+        MethodHandle converter;
         try {
-            Method method = route.getClass().getMethod("as" + formatName);
-            result = (BaseRoute<BaseNavigationPosition, BaseNavigationFormat>) method.invoke(route);
-        } catch (Exception e) {
-            throw new IOException("Cannot call as" + formatName + "() on " + route, e);
+            converter = getConverter(route.getClass(), format, false);
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Cannot call " + getRouteMethodName(format) + "() on " + route, e);
+        }
+        try {
+            return (BaseRoute<BaseNavigationPosition, BaseNavigationFormat>) (Object) converter.invokeExact((Object) route);
+        } catch (Throwable e) {
+            throw new IOException("Cannot convert " + route, e);
         }
-        return result;
     }
 
     public static List<BaseNavigationPosition> convertPositions(List<NavigationPosition> positions, NavigationFormat format) throws IOException {
         List<BaseNavigationPosition> result = new ArrayList<>(positions.size());
+        // the positions of a list usually share their class
+        Class<?> positionClass = null;
+        MethodHandle converter = null;
         for (NavigationPosition position : positions) {
-            result.add(asFormat(position, format));
+            if (position.getClass() != positionClass) {
+                positionClass = position.getClass();
+                converter = getPositionConverter(positionClass, format);
+            }
+            result.add(invoke(converter, position));
         }
         return result;
     }
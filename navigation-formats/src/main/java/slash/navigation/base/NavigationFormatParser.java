@@ -20,6 +20,7 @@
 
 package slash.navigation.base;
 
+import slash.common.io.ByteBufferInputStream;
 import slash.common.io.NotClosingUnderlyingInputStream;
 import slash.common.type.CompactCalendar;
 import slash.navigation.babel.BabelFormat;
@@ -40,21 +41,38 @@ import slash.navigation.url.MotoPlanerUrlFormat;
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import static java.io.File.separatorChar;
+import static java.lang.Integer.MAX_VALUE;
 import static java.lang.Math.min;
+import static java.nio.ByteBuffer.wrap;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static java.lang.String.format;
+import static java.lang.Thread.currentThread;
+import static java.util.Arrays.copyOf;
+import static slash.common.helpers.ThreadHelper.createDaemonThreadPool;
 import static slash.common.io.Files.getExtension;
+import static slash.common.io.InputOutput.readByteBuffer;
+import static slash.common.io.InputOutput.readBytes;
 import static slash.common.io.Transfer.ceiling;
+import static slash.common.system.Platform.isWindows;
 import static slash.common.type.CompactCalendar.UTC;
 import static slash.common.type.CompactCalendar.fromCalendar;
 import static slash.navigation.base.NavigationFormatConverter.asFormat;
 import static slash.navigation.base.NavigationFormatConverter.convertRoute;
+import static slash.navigation.base.NavigationFormatSignature.readSignature;
 import static slash.navigation.base.RouteComments.*;
 import static slash.navigation.url.GoogleMapsUrlFormat.isGoogleMapsLinkUrl;
 import static slash.navigation.url.GoogleMapsUrlFormat.isGoogleMapsProfileUrl;
@@ -70,13 +88,28 @@ import static slash.navigation.url.MotoPlanerUrlFormat.isMotoPlanerUrl;
 public class NavigationFormatParser {
     private static final Logger log = Logger.getLogger(NavigationFormatParser.class.getName());
     private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final int STREAMING_DETECTION_SIZE = 64 * 1024;
     private final NavigationFormatRegistry navigationFormatRegistry;
     private final List<NavigationFormatParserListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile ExecutorService readPool;
 
     public NavigationFormatParser(NavigationFormatRegistry navigationFormatRegistry) {
         this.navigationFormatRegistry = navigationFormatRegistry;
     }
 
+    /**
+     * Lets the formats that may read a buffered stream try it concurrently on up to the given
+     * number of threads. The format with the highest priority that reads routes wins and the
+     * formats with lower priorities are cancelled and interrupted while reading.
+     * A parallelism of 1 tries the formats one after another which is the default.
+     * Files nested in an archive that is read on one of the threads are read sequentially.
+     */
+    public void setReadParallelism(int parallelism) {
+        if (readPool != null)
+            readPool.shutdownNow();
+        readPool = parallelism > 1 ? createDaemonThreadPool("ReadFormats", parallelism) : null;
+    }
+
     public NavigationFormatRegistry getNavigationFormatRegistry() {
         return navigationFormatRegistry;
     }
@@ -104,49 +137,231 @@ public class NavigationFormatParser {
         return positionCounts;
     }
 
+    private List<NavigationFormat> selectFormats(NavigationFormatSignature signature, List<NavigationFormat> formats) {
+        // nothing to learn from an empty stream
+        if (signature.isEmpty())
+            return formats;
+
+        List<NavigationFormat> result = new ArrayList<>();
+        for (NavigationFormat format : formats) {
+            if (format.isSupportsSignature(signature))
+                result.add(format);
+        }
+        log.fine(format("Selected %d of %d formats for %s", result.size(), formats.size(), signature));
+        return result;
+    }
+
+    private void internalRead(InputStream buffer, ByteBuffer bytes, List<NavigationFormat> formats, ParserContext context) throws IOException {
+        try {
+            NavigationFormatSignature signature = readSignature(buffer);
+            try {
+                buffer.reset();
+            } catch (IOException e) {
+                log.severe("Cannot reset() stream to mark() after reading signature");
+                return;
+            }
+
+            List<NavigationFormat> candidates = selectFormats(signature, formats);
+            ExecutorService pool = readPool;
+            // a nested read on a thread of the pool would wait for threads blocked by its own attempt
+            if (pool != null && candidates.size() > 1 && !isAttempt(context))
+                internalReadParallel(pool, bytes != null ? bytes : wrap(readBytes(buffer)), candidates, context);
+            else
+                internalReadSequential(buffer, candidates, context);
+        } finally {
+            buffer.close();
+        }
+    }
+
+    private static boolean isAttempt(ParserContext context) {
+        return context instanceof InternalParserContext && ((InternalParserContext) context).attempt;
+    }
+
     @SuppressWarnings("unchecked")
-    private void internalRead(InputStream buffer, List<NavigationFormat> formats, ParserContext context) throws IOException {
+    private void internalReadSequential(InputStream buffer, List<NavigationFormat> formats, ParserContext context) throws IOException {
         int routeCountBefore = context.getRoutes().size();
         NavigationFormat firstSuccessfulFormat = null;
 
+        for (NavigationFormat<BaseRoute> format : formats) {
+            notifyReading(format);
+
+            log.fine(format("Trying to read with %s", format));
+            try {
+                format.read(buffer, context);
+
+                // if no route has been read, take the first that didn't throw an exception
+                if (firstSuccessfulFormat == null)
+                    firstSuccessfulFormat = format;
+            } catch (Exception e) {
+                log.severe(format("Error reading with %s: %s", format, e));
+                e.printStackTrace();
+            }
+
+            if (context.getRoutes().size() > routeCountBefore) {
+                context.addFormat(format);
+                break;
+            }
+
+            try {
+                buffer.reset();
+            } catch (IOException e) {
+                log.severe("Cannot reset() stream to mark()");
+                break;
+            }
+        }
+
+        if (context.getRoutes().size() == 0 && context.getFormats().size() == 0 && firstSuccessfulFormat != null)
+            context.addFormat(firstSuccessfulFormat);
+    }
+
+    private static class ReadAttempt {
+        private final NavigationFormat<BaseRoute> format;
+        private final ParserContext<BaseRoute> context;
+        private final boolean successful;
+
+        private ReadAttempt(NavigationFormat<BaseRoute> format, ParserContext<BaseRoute> context, boolean successful) {
+            this.format = format;
+            this.context = context;
+            this.successful = successful;
+        }
+
+        private boolean hasRoutes() {
+            return context.getRoutes().size() > 0;
+        }
+    }
+
+    /**
+     * Stops an attempt once it is interrupted or a format with a higher priority has read routes.
+     */
+    private static class AttemptInputStream extends ByteBufferInputStream {
+        private final int index;
+        private final AtomicInteger firstIndexWithRoutes;
+
+        private AttemptInputStream(ByteBuffer buffer, int index, AtomicInteger firstIndexWithRoutes) {
+            super(buffer);
+            this.index = index;
+            this.firstIndexWithRoutes = firstIndexWithRoutes;
+        }
+
+        private boolean isCancelled() {
+            return currentThread().isInterrupted() || index > firstIndexWithRoutes.get();
+        }
+
+        private void checkCancelled() throws InterruptedIOException {
+            if (isCancelled())
+                throw new InterruptedIOException("Reading has been cancelled");
+        }
+
+        public int read() throws IOException {
+            checkCancelled();
+            return super.read();
+        }
+
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            checkCancelled();
+            return super.read(bytes, offset, length);
+        }
+
+        public long skip(long count) throws IOException {
+            checkCancelled();
+            return super.skip(count);
+        }
+    }
+
+    private ReadAttempt tryRead(ByteBuffer bytes, NavigationFormat<BaseRoute> format, int index,
+                                AtomicInteger firstIndexWithRoutes, ParserContext<BaseRoute> context) {
+        AttemptInputStream source = new AttemptInputStream(bytes, index, firstIndexWithRoutes);
+        // a format with a higher priority has already read routes
+        if (source.isCancelled())
+            return null;
+
+        log.fine(format("Trying to read with %s", format));
+        ParserContext<BaseRoute> attemptContext = new InternalParserContext<>(context.getFile(), context.getStartDate(), true);
+        boolean successful = false;
         try {
-            for (NavigationFormat<BaseRoute> format : formats) {
-                notifyReading(format);
+            format.read(source, attemptContext);
+            successful = true;
+        } catch (Exception e) {
+            if (source.isCancelled())
+                return null;
+            log.severe(format("Error reading with %s: %s", format, e));
+        }
+        if (source.isCancelled())
+            return null;
 
-                log.fine(format("Trying to read with %s", format));
-                try {
-                    format.read(buffer, context);
-
-                    // if no route has been read, take the first that didn't throw an exception
-                    if (firstSuccessfulFormat == null)
-                        firstSuccessfulFormat = format;
-                } catch (Exception e) {
-                    log.severe(format("Error reading with %s: %s", format, e));
-                    e.printStackTrace();
-                }
+        ReadAttempt attempt = new ReadAttempt(format, attemptContext, successful);
+        if (attempt.hasRoutes())
+            firstIndexWithRoutes.accumulateAndGet(index, Math::min);
+        return attempt;
+    }
 
-                if (context.getRoutes().size() > routeCountBefore) {
-                    context.addFormat(format);
-                    break;
-                }
+    @SuppressWarnings("unchecked")
+    private void internalReadParallel(ExecutorService pool, ByteBuffer bytes, List<NavigationFormat> formats, ParserContext context) throws IOException {
+        AtomicInteger firstIndexWithRoutes = new AtomicInteger(MAX_VALUE);
+        List<Future<ReadAttempt>> attempts = new ArrayList<>();
+        for (int i = 0; i < formats.size(); i++) {
+            NavigationFormat<BaseRoute> format = formats.get(i);
+            int index = i;
+            attempts.add(pool.submit((Callable<ReadAttempt>) () -> tryRead(bytes, format, index, firstIndexWithRoutes, context)));
+        }
 
-                try {
-                    buffer.reset();
-                } catch (IOException e) {
-                    log.severe("Cannot reset() stream to mark()");
+        NavigationFormat firstSuccessfulFormat = null;
+        try {
+            for (int i = 0; i < attempts.size(); i++) {
+                // notify in the order of a sequential read which ends with the winning format
+                notifyReading(formats.get(i));
+
+                // attempts are skipped only after a format with a higher priority has read routes
+                ReadAttempt attempt = getAttempt(attempts.get(i));
+
+                // if no route has been read, take the first that didn't throw an exception
+                if (attempt.successful && firstSuccessfulFormat == null)
+                    firstSuccessfulFormat = attempt.format;
+
+                if (attempt.hasRoutes()) {
+                    context.appendRoutes(attempt.context.getRoutes());
+                    // formats of nested reads are prepended, too, to keep the order of a sequential read
+                    List<NavigationFormat<BaseRoute>> nestedFormats = attempt.context.getFormats();
+                    for (int j = nestedFormats.size() - 1; j >= 0; j--)
+                        context.addFormat(nestedFormats.get(j));
+                    context.addFormat(attempt.format);
                     break;
                 }
             }
         } finally {
-            buffer.close();
+            for (Future<ReadAttempt> attempt : attempts)
+                attempt.cancel(true);
         }
 
         if (context.getRoutes().size() == 0 && context.getFormats().size() == 0 && firstSuccessfulFormat != null)
             context.addFormat(firstSuccessfulFormat);
     }
 
+    private ReadAttempt getAttempt(Future<ReadAttempt> attempt) throws IOException {
+        try {
+            return attempt.get();
+        } catch (InterruptedException e) {
+            currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading");
+        } catch (ExecutionException e) {
+            throw new IOException("Cannot read: " + e.getCause(), e.getCause());
+        }
+    }
+
     public ParserResult read(File source, List<NavigationFormat> formats) throws IOException {
         log.info("Reading '" + source.getAbsolutePath() + "' by " + formats.size() + " formats");
+        long length = source.length();
+        // large files are mapped instead of copied to the heap; small ones are cheaper to buffer
+        if (length > READ_BUFFER_SIZE && length <= MAX_VALUE) {
+            ByteBuffer buffer;
+            // the channel is closed before reading but the mapping lasts until it is garbage collected
+            // and locks the file on Windows, where it is read into one buffer of its size instead
+            try (FileInputStream inputStream = new FileInputStream(source)) {
+                FileChannel channel = inputStream.getChannel();
+                buffer = !isWindows() ? channel.map(READ_ONLY, 0, length) : readByteBuffer(inputStream);
+            }
+            return read(buffer, extractStartDate(source), source, formats);
+        }
         try (InputStream inputStream = new FileInputStream(source)) {
             return read(inputStream, (int) source.length(), extractStartDate(source), source, formats);
         }
@@ -209,13 +424,25 @@ public class NavigationFormatParser {
     }
 
     private class InternalParserContext<R extends BaseRoute> extends ParserContextImpl<R> {
-        InternalParserContext(File file, CompactCalendar startDate) {
+        private final boolean attempt;
+
+        InternalParserContext(File file, CompactCalendar startDate, boolean attempt) {
             super(file, startDate);
+            this.attempt = attempt;
+        }
+
+        InternalParserContext(File file, CompactCalendar startDate) {
+            this(file, startDate, false);
         }
 
         public void parse(InputStream inputStream, CompactCalendar startDate, String preferredExtension) throws IOException {
             internalSetStartDate(startDate);
-            internalRead(inputStream, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(preferredExtension), this);
+            internalBeginNested();
+            try {
+                internalRead(inputStream, null, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(preferredExtension), this);
+            } finally {
+                internalEndNested();
+            }
         }
 
         public void parse(String urlString) throws IOException {
@@ -229,7 +456,12 @@ public class NavigationFormatParser {
             try {
                 CompactCalendar startDate = extractStartDate(url);
                 internalSetStartDate(startDate);
-                internalRead(buffer, getNavigationFormatRegistry().getReadFormats(), this);
+                internalBeginNested();
+                try {
+                    internalRead(buffer, null, getNavigationFormatRegistry().getReadFormats(), this);
+                } finally {
+                    internalEndNested();
+                }
             } finally {
                 buffer.closeUnderlyingInputStream();
             }
@@ -243,13 +475,22 @@ public class NavigationFormatParser {
         buffer.mark(readBufferSize + 1);
         try {
             ParserContext<BaseRoute> context = new InternalParserContext<>(file, startDate);
-            internalRead(buffer, formats, context);
+            internalRead(buffer, null, formats, context);
             return createResult(context);
         } finally {
             buffer.closeUnderlyingInputStream();
         }
     }
 
+    private ParserResult read(ByteBuffer source, CompactCalendar startDate, File file,
+                              List<NavigationFormat> formats) throws IOException {
+        log.fine("Reading '" + file + "' from a buffer of " + source.capacity() + " bytes by " + formats.size() + " formats");
+        // the buffer supports mark() and reset() without a limit and copying
+        ParserContext<BaseRoute> context = new InternalParserContext<>(file, startDate);
+        internalRead(new ByteBufferInputStream(source), source, formats, context);
+        return createResult(context);
+    }
+
     public ParserResult read(String source) throws IOException {
         return read(new ByteArrayInputStream(source.getBytes()));
     }
@@ -446,6 +687,176 @@ public class NavigationFormatParser {
     }
 
 
+    /**
+     * Converts the positions of the source one after another into the target format
+     * without collecting them in a route first. Thus memory stays constant regardless
+     * of the number of positions. All routes of the source are converted if the target
+     * supports multiple routes, otherwise only the first one. A source without positions
+     * results in an empty route.
+     *
+     * @param source the file to read from
+     * @param sourceFormat the format of the source
+     * @param target the file to write to
+     * @param targetFormat the format of the target
+     * @return the number of positions written
+     * @throws IOException if the source cannot be read or the target cannot be written
+     */
+    @SuppressWarnings("unchecked")
+    public int convert(File source, StreamingNavigationFormat sourceFormat,
+                       File target, StreamingNavigationFormat targetFormat) throws IOException {
+        if (!sourceFormat.isSupportsStreamingReading())
+            throw new IllegalArgumentException(format("%s cannot be read by streaming", sourceFormat.getName()));
+        if (!targetFormat.isSupportsStreamingWriting())
+            throw new IllegalArgumentException(format("%s cannot be written by streaming", targetFormat.getName()));
+        log.info("Converting '" + source.getAbsolutePath() + "' from '" + sourceFormat.getName() +
+                "' to '" + targetFormat.getName() + "'");
+
+        try (InputStream inputStream = new FileInputStream(source);
+             OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(target))) {
+            ConvertingPositionSink sink = new ConvertingPositionSink(targetFormat.createPositionSink(outputStream), targetFormat);
+            sourceFormat.read(inputStream, extractStartDate(source), sink);
+            sink.close();
+            log.info("Converted " + sink.count + " positions of " + min(sink.routes, sink.forwardedRoutes) +
+                    " route(s) to '" + target.getAbsolutePath() + "'");
+            return sink.count;
+        }
+    }
+
+    /**
+     * Determines the format that reads the source by streaming like {@link #read(File)} would
+     * determine it, but only from the beginning of the source. Thus the source does not have
+     * to fit into memory.
+     *
+     * @param source the file to read from
+     * @return the format with the highest priority which reads positions from the beginning
+     * of the source or null if no format that reads by streaming does
+     * @throws IOException if the source cannot be read
+     */
+    public StreamingNavigationFormat determineStreamingFormat(File source) throws IOException {
+        byte[] prefix;
+        try (InputStream inputStream = new FileInputStream(source)) {
+            prefix = readPrefix(inputStream, (int) min(source.length(), STREAMING_DETECTION_SIZE));
+        }
+        // complete lines only unless the source is shorter
+        if (prefix.length < source.length()) {
+            int end = prefix.length;
+            while (end > 0 && prefix[end - 1] != '\n')
+                end--;
+            if (end > 0)
+                prefix = copyOf(prefix, end);
+        }
+
+        NavigationFormatSignature signature = readSignature(new ByteArrayInputStream(prefix));
+        CompactCalendar startDate = extractStartDate(source);
+        for (NavigationFormat format : selectFormats(signature,
+                getNavigationFormatRegistry().getReadFormatsPreferredByExtension(getExtension(source)))) {
+            if (!(format instanceof StreamingNavigationFormat))
+                continue;
+            StreamingNavigationFormat streamingFormat = (StreamingNavigationFormat) format;
+            if (!streamingFormat.isSupportsStreamingReading())
+                continue;
+
+            CountingPositionSink sink = new CountingPositionSink();
+            try {
+                streamingFormat.read(new ByteArrayInputStream(prefix), startDate, sink);
+            } catch (Exception e) {
+                // a document that has been cut off may fail after its first positions
+                log.fine(format("Error reading beginning of '%s' with %s: %s", source, format, e));
+            }
+            if (sink.count > 0) {
+                log.info(format("Detected '%s' to read '%s' by streaming", format.getName(), source));
+                return streamingFormat;
+            }
+        }
+        return null;
+    }
+
+    private static byte[] readPrefix(InputStream inputStream, int length) throws IOException {
+        byte[] prefix = new byte[length];
+        int count = 0;
+        while (count < length) {
+            int read = inputStream.read(prefix, count, length - count);
+            if (read == -1)
+                break;
+            count += read;
+        }
+        return count < length ? copyOf(prefix, count) : prefix;
+    }
+
+    private static class CountingPositionSink implements PositionSink<BaseNavigationPosition> {
+        private int count;
+
+        public void begin(RouteCharacteristics characteristics, String name) {
+        }
+
+        public void add(BaseNavigationPosition position) {
+            count++;
+        }
+
+        public void end() {
+        }
+
+        public void close() {
+        }
+    }
+
+    /**
+     * Converts and comments each position of the routes the target format supports before
+     * passing it to the sink of the target format.
+     */
+    private static class ConvertingPositionSink implements PositionSink<BaseNavigationPosition> {
+        private final PositionSink<BaseNavigationPosition> delegate;
+        private final NavigationFormat format;
+        private final int forwardedRoutes;
+        private int count, index, routes;
+
+        private ConvertingPositionSink(PositionSink<BaseNavigationPosition> delegate, NavigationFormat format) {
+            this.delegate = delegate;
+            this.format = format;
+            this.forwardedRoutes = format.isSupportsMultipleRoutes() ? MAX_VALUE : 1;
+        }
+
+        private boolean isForwarding() {
+            return routes <= forwardedRoutes;
+        }
+
+        public void begin(RouteCharacteristics characteristics, String name) throws IOException {
+            routes++;
+            index = 0;
+            if (isForwarding())
+                delegate.begin(characteristics, name);
+            else
+                log.info("Skipping " + characteristics + " '" + name + "' since " + format.getName() +
+                        " supports only one route");
+        }
+
+        public void add(BaseNavigationPosition position) throws IOException {
+            if (!isForwarding())
+                return;
+            BaseNavigationPosition converted = asFormat(position, format);
+            String original = converted.getDescription();
+            String modified = getDefaultDescription(converted, index++);
+            if (original == null || !original.equals(modified))
+                converted.setDescription(modified);
+            delegate.add(converted);
+            count++;
+        }
+
+        public void end() throws IOException {
+            if (isForwarding())
+                delegate.end();
+        }
+
+        public void close() throws IOException {
+            // writes an empty route to leave a valid target
+            if (routes == 0) {
+                delegate.begin(RouteCharacteristics.Waypoints, null);
+                delegate.end();
+            }
+            delegate.close();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public void write(List<BaseRoute> routes, MultipleRoutesFormat format, File target) throws IOException {
         log.info("Writing '" + format.getName() + "' with " + routes.size() + " routes and " +
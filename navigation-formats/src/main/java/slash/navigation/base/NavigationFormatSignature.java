@@ -0,0 +1,179 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+import static java.lang.Character.isWhitespace;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+
+/**
+ * The first bytes of a byte stream with navigation information which allow to
+ * exclude {@link NavigationFormat}s before trying to read the stream with them.
+ *
+ * @author Christian Pesch
+ */
+
+public class NavigationFormatSignature {
+    static final int SIGNATURE_LENGTH = 4 * 1024;
+
+    private final byte[] prefix;
+    private final boolean xml;
+    private final String rootElement;
+
+    NavigationFormatSignature(byte[] prefix) {
+        this.prefix = prefix;
+        String text = decode(prefix);
+        int index = skipWhitespace(text, 0);
+        this.xml = index < text.length() && text.charAt(index) == '<';
+        this.rootElement = xml ? extractRootElement(text, index) : null;
+    }
+
+    public static NavigationFormatSignature readSignature(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[SIGNATURE_LENGTH];
+        int count = 0;
+        while (count < buffer.length) {
+            int read = inputStream.read(buffer, count, buffer.length - count);
+            if (read == -1)
+                break;
+            count += read;
+        }
+        byte[] prefix = new byte[count];
+        System.arraycopy(buffer, 0, prefix, 0, count);
+        return new NavigationFormatSignature(prefix);
+    }
+
+    private static Charset determineCharset(byte[] prefix) {
+        if (prefix.length > 1) {
+            if ((prefix[0] == (byte) 0xfe && prefix[1] == (byte) 0xff) || (prefix[0] == 0 && prefix[1] == '<'))
+                return UTF_16BE;
+            if ((prefix[0] == (byte) 0xff && prefix[1] == (byte) 0xfe) || (prefix[0] == '<' && prefix[1] == 0))
+                return UTF_16LE;
+        }
+        // good enough to find the ASCII characters of XML markup in UTF-8 and the ISO-8859 family
+        return ISO_8859_1;
+    }
+
+    private static String decode(byte[] prefix) {
+        int offset = 0;
+        if (prefix.length > 2 && prefix[0] == (byte) 0xef && prefix[1] == (byte) 0xbb && prefix[2] == (byte) 0xbf)
+            offset = 3;
+        String text = new String(prefix, offset, prefix.length - offset, determineCharset(prefix));
+        if (text.length() > 0 && text.charAt(0) == '\ufeff')
+            text = text.substring(1);
+        return text;
+    }
+
+    private static int skipWhitespace(String text, int index) {
+        while (index < text.length() && isWhitespace(text.charAt(index)))
+            index++;
+        return index;
+    }
+
+    private static int skipTo(String text, int index, String end) {
+        int found = text.indexOf(end, index);
+        return found != -1 ? found + end.length() : -1;
+    }
+
+    private static String extractRootElement(String text, int index) {
+        while (index != -1 && index < text.length()) {
+            index = skipWhitespace(text, index);
+            if (text.startsWith("<?", index))
+                index = skipTo(text, index, "?>");
+            else if (text.startsWith("<!--", index))
+                index = skipTo(text, index, "-->");
+            else if (text.startsWith("<!", index)) {
+                int end = text.indexOf('>', index);
+                int subset = text.indexOf('[', index);
+                index = subset != -1 && subset < end ? skipTo(text, subset, "]") : index;
+                index = index != -1 ? skipTo(text, index, ">") : -1;
+            } else if (text.startsWith("<", index)) {
+                int start = index + 1;
+                int end = start;
+                while (end < text.length()) {
+                    char c = text.charAt(end);
+                    if (isWhitespace(c) || c == '>' || c == '/')
+                        break;
+                    end++;
+                }
+                // the name might be truncated at the end of the signature
+                if (end == start || end == text.length())
+                    return null;
+                String name = text.substring(start, end);
+                return name.substring(name.indexOf(':') + 1);
+            } else
+                return null;
+        }
+        return null;
+    }
+
+    public int getLength() {
+        return prefix.length;
+    }
+
+    public boolean isEmpty() {
+        return prefix.length == 0;
+    }
+
+    public boolean hasBytesAt(int offset, byte... bytes) {
+        if (offset + bytes.length > prefix.length)
+            return false;
+        for (int i = 0; i < bytes.length; i++) {
+            if (prefix[offset + i] != bytes[i])
+                return false;
+        }
+        return true;
+    }
+
+    public boolean startsWith(byte... bytes) {
+        return hasBytesAt(0, bytes);
+    }
+
+    public boolean startsWith(String ascii) {
+        return hasBytesAt(0, ascii.getBytes(ISO_8859_1));
+    }
+
+    public boolean isZip() {
+        return startsWith((byte) 'P', (byte) 'K', (byte) 3, (byte) 4) ||
+                startsWith((byte) 'P', (byte) 'K', (byte) 5, (byte) 6);
+    }
+
+    public boolean isXml() {
+        return xml;
+    }
+
+    /**
+     * Returns the local name of the root element without namespace prefix or
+     * <tt>null</tt> if the prefix is no XML or the root element is not contained.
+     */
+    public String getRootElement() {
+        return rootElement;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[length=" + prefix.length + ", xml=" + xml +
+                ", rootElement=" + rootElement + ", zip=" + isZip() + "]";
+    }
+}
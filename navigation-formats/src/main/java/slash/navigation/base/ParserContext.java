@@ -47,6 +47,14 @@ public interface ParserContext<R extends BaseRoute> {
     CompactCalendar getStartDate();
     File getFile();
 
+    /**
+     * Returns if the stream that is read is nested in {@link #getFile()} like the entry
+     * of an archive or a linked document instead of being the content of the file.
+     *
+     * @return if the stream that is read is nested in the file
+     */
+    boolean isNested();
+
     void parse(InputStream inputStream, CompactCalendar startDate, String preferredExtension) throws IOException;
     void parse(String url) throws IOException;
 }
\ No newline at end of file
@@ -39,6 +39,7 @@ public class ParserContextImpl<R extends BaseRoute> implements ParserContext<R>
     private List<NavigationFormat<R>> formats = new ArrayList<>();
     private File file;
     private CompactCalendar startDate;
+    private int nesting;
 
     public ParserContextImpl(File file, CompactCalendar startDate) {
         this.file = file;
@@ -81,6 +82,18 @@ public class ParserContextImpl<R extends BaseRoute> implements ParserContext<R>
         return file;
     }
 
+    public boolean isNested() {
+        return nesting > 0;
+    }
+
+    protected void internalBeginNested() {
+        nesting++;
+    }
+
+    protected void internalEndNested() {
+        nesting--;
+    }
+
     public CompactCalendar getStartDate() {
         return startDate;
     }
@@ -0,0 +1,187 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.navigation.common.NavigationPosition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Double.MAX_VALUE;
+import static java.lang.Math.*;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.sort;
+
+/**
+ * Indexes the positions of a route in a grid of cells of equal size in degrees.
+ *
+ * The indices in a cell are kept in ascending order. This allows to update the grid
+ * from the first changed index on by dropping the tails of the cells and adding the
+ * changed positions again.
+ *
+ * @author Christian Pesch
+ */
+
+class PositionGrid {
+    private static final int POSITIONS_PER_CELL = 8;
+    private static final double MINIMUM_CELL_SIZE = 0.00001;
+    private static final long NO_CELL = Long.MIN_VALUE;
+
+    private static class Cell {
+        private int[] indices = new int[POSITIONS_PER_CELL];
+        private int size;
+
+        private void add(int index) {
+            if (size == indices.length)
+                indices = copyOf(indices, size * 2);
+            indices[size++] = index;
+        }
+
+        private void truncate(int fromIndex) {
+            while (size > 0 && indices[size - 1] >= fromIndex)
+                size--;
+        }
+    }
+
+    private final double cellSize;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private long[] keys;
+    private int indexedCount, validCount, announcedCount;
+
+    PositionGrid(List<? extends NavigationPosition> positions) {
+        this.cellSize = computeCellSize(positions);
+        this.keys = new long[positions.size()];
+        this.announcedCount = positions.size();
+        update(positions);
+    }
+
+    private static double computeCellSize(List<? extends NavigationPosition> positions) {
+        double west = MAX_VALUE, east = -MAX_VALUE, south = MAX_VALUE, north = -MAX_VALUE;
+        int count = 0;
+        for (NavigationPosition position : positions) {
+            if (!position.hasCoordinates())
+                continue;
+            west = min(west, position.getLongitude());
+            east = max(east, position.getLongitude());
+            south = min(south, position.getLatitude());
+            north = max(north, position.getLatitude());
+            count++;
+        }
+        if (count == 0)
+            return 1.0;
+
+        double width = east - west, height = north - south;
+        double cellCount = max(count / POSITIONS_PER_CELL, 1);
+        double cellSize = width > 0.0 && height > 0.0 ? sqrt(width * height / cellCount) : max(width, height) / cellCount;
+        return max(cellSize, MINIMUM_CELL_SIZE);
+    }
+
+    private long getKey(NavigationPosition position) {
+        if (!position.hasCoordinates())
+            return NO_CELL;
+        return getKey((long) floor(position.getLongitude() / cellSize), (long) floor(position.getLatitude() / cellSize));
+    }
+
+    private static long getKey(long x, long y) {
+        return (x << 32) ^ (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Announces that the positions from the given index on have changed and that
+     * the route has the given number of positions.
+     */
+    void invalidate(int fromIndex, int positionCount) {
+        validCount = max(min(validCount, fromIndex), 0);
+        announcedCount = positionCount;
+    }
+
+    /**
+     * Brings the grid up to date with the positions.
+     *
+     * @return false if the number of positions changed without being announced
+     */
+    boolean update(List<? extends NavigationPosition> positions) {
+        int count = positions.size();
+        if (count != announcedCount)
+            return false;
+        if (validCount == count && indexedCount == count)
+            return true;
+
+        for (int i = validCount; i < indexedCount; i++) {
+            if (keys[i] == NO_CELL)
+                continue;
+            Cell cell = cells.get(keys[i]);
+            if (cell != null)
+                cell.truncate(validCount);
+        }
+
+        if (keys.length < count)
+            keys = copyOf(keys, max(count, keys.length * 2));
+        for (int i = validCount; i < count; i++) {
+            long key = getKey(positions.get(i));
+            keys[i] = key;
+            if (key == NO_CELL)
+                continue;
+            Cell cell = cells.get(key);
+            if (cell == null) {
+                cell = new Cell();
+                cells.put(key, cell);
+            }
+            cell.add(i);
+        }
+        validCount = count;
+        indexedCount = count;
+        return true;
+    }
+
+    /**
+     * Returns the ascending indices of the positions in the cells that intersect the
+     * given rectangle or null if the rectangle spans more cells than the grid has.
+     */
+    int[] getCandidates(double west, double south, double east, double north) {
+        if (west > east || south > north)
+            return new int[0];
+
+        double minimumX = floor(west / cellSize), maximumX = floor(east / cellSize);
+        double minimumY = floor(south / cellSize), maximumY = floor(north / cellSize);
+        if ((maximumX - minimumX + 1) * (maximumY - minimumY + 1) > cells.size())
+            return null;
+
+        int[] result = new int[POSITIONS_PER_CELL];
+        int size = 0;
+        for (long x = (long) minimumX; x <= (long) maximumX; x++) {
+            for (long y = (long) minimumY; y <= (long) maximumY; y++) {
+                Cell cell = cells.get(getKey(x, y));
+                if (cell == null || cell.size == 0)
+                    continue;
+                if (size + cell.size > result.length)
+                    result = copyOf(result, max(size + cell.size, result.length * 2));
+                arraycopy(cell.indices, 0, result, size, cell.size);
+                size += cell.size;
+            }
+        }
+        result = copyOf(result, size);
+        sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the positions of a route to their index by identity.
+ *
+ * Since the identity of a position doesn't change when it is edited, only
+ * adding, removing and moving positions makes the index stale. This is
+ * detected when the position found is not at its index anymore.
+ *
+ * @author Christian Pesch
+ */
+
+class PositionIndex {
+    private final Map<Object, Integer> indices = new IdentityHashMap<>();
+    private boolean valid;
+
+    /**
+     * Announces that positions may have been added, removed or moved.
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    private void update(List<?> positions) {
+        indices.clear();
+        for (int i = 0; i < positions.size(); i++)
+            indices.putIfAbsent(positions.get(i), i);
+        valid = true;
+    }
+
+    private static boolean isAt(List<?> positions, Integer index, Object position) {
+        return index != null && index < positions.size() && positions.get(index) == position;
+    }
+
+    /**
+     * Returns the index of the given position or -1 if the position is not in the positions.
+     */
+    int getIndex(List<?> positions, Object position) {
+        Integer index = indices.get(position);
+        if (isAt(positions, index, position))
+            return index;
+
+        if (index != null || !valid) {
+            update(positions);
+            index = indices.get(position);
+            if (isAt(positions, index, position))
+                return index;
+        }
+        return -1;
+    }
+}
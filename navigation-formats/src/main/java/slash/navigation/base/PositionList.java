@@ -0,0 +1,92 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The {@link BaseRoute#getPositions() positions} of a route which invalidate the caches
+ * of the route when they are changed.
+ *
+ * @author Christian Pesch
+ */
+
+class PositionList<P extends BaseNavigationPosition> extends AbstractList<P> implements RandomAccess {
+    private final List<P> positions;
+    private final BaseRoute route;
+
+    PositionList(List<P> positions, BaseRoute route) {
+        this.positions = positions;
+        this.route = route;
+    }
+
+    public P get(int index) {
+        return positions.get(index);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    public P set(int index, P position) {
+        P previous = positions.set(index, position);
+        route.invalidateCaches(index);
+        return previous;
+    }
+
+    public void add(int index, P position) {
+        positions.add(index, position);
+        modCount++;
+        route.invalidateCaches(index);
+    }
+
+    public boolean addAll(int index, Collection<? extends P> collection) {
+        boolean changed = positions.addAll(index, collection);
+        if (changed) {
+            modCount++;
+            route.invalidateCaches(index);
+        }
+        return changed;
+    }
+
+    public boolean addAll(Collection<? extends P> collection) {
+        return addAll(size(), collection);
+    }
+
+    public P remove(int index) {
+        P removed = positions.remove(index);
+        modCount++;
+        route.invalidateCaches(index);
+        return removed;
+    }
+
+    protected void removeRange(int fromIndex, int toIndex) {
+        positions.subList(fromIndex, toIndex).clear();
+        modCount++;
+        route.invalidateCaches(fromIndex);
+    }
+
+    public void clear() {
+        removeRange(0, size());
+    }
+}
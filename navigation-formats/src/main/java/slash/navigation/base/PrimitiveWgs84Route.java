@@ -0,0 +1,678 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.type.CompactCalendar;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.fill;
+import static slash.common.type.CompactCalendar.fromMillisAndTimeZone;
+import static slash.navigation.common.DistanceCalculation.Automatic;
+
+/**
+ * Represents a Wgs84 route that keeps coordinates, elevation, speed, time and
+ * description of its positions in primitive columns.
+ *
+ * The {@link #getPositions() positions} are views on the columns which are created
+ * on demand. As long as a view is referenced, the same view is returned for its index
+ * and follows its position when positions are added, removed or moved. Changes to a
+ * view write through to the columns. Removed and replaced views keep their values.
+ *
+ * Positions created by {@link #createPosition} or taken from this route keep their
+ * identity when they are added. The values of other positions are copied. Positions
+ * with further attributes like heading or heart beat rate are kept as objects.
+ *
+ * @author Christian Pesch
+ */
+
+public class PrimitiveWgs84Route extends Wgs84Route {
+    public PrimitiveWgs84Route(SimpleFormat format, RouteCharacteristics characteristics, List<Wgs84Position> positions) {
+        super(format, characteristics, positions);
+    }
+
+    protected List<Wgs84Position> asPositionList(List<Wgs84Position> positions) {
+        return new Columns(this, positions);
+    }
+
+    private Columns getColumns() {
+        return (Columns) positions;
+    }
+
+    public Wgs84Position createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
+        return new ColumnPosition(getColumns(), longitude, latitude, elevation, speed, time, description);
+    }
+
+    public long getTime() {
+        Columns columns = getColumns();
+        long minimum = Long.MAX_VALUE, maximum = Long.MIN_VALUE;
+        long totalTimeMilliSeconds = 0;
+        int previous = -1;
+        for (int i = 0; i < columns.size; i++) {
+            long time = columns.times[i];
+            if (time == Columns.NO_TIME)
+                continue;
+            if (previous != -1) {
+                long delta = time - columns.times[previous];
+                if (delta > 0)
+                    totalTimeMilliSeconds += delta;
+            }
+            minimum = min(minimum, time);
+            maximum = max(maximum, time);
+            previous = i;
+        }
+
+        long maxMinusMin = previous != -1 ? maximum - minimum : 0;
+        return max(maxMinusMin, totalTimeMilliSeconds);
+    }
+
+    protected double getDistanceBetween(int firstIndex, int secondIndex) {
+        Columns columns = getColumns();
+        double longitude1 = columns.longitudes[firstIndex], latitude1 = columns.latitudes[firstIndex];
+        double longitude2 = columns.longitudes[secondIndex], latitude2 = columns.latitudes[secondIndex];
+        if (isNaN(longitude1) || isNaN(latitude1) || isNaN(longitude2) || isNaN(latitude2))
+            return 0.0;
+        double distance = Automatic.calculateDistance(longitude1, latitude1, longitude2, latitude2);
+        return isNaN(distance) ? 0.0 : distance;
+    }
+
+    protected long getTimeBetween(int firstIndex, int secondIndex) {
+        long[] times = getColumns().times;
+        if (times[firstIndex] == Columns.NO_TIME || times[secondIndex] == Columns.NO_TIME)
+            return 0L;
+        return times[secondIndex] - times[firstIndex];
+    }
+
+    protected double getElevationBetween(int firstIndex, int secondIndex) {
+        double[] elevations = getColumns().elevations;
+        double elevation = elevations[secondIndex] - elevations[firstIndex];
+        return isNaN(elevation) ? 0.0 : elevation;
+    }
+
+    public List<Wgs84Position> removeAll(BitSet indices) {
+        return getColumns().removeAll(indices);
+    }
+
+    /**
+     * Stores the positions column by column. Missing values are stored as
+     * {@link Double#NaN} and {@link #NO_TIME}. The views of the positions are
+     * kept weakly unless they have further attributes.
+     */
+    private static class Columns extends AbstractList<Wgs84Position> implements RandomAccess {
+        private static final long NO_TIME = Long.MIN_VALUE;
+        private static final String UTC = "UTC";
+
+        private final BaseRoute route;
+        private int size;
+        private double[] longitudes, latitudes, elevations, speeds;
+        private long[] times;
+        // allocated for the first position that needs them
+        private String[] timeZoneIds, descriptions;
+        // a ColumnPosition that is kept or a View on one, if any
+        private Object[] objects;
+        private final ReferenceQueue<ColumnPosition> collected = new ReferenceQueue<>();
+
+        private Columns(BaseRoute route, List<Wgs84Position> positions) {
+            int capacity = max(positions.size(), 10);
+            longitudes = new double[capacity];
+            latitudes = new double[capacity];
+            elevations = new double[capacity];
+            speeds = new double[capacity];
+            times = new long[capacity];
+            for (Wgs84Position position : positions)
+                store(size++, position);
+            // the route is not completely constructed yet
+            this.route = route;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private void changed(int index) {
+            if (route != null)
+                route.invalidateCaches(index);
+        }
+
+        private void changedInPlace(int index) {
+            if (route != null)
+                route.invalidateCaches(index, index);
+        }
+
+        private void checkIndex(int index, int limit) {
+            if (index < 0 || index >= limit)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        private static Double toDouble(double value) {
+            return isNaN(value) ? null : value;
+        }
+
+        private static double toPrimitive(Double value) {
+            return value != null ? value : NaN;
+        }
+
+        Double getLongitude(int index) {
+            return toDouble(longitudes[index]);
+        }
+
+        Double getLatitude(int index) {
+            return toDouble(latitudes[index]);
+        }
+
+        Double getElevation(int index) {
+            return toDouble(elevations[index]);
+        }
+
+        Double getSpeed(int index) {
+            return toDouble(speeds[index]);
+        }
+
+        CompactCalendar getTime(int index) {
+            long time = times[index];
+            if (time == NO_TIME)
+                return null;
+            String timeZoneId = timeZoneIds != null && timeZoneIds[index] != null ? timeZoneIds[index] : UTC;
+            return fromMillisAndTimeZone(time, timeZoneId);
+        }
+
+        String getDescription(int index) {
+            return descriptions != null ? descriptions[index] : null;
+        }
+
+        private void writeTime(int index, CompactCalendar time) {
+            times[index] = time != null ? time.getTimeInMillis() : NO_TIME;
+            String timeZoneId = time != null && !UTC.equals(time.getTimeZoneId()) ? time.getTimeZoneId() : null;
+            if (timeZoneId != null && timeZoneIds == null)
+                timeZoneIds = new String[longitudes.length];
+            if (timeZoneIds != null)
+                timeZoneIds[index] = timeZoneId;
+        }
+
+        private void writeDescription(int index, String description) {
+            if (description != null && descriptions == null)
+                descriptions = new String[longitudes.length];
+            if (descriptions != null)
+                descriptions[index] = description;
+        }
+
+        void setLongitude(int index, Double longitude) {
+            longitudes[index] = toPrimitive(longitude);
+            changedInPlace(index);
+        }
+
+        void setLatitude(int index, Double latitude) {
+            latitudes[index] = toPrimitive(latitude);
+            changedInPlace(index);
+        }
+
+        void setElevation(int index, Double elevation) {
+            elevations[index] = toPrimitive(elevation);
+            changedInPlace(index);
+        }
+
+        void setSpeed(int index, Double speed) {
+            speeds[index] = toPrimitive(speed);
+            changedInPlace(index);
+        }
+
+        void setTime(int index, CompactCalendar time) {
+            writeTime(index, time);
+            changedInPlace(index);
+        }
+
+        void setDescription(int index, String description) {
+            writeDescription(index, description);
+        }
+
+        private void ensureObjects() {
+            if (objects == null)
+                objects = new Object[longitudes.length];
+        }
+
+        /**
+         * Removes the views that are not referenced anymore.
+         */
+        private void expunge() {
+            Reference<? extends ColumnPosition> reference;
+            while ((reference = collected.poll()) != null) {
+                int index = ((View) reference).index;
+                if (objects != null && index < size && objects[index] == reference)
+                    objects[index] = null;
+            }
+        }
+
+        private static ColumnPosition unwrap(Object object) {
+            if (object instanceof View)
+                return ((View) object).get();
+            return (ColumnPosition) object;
+        }
+
+        /**
+         * Returns the view that is attached at the given index or null.
+         */
+        private ColumnPosition getObject(int index) {
+            if (objects == null)
+                return null;
+            ColumnPosition position = unwrap(objects[index]);
+            return position != null && position.isAttachedAt(index) ? position : null;
+        }
+
+        private void setObject(int index, ColumnPosition position) {
+            if (position == null) {
+                if (objects != null)
+                    objects[index] = null;
+                return;
+            }
+            ensureObjects();
+            objects[index] = position.kept ? position : new View(position, index, collected);
+        }
+
+        void keep(ColumnPosition position) {
+            setObject(position.index, position);
+        }
+
+        public Wgs84Position get(int index) {
+            checkIndex(index, size);
+            expunge();
+            ColumnPosition position = getObject(index);
+            if (position == null) {
+                position = new ColumnPosition(this, index);
+                setObject(index, position);
+            }
+            return position;
+        }
+
+        /**
+         * Returns the view at the given index without keeping a new one.
+         */
+        private ColumnPosition peek(int index) {
+            ColumnPosition position = getObject(index);
+            return position != null ? position : new ColumnPosition(this, index);
+        }
+
+        private void store(int index, Wgs84Position position) {
+            longitudes[index] = toPrimitive(position.getLongitude());
+            latitudes[index] = toPrimitive(position.getLatitude());
+            elevations[index] = toPrimitive(position.getElevation());
+            speeds[index] = toPrimitive(position.getSpeed());
+            writeTime(index, position.getTime());
+            writeDescription(index, position.getDescription());
+
+            ColumnPosition object = null;
+            if (position instanceof ColumnPosition && ((ColumnPosition) position).columns == this)
+                object = (ColumnPosition) position;
+            else if (hasFurtherAttributes(position))
+                object = new ColumnPosition(this, position);
+            if (object != null)
+                object.attach(index, object.kept || hasFurtherAttributes(object));
+            setObject(index, object);
+        }
+
+        public Wgs84Position set(int index, Wgs84Position position) {
+            checkIndex(index, size);
+            ColumnPosition previous = peek(index);
+            if (previous != position)
+                previous.detach();
+            store(index, position);
+            return previous;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= longitudes.length)
+                return;
+            int length = max(capacity, longitudes.length + (longitudes.length >> 1));
+            longitudes = copyOf(longitudes, length);
+            latitudes = copyOf(latitudes, length);
+            elevations = copyOf(elevations, length);
+            speeds = copyOf(speeds, length);
+            times = copyOf(times, length);
+            if (timeZoneIds != null)
+                timeZoneIds = copyOf(timeZoneIds, length);
+            if (descriptions != null)
+                descriptions = copyOf(descriptions, length);
+            if (objects != null)
+                objects = copyOf(objects, length);
+        }
+
+        private void shift(int from, int to, int count) {
+            arraycopy(longitudes, from, longitudes, to, count);
+            arraycopy(latitudes, from, latitudes, to, count);
+            arraycopy(elevations, from, elevations, to, count);
+            arraycopy(speeds, from, speeds, to, count);
+            arraycopy(times, from, times, to, count);
+            if (timeZoneIds != null)
+                arraycopy(timeZoneIds, from, timeZoneIds, to, count);
+            if (descriptions != null)
+                arraycopy(descriptions, from, descriptions, to, count);
+            if (objects != null)
+                arraycopy(objects, from, objects, to, count);
+        }
+
+        private void clearObjects(int fromIndex, int toIndex) {
+            if (timeZoneIds != null)
+                fill(timeZoneIds, fromIndex, toIndex, null);
+            if (descriptions != null)
+                fill(descriptions, fromIndex, toIndex, null);
+            if (objects != null)
+                fill(objects, fromIndex, toIndex, null);
+        }
+
+        /**
+         * Updates the indices of the views which have been moved by the given distance.
+         */
+        private void moved(int fromIndex, int toIndex, int distance) {
+            if (objects == null)
+                return;
+            for (int i = fromIndex; i < toIndex; i++) {
+                Object object = objects[i];
+                if (object instanceof View)
+                    ((View) object).index = i;
+                ColumnPosition position = unwrap(object);
+                if (position != null && position.isAttachedAt(i - distance))
+                    position.index = i;
+            }
+        }
+
+        private void detach(int fromIndex, int toIndex) {
+            for (int i = fromIndex; i < toIndex; i++) {
+                ColumnPosition position = getObject(i);
+                if (position != null)
+                    position.detach();
+            }
+        }
+
+        public void add(int index, Wgs84Position position) {
+            checkIndex(index, size + 1);
+            expunge();
+            ensureCapacity(size + 1);
+            shift(index, index + 1, size - index);
+            size++;
+            moved(index + 1, size, 1);
+            clearObjects(index, index + 1);
+            store(index, position);
+            modCount++;
+            changed(index);
+        }
+
+        public boolean addAll(int index, Collection<? extends Wgs84Position> collection) {
+            checkIndex(index, size + 1);
+            int count = collection.size();
+            if (count == 0)
+                return false;
+            expunge();
+            ensureCapacity(size + count);
+            shift(index, index + count, size - index);
+            size += count;
+            moved(index + count, size, count);
+            clearObjects(index, index + count);
+            int i = index;
+            for (Wgs84Position position : collection)
+                store(i++, position);
+            modCount++;
+            changed(index);
+            return true;
+        }
+
+        public Wgs84Position remove(int index) {
+            checkIndex(index, size);
+            ColumnPosition previous = peek(index);
+            previous.detach();
+            removeRange(index, index + 1);
+            return previous;
+        }
+
+        protected void removeRange(int fromIndex, int toIndex) {
+            if (fromIndex >= toIndex)
+                return;
+            expunge();
+            detach(fromIndex, toIndex);
+            shift(toIndex, fromIndex, size - toIndex);
+            int count = toIndex - fromIndex;
+            size -= count;
+            clearObjects(size, size + count);
+            moved(fromIndex, size, -count);
+            modCount++;
+            changed(fromIndex);
+        }
+
+        List<Wgs84Position> removeAll(BitSet indices) {
+            List<Wgs84Position> removed = new ArrayList<>(indices.cardinality());
+            int first = indices.nextSetBit(0);
+            if (first == -1 || first >= size)
+                return removed;
+
+            expunge();
+            int index = first;
+            for (int i = first; i < size; i++) {
+                if (indices.get(i)) {
+                    ColumnPosition position = peek(i);
+                    position.detach();
+                    removed.add(position);
+                } else {
+                    if (i != index) {
+                        shift(i, index, 1);
+                        moved(index, index + 1, index - i);
+                    }
+                    index++;
+                }
+            }
+            clearObjects(index, size);
+            size = index;
+            modCount++;
+            changed(first);
+            return removed;
+        }
+
+        public void clear() {
+            removeRange(0, size);
+        }
+
+        private static boolean hasFurtherAttributes(Wgs84Position position) {
+            return position.getHeading() != null || position.getPressure() != null ||
+                    position.getTemperature() != null || position.getHeartBeatRate() != null ||
+                    position.getHdop() != null || position.getVdop() != null || position.getPdop() != null ||
+                    position.getSatellites() != null || position.getWaypointType() != null ||
+                    position.getOrigin() != null;
+        }
+    }
+
+    /**
+     * A weak reference to a view that knows its index to be removed once the view
+     * is collected.
+     */
+    private static class View extends WeakReference<ColumnPosition> {
+        private int index;
+
+        private View(ColumnPosition position, int index, ReferenceQueue<ColumnPosition> queue) {
+            super(position, queue);
+            this.index = index;
+        }
+    }
+
+    /**
+     * A position of a {@link Columns} that writes changes through to its columns
+     * while it is attached to an index.
+     */
+    private static class ColumnPosition extends Wgs84Position {
+        private final Columns columns;
+        private int index;
+        private boolean attached, kept;
+
+        private ColumnPosition(Columns columns, int index) {
+            super(columns.getLongitude(index), columns.getLatitude(index), columns.getElevation(index),
+                    columns.getSpeed(index), columns.getTime(index), null);
+            // the description is parsed when it is stored
+            this.description = columns.getDescription(index);
+            this.columns = columns;
+            this.index = index;
+            this.attached = true;
+        }
+
+        private ColumnPosition(Columns columns, Double longitude, Double latitude, Double elevation, Double speed,
+                               CompactCalendar time, String description) {
+            super(longitude, latitude, elevation, speed, time, description);
+            this.columns = columns;
+        }
+
+        private ColumnPosition(Columns columns, Wgs84Position position) {
+            super(position.getLongitude(), position.getLatitude(), position.getElevation(),
+                    position.getSpeed(), position.getTime(), null, position.getOrigin());
+            this.description = position.getDescription();
+            super.setHeading(position.getHeading());
+            super.setPressure(position.getPressure());
+            super.setTemperature(position.getTemperature());
+            super.setHeartBeatRate(position.getHeartBeatRate());
+            super.setHdop(position.getHdop());
+            super.setVdop(position.getVdop());
+            super.setPdop(position.getPdop());
+            super.setSatellites(position.getSatellites());
+            super.setWaypointType(position.getWaypointType());
+            this.columns = columns;
+        }
+
+        Class<?> getEqualityClass() {
+            return Wgs84Position.class;
+        }
+
+        private boolean isAttachedAt(int index) {
+            return attached && this.index == index;
+        }
+
+        private void attach(int index, boolean kept) {
+            this.index = index;
+            this.attached = true;
+            this.kept = kept;
+        }
+
+        private void detach() {
+            attached = false;
+            kept = false;
+        }
+
+        private void keep() {
+            if (attached && !kept) {
+                kept = true;
+                columns.keep(this);
+            }
+        }
+
+        public void setLongitude(Double longitude) {
+            super.setLongitude(longitude);
+            if (attached)
+                columns.setLongitude(index, longitude);
+        }
+
+        public void setLatitude(Double latitude) {
+            super.setLatitude(latitude);
+            if (attached)
+                columns.setLatitude(index, latitude);
+        }
+
+        public void setElevation(Double elevation) {
+            super.setElevation(elevation);
+            if (attached)
+                columns.setElevation(index, elevation);
+        }
+
+        public void setSpeed(Double speed) {
+            super.setSpeed(speed);
+            if (attached)
+                columns.setSpeed(index, speed);
+        }
+
+        public void setTime(CompactCalendar time) {
+            super.setTime(time);
+            if (attached)
+                columns.setTime(index, time);
+        }
+
+        public void setDescription(String description) {
+            super.setDescription(description);
+            if (attached)
+                columns.setDescription(index, description);
+        }
+
+        public void setWaypointType(WaypointType waypointType) {
+            super.setWaypointType(waypointType);
+            keep();
+        }
+
+        public void setHeading(Double heading) {
+            super.setHeading(heading);
+            keep();
+        }
+
+        public void setPressure(Double pressure) {
+            super.setPressure(pressure);
+            keep();
+        }
+
+        public void setTemperature(Double temperature) {
+            super.setTemperature(temperature);
+            keep();
+        }
+
+        public void setHeartBeatRate(Short heartBeatRate) {
+            super.setHeartBeatRate(heartBeatRate);
+            keep();
+        }
+
+        public void setHdop(Double hdop) {
+            super.setHdop(hdop);
+            keep();
+        }
+
+        public void setVdop(Double vdop) {
+            super.setVdop(vdop);
+            keep();
+        }
+
+        public void setPdop(Double pdop) {
+            super.setPdop(pdop);
+            keep();
+        }
+
+        public void setSatellites(Integer satellites) {
+            super.setSatellites(satellites);
+            keep();
+        }
+
+        public void setOrigin(Object origin) {
+            super.setOrigin(origin);
+            keep();
+        }
+    }
+}
@@ -24,11 +24,15 @@ import slash.common.type.CompactCalendar;
 import slash.navigation.common.NavigationPosition;
 
 import java.util.List;
+import java.util.concurrent.CountedCompleter;
 
-import static java.lang.Math.abs;
-import static java.lang.System.arraycopy;
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+import static java.lang.Math.*;
+import static java.util.Arrays.copyOf;
 import static slash.common.io.Transfer.isEmpty;
 import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.common.Bearing.EARTH_RADIUS;
 
 /**
  * Provides {@link NavigationPosition} calculation functionality.
@@ -37,38 +41,149 @@ import static slash.common.type.CompactCalendar.fromMillis;
  */
 
 public class RouteCalculations {
-    private static int[] douglasPeuckerSimplify(List<? extends NavigationPosition> positions, int from, int to, double threshold) {
-        // find the point with the maximum distance
-        NavigationPosition pointA = positions.get(from);
-        NavigationPosition pointB = positions.get(to);
-        int maximumDistanceIndex = -1;
-        double maximumDistance = 0.0;
-        for (int i = from + 1; i < to; i++) {
-            NavigationPosition position = positions.get(i);
-            if (position.hasCoordinates()) {
-                Double distance = position.calculateOrthogonalDistance(pointA, pointB);
-                if (distance == null)
+    private static final int PARALLEL_POSITIONS = 50000;
+
+    /**
+     * Positions projected onto the unit sphere; positions without coordinates are NaN.
+     */
+    private static class Projection {
+        private final double[] x, y, z;
+
+        private Projection(List<? extends NavigationPosition> positions) {
+            int count = positions.size();
+            x = new double[count];
+            y = new double[count];
+            z = new double[count];
+            for (int i = 0; i < count; i++) {
+                NavigationPosition position = positions.get(i);
+                if (position.hasCoordinates()) {
+                    double longitude = toRadians(position.getLongitude());
+                    double latitude = toRadians(position.getLatitude());
+                    x[i] = cos(latitude) * cos(longitude);
+                    y[i] = cos(latitude) * sin(longitude);
+                    z[i] = sin(latitude);
+                } else {
+                    x[i] = NaN;
+                    y[i] = NaN;
+                    z[i] = NaN;
+                }
+            }
+        }
+
+        private boolean hasCoordinates(int index) {
+            return !isNaN(x[index]);
+        }
+
+        /**
+         * Returns the index of the position with the maximum distance to the great circle
+         * through from and to or -1 if none is further away than the threshold.
+         */
+        private int findMaximumDistance(int from, int to, double threshold) {
+            if (!hasCoordinates(from) || !hasCoordinates(to))
+                return -1;
+
+            // normal of the great circle through from and to
+            double nx = y[from] * z[to] - z[from] * y[to];
+            double ny = z[from] * x[to] - x[from] * z[to];
+            double nz = x[from] * y[to] - y[from] * x[to];
+            double length = sqrt(nx * nx + ny * ny + nz * nz);
+            boolean samePosition = length < 1.0E-12;
+
+            int maximumDistanceIndex = -1;
+            double maximumDistance = 0.0;
+            for (int i = from + 1; i < to; i++) {
+                if (!hasCoordinates(i))
                     continue;
 
-                double absDistance = abs(distance);
-                if (absDistance > maximumDistance) {
-                    maximumDistance = absDistance;
+                double distance;
+                if (samePosition) {
+                    // no great circle, the angle to from instead
+                    double cx = y[from] * z[i] - z[from] * y[i];
+                    double cy = z[from] * x[i] - x[from] * z[i];
+                    double cz = x[from] * y[i] - y[from] * x[i];
+                    distance = atan2(sqrt(cx * cx + cy * cy + cz * cz), x[from] * x[i] + y[from] * y[i] + z[from] * z[i]);
+                } else
+                    distance = asin(min(abs(nx * x[i] + ny * y[i] + nz * z[i]) / length, 1.0));
+
+                if (distance > maximumDistance) {
+                    maximumDistance = distance;
                     maximumDistanceIndex = i;
                 }
             }
+            return maximumDistance * EARTH_RADIUS > threshold ? maximumDistanceIndex : -1;
+        }
+    }
+
+    /**
+     * Simplifies a range with an explicit stack of sub ranges and forks large sub ranges.
+     */
+    private static class DouglasPeuckerTask extends CountedCompleter<Void> {
+        private final Projection projection;
+        private final boolean[] significant;
+        private final int from, to;
+        private final double threshold;
+
+        private DouglasPeuckerTask(CountedCompleter<?> parent, Projection projection, boolean[] significant,
+                                   int from, int to, double threshold) {
+            super(parent);
+            this.projection = projection;
+            this.significant = significant;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        public void compute() {
+            int[] stack = new int[64];
+            int size = 0;
+            stack[size++] = from;
+            stack[size++] = to;
+
+            while (size > 0) {
+                int end = stack[--size];
+                int start = stack[--size];
+                significant[start] = true;
+                significant[end] = true;
+
+                int index = projection.findMaximumDistance(start, end, threshold);
+                if (index == -1)
+                    continue;
+
+                if (size + 4 > stack.length)
+                    stack = copyOf(stack, stack.length * 2);
+                if (index - start > PARALLEL_POSITIONS) {
+                    addToPendingCount(1);
+                    new DouglasPeuckerTask(this, projection, significant, start, index, threshold).fork();
+                } else {
+                    stack[size++] = start;
+                    stack[size++] = index;
+                }
+                stack[size++] = index;
+                stack[size++] = end;
+            }
+            tryComplete();
         }
+    }
 
-        // if maximum distance is greater than threshold, recursively simplify
-        if ((maximumDistanceIndex != -1) && (maximumDistance > threshold)) {
-            int[] res1 = douglasPeuckerSimplify(positions, from, maximumDistanceIndex, threshold);
-            int[] res2 = douglasPeuckerSimplify(positions, maximumDistanceIndex, to, threshold);
-
-            int[] result = new int[res1.length - 1 + res2.length];
-            arraycopy(res1, 0, result, 0, res1.length - 1);
-            arraycopy(res2, 0, result, res1.length - 1, res2.length);
-            return result;
-        } else
-            return new int[]{from, to};
+    private static int[] douglasPeuckerSimplify(List<? extends NavigationPosition> positions, double threshold) {
+        Projection projection = new Projection(positions);
+        boolean[] significant = new boolean[positions.size()];
+        DouglasPeuckerTask task = new DouglasPeuckerTask(null, projection, significant, 0, positions.size() - 1, threshold);
+        if (positions.size() > PARALLEL_POSITIONS)
+            task.invoke();
+        else
+            task.compute();
+
+        int count = 0;
+        for (boolean b : significant)
+            if (b)
+                count++;
+        int[] result = new int[count];
+        int index = 0;
+        for (int i = 0; i < significant.length; i++)
+            if (significant[i])
+                result[index++] = i;
+        return result;
     }
 
     /**
@@ -86,7 +201,7 @@ public class RouteCalculations {
         else if (positions.size() == 1)
             return new int[]{0};
         else
-            return douglasPeuckerSimplify(positions, 0, positions.size() - 1, threshold);
+            return douglasPeuckerSimplify(positions, threshold);
     }
 
     @SuppressWarnings("unused")
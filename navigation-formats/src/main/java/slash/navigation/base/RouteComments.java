@@ -342,9 +342,61 @@ public abstract class RouteComments {
         return !isEmpty(aDouble) ? aDouble : null;
     }
 
+    private static boolean startsWithTripmasterReason(String comment) {
+        if (comment.isEmpty())
+            return false;
+        switch (comment.charAt(0)) {
+            case 'A': case 'C': case 'D': case 'K': case 'P': case 'R': case 'W':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean startsWithStartEnd(String comment) {
+        return comment.startsWith("Start") || comment.startsWith("Ende") || comment.startsWith("Finish");
+    }
+
+    private static boolean startsWithTime(String comment) {
+        return comment.length() > 2 && isDigit(comment.charAt(0)) &&
+                (comment.charAt(1) == ':' || isDigit(comment.charAt(1)) && comment.charAt(2) == ':');
+    }
+
+    private static boolean startsWithLogposDate(String comment) {
+        if (comment.length() < 7 || comment.charAt(6) != ' ')
+            return false;
+        for (int i = 0; i < 6; i++) {
+            if (!isDigit(comment.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static Matcher matches(Pattern pattern, String comment) {
+        Matcher matcher = pattern.matcher(comment);
+        return matcher.matches() ? matcher : null;
+    }
+
+    /**
+     * Parses the Tripmaster, logpos, TTTracklog and RouteConverter encodings of a description.
+     * Each pattern is guarded by a cheap check of the prefix or suffix it requires so that only
+     * the patterns which can match a comment are run. Where several patterns match, the later
+     * ones refine the values of the earlier ones as before.
+     */
     public static void parseDescription(NavigationPosition position, String comment) {
-        Matcher matcher = TRIPMASTER_14_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        boolean startsWithReason = startsWithTripmasterReason(comment);
+        boolean startsWithStartEnd = startsWithStartEnd(comment);
+        boolean startsWithTime = startsWithTime(comment);
+        boolean startsWithLogposDate = startsWithLogposDate(comment);
+        boolean endsWithMeters = comment.endsWith(" m");
+        boolean containsHeading = comment.contains(" deg");
+
+        Matcher matcher = startsWithReason ? matches(TRIPMASTER_14_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseTripmaster14Time(matcher.group(2)));
             position.setElevation(parseDouble(matcher.group(3)));
 
@@ -363,8 +415,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_18_SHORT_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithStartEnd ? matches(TRIPMASTER_18_SHORT_STARTEND_PATTERN, comment) : null;
+        if (matcher != null) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -384,8 +436,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_18_SHORT_WAYPOINT_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithTime && endsWithMeters ? matches(TRIPMASTER_18_SHORT_WAYPOINT_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseTripmaster14Time(matcher.group(1)));
             position.setElevation(parseDouble(matcher.group(2)));
 
@@ -397,8 +449,8 @@ public abstract class RouteComments {
 
         }
 
-        matcher = TRIPMASTER_25_SHORT_WAYPOINT_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithTime && endsWithMeters ? matches(TRIPMASTER_25_SHORT_WAYPOINT_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setElevation(parseDouble(matcher.group(3)));
 
@@ -417,8 +469,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_25_SHORT_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithTime && endsWithMeters ? matches(TRIPMASTER_25_SHORT_STARTEND_PATTERN, comment) : null;
+        if (matcher != null) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -432,8 +484,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_31_SHORT_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithTime ? matches(TRIPMASTER_31_SHORT_STARTEND_PATTERN, comment) : null;
+        if (matcher != null) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -447,8 +499,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_MIDDLE_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithTime ? matches(TRIPMASTER_MIDDLE_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setElevation(parseDouble(matcher.group(4)));
 
@@ -465,8 +517,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_LONG_NO_REASON_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithTime ? matches(TRIPMASTER_LONG_NO_REASON_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setSpeed(parseDouble(matcher.group(6)));
             position.setElevation(parseDouble(matcher.group(3)));
@@ -481,8 +533,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_LONG_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithTime ? matches(TRIPMASTER_LONG_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseTripmaster18Date(matcher.group(3)));
             if (!position.hasTime())
                 position.setTime(parseTripmaster14Time(matcher.group(1)));
@@ -502,8 +554,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = LOGPOS_2_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithLogposDate ? matches(LOGPOS_2_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseLogposDate(matcher.group(1)));
             position.setSpeed(parseDouble(matcher.group(5)));
 
@@ -515,8 +567,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = LOGPOS_1_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithLogposDate ? matches(LOGPOS_1_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseLogposDate(matcher.group(1)));
             Double elevation;
             try {
@@ -535,8 +587,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TTTRACKLOG_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithTime ? matches(TTTRACKLOG_PATTERN, comment) : null;
+        if (matcher != null) {
             position.setTime(parseTTTracklogTime(matcher.group(1)));
             position.setSpeed(parseDouble(matcher.group(5)));
             Double elevation = parseDouble(matcher.group(6));
@@ -549,8 +601,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = ROUTECONVERTER_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = startsWithStartEnd && containsHeading ? matches(ROUTECONVERTER_STARTEND_PATTERN, comment) : null;
+        if (matcher != null) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -567,8 +619,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = ROUTECONVERTER_INTERMEDIATE_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = containsHeading ? matches(ROUTECONVERTER_INTERMEDIATE_PATTERN, comment) : null;
+        if (matcher != null) {
             String timeStr = trim(matcher.group(2));
             position.setTime(parseTripmaster14Time(timeStr));
             position.setElevation(parseDouble(matcher.group(3)));
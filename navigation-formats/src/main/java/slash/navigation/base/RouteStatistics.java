@@ -0,0 +1,133 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.navigation.common.BoundingBox;
+
+/**
+ * An immutable snapshot of the statistics of a {@link BaseRoute}.
+ *
+ * @author Christian Pesch
+ * @see BaseRoute#getStatistics()
+ */
+
+public class RouteStatistics {
+    private final int positionCount;
+    private final double distance, movingDistance, elevationAscend, elevationDescend;
+    private final long time, movingTime;
+    private final Double minimumElevation, maximumElevation, maximumSpeed;
+    private final BoundingBox boundingBox;
+
+    RouteStatistics(int positionCount, double distance, double movingDistance, long time, long movingTime,
+                    double elevationAscend, double elevationDescend, Double minimumElevation, Double maximumElevation,
+                    Double maximumSpeed, BoundingBox boundingBox) {
+        this.positionCount = positionCount;
+        this.distance = distance;
+        this.movingDistance = movingDistance;
+        this.time = time;
+        this.movingTime = movingTime;
+        this.elevationAscend = elevationAscend;
+        this.elevationDescend = elevationDescend;
+        this.minimumElevation = minimumElevation;
+        this.maximumElevation = maximumElevation;
+        this.maximumSpeed = maximumSpeed;
+        this.boundingBox = boundingBox;
+    }
+
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    /**
+     * Returns the distance in meters like {@link BaseRoute#getDistance()}.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Returns the duration in milliseconds like {@link BaseRoute#getTime()}.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the time in milliseconds spent between positions that are at least
+     * {@link RouteStatisticsCalculator#MINIMUM_MOVING_SPEED} apart.
+     */
+    public long getMovingTime() {
+        return movingTime;
+    }
+
+    public double getElevationAscend() {
+        return elevationAscend;
+    }
+
+    public double getElevationDescend() {
+        return elevationDescend;
+    }
+
+    public Double getMinimumElevation() {
+        return minimumElevation;
+    }
+
+    public Double getMaximumElevation() {
+        return maximumElevation;
+    }
+
+    /**
+     * Returns the average speed in kilometers per hour over the duration or null if there is no duration.
+     */
+    public Double getAverageSpeed() {
+        return time > 0 ? distance / time * 3600.0 : null;
+    }
+
+    /**
+     * Returns the average speed in kilometers per hour while moving or null if there is no moving time.
+     */
+    public Double getAverageMovingSpeed() {
+        return movingTime > 0 ? movingDistance / movingTime * 3600.0 : null;
+    }
+
+    /**
+     * Returns the maximum of the recorded speeds in kilometers per hour or, if no speed
+     * is recorded, the maximum speed between positions with a time.
+     */
+    public Double getMaximumSpeed() {
+        return maximumSpeed;
+    }
+
+    /**
+     * Returns the bounding box of the positions with coordinates or null if there is none.
+     */
+    public BoundingBox getBoundingBox() {
+        return boundingBox;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[positionCount=" + positionCount + ", distance=" + distance +
+                ", time=" + time + ", movingTime=" + movingTime + ", elevationAscend=" + elevationAscend +
+                ", elevationDescend=" + elevationDescend + ", minimumElevation=" + minimumElevation +
+                ", maximumElevation=" + maximumElevation + ", maximumSpeed=" + maximumSpeed +
+                ", boundingBox=" + boundingBox + "]";
+    }
+}
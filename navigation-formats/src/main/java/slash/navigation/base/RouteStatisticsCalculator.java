@@ -0,0 +1,273 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.navigation.common.BoundingBox;
+import slash.navigation.common.NavigationPosition;
+
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.POSITIVE_INFINITY;
+import static java.lang.Double.isNaN;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Arrays.copyOf;
+
+/**
+ * Calculates the {@link RouteStatistics} of a {@link BaseRoute} in one pass over its positions.
+ *
+ * The positions are split into blocks of {@link #BLOCK_SIZE} positions. Each block keeps
+ * the statistics of its positions and of the segments leading to them. Changes recalculate
+ * the affected blocks only and the snapshot is combined from the blocks.
+ *
+ * Invalidating does not wait for a calculation in progress: it queues the changed range
+ * and increments the generation. A calculation publishes its snapshot only if no
+ * invalidation happened in between, otherwise the next call calculates again.
+ *
+ * @author Christian Pesch
+ */
+
+class RouteStatisticsCalculator {
+    static final int BLOCK_SIZE = 1024;
+    /**
+     * The speed in kilometers per hour from which on a segment counts as moving.
+     */
+    static final double MINIMUM_MOVING_SPEED = 1.0;
+
+    private final BaseRoute<?, ?> route;
+    private final AtomicLong generation = new AtomicLong();
+    private final Queue<int[]> invalidRanges = new ConcurrentLinkedQueue<>();
+    private volatile Snapshot snapshot;
+    // guarded by this
+    private Block[] blocks = new Block[0];
+    private final BitSet invalidBlocks = new BitSet();
+    private int positionCount = -1;
+
+    RouteStatisticsCalculator(BaseRoute<?, ?> route) {
+        this.route = route;
+    }
+
+    /**
+     * The statistics calculated for a generation of invalidations.
+     */
+    private static class Snapshot {
+        private final long generation;
+        private final RouteStatistics statistics;
+
+        private Snapshot(long generation, RouteStatistics statistics) {
+            this.generation = generation;
+            this.statistics = statistics;
+        }
+    }
+
+    /**
+     * Sums up segments between positions with a time.
+     */
+    private static class Segments {
+        private long time, movingTime;
+        private double movingDistance, maximumSpeed = NEGATIVE_INFINITY;
+
+        private void add(double distance, long time) {
+            if (time <= 0)
+                return;
+            this.time += time;
+            double speed = distance / time * 3600.0;
+            maximumSpeed = max(maximumSpeed, speed);
+            if (speed >= MINIMUM_MOVING_SPEED) {
+                movingTime += time;
+                movingDistance += distance;
+            }
+        }
+
+        private void add(Segments segments) {
+            time += segments.time;
+            movingTime += segments.movingTime;
+            movingDistance += segments.movingDistance;
+            maximumSpeed = max(maximumSpeed, segments.maximumSpeed);
+        }
+    }
+
+    /**
+     * The statistics of the positions of a block and of the segments leading to them.
+     */
+    private static class Block {
+        private double distance, ascend, descend;
+        private double minimumElevation = POSITIVE_INFINITY, maximumElevation = NEGATIVE_INFINITY;
+        private double maximumRecordedSpeed = NEGATIVE_INFINITY;
+        private double west = POSITIVE_INFINITY, east = NEGATIVE_INFINITY, south = POSITIVE_INFINITY, north = NEGATIVE_INFINITY;
+        private final Segments segments = new Segments();
+        // the first and last position with a time and the distances before and after them
+        private boolean hasTime;
+        private long firstMillis, lastMillis, minimumMillis = Long.MAX_VALUE, maximumMillis = Long.MIN_VALUE;
+        private double distanceBeforeFirstTime, distanceAfterLastTime;
+    }
+
+    private Block calculate(int from, int to) {
+        Block block = new Block();
+        for (int i = from; i < to; i++) {
+            if (i > 0) {
+                double distance = route.getDistanceBetween(i - 1, i);
+                block.distance += distance;
+                block.distanceAfterLastTime += distance;
+                double elevation = route.getElevationBetween(i - 1, i);
+                if (elevation > 0)
+                    block.ascend += elevation;
+                else
+                    block.descend -= elevation;
+            }
+
+            NavigationPosition position = route.getPosition(i);
+            if (position.hasCoordinates()) {
+                block.west = min(block.west, position.getLongitude());
+                block.east = max(block.east, position.getLongitude());
+                block.south = min(block.south, position.getLatitude());
+                block.north = max(block.north, position.getLatitude());
+            }
+            Double elevation = position.getElevation();
+            if (elevation != null && !isNaN(elevation)) {
+                block.minimumElevation = min(block.minimumElevation, elevation);
+                block.maximumElevation = max(block.maximumElevation, elevation);
+            }
+            Double speed = position.getSpeed();
+            if (speed != null && !isNaN(speed))
+                block.maximumRecordedSpeed = max(block.maximumRecordedSpeed, speed);
+
+            if (position.hasTime()) {
+                long millis = position.getTime().getTimeInMillis();
+                if (!block.hasTime) {
+                    block.hasTime = true;
+                    block.firstMillis = millis;
+                    block.distanceBeforeFirstTime = block.distanceAfterLastTime;
+                } else
+                    block.segments.add(block.distanceAfterLastTime, millis - block.lastMillis);
+                block.lastMillis = millis;
+                block.distanceAfterLastTime = 0.0;
+                block.minimumMillis = min(block.minimumMillis, millis);
+                block.maximumMillis = max(block.maximumMillis, millis);
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Announces that the positions between the given indices have changed. Any
+     * other change of the number of positions recalculates all blocks.
+     */
+    void invalidate(int fromIndex, int toIndex) {
+        invalidRanges.add(new int[]{fromIndex, toIndex});
+        generation.incrementAndGet();
+    }
+
+    private void invalidateBlocks(int fromIndex, int toIndex) {
+        // a position changes the segments leading to it and to its successor
+        int fromBlock = max(fromIndex, 0) / BLOCK_SIZE;
+        int toBlock = toIndex < Integer.MAX_VALUE ? (toIndex + 1) / BLOCK_SIZE + 1 : blocks.length;
+        if (fromBlock < toBlock)
+            invalidBlocks.set(fromBlock, max(toBlock, fromBlock + 1));
+    }
+
+    RouteStatistics getStatistics() {
+        // read before the ranges are taken so that later invalidations are never lost
+        long current = generation.get();
+        Snapshot snapshot = this.snapshot;
+        if (snapshot != null && snapshot.generation == current &&
+                snapshot.statistics.getPositionCount() == route.getPositionCount())
+            return snapshot.statistics;
+
+        RouteStatistics statistics = calculate();
+        if (generation.get() == current)
+            this.snapshot = new Snapshot(current, statistics);
+        return statistics;
+    }
+
+    private synchronized RouteStatistics calculate() {
+        int[] range;
+        while ((range = invalidRanges.poll()) != null)
+            invalidateBlocks(range[0], range[1]);
+
+        int count = route.getPositionCount();
+        int blockCount = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (count != positionCount) {
+            blocks = copyOf(blocks, blockCount);
+            invalidBlocks.clear();
+            invalidBlocks.set(0, blockCount);
+            positionCount = count;
+        }
+
+        for (int i = invalidBlocks.nextSetBit(0); i != -1 && i < blockCount; i = invalidBlocks.nextSetBit(i + 1))
+            blocks[i] = calculate(i * BLOCK_SIZE, min((i + 1) * BLOCK_SIZE, count));
+        invalidBlocks.clear();
+        return combine();
+    }
+
+    private RouteStatistics combine() {
+        double distance = 0.0, ascend = 0.0, descend = 0.0;
+        double minimumElevation = POSITIVE_INFINITY, maximumElevation = NEGATIVE_INFINITY;
+        double maximumRecordedSpeed = NEGATIVE_INFINITY;
+        double west = POSITIVE_INFINITY, east = NEGATIVE_INFINITY, south = POSITIVE_INFINITY, north = NEGATIVE_INFINITY;
+        long minimumMillis = Long.MAX_VALUE, maximumMillis = Long.MIN_VALUE;
+        Segments segments = new Segments();
+        boolean hasTime = false;
+        long lastMillis = 0;
+        double distanceAfterLastTime = 0.0;
+
+        for (Block block : blocks) {
+            distance += block.distance;
+            ascend += block.ascend;
+            descend += block.descend;
+            minimumElevation = min(minimumElevation, block.minimumElevation);
+            maximumElevation = max(maximumElevation, block.maximumElevation);
+            maximumRecordedSpeed = max(maximumRecordedSpeed, block.maximumRecordedSpeed);
+            west = min(west, block.west);
+            east = max(east, block.east);
+            south = min(south, block.south);
+            north = max(north, block.north);
+
+            if (!block.hasTime) {
+                distanceAfterLastTime += block.distance;
+                continue;
+            }
+            // the segment from the last position with a time in a previous block
+            if (hasTime)
+                segments.add(distanceAfterLastTime + block.distanceBeforeFirstTime, block.firstMillis - lastMillis);
+            segments.add(block.segments);
+            hasTime = true;
+            lastMillis = block.lastMillis;
+            distanceAfterLastTime = block.distanceAfterLastTime;
+            minimumMillis = min(minimumMillis, block.minimumMillis);
+            maximumMillis = max(maximumMillis, block.maximumMillis);
+        }
+
+        long time = max(hasTime ? maximumMillis - minimumMillis : 0, segments.time);
+        Double maximumSpeed = maximumRecordedSpeed > NEGATIVE_INFINITY ? toDouble(maximumRecordedSpeed) : toDouble(segments.maximumSpeed);
+        BoundingBox boundingBox = west <= east ? new BoundingBox(east, north, west, south) : null;
+        return new RouteStatistics(positionCount, distance, segments.movingDistance, time, segments.movingTime,
+                ascend, descend, toDouble(minimumElevation), toDouble(maximumElevation), maximumSpeed, boundingBox);
+    }
+
+    private static Double toDouble(double value) {
+        return value > NEGATIVE_INFINITY && value < POSITIVE_INFINITY ? value : null;
+    }
+}
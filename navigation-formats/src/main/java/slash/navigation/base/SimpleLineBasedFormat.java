@@ -19,13 +19,25 @@
 */
 package slash.navigation.base;
 
+import slash.common.type.CompactCalendar;
+
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import static java.lang.Math.max;
 import static java.lang.String.format;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
 import static slash.navigation.base.RouteCharacteristics.Waypoints;
 
 /**
@@ -34,7 +46,9 @@ import static slash.navigation.base.RouteCharacteristics.Waypoints;
  * @author Christian Pesch
  */
 
-public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends SimpleFormat<R> {
+public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends SimpleFormat<R>
+        implements StreamingNavigationFormat<R, Wgs84Position> {
+    private static final int PARALLEL_CHUNK_LINES = 8192;
 
     public int getMaximumPositionCount() {
         return UNLIMITED_MAXIMUM_POSITION_COUNT;
@@ -46,9 +60,39 @@ public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends Simpl
     }
 
     public void read(BufferedReader reader, String encoding, ParserContext<R> context) throws IOException {
-        List<Wgs84Position> positions = new ArrayList<>();
+        ListPositionSink<Wgs84Position> sink = new ListPositionSink<>();
+        read(reader, context, sink);
+        if (sink.getPositions().size() > 0)
+            context.appendRoute(createRoute(getRouteCharacteristics(), sink.getPositions()));
+    }
 
-        int lineCount = 0;
+    public boolean isSupportsStreamingReading() {
+        return isSupportsReading();
+    }
+
+    public boolean isSupportsStreamingWriting() {
+        return isSupportsWriting();
+    }
+
+    public void read(InputStream source, CompactCalendar startDate, PositionSink<Wgs84Position> sink) throws IOException {
+        read(source, ISO_LATIN1_ENCODING, startDate, sink);
+    }
+
+    protected void read(InputStream source, String encoding, CompactCalendar startDate, PositionSink<Wgs84Position> sink) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(source, encoding))) {
+            read(reader, new ParserContextImpl<R>(null, startDate), sink);
+        }
+    }
+
+    private void read(BufferedReader reader, ParserContext<R> context, PositionSink<Wgs84Position> sink) throws IOException {
+        if (isSupportsParallelParsing())
+            readInParallel(reader, context, sink);
+        else
+            readSequentially(reader, context, sink);
+    }
+
+    private void readSequentially(BufferedReader reader, ParserContext<R> context, PositionSink<Wgs84Position> sink) throws IOException {
+        int lineCount = 0, positionCount = 0;
         while (true) {
             String line = reader.readLine();
             if (line == null)
@@ -59,7 +103,9 @@ public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends Simpl
             if (isValidLine(line)) {
                 if (isPosition(line)) {
                     Wgs84Position position = parsePosition(line, context);
-                    positions.add(position);
+                    if (positionCount++ == 0)
+                        sink.begin(getRouteCharacteristics(), null);
+                    sink.add(position);
                 }
             } else {
                 if (lineCount++ > getGarbleCount())
@@ -67,8 +113,143 @@ public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends Simpl
             }
         }
 
-        if (positions.size() > 0)
-            context.appendRoute(createRoute(getRouteCharacteristics(), positions));
+        if (positionCount > 0)
+            sink.end();
+    }
+
+    /**
+     * Parses a chunk of lines and remembers garbled lines and exceptions
+     * to hand them out in the order of the lines.
+     */
+    private class ParsedChunk extends RecursiveAction {
+        private final List<String> lines;
+        private final ParserContext<R> context;
+        private final List<Wgs84Position> positions;
+        // the number of positions before each garbled line
+        private final List<Integer> garbledLines = new ArrayList<>();
+        private RuntimeException exception;
+
+        private ParsedChunk(List<String> lines, ParserContext<R> context) {
+            this.lines = lines;
+            this.context = context;
+            this.positions = new ArrayList<>(lines.size());
+        }
+
+        protected void compute() {
+            try {
+                for (String line : lines) {
+                    if (isValidLine(line)) {
+                        if (isPosition(line))
+                            positions.add(parsePosition(line, context));
+                    } else
+                        garbledLines.add(positions.size());
+                }
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+        }
+    }
+
+    /**
+     * Hands out the positions and garbled lines of the chunks in the order of the lines.
+     */
+    private class ChunkSink {
+        private final PositionSink<Wgs84Position> sink;
+        private int lineCount, positionCount;
+
+        private ChunkSink(PositionSink<Wgs84Position> sink) {
+            this.sink = sink;
+        }
+
+        private void add(ParsedChunk chunk) throws IOException {
+            chunk.join();
+
+            int index = 0;
+            for (Integer garbledLine : chunk.garbledLines) {
+                addPositions(chunk.positions, index, garbledLine);
+                index = garbledLine;
+                if (lineCount++ > getGarbleCount())
+                    throw new IOException(format("Too much garble for %s: %d > %d lines", getName(), lineCount, getGarbleCount()));
+            }
+            addPositions(chunk.positions, index, chunk.positions.size());
+
+            if (chunk.exception != null)
+                throw chunk.exception;
+        }
+
+        private void addPositions(List<Wgs84Position> positions, int fromIndex, int toIndex) throws IOException {
+            for (int i = fromIndex; i < toIndex; i++) {
+                if (positionCount++ == 0)
+                    sink.begin(getRouteCharacteristics(), null);
+                sink.add(positions.get(i));
+            }
+        }
+
+        private void end() throws IOException {
+            if (positionCount > 0)
+                sink.end();
+        }
+    }
+
+    int getParallelChunkLines() {
+        return PARALLEL_CHUNK_LINES;
+    }
+
+    private List<String> readChunk(BufferedReader reader) throws IOException {
+        int chunkLines = getParallelChunkLines();
+        List<String> lines = new ArrayList<>(chunkLines);
+        while (lines.size() < chunkLines) {
+            String line = reader.readLine();
+            if (line == null)
+                break;
+            if (line.length() > 0)
+                lines.add(line);
+        }
+        return lines;
+    }
+
+    private void readInParallel(BufferedReader reader, ParserContext<R> context, PositionSink<Wgs84Position> sink) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        // keeps all threads busy while the lines are read but limits the lines in memory
+        int maximumChunks = max(2, pool.getParallelism() * 2);
+        Deque<ParsedChunk> chunks = new ArrayDeque<>();
+        ChunkSink chunkSink = new ChunkSink(sink);
+        try {
+            while (true) {
+                List<String> lines = readChunk(reader);
+                if (lines.size() == 0)
+                    break;
+
+                ParsedChunk chunk = new ParsedChunk(lines, context);
+                // parse small files in the current thread
+                if (chunks.isEmpty() && lines.size() < getParallelChunkLines()) {
+                    chunk.invoke();
+                    chunkSink.add(chunk);
+                    break;
+                }
+
+                pool.execute(chunk);
+                chunks.addLast(chunk);
+                if (chunks.size() >= maximumChunks)
+                    chunkSink.add(chunks.removeFirst());
+            }
+
+            while (!chunks.isEmpty())
+                chunkSink.add(chunks.removeFirst());
+        } finally {
+            for (ParsedChunk chunk : chunks)
+                chunk.cancel(false);
+        }
+
+        chunkSink.end();
+    }
+
+    /**
+     * Returns whether the lines of this format can be parsed independently of each
+     * other. Then large files are parsed in chunks of lines on all processors.
+     */
+    protected boolean isSupportsParallelParsing() {
+        return false;
     }
 
     protected int getGarbleCount() {
@@ -104,4 +285,33 @@ public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends Simpl
 
     protected void writeFooter(PrintWriter writer, int positionCount) {
     }
+
+    public PositionSink<Wgs84Position> createPositionSink(OutputStream target) throws IOException {
+        return createPositionSink(target, ISO_LATIN1_ENCODING);
+    }
+
+    protected PositionSink<Wgs84Position> createPositionSink(OutputStream target, String encoding) throws IOException {
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(target, encoding));
+        return new PositionSink<Wgs84Position>() {
+            private int index;
+
+            @SuppressWarnings("unchecked")
+            public void begin(RouteCharacteristics characteristics, String name) {
+                writeHeader(writer, (R) createRoute(characteristics, name, new ArrayList<Wgs84Position>()));
+            }
+
+            public void add(Wgs84Position position) {
+                writePosition(position, writer, index, index == 0);
+                index++;
+            }
+
+            public void end() {
+                writeFooter(writer, index);
+                writer.flush();
+            }
+
+            public void close() {
+            }
+        };
+    }
 }
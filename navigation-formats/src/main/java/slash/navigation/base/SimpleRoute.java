@@ -73,7 +73,7 @@ public abstract class SimpleRoute<P extends BaseNavigationPosition, F extends Ba
     public SimpleRoute(F format, RouteCharacteristics characteristics, String name, List<P> positions) {
         super(format, characteristics);
         this.name = name;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public String getName() {
@@ -96,10 +96,6 @@ public abstract class SimpleRoute<P extends BaseNavigationPosition, F extends Ba
         return positions.size();
     }
 
-    public void add(int index, P position) {
-        positions.add(index, position);
-    }
-
     protected BcrRoute asBcrFormat(BcrFormat format) {
         List<BcrPosition> positions = new ArrayList<>();
         for (P position : getPositions()) {
@@ -0,0 +1,59 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.type.CompactCalendar;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A navigation format that reads and writes the positions of a route one after another
+ * instead of collecting them in a {@link BaseRoute} first.
+ *
+ * @author Christian Pesch
+ */
+
+public interface StreamingNavigationFormat<R extends BaseRoute, P extends BaseNavigationPosition> extends NavigationFormat<R> {
+    boolean isSupportsStreamingReading();
+    boolean isSupportsStreamingWriting();
+
+    /**
+     * Reads the positions from the given source and pushes them into the given sink.
+     *
+     * @param source the stream to read from
+     * @param startDate the date to complete times without a date with, may be <code>null</code>
+     * @param sink the sink that receives the routes and their positions
+     * @throws IOException if the source cannot be read
+     */
+    void read(InputStream source, CompactCalendar startDate, PositionSink<P> sink) throws IOException;
+
+    /**
+     * Creates a sink that writes the positions it receives to the given target.
+     * The target is flushed when a route ends and when the sink is closed but is not closed itself.
+     *
+     * @param target the stream to write to
+     * @return the sink that writes to the target
+     * @throws IOException if the target cannot be written
+     */
+    PositionSink<P> createPositionSink(OutputStream target) throws IOException;
+}
@@ -0,0 +1,149 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.navigation.common.NavigationPosition;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Indexes the positions of a route with a time by their time in milliseconds.
+ *
+ * Positions with the same time keep their order in the route. Routes that are already
+ * in time order are not sorted again.
+ *
+ * @author Christian Pesch
+ */
+
+class TimeIndex {
+    private final int positionCount;
+    private final long[] millis;
+    private final int[] indices;
+
+    TimeIndex(List<? extends NavigationPosition> positions) {
+        this.positionCount = positions.size();
+
+        int count = 0;
+        for (NavigationPosition position : positions)
+            if (position.hasTime())
+                count++;
+
+        long[] times = new long[count];
+        int[] slots = new int[count];
+        boolean sorted = true;
+        int slot = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            NavigationPosition position = positions.get(i);
+            if (!position.hasTime())
+                continue;
+            times[slot] = position.getTime().getTimeInMillis();
+            slots[slot] = i;
+            if (slot > 0 && times[slot] < times[slot - 1])
+                sorted = false;
+            slot++;
+        }
+
+        if (!sorted) {
+            final long[] unsortedTimes = times;
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++)
+                order[i] = i;
+            // stable, thus keeps the order of positions with the same time
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer i1, Integer i2) {
+                    return Long.compare(unsortedTimes[i1], unsortedTimes[i2]);
+                }
+            });
+
+            long[] sortedTimes = new long[count];
+            int[] sortedSlots = new int[count];
+            for (int i = 0; i < count; i++) {
+                sortedTimes[i] = times[order[i]];
+                sortedSlots[i] = slots[order[i]];
+            }
+            times = sortedTimes;
+            slots = sortedSlots;
+        }
+        this.millis = times;
+        this.indices = slots;
+    }
+
+    int getPositionCount() {
+        return positionCount;
+    }
+
+    /**
+     * Returns the first slot with a time at or after the given time.
+     */
+    private int lowerBound(long time) {
+        int low = 0, high = millis.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (millis[middle] < time)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the position closest to the given time and the lowest index
+     * for positions with the same distance or -1 if there is none within the threshold.
+     */
+    int getClosestIndex(long time, long threshold) {
+        int after = lowerBound(time);
+        int closestIndex = -1;
+        long closestDistance = Long.MAX_VALUE;
+        if (after < millis.length) {
+            closestIndex = indices[after];
+            closestDistance = millis[after] - time;
+        }
+        if (after > 0) {
+            // the first of the positions with the same time
+            int before = lowerBound(millis[after - 1]);
+            long distance = time - millis[before];
+            if (distance < closestDistance || distance == closestDistance && indices[before] < closestIndex) {
+                closestIndex = indices[before];
+                closestDistance = distance;
+            }
+        }
+        return closestDistance <= threshold ? closestIndex : -1;
+    }
+
+    /**
+     * Returns the index of the last position at or before the given time or -1 if there is none.
+     */
+    int getIndexAtOrBefore(long time) {
+        int after = time < Long.MAX_VALUE ? lowerBound(time + 1) : millis.length;
+        return after > 0 ? indices[after - 1] : -1;
+    }
+
+    /**
+     * Returns the index of the first position after the given time or -1 if there is none.
+     */
+    int getIndexAfter(long time) {
+        int after = time < Long.MAX_VALUE ? lowerBound(time + 1) : millis.length;
+        return after < millis.length ? indices[after] : -1;
+    }
+}
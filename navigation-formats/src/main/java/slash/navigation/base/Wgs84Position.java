@@ -240,11 +240,16 @@ public class Wgs84Position extends BaseNavigationPosition implements ExtendedSen
         return this;
     }
 
+    /*package local for PrimitiveWgs84Route*/Class<?> getEqualityClass() {
+        return getClass();
+    }
+
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Wgs84Position)) return false;
 
         Wgs84Position that = (Wgs84Position) o;
+        if (getEqualityClass() != that.getEqualityClass()) return false;
 
         return !(description != null ? !description.equals(that.description) : that.description != null) &&
                 !(getElevation() != null ? !getElevation().equals(that.getElevation()) : that.getElevation() != null) &&
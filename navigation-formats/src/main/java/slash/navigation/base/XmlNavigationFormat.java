@@ -34,6 +34,15 @@ public abstract class XmlNavigationFormat<R extends BaseRoute> extends BaseNavig
         return UNLIMITED_MAXIMUM_POSITION_COUNT;
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        String rootElement = signature.getRootElement();
+        return signature.isXml() && (rootElement == null || isSupportsRootElement(rootElement));
+    }
+
+    protected boolean isSupportsRootElement(String rootElement) {
+        return true;
+    }
+
     protected String asDescription(List<String> strings) {
         if (strings == null)
             return null;
@@ -25,9 +25,7 @@ import slash.navigation.base.MercatorPosition;
 import slash.navigation.gopal.GoPalPosition;
 import slash.navigation.tour.TourPosition;
 
-import java.text.DecimalFormat;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.regex.Matcher;
 
 import static slash.common.io.Transfer.trim;
@@ -47,12 +45,6 @@ public class BcrPosition extends MercatorPosition {
     static final String STREET_DEFINES_CENTER_SYMBOL = "@";
     static final String STREET_DEFINES_CENTER_NAME = "Zentrum";
     static final String ZIPCODE_DEFINES_NOTHING = "WP";
-    private static final DecimalFormat decimalFormat = (DecimalFormat) DecimalFormat.getInstance(Locale.GERMAN);
-
-    static {
-        decimalFormat.applyPattern("###,##0.00");
-    }
-
     private long altitude;
     private String zipCode, street, type; // description = city
 
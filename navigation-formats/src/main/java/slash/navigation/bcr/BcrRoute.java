@@ -71,7 +71,7 @@ public class BcrRoute extends BaseRoute<BcrPosition, BcrFormat> {
     public BcrRoute(BcrFormat format, List<BcrSection> sections, List<BcrPosition> positions) {
         super(format, Route);
         this.sections = sections;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public BcrRoute(BcrFormat format, String name, List<String> description, List<BcrPosition> positions) {
@@ -154,10 +154,6 @@ public class BcrRoute extends BaseRoute<BcrPosition, BcrFormat> {
         return positions.size();
     }
 
-    public void add(int index, BcrPosition position) {
-        positions.add(index, position);
-    }
-
     public BcrPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new BcrPosition(longitude, latitude, elevation, speed, time, description);
     }
@@ -32,10 +32,10 @@ import java.util.List;
 import java.util.TimeZone;
 
 import static java.lang.Long.parseLong;
-import static java.nio.ByteBuffer.allocate;
 import static java.nio.ByteBuffer.wrap;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.Calendar.*;
+import static slash.common.io.InputOutput.readByteBuffer;
 import static slash.common.type.CompactCalendar.UTC;
 import static slash.common.type.CompactCalendar.fromCalendar;
 import static slash.navigation.base.RouteCharacteristics.Track;
@@ -95,15 +95,7 @@ public class ColumbusGpsBinaryFormat extends SimpleFormat<Wgs84Route> {
 
     public void read(InputStream source, ParserContext<Wgs84Route> context) throws IOException {
         if (isValidHeader(source)) {
-            int available = source.available();
-            ByteBuffer body = allocate(available);
-            byte[] data = new byte[available];
-            if (source.read(data) != available)
-                throw new IOException("Could not read " + available + " bytes");
-
-            body.put(data);
-            body.position(0);
-
+            ByteBuffer body = readByteBuffer(source);
             List<Wgs84Position> positions = internalRead(body);
             if (positions.size() > 0)
                 context.appendRoute(new Wgs84Route(this, Track, positions));
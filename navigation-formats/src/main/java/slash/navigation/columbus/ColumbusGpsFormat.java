@@ -64,6 +64,10 @@ public abstract class ColumbusGpsFormat extends SimpleLineBasedFormat<SimpleRout
         return Track;
     }
 
+    protected boolean isSupportsParallelParsing() {
+        return true;
+    }
+
     protected boolean isValidLine(String line) {
         return isPosition(line) || isHeader(line);
     }
@@ -19,24 +19,34 @@
 */
 package slash.navigation.csv;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import slash.common.type.CompactCalendar;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionSink;
 import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.StreamingNavigationFormat;
 import slash.navigation.common.NavigationPosition;
 
 import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
 import java.util.*;
 import java.util.logging.Logger;
 
 import static java.lang.String.format;
+import static java.nio.ByteBuffer.wrap;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.sort;
 import static slash.common.io.Transfer.*;
+import static slash.navigation.base.RouteCharacteristics.Track;
 
 /**
  * The base of all CSV formats.
@@ -44,8 +54,10 @@ import static slash.common.io.Transfer.*;
  * @author Christian Pesch
  */
 
-public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> {
+public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> implements StreamingNavigationFormat<CsvRoute, CsvPosition> {
     private static final Logger log = Logger.getLogger(CsvFormat.class.getName());
+    static final int HEADER_POSITION_COUNT = 1000;
+    private static final int ENCODING_DETECTION_SIZE = 64 * 1024;
 
     public String getExtension() {
         return ".csv";
@@ -100,13 +112,20 @@ public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> {
         return false;
     }
 
+    private ObjectReader createObjectReader() {
+        CsvSchema schema = CsvSchema.emptySchema().withHeader().withColumnSeparator(getColumnSeparator());
+        return new CsvMapper().readerFor(LinkedHashMap.class).with(schema);
+    }
+
+    private boolean isWithoutData(CsvPosition position) {
+        return position.getLongitude() == null && position.getLatitude() == null && position.getDescription() == null;
+    }
+
     protected boolean read(Reader reader, ParserContext<CsvRoute> context) throws IOException {
         List<CsvPosition> positions = new ArrayList<>();
 
-        CsvSchema schema = CsvSchema.emptySchema().withHeader().withColumnSeparator(getColumnSeparator());
-        ObjectReader objectReader = new CsvMapper().readerFor(LinkedHashMap.class).with(schema);
         try {
-            MappingIterator<LinkedHashMap<String, String>> iterator = objectReader.readValues(reader);
+            MappingIterator<LinkedHashMap<String, String>> iterator = createObjectReader().readValues(reader);
             while (iterator.hasNext()) {
                 LinkedHashMap<String, String> rowAsMap = iterator.next();
                 if (containsGarbage(rowAsMap)) {
@@ -116,7 +135,7 @@ public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> {
                 CsvPosition position = new CsvPosition(rowAsMap);
 
                 // skip positions without any reasonable data to make format less greedy
-                if(position.getLongitude() == null && position.getLatitude() == null && position.getDescription() == null)
+                if(isWithoutData(position))
                     continue;
 
                 positions.add(position);
@@ -133,6 +152,131 @@ public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> {
             return false;
     }
 
+    public boolean isSupportsStreamingReading() {
+        return isSupportsReading();
+    }
+
+    public boolean isSupportsStreamingWriting() {
+        return isSupportsWriting();
+    }
+
+    /**
+     * Reads the rows with UTF-8 if the source starts with a byte order mark or its first
+     * {@link #ENCODING_DETECTION_SIZE} bytes are valid UTF-8 and with ISO-8859-1 otherwise
+     * since the source cannot be read a second time with another encoding.
+     */
+    public void read(InputStream source, CompactCalendar startDate, PositionSink<CsvPosition> sink) throws IOException {
+        BufferedInputStream buffer = new BufferedInputStream(source, ENCODING_DETECTION_SIZE);
+        buffer.mark(ENCODING_DETECTION_SIZE);
+        byte[] prefix = new byte[ENCODING_DETECTION_SIZE];
+        int count = 0;
+        while (count < prefix.length) {
+            int read = buffer.read(prefix, count, prefix.length - count);
+            if (read == -1)
+                break;
+            count += read;
+        }
+        buffer.reset();
+
+        boolean byteOrderMark = count >= 3 && prefix[0] == (byte) 0xef && prefix[1] == (byte) 0xbb && prefix[2] == (byte) 0xbf;
+        if (byteOrderMark)
+            buffer.skip(3);
+        String encoding = byteOrderMark || isUtf8(prefix, count, count < prefix.length) ? UTF8_ENCODING : ISO_LATIN1_ENCODING;
+        log.info(format("Reading CSV with column separator '%c' and encoding '%s'", getColumnSeparator(), encoding));
+
+        try (Reader reader = new BufferedReader(new InputStreamReader(buffer, encoding))) {
+            int positionCount = 0;
+            MappingIterator<LinkedHashMap<String, String>> iterator = createObjectReader().readValues(reader);
+            while (iterator.hasNext()) {
+                CsvPosition position = new CsvPosition(iterator.next());
+                if (isWithoutData(position))
+                    continue;
+
+                if (positionCount++ == 0)
+                    sink.begin(Track, null);
+                sink.add(position);
+            }
+
+            if (positionCount > 0)
+                sink.end();
+        }
+    }
+
+    private static boolean isUtf8(byte[] prefix, int count, boolean endOfInput) {
+        CharsetDecoder decoder = UTF_8.newDecoder();
+        // a character at the end of a cut off prefix may be incomplete
+        CoderResult result = decoder.decode(wrap(prefix, 0, count), CharBuffer.allocate(count), endOfInput);
+        return !result.isError();
+    }
+
+    /**
+     * Creates a sink that buffers the first {@link #HEADER_POSITION_COUNT} positions it receives
+     * to write the columns of all of them as header. A following position with a value in
+     * another column fails instead of losing the value.
+     */
+    public PositionSink<CsvPosition> createPositionSink(final OutputStream target) {
+        return new PositionSink<CsvPosition>() {
+            private final List<CsvPosition> buffered = new ArrayList<>();
+            private Set<String> keys;
+            private SequenceWriter writer;
+
+            public void begin(RouteCharacteristics characteristics, String name) {
+            }
+
+            private void writeBuffered() throws IOException {
+                keys = collectKeys(buffered);
+                writer = createWriter(target, keys);
+                for (CsvPosition position : buffered)
+                    write(position);
+                buffered.clear();
+            }
+
+            private void write(CsvPosition position) throws IOException {
+                for (Map.Entry<String, String> entry : position.getRowAsMap().entrySet()) {
+                    if (entry.getValue() != null && !keys.contains(entry.getKey()))
+                        throw new IOException(format("Column '%s' of %s is not in the header %s",
+                                entry.getKey(), position, keys));
+                }
+                writer.write(position.getRowAsMap());
+            }
+
+            public void add(CsvPosition position) throws IOException {
+                if (writer != null) {
+                    write(position);
+                    return;
+                }
+
+                buffered.add(position);
+                if (buffered.size() >= HEADER_POSITION_COUNT)
+                    writeBuffered();
+            }
+
+            public void end() throws IOException {
+                if (writer == null && buffered.size() > 0)
+                    writeBuffered();
+                if (writer != null) {
+                    writer.close();
+                    writer = null;
+                }
+            }
+
+            public void close() {
+            }
+        };
+    }
+
+    private SequenceWriter createWriter(OutputStream target, Set<String> keys) throws IOException {
+        CsvSchema.Builder builder = new CsvSchema.Builder();
+        for (String key : keys)
+            builder = builder.addColumn(key);
+
+        CsvSchema schema = builder.build().withHeader().withColumnSeparator(getColumnSeparator());
+        CsvMapper mapper = new CsvMapper();
+        // leaves the target open for the caller
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        return mapper.writer(schema).with(JsonGenerator.Feature.IGNORE_UNKNOWN).writeValues(target);
+    }
+
     private Set<String> collectKeys(List<CsvPosition> positions) {
         Set<String> result = new HashSet<>();
         for (CsvPosition position : positions) {
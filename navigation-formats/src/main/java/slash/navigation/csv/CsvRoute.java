@@ -69,7 +69,7 @@ public class CsvRoute extends BaseRoute<CsvPosition, CsvFormat> {
     public CsvRoute(CsvFormat format, String name, List<CsvPosition> positions) {
         super(format, Track);
         this.name = name;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public String getName() {
@@ -92,10 +92,6 @@ public class CsvRoute extends BaseRoute<CsvPosition, CsvFormat> {
         return positions.size();
     }
 
-    public void add(int index, CsvPosition position) {
-        positions.add(index, position);
-    }
-
     public CsvPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new CsvPosition(longitude, latitude, elevation, speed, time, description);
     }
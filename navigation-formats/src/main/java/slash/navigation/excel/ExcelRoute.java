@@ -54,8 +54,10 @@ import slash.navigation.tcx.TcxFormat;
 import slash.navigation.tcx.TcxRoute;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
+import static java.util.Collections.reverse;
 import static slash.navigation.base.RouteCharacteristics.Track;
 import static slash.navigation.base.RouteComments.createRouteName;
 import static slash.navigation.excel.ColumnTypeToRowIndexMapping.DEFAULT;
@@ -75,7 +77,7 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
         super(format, Track);
         this.sheet = sheet;
         this.mapping = mapping;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public ExcelRoute(ExcelFormat format, String name, List<ExcelPosition> positions) {
@@ -180,7 +182,7 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
         int sourceRowIndex = position.getRow().getRowNum() + 1;
         sheet.shiftRows(sourceRowIndex, sourceRowIndex, rowForIndex - sourceRowIndex);
 
-        positions.add(index, position);
+        super.add(index, position);
     }
 
     public ExcelPosition remove(int index) {
@@ -197,6 +199,15 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
         return super.remove(index);
     }
 
+    public List<ExcelPosition> removeAll(BitSet indices) {
+        // the rows of the sheet are shifted for every removed position
+        List<ExcelPosition> removed = new ArrayList<>(indices.cardinality());
+        for (int i = indices.previousSetBit(getPositionCount() - 1); i >= 0; i = indices.previousSetBit(i - 1))
+            removed.add(remove(i));
+        reverse(removed);
+        return removed;
+    }
+
     public ExcelPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         ExcelPosition position = new ExcelPosition(sheet.createRow(sheet.getLastRowNum() + 1), mapping);
         position.setLongitude(longitude);
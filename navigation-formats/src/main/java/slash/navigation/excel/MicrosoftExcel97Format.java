@@ -22,6 +22,7 @@ package slash.navigation.excel;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 
 import java.io.IOException;
@@ -51,6 +52,11 @@ public class MicrosoftExcel97Format extends ExcelFormat {
         return workbook.createSheet(createSafeSheetName(name));
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // OLE2 compound document
+        return signature.startsWith((byte) 0xd0, (byte) 0xcf, (byte) 0x11, (byte) 0xe0, (byte) 0xa1, (byte) 0xb1, (byte) 0x1a, (byte) 0xe1);
+    }
+
     public void read(InputStream source, ParserContext<ExcelRoute> context) throws IOException {
         try (Workbook workbook = new HSSFWorkbook(source, false)) {
             parseWorkbook(workbook, context);
@@ -76,6 +76,10 @@ public class FitFormat extends SimpleFormat<Wgs84Route> {
         throw new UnsupportedOperationException();
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        return signature.hasBytesAt(8, (byte) '.', (byte) 'F', (byte) 'I', (byte) 'T');
+    }
+
     public void read(InputStream source, ParserContext<Wgs84Route> context) throws IOException {
         Decode decode = new Decode();
         MesgBroadcaster broadcaster = new MesgBroadcaster(decode);
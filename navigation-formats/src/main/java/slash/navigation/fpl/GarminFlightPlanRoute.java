@@ -74,7 +74,7 @@ public class GarminFlightPlanRoute extends BaseRoute<GarminFlightPlanPosition, G
         super(new GarminFlightPlanFormat(), Track);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public String getName() {
@@ -97,10 +97,6 @@ public class GarminFlightPlanRoute extends BaseRoute<GarminFlightPlanPosition, G
         return positions.size();
     }
 
-    public void add(int index, GarminFlightPlanPosition position) {
-        positions.add(index, position);
-    }
-
     public GarminFlightPlanPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new GarminFlightPlanPosition(longitude, latitude, elevation, description);
     }
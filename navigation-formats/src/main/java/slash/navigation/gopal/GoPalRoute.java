@@ -74,7 +74,7 @@ public class GoPalRoute extends BaseRoute<GoPalPosition, GoPalRouteFormat> {
     public GoPalRoute(GoPalRouteFormat format, String name, Object options, List<GoPalPosition> positions) {
         super(format, Route);
         this.options = options;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
         setName(name);
     }
 
@@ -103,10 +103,6 @@ public class GoPalRoute extends BaseRoute<GoPalPosition, GoPalRouteFormat> {
         return positions.size();
     }
 
-    public void add(int index, GoPalPosition position) {
-        positions.add(index, position);
-    }
-
     public GoPalPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new GoPalPosition(longitude, latitude, elevation, speed, time, description);
     }
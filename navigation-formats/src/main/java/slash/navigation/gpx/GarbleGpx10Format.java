@@ -21,6 +21,7 @@
 package slash.navigation.gpx;
 
 import slash.navigation.base.GarbleNavigationFormat;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 import slash.navigation.gpx.binding10.Gpx;
 
@@ -45,6 +46,11 @@ public class GarbleGpx10Format extends Gpx10Format implements GarbleNavigationFo
         return false;
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // garbled files may contain anything before the XML
+        return true;
+    }
+
     public void read(InputStream source, ParserContext<GpxRoute> context) throws IOException {
         try (InputStreamReader reader = new InputStreamReader(source)) {
             Gpx gpx = unmarshal10(reader);
@@ -20,12 +20,16 @@
 
 package slash.navigation.gpx;
 
+import slash.common.helpers.ElementStreamReader.ElementHandler;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.gpx.binding10.Gpx;
 import slash.navigation.gpx.binding10.ObjectFactory;
 
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -67,42 +71,126 @@ public class Gpx10Format extends GpxFormat {
     }
 
     void process(Gpx gpx, ParserContext<GpxRoute> context) {
+        if (gpx == null)
+            return;
+
+        boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond = hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond(gpx.getCreator());
+        List<GpxPosition> wayPoints = new ArrayList<>();
+        for (Gpx.Wpt wpt : gpx.getWpt())
+            wayPoints.add(createPosition(wpt, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond));
+        List<List<GpxPosition>> routes = new ArrayList<>();
+        for (Gpx.Rte rte : gpx.getRte()) {
+            List<GpxPosition> positions = new ArrayList<>();
+            for (Gpx.Rte.Rtept rtept : rte.getRtept())
+                positions.add(createPosition(rtept, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond));
+            routes.add(positions);
+        }
+        List<List<GpxPosition>> tracks = new ArrayList<>();
+        for (Gpx.Trk trk : gpx.getTrk()) {
+            List<GpxPosition> positions = new ArrayList<>();
+            for (Gpx.Trk.Trkseg trkSeg : trk.getTrkseg()) {
+                for (Gpx.Trk.Trkseg.Trkpt trkPt : trkSeg.getTrkpt())
+                    positions.add(createPosition(trkPt, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond));
+            }
+            tracks.add(positions);
+        }
+        process(gpx, wayPoints, routes, tracks, context);
+    }
+
+    private void process(Gpx gpx, List<GpxPosition> wayPoints, List<List<GpxPosition>> routes,
+                         List<List<GpxPosition>> tracks, ParserContext<GpxRoute> context) {
         if (gpx == null || !VERSION.equals(gpx.getVersion()))
             return;
 
-        boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond = gpx.getCreator() != null &&
-                ("Mobile Action http://www.mobileaction.com/".equals(gpx.getCreator()) ||
-                 "Holux Utility".equals(gpx.getCreator()));
-        GpxRoute wayPointsAsRoute = extractWayPoints(gpx, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond);
+        GpxRoute wayPointsAsRoute = extractWayPoints(gpx, wayPoints);
         if (wayPointsAsRoute != null)
             context.appendRoute(wayPointsAsRoute);
-        context.appendRoutes(extractRoutes(gpx, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond));
-        context.appendRoutes(extractTracks(gpx, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond));
+        context.appendRoutes(extractRoutes(gpx, routes));
+        context.appendRoutes(extractTracks(gpx, tracks));
+    }
+
+    private boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond(String creator) {
+        return "Mobile Action http://www.mobileaction.com/".equals(creator) || "Holux Utility".equals(creator);
     }
 
     public void read(InputStream source, ParserContext<GpxRoute> context) throws IOException {
-        Gpx gpx = unmarshal10(source);
-        process(gpx, context);
+        PositionReader reader = new PositionReader();
+        Gpx gpx = unmarshal10(source, reader);
+        process(gpx, reader.wayPoints, reader.routes, reader.tracks, context);
+    }
+
+    /**
+     * Creates the positions while the document is read so that the unmarshalled
+     * {@link Gpx} contains no way, route and track points. The creator of the document
+     * which determines the unit of the speed is read from the root element.
+     */
+    private class PositionReader implements ElementHandler {
+        private final GpxPointReader pointReader = new GpxPointReader(true);
+        private final List<GpxPosition> wayPoints = new ArrayList<>();
+        private final List<List<GpxPosition>> routes = new ArrayList<>();
+        private final List<List<GpxPosition>> tracks = new ArrayList<>();
+        private boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond;
+
+        public boolean readElement(List<String> path, XMLStreamReader reader, Unmarshaller unmarshaller) throws XMLStreamException {
+            String localName = reader.getLocalName();
+            switch (path.size()) {
+                case 0:
+                    hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond =
+                            hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond(reader.getAttributeValue(null, "creator"));
+                    break;
+                case 1:
+                    if ("wpt".equals(localName)) {
+                        Gpx.Wpt wpt = pointReader.read(reader, unmarshaller, Gpx.Wpt.class);
+                        wayPoints.add(wpt != null ? createPosition(wpt, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) :
+                                createPosition(pointReader, asWayPointDescription(pointReader.getName(), null),
+                                        hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond));
+                        return true;
+                    }
+                    if ("rte".equals(localName))
+                        routes.add(new ArrayList<>());
+                    if ("trk".equals(localName))
+                        tracks.add(new ArrayList<>());
+                    break;
+                case 2:
+                    if ("rtept".equals(localName) && "rte".equals(path.get(1))) {
+                        Gpx.Rte.Rtept rtept = pointReader.read(reader, unmarshaller, Gpx.Rte.Rtept.class);
+                        routes.get(routes.size() - 1).add(rtept != null ? createPosition(rtept, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) :
+                                createPosition(pointReader, asDescription(pointReader.getName(), null),
+                                        hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond));
+                        return true;
+                    }
+                    break;
+                case 3:
+                    if ("trkpt".equals(localName) && "trkseg".equals(path.get(2))) {
+                        Gpx.Trk.Trkseg.Trkpt trkPt = pointReader.read(reader, unmarshaller, Gpx.Trk.Trkseg.Trkpt.class);
+                        tracks.get(tracks.size() - 1).add(trkPt != null ? createPosition(trkPt, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) :
+                                createPosition(pointReader, asDescription(pointReader.getName(), null),
+                                        hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond));
+                        return true;
+                    }
+                    break;
+            }
+            return false;
+        }
     }
 
-    private List<GpxRoute> extractRoutes(Gpx gpx, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
+    private List<GpxRoute> extractRoutes(Gpx gpx, List<List<GpxPosition>> routes) {
         List<GpxRoute> result = new ArrayList<>();
 
-        for (Gpx.Rte rte : gpx.getRte()) {
+        for (int i = 0; i < gpx.getRte().size(); i++) {
+            Gpx.Rte rte = gpx.getRte().get(i);
             String name = rte.getName();
             String desc = rte.getDesc();
             List<String> descriptions = asDescription(desc);
-            List<GpxPosition> positions = extractRoute(rte, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond);
-            result.add(new GpxRoute(this, Route, name, descriptions, positions, gpx, rte));
+            result.add(new GpxRoute(this, Route, name, descriptions, routes.get(i), gpx, rte));
         }
 
         return result;
     }
 
-    private GpxRoute extractWayPoints(Gpx gpx, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
+    private GpxRoute extractWayPoints(Gpx gpx, List<GpxPosition> positions) {
         String name = gpx.getName();
         List<String> descriptions = asDescription(gpx.getDesc());
-        List<GpxPosition> positions = extractWayPoints(gpx.getWpt(), hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond);
         return positions.size() == 0 ? null : new GpxRoute(this, isTripmasterTrack(positions) ? Track : Waypoints, name, descriptions, positions, gpx);
     }
 
@@ -114,47 +202,34 @@ public class Gpx10Format extends GpxFormat {
         return true;
     }
 
-    private List<GpxRoute> extractTracks(Gpx gpx, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
+    private List<GpxRoute> extractTracks(Gpx gpx, List<List<GpxPosition>> tracks) {
         List<GpxRoute> result = new ArrayList<>();
-        for (Gpx.Trk trk : gpx.getTrk()) {
+        for (int i = 0; i < gpx.getTrk().size(); i++) {
+            Gpx.Trk trk = gpx.getTrk().get(i);
             String name = trk.getName();
             String desc = trk.getDesc();
             List<String> descriptions = asDescription(desc);
-            List<GpxPosition> positions = extractTrack(trk, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond);
+            List<GpxPosition> positions = tracks.get(i);
             if (positions.size() > 0)
                 result.add(new GpxRoute(this, Track, name, descriptions, positions, gpx, trk));
         }
         return result;
     }
 
-    private List<GpxPosition> extractRoute(Gpx.Rte rte, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
-        List<GpxPosition> positions = new ArrayList<>();
-        if (rte != null) {
-            for (Gpx.Rte.Rtept rtept : rte.getRtept()) {
-                positions.add(new GpxPosition(rtept.getLon(), rtept.getLat(), rtept.getEle(), getSpeed(rtept.getSpeed(), rtept.getCmt(), hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond), formatDouble(rtept.getCourse()), parseXMLTime(rtept.getTime()), asDescription(rtept.getName(), rtept.getDesc()), rtept.getHdop(), rtept.getPdop(), rtept.getVdop(), rtept.getSat(), rtept));
-            }
-        }
-        return positions;
+    private GpxPosition createPosition(Gpx.Rte.Rtept rtept, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
+        return new GpxPosition(rtept.getLon(), rtept.getLat(), rtept.getEle(), getSpeed(rtept.getSpeed(), rtept.getCmt(), hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond), formatDouble(rtept.getCourse()), parseXMLTime(rtept.getTime()), asDescription(rtept.getName(), rtept.getDesc()), rtept.getHdop(), rtept.getPdop(), rtept.getVdop(), rtept.getSat(), rtept);
     }
 
-    private List<GpxPosition> extractWayPoints(List<Gpx.Wpt> wpts, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
-        List<GpxPosition> positions = new ArrayList<>();
-        for (Gpx.Wpt wpt : wpts) {
-            positions.add(new GpxPosition(wpt.getLon(), wpt.getLat(), wpt.getEle(), getSpeed(wpt.getSpeed(), wpt.getCmt(), hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond), formatDouble(wpt.getCourse()), parseXMLTime(wpt.getTime()), asWayPointDescription(wpt.getName(), wpt.getDesc()), wpt.getHdop(), wpt.getPdop(), wpt.getVdop(), wpt.getSat(), wpt));
-        }
-        return positions;
+    private GpxPosition createPosition(Gpx.Wpt wpt, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
+        return new GpxPosition(wpt.getLon(), wpt.getLat(), wpt.getEle(), getSpeed(wpt.getSpeed(), wpt.getCmt(), hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond), formatDouble(wpt.getCourse()), parseXMLTime(wpt.getTime()), asWayPointDescription(wpt.getName(), wpt.getDesc()), wpt.getHdop(), wpt.getPdop(), wpt.getVdop(), wpt.getSat(), wpt);
     }
 
-    private List<GpxPosition> extractTrack(Gpx.Trk trk, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
-        List<GpxPosition> positions = new ArrayList<>();
-        if (trk != null) {
-            for (Gpx.Trk.Trkseg trkSeg : trk.getTrkseg()) {
-                for (Gpx.Trk.Trkseg.Trkpt trkPt : trkSeg.getTrkpt()) {
-                    positions.add(new GpxPosition(trkPt.getLon(), trkPt.getLat(), trkPt.getEle(), getSpeed(trkPt.getSpeed(), trkPt.getCmt(), hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond), formatDouble(trkPt.getCourse()), parseXMLTime(trkPt.getTime()), asDescription(trkPt.getName(), trkPt.getDesc()), trkPt.getHdop(), trkPt.getPdop(), trkPt.getVdop(), trkPt.getSat(), trkPt));
-                }
-            }
-        }
-        return positions;
+    private GpxPosition createPosition(Gpx.Trk.Trkseg.Trkpt trkPt, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
+        return new GpxPosition(trkPt.getLon(), trkPt.getLat(), trkPt.getEle(), getSpeed(trkPt.getSpeed(), trkPt.getCmt(), hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond), formatDouble(trkPt.getCourse()), parseXMLTime(trkPt.getTime()), asDescription(trkPt.getName(), trkPt.getDesc()), trkPt.getHdop(), trkPt.getPdop(), trkPt.getVdop(), trkPt.getSat(), trkPt);
+    }
+
+    private GpxPosition createPosition(GpxPointReader point, String description, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
+        return new GpxPosition(point.getLongitude(), point.getLatitude(), point.getElevation(), getSpeed(point.getSpeed(), null, hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond), formatDouble(point.getCourse()), point.getTime(), description, point.getHdop(), point.getPdop(), point.getVdop(), point.getSatellites(), null);
     }
 
     private Double getSpeed(BigDecimal speed, String description, boolean hasSpeedInKiloMeterPerHourInsteadOfMeterPerSecond) {
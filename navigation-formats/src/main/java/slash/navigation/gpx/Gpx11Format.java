@@ -21,7 +21,13 @@
 package slash.navigation.gpx;
 
 import org.w3c.dom.Element;
+import slash.common.helpers.ElementStreamReader.ElementHandler;
+import slash.common.helpers.ElementStreamWriter;
+import slash.common.type.CompactCalendar;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionSink;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.StreamingNavigationFormat;
 import slash.navigation.gpx.binding11.*;
 import slash.navigation.gpx.garmin3.AutoroutePointT;
 import slash.navigation.gpx.garmin3.RoutePointExtensionT;
@@ -30,6 +36,10 @@ import slash.navigation.gpx.trip1.ViaPointExtensionT;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -38,11 +48,15 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.min;
 import static slash.common.io.Transfer.*;
 import static slash.common.type.CompactCalendar.now;
 import static slash.navigation.base.RouteCharacteristics.*;
 import static slash.navigation.common.NavigationConversion.*;
+import static slash.navigation.gpx.GpxUtil.GPX_11_NAMESPACE_URI;
 import static slash.navigation.gpx.GpxUtil.marshal11;
+import static slash.navigation.gpx.GpxUtil.newElementStreamWriter11;
 import static slash.navigation.gpx.GpxUtil.unmarshal11;
 
 /**
@@ -51,7 +65,7 @@ import static slash.navigation.gpx.GpxUtil.unmarshal11;
  * @author Christian Pesch
  */
 
-public class Gpx11Format extends GpxFormat {
+public class Gpx11Format extends GpxFormat implements StreamingNavigationFormat<GpxRoute, GpxPosition> {
     static final String VERSION = "1.1";
 
     public String getName() {
@@ -62,31 +76,113 @@ public class Gpx11Format extends GpxFormat {
         if (gpxType == null || !VERSION.equals(gpxType.getVersion()))
             return;
 
-        GpxRoute wayPointsAsRoute = extractWayPoints(gpxType);
+        List<List<GpxPosition>> routes = new ArrayList<>();
+        for (RteType rteType : gpxType.getRte())
+            routes.add(extractRoute(rteType));
+        List<List<GpxPosition>> tracks = new ArrayList<>();
+        for (TrkType trkType : gpxType.getTrk())
+            tracks.add(extractTrack(trkType));
+        process(gpxType, extractWayPoints(gpxType.getWpt()), routes, tracks, context);
+    }
+
+    private void process(GpxType gpxType, List<GpxPosition> wayPoints, List<List<GpxPosition>> routes,
+                         List<List<GpxPosition>> tracks, ParserContext<GpxRoute> context) {
+        if (gpxType == null || !VERSION.equals(gpxType.getVersion()))
+            return;
+
+        GpxRoute wayPointsAsRoute = extractWayPoints(gpxType, wayPoints);
         if (wayPointsAsRoute != null)
             context.appendRoute(wayPointsAsRoute);
-        context.appendRoutes(extractRoutes(gpxType));
-        context.appendRoutes(extractTracks(gpxType));
+        context.appendRoutes(extractRoutes(gpxType, routes));
+        context.appendRoutes(extractTracks(gpxType, tracks));
     }
 
     public void read(InputStream source, ParserContext<GpxRoute> context) throws IOException {
-        GpxType gpxType = unmarshal11(source);
-        process(gpxType, context);
+        PositionReader reader = new PositionReader();
+        GpxType gpxType = unmarshal11(source, reader);
+        process(gpxType, reader.wayPoints, reader.routes, reader.tracks, context);
+    }
+
+    /**
+     * Creates the positions while the document is read so that the unmarshalled
+     * {@link GpxType} contains no way, route and track points.
+     */
+    private class PositionReader implements ElementHandler {
+        private final GpxPointReader pointReader = new GpxPointReader(false);
+        private final List<GpxPosition> wayPoints = new ArrayList<>();
+        private final List<List<GpxPosition>> routes = new ArrayList<>();
+        private final List<List<GpxPosition>> tracks = new ArrayList<>();
+        private boolean routeHasExtensions;
+
+        public boolean readElement(List<String> path, XMLStreamReader reader, Unmarshaller unmarshaller) throws XMLStreamException {
+            String localName = reader.getLocalName();
+            switch (path.size()) {
+                case 1:
+                    if ("wpt".equals(localName)) {
+                        wayPoints.add(readPosition(reader, unmarshaller));
+                        return true;
+                    }
+                    if ("rte".equals(localName)) {
+                        routes.add(new ArrayList<>());
+                        routeHasExtensions = false;
+                    }
+                    if ("trk".equals(localName))
+                        tracks.add(new ArrayList<>());
+                    break;
+                case 2:
+                    if ("rtept".equals(localName) && "rte".equals(path.get(1))) {
+                        // the Garmin extensions of a route are read from the unmarshalled points
+                        routes.get(routes.size() - 1).add(routeHasExtensions ?
+                                createPosition(pointReader.unmarshal(reader, unmarshaller, WptType.class)) :
+                                readPosition(reader, unmarshaller));
+                        return true;
+                    }
+                    if ("extensions".equals(localName) && "rte".equals(path.get(1)))
+                        routeHasExtensions = true;
+                    break;
+                case 3:
+                    if ("trkpt".equals(localName) && "trkseg".equals(path.get(2))) {
+                        tracks.get(tracks.size() - 1).add(readPosition(reader, unmarshaller));
+                        return true;
+                    }
+                    break;
+            }
+            return false;
+        }
+
+        private GpxPosition readPosition(XMLStreamReader reader, Unmarshaller unmarshaller) throws XMLStreamException {
+            WptType wptType = pointReader.read(reader, unmarshaller, WptType.class);
+            return wptType != null ? createPosition(wptType) : createPosition(pointReader);
+        }
+    }
+
+    private GpxPosition createPosition(WptType wptType) {
+        return new GpxPosition(wptType.getLon(), wptType.getLat(), wptType.getEle(), new GpxPositionExtension(wptType), parseXMLTime(wptType.getTime()), asDescription(wptType.getName(), wptType.getDesc()), wptType.getHdop(), wptType.getPdop(), wptType.getVdop(), wptType.getSat(), wptType);
+    }
+
+    private GpxPosition createPosition(GpxPointReader point) {
+        GpxPosition position = new GpxPosition(point.getLongitude(), point.getLatitude(), point.getElevation(), null, point.getTime(), asDescription(point.getName(), null), point.getHdop(), point.getPdop(), point.getVdop(), point.getSatellites(), null);
+        // like a point without extensions, the position reports no heading and speed from its description
+        position.setHeading(null);
+        position.setSpeed(null);
+        position.setPositionExtensionOnDemand();
+        return position;
     }
 
-    private List<GpxRoute> extractRoutes(GpxType gpxType) {
+    private List<GpxRoute> extractRoutes(GpxType gpxType, List<List<GpxPosition>> routes) {
         List<GpxRoute> result = new ArrayList<>();
 
-        for (RteType rteType : gpxType.getRte()) {
+        for (int i = 0; i < gpxType.getRte().size(); i++) {
+            RteType rteType = gpxType.getRte().get(i);
             String name = rteType.getName();
             String desc = rteType.getDesc();
             List<String> descriptions = asDescription(desc);
-            List<GpxPosition> positions = extractRoute(rteType);
+            List<GpxPosition> positions = routes.get(i);
             result.add(new GpxRoute(this, Route, name, descriptions, positions, gpxType, rteType));
 
             // Garmin Extensions v3
             if (rteType.getExtensions() != null && rteType.getExtensions().getAny().size() > 0) {
-                List<GpxPosition> extendedPositions = extractRouteWithGarminExtensions(rteType);
+                List<GpxPosition> extendedPositions = extractRouteWithGarminExtensions(positions);
                 result.add(new GpxRoute(this, Track, name, descriptions, extendedPositions, gpxType, rteType));
             }
         }
@@ -94,22 +190,22 @@ public class Gpx11Format extends GpxFormat {
         return result;
     }
 
-    private GpxRoute extractWayPoints(GpxType gpxType) {
+    private GpxRoute extractWayPoints(GpxType gpxType, List<GpxPosition> positions) {
         String name = gpxType.getMetadata() != null ? gpxType.getMetadata().getName() : null;
         String desc = gpxType.getMetadata() != null ? gpxType.getMetadata().getDesc() : null;
         List<String> descriptions = asDescription(desc);
-        List<GpxPosition> positions = extractWayPoints(gpxType.getWpt());
         return positions.size() == 0 ? null : new GpxRoute(this, Waypoints, name, descriptions, positions, gpxType);
     }
 
-    private List<GpxRoute> extractTracks(GpxType gpxType) {
+    private List<GpxRoute> extractTracks(GpxType gpxType, List<List<GpxPosition>> tracks) {
         List<GpxRoute> result = new ArrayList<>();
 
-        for (TrkType trkType : gpxType.getTrk()) {
+        for (int i = 0; i < gpxType.getTrk().size(); i++) {
+            TrkType trkType = gpxType.getTrk().get(i);
             String name = trkType.getName();
             String desc = trkType.getDesc();
             List<String> descriptions = asDescription(desc);
-            List<GpxPosition> positions = extractTrack(trkType);
+            List<GpxPosition> positions = tracks.get(i);
             result.add(new GpxRoute(this, Track, name, descriptions, positions, gpxType, trkType));
         }
 
@@ -120,28 +216,27 @@ public class Gpx11Format extends GpxFormat {
         List<GpxPosition> positions = new ArrayList<>();
         if (rteType != null) {
             for (WptType wptType : rteType.getRtept()) {
-                positions.add(new GpxPosition(wptType.getLon(), wptType.getLat(), wptType.getEle(), new GpxPositionExtension(wptType), parseXMLTime(wptType.getTime()), asDescription(wptType.getName(), wptType.getDesc()), wptType.getHdop(), wptType.getPdop(), wptType.getVdop(), wptType.getSat(), wptType));
+                positions.add(createPosition(wptType));
             }
         }
         return positions;
     }
 
-    private List<GpxPosition> extractRouteWithGarminExtensions(RteType rteType) {
+    private List<GpxPosition> extractRouteWithGarminExtensions(List<GpxPosition> routePositions) {
         List<GpxPosition> positions = new ArrayList<>();
-        if (rteType != null) {
-            for (WptType wptType : rteType.getRtept()) {
-                positions.add(new GpxPosition(wptType.getLon(), wptType.getLat(), wptType.getEle(), new GpxPositionExtension(wptType), parseXMLTime(wptType.getTime()), asDescription(wptType.getName(), wptType.getDesc()), wptType.getHdop(), wptType.getPdop(), wptType.getVdop(), wptType.getSat(), wptType));
-
-                ExtensionsType extensions = wptType.getExtensions();
-                if (extensions != null) {
-                    for (Object any : extensions.getAny()) {
-                        if (any instanceof JAXBElement) {
-                            Object anyValue = ((JAXBElement) any).getValue();
-                            if (anyValue instanceof RoutePointExtensionT) {
-                                RoutePointExtensionT routePoint = (RoutePointExtensionT) anyValue;
-                                for (AutoroutePointT autoroutePoint : routePoint.getRpt()) {
-                                    positions.add(new GpxPosition(autoroutePoint.getLon(), autoroutePoint.getLat(), null, null, null, null, null, null, null, null, null, null));
-                                }
+        for (GpxPosition routePosition : routePositions) {
+            WptType wptType = routePosition.getOrigin(WptType.class);
+            positions.add(createPosition(wptType));
+
+            ExtensionsType extensions = wptType.getExtensions();
+            if (extensions != null) {
+                for (Object any : extensions.getAny()) {
+                    if (any instanceof JAXBElement) {
+                        Object anyValue = ((JAXBElement) any).getValue();
+                        if (anyValue instanceof RoutePointExtensionT) {
+                            RoutePointExtensionT routePoint = (RoutePointExtensionT) anyValue;
+                            for (AutoroutePointT autoroutePoint : routePoint.getRpt()) {
+                                positions.add(new GpxPosition(autoroutePoint.getLon(), autoroutePoint.getLat(), null, null, null, null, null, null, null, null, null, null));
                             }
                         }
                     }
@@ -154,7 +249,7 @@ public class Gpx11Format extends GpxFormat {
     private List<GpxPosition> extractWayPoints(List<WptType> wptTypes) {
         List<GpxPosition> positions = new ArrayList<>();
         for (WptType wptType : wptTypes) {
-            positions.add(new GpxPosition(wptType.getLon(), wptType.getLat(), wptType.getEle(), new GpxPositionExtension(wptType), parseXMLTime(wptType.getTime()), asDescription(wptType.getName(), wptType.getDesc()), wptType.getHdop(), wptType.getPdop(), wptType.getVdop(), wptType.getSat(), wptType));
+            positions.add(createPosition(wptType));
         }
         return positions;
     }
@@ -164,7 +259,7 @@ public class Gpx11Format extends GpxFormat {
         if (trkType != null) {
             for (TrksegType trkSegType : trkType.getTrkseg()) {
                 for (WptType wptType : trkSegType.getTrkpt()) {
-                    positions.add(new GpxPosition(wptType.getLon(), wptType.getLat(), wptType.getEle(), new GpxPositionExtension(wptType), parseXMLTime(wptType.getTime()), asDescription(wptType.getName(), wptType.getDesc()), wptType.getHdop(), wptType.getPdop(), wptType.getVdop(), wptType.getSat(), wptType));
+                    positions.add(createPosition(wptType));
                 }
             }
         }
@@ -285,54 +380,39 @@ public class Gpx11Format extends GpxFormat {
         return wptType;
     }
 
-    private List<WptType> createWayPoints(GpxRoute route, int startIndex, int endIndex) {
-        List<WptType> wptTypes = new ArrayList<>();
+    private void setTripPoint(WptType wptType, int index, int startIndex, int endIndex) {
+        boolean first = index == startIndex;
+        boolean last = index == endIndex - 1;
+        if (first || last)
+            setViaPoint(wptType);
+        else
+            setShapingPoint(wptType);
+    }
+
+    private void createTripPoints(GpxRoute route, int startIndex, int endIndex) {
         List<GpxPosition> positions = route.getPositions();
         for (int i = startIndex; i < endIndex; i++) {
-            GpxPosition position = positions.get(i);
-            WptType wptType = createWptType(position);
+            WptType wptType = createWptType(positions.get(i));
             if (wptType != null)
-                wptTypes.add(wptType);
+                setTripPoint(wptType, i, startIndex, endIndex);
         }
-        return wptTypes;
     }
 
-    private List<RteType> createRoute(GpxRoute route, int startIndex, int endIndex) {
-        ObjectFactory objectFactory = new ObjectFactory();
+    private RteType createRoute(GpxRoute route) {
         RteType rteType = route.getOrigin(RteType.class);
         if (rteType != null)
             rteType.getRtept().clear();
         else
-            rteType = objectFactory.createRteType();
+            rteType = new ObjectFactory().createRteType();
         if (isWriteMetaData()) {
             rteType.setName(asRouteName(route.getName()));
             rteType.setDesc(asDescription(route.getDescription()));
         }
-        List<RteType> rteTypes = new ArrayList<>();
-        rteTypes.add(rteType);
-        List<GpxPosition> positions = route.getPositions();
-        for (int i = startIndex; i < endIndex; i++) {
-            GpxPosition position = positions.get(i);
-            WptType wptType = createWptType(position);
-            if (wptType != null) {
-                rteType.getRtept().add(wptType);
-
-                if (isWriteTrip()) {
-                    boolean first = i == startIndex;
-                    boolean last = i == endIndex - 1;
-                    if (first || last)
-                        setViaPoint(wptType);
-                    else
-                        setShapingPoint(wptType);
-                }
-            }
-        }
-        return rteTypes;
+        return rteType;
     }
 
-    private List<TrkType> createTrack(GpxRoute route, int startIndex, int endIndex) {
+    private TrkType createTrack(GpxRoute route) {
         ObjectFactory objectFactory = new ObjectFactory();
-        List<TrkType> trkTypes = new ArrayList<>();
         TrkType trkType = route.getOrigin(TrkType.class);
         if (trkType != null)
             trkType.getTrkseg().clear();
@@ -343,17 +423,8 @@ public class Gpx11Format extends GpxFormat {
             trkType.setDesc(asDescription(route.getDescription()));
             clearDistance(trkType);
         }
-        trkTypes.add(trkType);
-        TrksegType trksegType = objectFactory.createTrksegType();
-        List<GpxPosition> positions = route.getPositions();
-        for (int i = startIndex; i < endIndex; i++) {
-            GpxPosition position = positions.get(i);
-            WptType wptType = createWptType(position);
-            if (wptType != null)
-                trksegType.getTrkpt().add(wptType);
-        }
-        trkType.getTrkseg().add(trksegType);
-        return trkTypes;
+        trkType.getTrkseg().add(objectFactory.createTrksegType());
+        return trkType;
     }
 
     private GpxType recycleGpxType(GpxRoute route) {
@@ -381,7 +452,7 @@ public class Gpx11Format extends GpxFormat {
         return metadataType;
     }
 
-    private GpxType createGpxType(GpxRoute route, int startIndex, int endIndex) {
+    private GpxType createGpxType(GpxRoute route, PositionWriter writer) {
         ObjectFactory objectFactory = new ObjectFactory();
 
         GpxType gpxType = recycleGpxType(route);
@@ -395,13 +466,15 @@ public class Gpx11Format extends GpxFormat {
         } else
             gpxType.setMetadata(null);
 
-        gpxType.getWpt().addAll(createWayPoints(route, startIndex, endIndex));
-        gpxType.getRte().addAll(createRoute(route, startIndex, endIndex));
-        gpxType.getTrk().addAll(createTrack(route, startIndex, endIndex));
+        writer.wayPoints.add(route);
+        gpxType.getRte().add(createRoute(route));
+        writer.routes.add(route);
+        gpxType.getTrk().add(createTrack(route));
+        writer.tracks.add(route);
         return gpxType;
     }
 
-    private GpxType createGpxType(List<GpxRoute> routes) {
+    private GpxType createGpxType(List<GpxRoute> routes, PositionWriter writer) {
         ObjectFactory objectFactory = new ObjectFactory();
 
         GpxType gpxType = null;
@@ -420,13 +493,15 @@ public class Gpx11Format extends GpxFormat {
             switch (route.getCharacteristics()) {
                 case Waypoints:
                     routeForMetadata = route;
-                    gpxType.getWpt().addAll(createWayPoints(route, 0, route.getPositionCount()));
+                    writer.wayPoints.add(route);
                     break;
                 case Route:
-                    gpxType.getRte().addAll(createRoute(route, 0, route.getPositionCount()));
+                    gpxType.getRte().add(createRoute(route));
+                    writer.routes.add(route);
                     break;
                 case Track:
-                    gpxType.getTrk().addAll(createTrack(route, 0, route.getPositionCount()));
+                    gpxType.getTrk().add(createTrack(route));
+                    writer.tracks.add(route);
                     break;
                 default:
                     throw new IllegalArgumentException("Unknown RouteCharacteristics " + route.getCharacteristics());
@@ -441,19 +516,314 @@ public class Gpx11Format extends GpxFormat {
         return gpxType;
     }
 
+    /**
+     * Writes the wpt, rtept and trkpt elements into the skeleton of the document while it is
+     * marshalled. Creates the WptType of a position just before it is written instead of
+     * collecting all of them in a GpxType first.
+     */
+    private class PositionWriter implements ElementStreamWriter.ElementHandler {
+        private final List<GpxRoute> wayPoints = new ArrayList<>();
+        private final List<GpxRoute> routes = new ArrayList<>();
+        private final List<GpxRoute> tracks = new ArrayList<>();
+        private final int startIndex, endIndex;
+        private boolean wroteWayPoints;
+        private int routeIndex, trackIndex;
+
+        private PositionWriter(int startIndex, int endIndex) {
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+        }
+
+        public void startElement(List<String> path, String localName, ElementStreamWriter writer) throws XMLStreamException {
+            // wpt elements precede rte, trk and extensions of gpx
+            if (path.size() == 1 && ("rte".equals(localName) || "trk".equals(localName) || "extensions".equals(localName)))
+                writeWayPoints(writer);
+        }
+
+        public void endElement(List<String> path, ElementStreamWriter writer) throws XMLStreamException {
+            // rtept and trkseg are the last elements of rte and trkseg
+            if (path.size() == 1)
+                writeWayPoints(writer);
+            else if (path.size() == 2 && "rte".equals(path.get(1)))
+                writePositions(routes.get(routeIndex++), "rtept", isWriteTrip(), writer);
+            else if (path.size() == 3 && "trkseg".equals(path.get(2)))
+                writePositions(tracks.get(trackIndex++), "trkpt", false, writer);
+        }
+
+        private void writeWayPoints(ElementStreamWriter writer) throws XMLStreamException {
+            if (wroteWayPoints)
+                return;
+            wroteWayPoints = true;
+            for (GpxRoute route : wayPoints)
+                writePositions(route, "wpt", false, writer);
+        }
+
+        private void writePositions(GpxRoute route, String localName, boolean tripPoints, ElementStreamWriter writer) throws XMLStreamException {
+            QName name = new QName(GPX_11_NAMESPACE_URI, localName);
+            List<GpxPosition> positions = route.getPositions();
+            int end = min(endIndex, positions.size());
+            for (int i = startIndex; i < end; i++) {
+                WptType wptType = createWptType(positions.get(i));
+                if (wptType != null) {
+                    if (tripPoints)
+                        setTripPoint(wptType, i, startIndex, end);
+                    writer.writeElement(name, WptType.class, wptType);
+                }
+            }
+        }
+    }
+
     public void write(GpxRoute route, OutputStream target, int startIndex, int endIndex) throws IOException {
+        // the rtept of a route with trip extensions share their WptType with the wpt written before them
+        if (isWriteTrip())
+            createTripPoints(route, startIndex, endIndex);
+
+        PositionWriter writer = new PositionWriter(startIndex, endIndex);
         try {
-            marshal11(createGpxType(route, startIndex, endIndex), target);
+            marshal11(createGpxType(route, writer), writer, target);
         } catch (JAXBException e) {
             throw new IOException("Cannot marshall " + route + ": " + e, e);
         }
     }
 
     public void write(List<GpxRoute> routes, OutputStream target) throws IOException {
+        PositionWriter writer = new PositionWriter(0, MAX_VALUE);
         try {
-            marshal11(createGpxType(routes), target);
+            marshal11(createGpxType(routes, writer), writer, target);
         } catch (JAXBException e) {
             throw new IOException("Cannot marshall " + routes + ": " + e, e);
         }
     }
+
+    public boolean isSupportsStreamingReading() {
+        return isSupportsReading();
+    }
+
+    public boolean isSupportsStreamingWriting() {
+        return isSupportsWriting();
+    }
+
+    public void read(InputStream source, CompactCalendar startDate, PositionSink<GpxPosition> sink) throws IOException {
+        PositionStreamReader reader = new PositionStreamReader(sink);
+        try {
+            unmarshal11(source, reader);
+        } catch (IOException e) {
+            if (reader.sinkException != null)
+                throw reader.sinkException;
+            throw e;
+        }
+        reader.endRoute();
+    }
+
+    /**
+     * Passes the way points, the points of each route and the points of each track to the
+     * sink while the document is read. A route or track begins with its first point since
+     * its name precedes the points. The track with the Garmin extensions of a route is not
+     * passed.
+     */
+    private class PositionStreamReader implements ElementHandler {
+        private final GpxPointReader pointReader = new GpxPointReader(false);
+        private final PositionSink<GpxPosition> sink;
+        private boolean validVersion, begun;
+        private String metaDataName, routeName;
+        private IOException sinkException;
+
+        private PositionStreamReader(PositionSink<GpxPosition> sink) {
+            this.sink = sink;
+        }
+
+        public boolean readElement(List<String> path, XMLStreamReader reader, Unmarshaller unmarshaller) throws XMLStreamException {
+            String localName = reader.getLocalName();
+            try {
+                switch (path.size()) {
+                    case 0:
+                        validVersion = VERSION.equals(reader.getAttributeValue(null, "version"));
+                        break;
+                    case 1:
+                        if ("metadata".equals(localName)) {
+                            MetadataType metadataType = unmarshal(reader, unmarshaller, MetadataType.class);
+                            metaDataName = metadataType.getName();
+                            return true;
+                        }
+                        if ("wpt".equals(localName)) {
+                            addPosition(Waypoints, metaDataName, reader, unmarshaller);
+                            return true;
+                        }
+                        endRoute();
+                        routeName = null;
+                        break;
+                    case 2:
+                        if ("name".equals(localName) && ("rte".equals(path.get(1)) || "trk".equals(path.get(1)))) {
+                            routeName = reader.getElementText();
+                            reader.next();
+                            return true;
+                        }
+                        if ("rtept".equals(localName) && "rte".equals(path.get(1))) {
+                            addPosition(Route, routeName, reader, unmarshaller);
+                            return true;
+                        }
+                        break;
+                    case 3:
+                        if ("trkpt".equals(localName) && "trkseg".equals(path.get(2))) {
+                            addPosition(Track, routeName, reader, unmarshaller);
+                            return true;
+                        }
+                        break;
+                }
+            } catch (IOException e) {
+                sinkException = e;
+                throw new XMLStreamException("Cannot pass position to sink: " + e, e);
+            }
+            return false;
+        }
+
+        private <T> T unmarshal(XMLStreamReader reader, Unmarshaller unmarshaller, Class<T> type) throws XMLStreamException {
+            try {
+                return unmarshaller.unmarshal(reader, type).getValue();
+            } catch (JAXBException e) {
+                throw new XMLStreamException("Cannot unmarshal " + type.getSimpleName() + ": " + e, e);
+            }
+        }
+
+        private void addPosition(RouteCharacteristics characteristics, String name, XMLStreamReader reader,
+                                 Unmarshaller unmarshaller) throws XMLStreamException, IOException {
+            WptType wptType = pointReader.read(reader, unmarshaller, WptType.class);
+            if (!validVersion)
+                return;
+            GpxPosition position = wptType != null ? createPosition(wptType) : createPosition(pointReader);
+            if (!begun) {
+                sink.begin(characteristics, name);
+                begun = true;
+            }
+            sink.add(position);
+        }
+
+        private void endRoute() throws IOException {
+            if (begun) {
+                begun = false;
+                sink.end();
+            }
+        }
+    }
+
+    public PositionSink<GpxPosition> createPositionSink(OutputStream target) {
+        return new PositionStreamWriter(target);
+    }
+
+    /**
+     * Writes the gpx, metadata and the rte or trk element when the route begins and
+     * a wpt, rtept or trkpt element for every position that follows. Since the last
+     * position is not known in advance, no trip extensions are written.
+     */
+    /**
+     * Writes one document with the way points, routes and tracks the sink receives. The
+     * meta data is taken from the first of them.
+     */
+    private class PositionStreamWriter implements PositionSink<GpxPosition> {
+        private final OutputStream target;
+        private ElementStreamWriter writer;
+        private RouteCharacteristics characteristics;
+        private QName positionName;
+
+        private PositionStreamWriter(OutputStream target) {
+            this.target = target;
+        }
+
+        private void writeStartElement(String localName) throws XMLStreamException {
+            writer.writeStartElement("", localName, GPX_11_NAMESPACE_URI);
+        }
+
+        private void writeName(String name) throws XMLStreamException {
+            String routeName = asRouteName(name);
+            if (!isWriteMetaData() || routeName == null)
+                return;
+            writeStartElement("name");
+            writer.writeCharacters(routeName);
+            writer.writeEndElement();
+        }
+
+        private void writeStartDocument(RouteCharacteristics characteristics, String name) throws IOException, XMLStreamException {
+            writer = newElementStreamWriter11(target);
+            writeStartElement("gpx");
+            writer.writeDefaultNamespace(GPX_11_NAMESPACE_URI);
+            writer.writeAttribute("version", VERSION);
+            writer.writeAttribute("creator", getCreator());
+            if (isWriteMetaData()) {
+                GpxRoute route = createRoute(characteristics, name, new ArrayList<GpxPosition>());
+                writer.writeElement(new QName(GPX_11_NAMESPACE_URI, "metadata"), MetadataType.class,
+                        createMetaData(route, new ObjectFactory().createGpxType()));
+            }
+        }
+
+        public void begin(RouteCharacteristics characteristics, String name) throws IOException {
+            try {
+                if (writer == null)
+                    writeStartDocument(characteristics, name);
+
+                this.characteristics = characteristics;
+                switch (characteristics) {
+                    case Waypoints:
+                        positionName = new QName(GPX_11_NAMESPACE_URI, "wpt");
+                        break;
+                    case Route:
+                        writeStartElement("rte");
+                        writeName(name);
+                        positionName = new QName(GPX_11_NAMESPACE_URI, "rtept");
+                        break;
+                    case Track:
+                        writeStartElement("trk");
+                        writeName(name);
+                        writeStartElement("trkseg");
+                        positionName = new QName(GPX_11_NAMESPACE_URI, "trkpt");
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown RouteCharacteristics " + characteristics);
+                }
+            } catch (XMLStreamException e) {
+                throw new IOException("Cannot write " + characteristics + " " + name + ": " + e, e);
+            }
+        }
+
+        public void add(GpxPosition position) throws IOException {
+            WptType wptType = createWptType(position);
+            if (wptType == null)
+                return;
+            try {
+                writer.writeElement(positionName, WptType.class, wptType);
+            } catch (XMLStreamException e) {
+                throw new IOException("Cannot write " + position + ": " + e, e);
+            }
+        }
+
+        public void end() throws IOException {
+            try {
+                switch (characteristics) {
+                    case Route:
+                        writer.writeEndElement();
+                        break;
+                    case Track:
+                        writer.writeEndElement();
+                        writer.writeEndElement();
+                        break;
+                }
+                writer.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException("Cannot write end of " + characteristics + ": " + e, e);
+            }
+        }
+
+        public void close() throws IOException {
+            if (writer == null)
+                return;
+            try {
+                writer.writeEndDocument();
+                writer.flush();
+                // leaves the target open for the caller
+                writer.close();
+                target.flush();
+            } catch (XMLStreamException e) {
+                throw new IOException("Cannot write end of document: " + e, e);
+            }
+        }
+    }
 }
@@ -55,6 +55,10 @@ public abstract class GpxFormat extends XmlNavigationFormat<GpxRoute> implements
         return true;
     }
 
+    protected boolean isSupportsRootElement(String rootElement) {
+        return "gpx".equals(rootElement);
+    }
+
     public boolean isWritingRouteCharacteristics() {
         return true; 
     }
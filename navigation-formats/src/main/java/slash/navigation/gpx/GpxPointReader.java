@@ -0,0 +1,249 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.gpx;
+
+import slash.common.helpers.ElementRecorder;
+import slash.common.type.CompactCalendar;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static javax.xml.stream.XMLStreamConstants.*;
+import static slash.common.io.Transfer.parseXMLTime;
+
+/**
+ * Reads the way, route and track points of a GPS Exchange Format (.gpx) file from a
+ * {@link XMLStreamReader} without unmarshalling them. Points with elements that a
+ * {@link GpxPosition} doesn't keep, like comments, links, symbols or extensions, are
+ * unmarshalled from their recorded events so that writing them keeps these elements.
+ *
+ * @author Christian Pesch
+ */
+
+class GpxPointReader {
+    private static final int ELEVATION = 0, TIME = 1, NAME = 2, HDOP = 3, VDOP = 4, PDOP = 5, SATELLITES = 6,
+            COURSE = 7, SPEED = 8;
+    private static final List<String> GPX_10_ELEMENT_NAMES = asList("ele", "time", "name", "hdop", "vdop", "pdop", "sat", "course", "speed");
+    private static final List<String> GPX_11_ELEMENT_NAMES = GPX_10_ELEMENT_NAMES.subList(ELEVATION, COURSE);
+
+    private final List<String> elementNames;
+    private final String[] texts;
+    private QName pointName;
+    private String latitudeText, longitudeText;
+
+    private BigDecimal longitude, latitude, elevation, hdop, vdop, pdop, course, speed;
+    private BigInteger satellites;
+    private CompactCalendar time;
+
+    GpxPointReader(boolean gpx10) {
+        this.elementNames = gpx10 ? GPX_10_ELEMENT_NAMES : GPX_11_ELEMENT_NAMES;
+        this.texts = new String[elementNames.size()];
+    }
+
+    /**
+     * Reads the point at the current start element.
+     *
+     * @param reader the reader which is left at the event after the end element of the point
+     * @param unmarshaller the unmarshaller for points that cannot be read into a {@link GpxPosition}
+     * @param type the type to unmarshal these points to
+     * @return <tt>null</tt> if the point has been read into the values of this reader or the unmarshalled point
+     * @throws XMLStreamException if the point cannot be read
+     */
+    <T> T read(XMLStreamReader reader, Unmarshaller unmarshaller, Class<T> type) throws XMLStreamException {
+        T point = readPoint(reader, unmarshaller, type);
+        reader.next();
+        return point;
+    }
+
+    /**
+     * Unmarshals the point at the current start element.
+     *
+     * @param reader the reader which is left at the event after the end element of the point
+     * @param unmarshaller the unmarshaller for the point
+     * @param type the type to unmarshal the point to
+     * @return the unmarshalled point
+     * @throws XMLStreamException if the point cannot be read
+     */
+    <T> T unmarshal(XMLStreamReader reader, Unmarshaller unmarshaller, Class<T> type) throws XMLStreamException {
+        ElementRecorder recorder = new ElementRecorder();
+        recorder.record(reader);
+        reader.next();
+        return unmarshal(recorder, unmarshaller, type);
+    }
+
+    private <T> T readPoint(XMLStreamReader reader, Unmarshaller unmarshaller, Class<T> type) throws XMLStreamException {
+        pointName = reader.getName();
+        latitudeText = reader.getAttributeValue(null, "lat");
+        longitudeText = reader.getAttributeValue(null, "lon");
+        if (reader.getAttributeCount() != 2 || latitudeText == null || longitudeText == null || reader.getNamespaceCount() > 0) {
+            ElementRecorder recorder = new ElementRecorder();
+            recorder.record(reader);
+            return unmarshal(recorder, unmarshaller, type);
+        }
+
+        for (int i = 0; i < texts.length; i++)
+            texts[i] = null;
+
+        while (true) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                int index = pointName.getNamespaceURI().equals(reader.getNamespaceURI()) ?
+                        elementNames.indexOf(reader.getLocalName()) : -1;
+                if (index == -1)
+                    return unmarshal(reader, null, null, unmarshaller, type);
+
+                String text = null;
+                while (true) {
+                    event = reader.next();
+                    if (event == CHARACTERS || event == CDATA || event == SPACE)
+                        text = text == null ? reader.getText() : text + reader.getText();
+                    else if (event == START_ELEMENT)
+                        return unmarshal(reader, elementNames.get(index), text, unmarshaller, type);
+                    else if (event == END_ELEMENT)
+                        break;
+                }
+                texts[index] = text != null ? text : "";
+
+            } else if (event == END_ELEMENT)
+                break;
+        }
+
+        try {
+            latitude = parseDecimal(latitudeText);
+            longitude = parseDecimal(longitudeText);
+            elevation = parseDecimal(texts[ELEVATION]);
+            time = parseXMLTime(texts[TIME]);
+            hdop = parseDecimal(texts[HDOP]);
+            vdop = parseDecimal(texts[VDOP]);
+            pdop = parseDecimal(texts[PDOP]);
+            satellites = texts[SATELLITES] != null ? new BigInteger(texts[SATELLITES].trim()) : null;
+            if (texts.length > COURSE) {
+                course = parseDecimal(texts[COURSE]);
+                speed = parseDecimal(texts[SPEED]);
+            }
+            return null;
+        } catch (IllegalArgumentException e) {
+            // leaves the reporting of invalid values to the unmarshaller
+            return unmarshal(reader, null, null, unmarshaller, type);
+        }
+    }
+
+    private static BigDecimal parseDecimal(String string) {
+        if (string == null)
+            return null;
+        String trimmed = string.trim();
+        if (trimmed.length() == 0)
+            throw new NumberFormatException("Empty decimal");
+        return new BigDecimal(trimmed);
+    }
+
+    /**
+     * Adds the parts of the point that have been read to a recorder, records the rest of the
+     * point and unmarshals it.
+     */
+    private <T> T unmarshal(XMLStreamReader reader, String elementName, String elementText,
+                            Unmarshaller unmarshaller, Class<T> type) throws XMLStreamException {
+        ElementRecorder recorder = new ElementRecorder();
+        List<Attribute> attributes = new ArrayList<>(2);
+        attributes.add(recorder.createAttribute("lat", latitudeText));
+        attributes.add(recorder.createAttribute("lon", longitudeText));
+        recorder.startElement(pointName, attributes);
+        for (int i = 0; i < texts.length; i++) {
+            if (texts[i] != null)
+                recorder.element(new QName(pointName.getNamespaceURI(), elementNames.get(i)), texts[i]);
+        }
+
+        if (elementName != null) {
+            // the point has been left within the element
+            QName name = new QName(pointName.getNamespaceURI(), elementName);
+            recorder.startElement(name, new ArrayList<Attribute>());
+            if (elementText != null)
+                recorder.characters(elementText);
+            recorder.recordContent(reader);
+            recorder.endElement(name);
+            reader.next();
+        }
+
+        recorder.recordContent(reader);
+        recorder.endElement(pointName);
+        return unmarshal(recorder, unmarshaller, type);
+    }
+
+    private <T> T unmarshal(ElementRecorder recorder, Unmarshaller unmarshaller, Class<T> type) throws XMLStreamException {
+        try {
+            return recorder.unmarshal(unmarshaller, type);
+        } catch (JAXBException e) {
+            throw new XMLStreamException("Cannot unmarshal " + type.getSimpleName() + ": " + e, e);
+        }
+    }
+
+    BigDecimal getLongitude() {
+        return longitude;
+    }
+
+    BigDecimal getLatitude() {
+        return latitude;
+    }
+
+    BigDecimal getElevation() {
+        return elevation;
+    }
+
+    CompactCalendar getTime() {
+        return time;
+    }
+
+    String getName() {
+        return texts[NAME];
+    }
+
+    BigDecimal getHdop() {
+        return hdop;
+    }
+
+    BigDecimal getVdop() {
+        return vdop;
+    }
+
+    BigDecimal getPdop() {
+        return pdop;
+    }
+
+    BigInteger getSatellites() {
+        return satellites;
+    }
+
+    BigDecimal getCourse() {
+        return course;
+    }
+
+    BigDecimal getSpeed() {
+        return speed;
+    }
+}
@@ -25,6 +25,7 @@ import slash.navigation.base.ExtendedSensorNavigationPosition;
 import slash.navigation.base.WaypointType;
 import slash.navigation.base.Wgs84Position;
 import slash.navigation.fpl.GarminFlightPlanPosition;
+import slash.navigation.gpx.binding11.ObjectFactory;
 import slash.navigation.gpx.binding11.WptType;
 
 import java.math.BigDecimal;
@@ -45,6 +46,7 @@ import static slash.navigation.gpx.GpxFormat.*;
 public class GpxPosition extends Wgs84Position implements ExtendedSensorNavigationPosition {
     private String reason;
     private GpxPositionExtension positionExtension;
+    private boolean positionExtensionOnDemand;
 
     public GpxPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         this(longitude, latitude, elevation, speed, time, description, null);
@@ -129,53 +131,82 @@ public class GpxPosition extends Wgs84Position implements ExtendedSensorNavigati
 
 
     GpxPositionExtension getPositionExtension() {
+        if (positionExtension == null && positionExtensionOnDemand) {
+            positionExtensionOnDemand = false;
+
+            WptType wptType = new ObjectFactory().createWptType();
+            Double heading = super.getHeading();
+            Double speed = super.getSpeed();
+            Double temperature = super.getTemperature();
+            Short heartBeatRate = super.getHeartBeatRate();
+
+            setOrigin(wptType);
+            positionExtension = new GpxPositionExtension(wptType);
+
+            if (heading != null)
+                positionExtension.setHeading(heading);
+            if (speed != null)
+                positionExtension.setSpeed(speed);
+            if (temperature != null)
+                positionExtension.setTemperature(temperature);
+            if (heartBeatRate != null)
+                positionExtension.setHeartBeatRate(heartBeatRate);
+        }
         return positionExtension;
     }
 
+    /**
+     * Defers creating the {@link WptType} and {@link GpxPositionExtension} of a position
+     * that has been read without extensions until they are asked for.
+     */
+    void setPositionExtensionOnDemand() {
+        this.positionExtensionOnDemand = true;
+    }
+
     void setPositionExtension(GpxPositionExtension positionExtension) {
         this.positionExtension = positionExtension;
     }
 
     public Double getHeading() {
-        return getPositionExtension() != null ? getPositionExtension().getHeading() : super.getHeading();
+        return positionExtension != null ? positionExtension.getHeading() : super.getHeading();
     }
 
     public void setHeading(Double heading) {
-        if (getPositionExtension() != null)
-            getPositionExtension().setHeading(heading);
+        if (positionExtension != null)
+            positionExtension.setHeading(heading);
         else
             super.setHeading(heading);
     }
 
     public Double getSpeed() {
-        return getPositionExtension() != null ? getPositionExtension().getSpeed() : super.getSpeed();
+        return positionExtension != null ? positionExtension.getSpeed() : super.getSpeed();
     }
 
     public void setSpeed(Double speed) {
-        if (getPositionExtension() != null)
-            getPositionExtension().setSpeed(speed);
+        if (positionExtension != null)
+            positionExtension.setSpeed(speed);
         else
             super.setSpeed(speed);
     }
 
     public Double getTemperature() {
-        return getPositionExtension() != null ? getPositionExtension().getTemperature() : super.getTemperature();
+        return positionExtension != null ? positionExtension.getTemperature() : super.getTemperature();
     }
 
     public void setTemperature(Double temperature) {
-        if (getPositionExtension() != null)
-            getPositionExtension().setTemperature(temperature);
+        if (positionExtension != null)
+            positionExtension.setTemperature(temperature);
         else
             super.setTemperature(temperature);
     }
 
     public Short getHeartBeatRate() {
-        return getPositionExtension() != null ? getPositionExtension().getHeartBeatRate() : super.getHeartBeatRate();
+        return positionExtension != null ? positionExtension.getHeartBeatRate() : super.getHeartBeatRate();
     }
 
     public void setHeartBeatRate(Short heartBeatRate) {
-        if (getPositionExtension() != null)
-            getPositionExtension().setHeartBeatRate(heartBeatRate);
+        if (positionExtension != null)
+            positionExtension.setHeartBeatRate(heartBeatRate);
         else
             super.setHeartBeatRate(heartBeatRate);
     }
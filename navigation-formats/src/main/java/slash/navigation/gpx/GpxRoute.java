@@ -78,7 +78,7 @@ public class GpxRoute extends BaseRoute<GpxPosition, GpxFormat> {
         super(format, characteristics);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
         this.origins = asList(origins);
     }
 
@@ -125,10 +125,6 @@ public class GpxRoute extends BaseRoute<GpxPosition, GpxFormat> {
         return positions.size();
     }
 
-    public void add(int index, GpxPosition position) {
-        positions.add(index, position);
-    }
-
     public GpxPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new GpxPosition(longitude, latitude, elevation, speed, time, description);
     }
@@ -67,7 +67,7 @@ public class TomTomRoute extends BaseRoute<TomTomPosition, TomTomRouteFormat> {
     public TomTomRoute(TomTomRouteFormat format, RouteCharacteristics characteristics, String name, List<TomTomPosition> positions) {
         super(format, characteristics);
         this.name = name;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public TomTomRoute(RouteCharacteristics characteristics, String name, List<TomTomPosition> positions) {
@@ -94,10 +94,6 @@ public class TomTomRoute extends BaseRoute<TomTomPosition, TomTomRouteFormat> {
         return positions.size();
     }
 
-    public void add(int index, TomTomPosition position) {
-        positions.add(index, position);
-    }
-
     public TomTomPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new TomTomPosition(longitude, latitude, elevation, speed, time, description);
     }
@@ -82,7 +82,7 @@ public class KlickTelRoute extends BaseRoute<Wgs84Position, KlickTelRouteFormat>
     KlickTelRoute(String name, KDRoute.RouteOptions options, List<Wgs84Position> positions) {
         super(new KlickTelRouteFormat(), Route);
         this.options = options;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
         setName(name);
     }
 
@@ -110,10 +110,6 @@ public class KlickTelRoute extends BaseRoute<Wgs84Position, KlickTelRouteFormat>
         return positions.size();
     }
 
-    public void add(int index, Wgs84Position position) {
-        positions.add(index, position);
-    }
-
     public Wgs84Position createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new Wgs84Position(longitude, latitude, elevation, speed, time, description);
     }
@@ -21,6 +21,7 @@
 package slash.navigation.kml;
 
 import slash.navigation.base.GarbleNavigationFormat;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 import slash.navigation.kml.binding21.KmlType;
 
@@ -46,6 +47,11 @@ public class GarbleKml21Format extends Kml21Format implements GarbleNavigationFo
         return false;
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // garbled files may contain anything before the XML
+        return true;
+    }
+
     public void read(InputStream source, ParserContext<KmlRoute> context) throws IOException {
         try (InputStreamReader reader = new InputStreamReader(source)) {
             KmlType kmlType = unmarshal21(reader);
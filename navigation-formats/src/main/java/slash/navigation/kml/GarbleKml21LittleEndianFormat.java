@@ -21,6 +21,7 @@
 package slash.navigation.kml;
 
 import slash.navigation.base.GarbleNavigationFormat;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 import slash.navigation.kml.binding21.KmlType;
 
@@ -47,6 +48,11 @@ public class GarbleKml21LittleEndianFormat extends Kml21Format implements Garble
         return false;
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // garbled files may contain anything before the XML
+        return true;
+    }
+
     public void read(InputStream source, ParserContext<KmlRoute> context) throws IOException {
         try (InputStreamReader reader = new InputStreamReader(source, StandardCharsets.UTF_16LE)) {
             KmlType kmlType = unmarshal21(reader);
@@ -21,6 +21,7 @@
 package slash.navigation.kml;
 
 import slash.navigation.base.GarbleNavigationFormat;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 import slash.navigation.kml.binding22beta.KmlType;
 
@@ -46,6 +47,11 @@ public class GarbleKml22BetaFormat extends Kml22BetaFormat implements GarbleNavi
         return false;
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // garbled files may contain anything before the XML
+        return true;
+    }
+
     public void read(InputStream source, ParserContext<KmlRoute> context) throws IOException {
         try (InputStreamReader reader = new InputStreamReader(source)) {
             KmlType kmlType = unmarshal22Beta(reader);
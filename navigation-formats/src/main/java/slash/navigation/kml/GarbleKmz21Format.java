@@ -21,6 +21,7 @@
 package slash.navigation.kml;
 
 import slash.navigation.base.GarbleNavigationFormat;
+import slash.navigation.base.NavigationFormatSignature;
 
 /**
  * Reads garbled compressed Google Earth 4 (.kmz) files.
@@ -41,4 +42,9 @@ public class GarbleKmz21Format extends KmzFormat implements GarbleNavigationForm
     public boolean isSupportsWriting() {
         return false;
     }
+
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // garbled files may contain anything before the ZIP
+        return true;
+    }
 }
\ No newline at end of file
@@ -24,12 +24,14 @@ import slash.navigation.base.ParserContext;
 import slash.navigation.kml.binding22.*;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.prefs.Preferences;
 
 import static java.lang.Boolean.TRUE;
 import static slash.common.io.Transfer.trim;
+import static slash.navigation.kml.KmlUtil.unmarshal22;
 
 /**
  * Reads and writes iGO8 Route (.kml) files.
@@ -57,6 +59,11 @@ public class Igo8RouteFormat extends Kml22Format {
         return preferences.getInt("maximumiGo8RoutePositionCount", 100);
     }
 
+    public void read(InputStream source, ParserContext<KmlRoute> context) throws IOException {
+        KmlType kmlType = unmarshal22(source);
+        process(kmlType, context);
+    }
+
     protected void process(KmlType kmlType, ParserContext<KmlRoute> context) throws IOException {
         if (kmlType == null || kmlType.getAbstractFeatureGroup() == null)
             return;
@@ -56,6 +56,10 @@ public class Kml20Format extends KmlFormat {
         return "Google Earth 3 (*" + getExtension() + ")";
     }
 
+    protected boolean isSupportsRootElement(String rootElement) {
+        return "kml".equals(rootElement) || "Document".equals(rootElement) || "Folder".equals(rootElement);
+    }
+
     public void read(InputStream source, ParserContext<KmlRoute> context) throws IOException {
         Object o = unmarshal20(source);
         if (o instanceof Kml) {
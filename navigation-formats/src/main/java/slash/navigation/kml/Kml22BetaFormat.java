@@ -23,24 +23,28 @@ package slash.navigation.kml;
 import slash.common.type.CompactCalendar;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.kml.KmlStreamReader.Container;
+import slash.navigation.kml.KmlStreamReader.Placemark;
 import slash.navigation.kml.binding22beta.*;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
+import static java.util.Collections.singletonMap;
 import static slash.common.io.Transfer.trim;
 import static slash.common.type.ISO8601.formatDate;
 import static slash.navigation.base.RouteCharacteristics.Track;
 import static slash.navigation.base.RouteCharacteristics.Waypoints;
-import static slash.navigation.kml.KmlUtil.marshal22Beta;
-import static slash.navigation.kml.KmlUtil.unmarshal22Beta;
+import static slash.navigation.kml.KmlUtil.*;
 
 /**
  * Reads and writes Google Earth 4.2 (.kml) files.
@@ -49,14 +53,17 @@ import static slash.navigation.kml.KmlUtil.unmarshal22Beta;
  */
 
 public class Kml22BetaFormat extends KmlFormat {
+    private static final Map<QName, Class<?>> UNMARSHALLED_FEATURES =
+            singletonMap(new QName(KML_22_BETA_NAMESPACE_URI, "NetworkLink"), NetworkLinkType.class);
 
     public String getName() {
         return "Google Earth 4.2 (*" + getExtension() + ")";
     }
 
     public void read(InputStream source, ParserContext<KmlRoute> context) throws IOException {
-        KmlType kmlType = unmarshal22Beta(source);
-        process(kmlType, context);
+        Object feature = new KmlStreamReader(this, KML_22_BETA_NAMESPACE_URI, null,
+                newUnmarshaller22Beta(), UNMARSHALLED_FEATURES).read(source);
+        extractTracks(feature, context);
     }
 
     protected void process(KmlType kmlType, ParserContext<KmlRoute> context) throws IOException {
@@ -77,6 +84,16 @@ public class Kml22BetaFormat extends KmlFormat {
         return result;
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> List<JAXBElement<T>> find(List<JAXBElement<?>> elements, Class<T> resultClass) {
+        List<JAXBElement<T>> result = new ArrayList<>();
+        for (JAXBElement<?> element : elements) {
+            if (resultClass.isInstance(element.getValue()))
+                result.add((JAXBElement<T>) element);
+        }
+        return result;
+    }
+
     private void extractTracks(KmlType kmlType, ParserContext<KmlRoute> context) throws IOException {
         AbstractFeatureType feature = kmlType.getAbstractFeatureGroup().getValue();
         if (feature instanceof AbstractContainerType) {
@@ -102,6 +119,39 @@ public class Kml22BetaFormat extends KmlFormat {
         }
     }
 
+    private void extractTracks(Object feature, ParserContext<KmlRoute> context) throws IOException {
+        if (feature instanceof Container) {
+            Container container = (Container) feature;
+            extractTracks(trim(container.name), trim(container.description), container, context);
+        }
+
+        if (feature instanceof Placemark) {
+            Placemark placemark = (Placemark) feature;
+            String placemarkName = asDescription(trim(placemark.name), trim(placemark.description));
+
+            CompactCalendar time = parseTime(placemark.time);
+            for (KmlPosition position : placemark.positions) {
+                enrichPosition(position, time, placemarkName, placemark.description, context.getStartDate());
+            }
+            context.appendRoute(new KmlRoute(this, Waypoints, placemarkName, null, placemark.positions));
+        }
+    }
+
+    private void extractTracks(String name, String description, Container container, ParserContext<KmlRoute> context) throws IOException {
+        extractWayPointsAndTracks(name, description, container.placemarks, context);
+        extractWayPointsAndTracksFromNetworkLinks(find(container.unmarshalledFeatures, NetworkLinkType.class), context);
+
+        for (Container folder : container.folders) {
+            String folderName = concatPath(name, folder.name);
+            extractTracks(folderName, description, folder, context);
+        }
+
+        for (Container document : container.documents) {
+            String documentName = concatPath(name, document.name);
+            extractTracks(documentName, description, document, context);
+        }
+    }
+
     private void extractTracks(String name, String description, List<JAXBElement<? extends AbstractFeatureType>> features, ParserContext<KmlRoute> context) throws IOException {
         List<JAXBElement<PlacemarkType>> placemarks = find(features, "Placemark", PlacemarkType.class);
         extractWayPointsAndTracksFromPlacemarks(name, description, placemarks, context);
@@ -151,6 +201,31 @@ public class Kml22BetaFormat extends KmlFormat {
         }
     }
 
+    private void extractWayPointsAndTracks(String name, String description, List<Placemark> placemarks, ParserContext<KmlRoute> context) {
+        List<KmlPosition> waypoints = new ArrayList<>();
+        for (Placemark placemark : placemarks) {
+            String placemarkName = asDescription(trim(placemark.name), trim(placemark.description));
+
+            List<KmlPosition> positions = placemark.positions;
+            if (positions.size() == 1) {
+                // all placemarks with one position form one waypoint route
+                KmlPosition wayPoint = positions.get(0);
+                enrichPosition(wayPoint, parseTime(placemark.time), placemarkName, placemark.description, context.getStartDate());
+                waypoints.add(wayPoint);
+            } else {
+                // each placemark with more than one position is one track
+                String routeName = concatPath(name, asName(placemarkName));
+                List<String> routeDescription = asDescription(placemark.description != null ? placemark.description : description);
+                RouteCharacteristics characteristics = parseCharacteristics(routeName, Track);
+                context.appendRoute(new KmlRoute(this, characteristics, routeName, routeDescription, positions));
+            }
+        }
+        if (waypoints.size() > 0) {
+            RouteCharacteristics characteristics = parseCharacteristics(name, Waypoints);
+            context.prependRoute(new KmlRoute(this, characteristics, name, asDescription(description), waypoints));
+        }
+    }
+
     private void extractWayPointsAndTracksFromNetworkLinks(List<JAXBElement<NetworkLinkType>> networkLinkTypes, ParserContext<KmlRoute> context) throws IOException {
         for (JAXBElement<NetworkLinkType> networkLinkType : networkLinkTypes) {
             Link link = networkLinkType.getValue().getLink();
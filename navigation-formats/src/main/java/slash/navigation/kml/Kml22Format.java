@@ -24,6 +24,8 @@ import slash.common.type.CompactCalendar;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.common.NavigationPosition;
+import slash.navigation.kml.KmlStreamReader.Container;
+import slash.navigation.kml.KmlStreamReader.Placemark;
 import slash.navigation.kml.binding22.ObjectFactory;
 import slash.navigation.kml.binding22.*;
 import slash.navigation.kml.binding22gx.*;
@@ -31,11 +33,14 @@ import slash.navigation.kml.bindingatom.Link;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
@@ -49,8 +54,7 @@ import static slash.navigation.base.RouteCharacteristics.*;
 import static slash.navigation.common.Bearing.EARTH_RADIUS;
 import static slash.navigation.common.NavigationConversion.formatPositionAsString;
 import static slash.navigation.common.PositionParser.parseExtensionPositions;
-import static slash.navigation.kml.KmlUtil.marshal22;
-import static slash.navigation.kml.KmlUtil.unmarshal22;
+import static slash.navigation.kml.KmlUtil.*;
 import static slash.navigation.kml.binding22.UnitsEnumType.FRACTION;
 import static slash.navigation.kml.binding22.UnitsEnumType.PIXELS;
 
@@ -62,14 +66,21 @@ import static slash.navigation.kml.binding22.UnitsEnumType.PIXELS;
 
 public class Kml22Format extends KmlFormat {
     private static final int METERS_BETWEEN_MARKS = 1000;
+    private static final Map<QName, Class<?>> UNMARSHALLED_FEATURES = new HashMap<>();
+
+    static {
+        UNMARSHALLED_FEATURES.put(new QName(KML_22_NAMESPACE_URI, "NetworkLink"), NetworkLinkType.class);
+        UNMARSHALLED_FEATURES.put(new QName(KML_22_EXT_NAMESPACE_URI, "Tour"), TourType.class);
+    }
 
     public String getName() {
         return "Google Earth 5 (*" + getExtension() + ")";
     }
 
     public void read(InputStream source, ParserContext<KmlRoute> context) throws IOException {
-        KmlType kmlType = unmarshal22(source);
-        process(kmlType, context);
+        Object feature = new KmlStreamReader(this, KML_22_NAMESPACE_URI, KML_22_EXT_NAMESPACE_URI,
+                newUnmarshaller22(), UNMARSHALLED_FEATURES).read(source);
+        extractTracks(feature, context);
     }
 
     protected void process(KmlType kmlType, ParserContext<KmlRoute> context) throws IOException {
@@ -90,6 +101,16 @@ public class Kml22Format extends KmlFormat {
         return result;
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> List<JAXBElement<T>> find(List<JAXBElement<?>> elements, Class<T> resultClass) {
+        List<JAXBElement<T>> result = new ArrayList<>();
+        for (JAXBElement<?> element : elements) {
+            if (resultClass.isInstance(element.getValue()))
+                result.add((JAXBElement<T>) element);
+        }
+        return result;
+    }
+
     protected void extractTracks(KmlType kmlType, ParserContext<KmlRoute> context) throws IOException {
         AbstractFeatureType feature = kmlType.getAbstractFeatureGroup().getValue();
         if (feature instanceof AbstractContainerType) {
@@ -113,15 +134,55 @@ public class Kml22Format extends KmlFormat {
             context.appendRoute(new KmlRoute(this, Waypoints, placemarkName, null, positions));
         }
 
-        if (feature instanceof TourType) {
-            TourType tourType = (TourType) feature;
-            String tourName = asDescription(trim(tourType.getName()), trim(tourType.getDescription()));
+        if (feature instanceof TourType)
+            extractTour((TourType) feature, context);
+    }
 
-            List<KmlPosition> positions = extractPositionsFromTour(tourType.getPlaylist().getAbstractTourPrimitiveGroup());
-            for (KmlPosition position : positions) {
-                enrichPosition(position, extractTime(tourType.getAbstractTimePrimitiveGroup()), tourName, tourType.getDescription(), context.getStartDate());
+    private void extractTour(TourType tourType, ParserContext<KmlRoute> context) {
+        String tourName = asDescription(trim(tourType.getName()), trim(tourType.getDescription()));
+
+        List<KmlPosition> positions = extractPositionsFromTour(tourType.getPlaylist().getAbstractTourPrimitiveGroup());
+        for (KmlPosition position : positions) {
+            enrichPosition(position, extractTime(tourType.getAbstractTimePrimitiveGroup()), tourName, tourType.getDescription(), context.getStartDate());
+        }
+        context.appendRoute(new KmlRoute(this, Track, tourName, null, positions));
+    }
+
+    private void extractTracks(Object feature, ParserContext<KmlRoute> context) throws IOException {
+        if (feature instanceof Container) {
+            Container container = (Container) feature;
+            extractTracks(trim(container.name), trim(container.description), container, context);
+        }
+
+        if (feature instanceof Placemark) {
+            Placemark placemark = (Placemark) feature;
+            String placemarkName = asDescription(trim(placemark.name), trim(placemark.description));
+
+            CompactCalendar time = parseTime(placemark.time);
+            for (KmlPosition position : placemark.positions) {
+                enrichPosition(position, time, placemarkName, placemark.description, context.getStartDate());
             }
-            context.appendRoute(new KmlRoute(this, Track, tourName, null, positions));
+            context.appendRoute(new KmlRoute(this, Waypoints, placemarkName, null, placemark.positions));
+        }
+
+        if (feature instanceof JAXBElement && ((JAXBElement<?>) feature).getValue() instanceof TourType)
+            extractTour((TourType) ((JAXBElement<?>) feature).getValue(), context);
+    }
+
+    private void extractTracks(String name, String description, Container container, ParserContext<KmlRoute> context) throws IOException {
+        extractWayPointsAndTracks(name, description, container.placemarks, context);
+        extractWayPointsAndTracksFromNetworkLinks(find(container.unmarshalledFeatures, NetworkLinkType.class), context);
+
+        for (Container folder : container.folders) {
+            String folderName = trim(folder.name);
+            // ignore speed and marks folders
+            if (folderName == null || (!folderName.equals(SPEED) && !folderName.equals(MARKS)))
+                extractTracks(concatPath(name, folderName), description, folder, context);
+        }
+
+        for (Container document : container.documents) {
+            String documentName = concatPath(name, document.name);
+            extractTracks(documentName, description, document, context);
         }
     }
 
@@ -193,6 +254,34 @@ public class Kml22Format extends KmlFormat {
         }
     }
 
+    private void extractWayPointsAndTracks(String name, String description, List<Placemark> placemarks, ParserContext<KmlRoute> context) {
+        List<KmlPosition> waypoints = new ArrayList<>();
+        for (Placemark placemark : placemarks) {
+            String placemarkName = asDescription(trim(placemark.name), trim(placemark.description));
+
+            if (!placemark.hasGeometry)
+                continue;
+
+            List<KmlPosition> positions = placemark.positions;
+            if (positions.size() == 1) {
+                // all placemarks with one position form one waypoint route
+                KmlPosition wayPoint = positions.get(0);
+                enrichPosition(wayPoint, parseTime(placemark.time), placemarkName, placemark.description, context.getStartDate());
+                waypoints.add(wayPoint);
+            } else {
+                // each placemark with more than one position is one track
+                String routeName = concatPath(name, asName(placemarkName));
+                List<String> routeDescription = asDescription(placemark.description != null ? placemark.description : description);
+                RouteCharacteristics characteristics = parseCharacteristics(routeName, Track);
+                context.appendRoute(new KmlRoute(this, characteristics, routeName, routeDescription, positions));
+            }
+        }
+        if (waypoints.size() > 0) {
+            RouteCharacteristics characteristics = parseCharacteristics(name, Waypoints);
+            context.prependRoute(new KmlRoute(this, characteristics, name, asDescription(description), waypoints));
+        }
+    }
+
     private void extractWayPointsAndTracksFromNetworkLinks(List<JAXBElement<NetworkLinkType>> networkLinkTypes, ParserContext<KmlRoute> context) throws IOException {
         for (JAXBElement<NetworkLinkType> networkLinkType : networkLinkTypes) {
             Link link = networkLinkType.getValue().getLink();
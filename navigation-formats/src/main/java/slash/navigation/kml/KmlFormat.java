@@ -66,6 +66,10 @@ public abstract class KmlFormat extends BaseKmlFormat {
         return true;
     }
 
+    protected boolean isSupportsRootElement(String rootElement) {
+        return "kml".equals(rootElement);
+    }
+
     public boolean isWritingRouteCharacteristics() {
         return true;
     }
@@ -68,7 +68,7 @@ public class KmlRoute extends BaseRoute<KmlPosition, BaseKmlFormat> {
         super(format, characteristics);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public String getName() {
@@ -91,10 +91,6 @@ public class KmlRoute extends BaseRoute<KmlPosition, BaseKmlFormat> {
         return positions.size();
     }
 
-    public void add(int index, KmlPosition position) {
-        positions.add(index, position);
-    }
-
     public KmlPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new KmlPosition(longitude, latitude, elevation, speed, time, description);
     }
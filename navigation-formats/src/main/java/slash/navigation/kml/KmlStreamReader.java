@@ -0,0 +1,311 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import slash.common.type.CompactCalendar;
+import slash.navigation.common.NavigationPosition;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static javax.xml.stream.XMLStreamConstants.*;
+import static slash.navigation.common.PositionParser.parseExtensionPositions;
+
+/**
+ * Reads the containers and placemarks of a KML 2.2 document with StAX. Only names, descriptions,
+ * times and coordinates are kept instead of the complete JAXB object model. Features that are
+ * not handled here are unmarshalled with JAXB.
+ *
+ * @author Christian Pesch
+ */
+
+class KmlStreamReader {
+    private static final Set<String> CONTAINERS = new HashSet<>(asList("Document", "Folder"));
+    private static final Set<String> GEOMETRIES = new HashSet<>(asList("Point", "LineString", "LinearRing",
+            "Polygon", "MultiGeometry", "Model", "Track", "MultiTrack"));
+
+    private final KmlFormat format;
+    private final String namespaceUri, extensionNamespaceUri;
+    private final Unmarshaller unmarshaller;
+    private final Map<QName, Class<?>> unmarshalledFeatures;
+    private boolean unmarshalled;
+
+    static class Placemark {
+        String name, description, time;
+        boolean hasGeometry;
+        final List<KmlPosition> positions = new ArrayList<>();
+    }
+
+    static class Container {
+        final String type;
+        String name, description;
+        final List<Placemark> placemarks = new ArrayList<>();
+        final List<JAXBElement<?>> unmarshalledFeatures = new ArrayList<>();
+        final List<Container> folders = new ArrayList<>();
+        final List<Container> documents = new ArrayList<>();
+
+        private Container(String type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * @param format the format to create the positions with
+     * @param namespaceUri the namespace of the KML elements
+     * @param extensionNamespaceUri the namespace of the gx:Track and gx:MultiTrack elements or <tt>null</tt>
+     * @param unmarshaller the unmarshaller for the features that are not handled by this reader
+     * @param unmarshalledFeatures the names and types of the features to unmarshal, others are skipped
+     */
+    KmlStreamReader(KmlFormat format, String namespaceUri, String extensionNamespaceUri,
+                    Unmarshaller unmarshaller, Map<QName, Class<?>> unmarshalledFeatures) {
+        this.format = format;
+        this.namespaceUri = namespaceUri;
+        this.extensionNamespaceUri = extensionNamespaceUri;
+        this.unmarshaller = unmarshaller;
+        this.unmarshalledFeatures = unmarshalledFeatures;
+    }
+
+    /**
+     * Reads the feature of the kml element.
+     *
+     * @param inputStream the stream to read from
+     * @return a {@link Container}, a {@link Placemark}, a {@link JAXBElement} of an unmarshalled
+     * feature or <tt>null</tt> if the kml element contains no feature
+     * @throws IOException if the document cannot be parsed or its root is no kml element
+     */
+    Object read(InputStream inputStream) throws IOException {
+        try {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext() && !reader.isStartElement())
+                    reader.next();
+                if (!reader.isStartElement() || !isKml(reader, "kml"))
+                    throw new IOException("Parse error: no kml element in namespace " + namespaceUri);
+
+                Object feature = null;
+                while (nextTag(reader) == START_ELEMENT) {
+                    Object result = readFeature(reader);
+                    // like JAXB, the last feature wins
+                    if (result != null)
+                        feature = result;
+                }
+                return feature;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | JAXBException e) {
+            throw new IOException("Parse error: " + e, e);
+        }
+    }
+
+    private boolean isKml(XMLStreamReader reader, String localName) {
+        return namespaceUri.equals(reader.getNamespaceURI()) && localName.equals(reader.getLocalName());
+    }
+
+    private boolean isExtension(XMLStreamReader reader, String localName) {
+        return extensionNamespaceUri != null && extensionNamespaceUri.equals(reader.getNamespaceURI()) &&
+                localName.equals(reader.getLocalName());
+    }
+
+    private boolean isGeometry(XMLStreamReader reader) {
+        String namespace = reader.getNamespaceURI();
+        return (namespaceUri.equals(namespace) || extensionNamespaceUri != null && extensionNamespaceUri.equals(namespace)) &&
+                GEOMETRIES.contains(reader.getLocalName());
+    }
+
+    /**
+     * Reads the feature at the current start element and leaves the reader at its end element.
+     */
+    private Object readFeature(XMLStreamReader reader) throws XMLStreamException, JAXBException {
+        if (namespaceUri.equals(reader.getNamespaceURI()) && CONTAINERS.contains(reader.getLocalName()))
+            return readContainer(reader);
+        if (isKml(reader, "Placemark"))
+            return readPlacemark(reader);
+
+        Class<?> type = unmarshalledFeatures.get(reader.getName());
+        if (type != null) {
+            JAXBElement<?> element = unmarshaller.unmarshal(reader, type);
+            // the unmarshaller leaves the reader at the event after the end element
+            unmarshalled = true;
+            return element;
+        }
+
+        skipElement(reader);
+        return null;
+    }
+
+    private Container readContainer(XMLStreamReader reader) throws XMLStreamException, JAXBException {
+        Container container = new Container(reader.getLocalName());
+        while (nextTag(reader) == START_ELEMENT) {
+            if (isKml(reader, "name"))
+                container.name = readText(reader);
+            else if (isKml(reader, "description"))
+                container.description = readText(reader);
+            else {
+                Object feature = readFeature(reader);
+                if (feature instanceof Placemark)
+                    container.placemarks.add((Placemark) feature);
+                else if (feature instanceof Container) {
+                    Container child = (Container) feature;
+                    if ("Folder".equals(child.type))
+                        container.folders.add(child);
+                    else
+                        container.documents.add(child);
+                } else if (feature instanceof JAXBElement)
+                    container.unmarshalledFeatures.add((JAXBElement<?>) feature);
+            }
+        }
+        return container;
+    }
+
+    private Placemark readPlacemark(XMLStreamReader reader) throws XMLStreamException {
+        Placemark placemark = new Placemark();
+        while (nextTag(reader) == START_ELEMENT) {
+            if (isKml(reader, "name"))
+                placemark.name = readText(reader);
+            else if (isKml(reader, "description"))
+                placemark.description = readText(reader);
+            else if (isKml(reader, "TimeStamp"))
+                placemark.time = readChildText(reader, "when");
+            else if (isKml(reader, "TimeSpan"))
+                placemark.time = readChildText(reader, "begin");
+            else if (isGeometry(reader)) {
+                placemark.hasGeometry = true;
+                // like JAXB, the last geometry wins
+                placemark.positions.clear();
+                readGeometry(reader, placemark.positions);
+            } else
+                skipElement(reader);
+        }
+        return placemark;
+    }
+
+    private String readChildText(XMLStreamReader reader, String localName) throws XMLStreamException {
+        String result = null;
+        while (nextTag(reader) == START_ELEMENT) {
+            if (isKml(reader, localName))
+                result = readText(reader);
+            else
+                skipElement(reader);
+        }
+        return result;
+    }
+
+    private void readGeometry(XMLStreamReader reader, List<KmlPosition> positions) throws XMLStreamException {
+        if (isKml(reader, "Point") || isKml(reader, "LineString"))
+            positions.addAll(format.asKmlPositions(readCoordinates(reader)));
+        else if (isKml(reader, "MultiGeometry") || isExtension(reader, "MultiTrack")) {
+            while (nextTag(reader) == START_ELEMENT) {
+                if (isGeometry(reader))
+                    readGeometry(reader, positions);
+                else
+                    skipElement(reader);
+            }
+        } else if (isExtension(reader, "Track"))
+            readTrack(reader, positions);
+        else
+            skipElement(reader);
+    }
+
+    private List<String> readCoordinates(XMLStreamReader reader) throws XMLStreamException {
+        List<String> coordinates = new ArrayList<>();
+        while (nextTag(reader) == START_ELEMENT) {
+            if (isKml(reader, "coordinates"))
+                coordinates = singletonList(readText(reader));
+            else
+                skipElement(reader);
+        }
+        return coordinates;
+    }
+
+    private void readTrack(XMLStreamReader reader, List<KmlPosition> positions) throws XMLStreamException {
+        List<CompactCalendar> times = new ArrayList<>();
+        List<KmlPosition> track = new ArrayList<>();
+        while (nextTag(reader) == START_ELEMENT) {
+            if (isKml(reader, "when"))
+                times.add(format.parseTime(readText(reader)));
+            else if (isExtension(reader, "coord")) {
+                for (NavigationPosition position : parseExtensionPositions(readText(reader)))
+                    track.add(format.asKmlPosition(position));
+            } else
+                skipElement(reader);
+        }
+
+        for (int i = 0; i < times.size() && i < track.size(); i++) {
+            CompactCalendar time = times.get(i);
+            if (time != null)
+                track.get(i).setTime(time);
+        }
+        positions.addAll(track);
+    }
+
+    private int nextTag(XMLStreamReader reader) throws XMLStreamException {
+        int event = reader.getEventType();
+        if (unmarshalled)
+            unmarshalled = false;
+        else
+            event = reader.next();
+        // unlike XMLStreamReader#nextTag() this skips text between elements like JAXB
+        while (event != START_ELEMENT && event != END_ELEMENT)
+            event = reader.next();
+        return event;
+    }
+
+    private String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder buffer = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT)
+                depth--;
+            else if (depth == 1 && (event == CHARACTERS || event == CDATA || event == SPACE))
+                buffer.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+        return buffer.toString();
+    }
+
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT)
+                depth--;
+        }
+    }
+}
@@ -21,22 +21,27 @@
 package slash.navigation.kml;
 
 import slash.common.io.NotClosingUnderlyingInputStream;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.common.NavigationPosition;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.logging.Logger;
-import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import static java.lang.String.format;
+import static java.util.zip.ZipOutputStream.DEFLATED;
 
 /**
  * The base of all compressed Google Earth formats.
@@ -46,6 +51,7 @@ import static java.lang.String.format;
 
 public abstract class KmzFormat extends BaseKmlFormat {
     private static final Logger log = Logger.getLogger(KmzFormat.class.getName());
+    private static final String DOCUMENT = "doc.kml";
     private KmlFormat delegate;
 
     protected KmzFormat(KmlFormat delegate) {
@@ -64,52 +70,83 @@ public abstract class KmzFormat extends BaseKmlFormat {
         return delegate.isWritingRouteCharacteristics();
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        return signature.isZip();
+    }
+
     public <P extends NavigationPosition> KmlRoute createRoute(RouteCharacteristics characteristics, String name, List<P> positions) {
         return delegate.createRoute(characteristics, name, positions);
     }
 
     public void read(InputStream source, ParserContext<KmlRoute> context) throws IOException {
+        File file = context.getFile();
+        if (file != null && file.isFile() && !context.isNested()) {
+            try (ZipFile zipFile = new ZipFile(file)) {
+                read(zipFile, context);
+                return;
+            } catch (ZipException e) {
+                log.fine(format("Cannot open %s as zip file: %s, reading as stream", file, e));
+            }
+        }
+
         try (ZipInputStream zip = new ZipInputStream(source)) {
             ZipEntry entry;
             while ((entry = zip.getNextEntry()) != null) {
                 if(entry.isDirectory())
                     continue;
 
-                try {
-                    delegate.read(new NotClosingUnderlyingInputStream(zip), context);
-                }
-                catch(Exception e) {
-                    log.info(format("Error reading %s with %s: %s, %s", entry, delegate, e.getClass(), e));
-                }
+                read(entry, zip, context);
                 zip.closeEntry();
             }
         }
     }
 
-    private void writeIntermediate(OutputStream target, byte[] bytes) throws IOException {
-        CRC32 crc = new CRC32();
-        crc.reset();
-        crc.update(bytes);
-
-        try(ZipOutputStream outputStream = new ZipOutputStream(target)) {
-            ZipEntry entry = new ZipEntry("doc.kml");
-            entry.setSize(bytes.length);
-            entry.setCrc(crc.getValue());
-            outputStream.putNextEntry(entry);
-            outputStream.write(bytes, 0, bytes.length);
-            outputStream.finish();
+    private void read(ZipFile zipFile, ParserContext<KmlRoute> context) throws IOException {
+        // random access allows to skip the images and models of the archive
+        List<ZipEntry> entries = new ArrayList<>();
+        ZipEntry document = zipFile.getEntry(DOCUMENT);
+        if (document != null)
+            entries.add(document);
+        Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+        while (enumeration.hasMoreElements()) {
+            ZipEntry entry = enumeration.nextElement();
+            if (!entry.isDirectory() && !entry.getName().equals(DOCUMENT) && entry.getName().toLowerCase().endsWith(".kml"))
+                entries.add(entry);
+        }
+
+        for (ZipEntry entry : entries) {
+            try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                read(entry, inputStream, context);
+            }
+        }
+    }
+
+    private void read(ZipEntry entry, InputStream inputStream, ParserContext<KmlRoute> context) {
+        try {
+            delegate.read(new NotClosingUnderlyingInputStream(inputStream), context);
+        }
+        catch(Exception e) {
+            log.info(format("Error reading %s with %s: %s, %s", entry, delegate, e.getClass(), e));
         }
     }
 
+    private ZipOutputStream createOutputStream(OutputStream target) throws IOException {
+        ZipOutputStream outputStream = new ZipOutputStream(target);
+        outputStream.setMethod(DEFLATED);
+        outputStream.putNextEntry(new ZipEntry(DOCUMENT));
+        return outputStream;
+    }
+
     public void write(KmlRoute route, OutputStream target, int startIndex, int endIndex) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        delegate.write(route, baos, startIndex, endIndex);
-        writeIntermediate(target, baos.toByteArray());
+        // the delegate closes the stream after writing which finishes the entry and the archive
+        try (ZipOutputStream outputStream = createOutputStream(target)) {
+            delegate.write(route, outputStream, startIndex, endIndex);
+        }
     }
 
     public void write(List<KmlRoute> routes, OutputStream target) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        delegate.write(routes, baos);
-        writeIntermediate(target, baos.toByteArray());
+        try (ZipOutputStream outputStream = createOutputStream(target)) {
+            delegate.write(routes, outputStream);
+        }
     }
 }
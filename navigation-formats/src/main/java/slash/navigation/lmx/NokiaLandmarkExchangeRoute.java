@@ -78,7 +78,7 @@ public class NokiaLandmarkExchangeRoute extends BaseRoute<Wgs84Position, NokiaLa
         super(new NokiaLandmarkExchangeFormat(), Waypoints);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
         this.lmx = lmx;
     }
 
@@ -110,10 +110,6 @@ public class NokiaLandmarkExchangeRoute extends BaseRoute<Wgs84Position, NokiaLa
         return positions.size();
     }
 
-    public void add(int index, Wgs84Position position) {
-        positions.add(index, position);
-    }
-
     public Wgs84Position createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new Wgs84Position(longitude, latitude, elevation, speed, time, description);
     }
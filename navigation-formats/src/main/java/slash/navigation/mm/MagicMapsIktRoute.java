@@ -74,7 +74,7 @@ public class MagicMapsIktRoute extends BaseRoute<Wgs84Position, MagicMapsIktForm
         super(format, Route);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public MagicMapsIktRoute(String name, List<String> description, List<Wgs84Position> positions) {
@@ -101,10 +101,6 @@ public class MagicMapsIktRoute extends BaseRoute<Wgs84Position, MagicMapsIktForm
         return positions.size();
     }
 
-    public void add(int index, Wgs84Position position) {
-        positions.add(index, position);
-    }
-
     public Wgs84Position createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new Wgs84Position(longitude, latitude, elevation, speed, time, description);
     }
@@ -21,27 +21,31 @@
 package slash.navigation.nmea;
 
 import slash.common.type.CompactCalendar;
+import slash.navigation.base.ListPositionSink;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionSink;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.base.SimpleFormat;
+import slash.navigation.base.StreamingNavigationFormat;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static java.lang.String.format;
-import static java.util.Locale.US;
+import static java.lang.System.currentTimeMillis;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+import static slash.common.io.Transfer.createNumberFormat;
 import static slash.common.io.Transfer.isEmpty;
 import static slash.common.io.Transfer.trim;
 import static slash.common.type.CompactCalendar.*;
@@ -55,7 +59,8 @@ import static slash.navigation.base.RouteCharacteristics.Track;
  * @author Christian Pesch
  */
 
-public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
+public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute>
+        implements StreamingNavigationFormat<NmeaRoute, NmeaPosition> {
     private static final Preferences preferences = Preferences.userNodeForPackage(BaseNmeaFormat.class);
     protected final Logger log;
 
@@ -63,29 +68,15 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     static final String BEGIN_OF_LINE = "^\\$G[NP]";
     static final String END_OF_LINE = "\\*[0-9A-Fa-f][0-9A-Fa-f]$";
 
-    private static final Pattern LINE_PATTERN = Pattern.compile("(^@.*|^\\$.*|" + BEGIN_OF_LINE + ".*" + END_OF_LINE + ")");
-
     private static final String DATE_AND_PRECISE_TIME_FORMAT = "ddMMyy HHmmss.SSS";
     private static final String PRECISE_DATE_AND_TIME_FORMAT = "ddMMyyyy HHmmss";
     private static final String DATE_AND_TIME_FORMAT = "ddMMyy HHmmss";
     private static final String DATE_FORMAT = "ddMMyy";
     private static final String PRECISE_TIME_FORMAT = "HHmmss.SSS";
     private static final String TIME_FORMAT = "HHmmss";
-    private static final NumberFormat LONGITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(US);
-    private static final NumberFormat LATITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(US);
-    static {
-        int maximumFractionDigits = preferences.getInt("positionMaximumFractionDigits", 4);
-        LONGITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LONGITUDE_NUMBER_FORMAT.setMinimumFractionDigits(4);
-        LONGITUDE_NUMBER_FORMAT.setMaximumFractionDigits(maximumFractionDigits);
-        LONGITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(5);
-        LONGITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(5);
-        LATITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LATITUDE_NUMBER_FORMAT.setMinimumFractionDigits(4);
-        LATITUDE_NUMBER_FORMAT.setMaximumFractionDigits(maximumFractionDigits);
-        LATITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(4);
-        LATITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(4);
-    }
+    private static final int POSITION_MAXIMUM_FRACTION_DIGITS = preferences.getInt("positionMaximumFractionDigits", 4);
+    private static final ThreadLocal<NumberFormat> LONGITUDE_NUMBER_FORMAT = createNumberFormat(5, 5, 4, POSITION_MAXIMUM_FRACTION_DIGITS);
+    private static final ThreadLocal<NumberFormat> LATITUDE_NUMBER_FORMAT = createNumberFormat(4, 4, 4, POSITION_MAXIMUM_FRACTION_DIGITS);
 
     public BaseNmeaFormat() {
         this.log = Logger.getLogger(getClass().getName());
@@ -104,9 +95,27 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     }
 
     public void read(BufferedReader reader, String encoding, ParserContext<NmeaRoute> context) throws IOException {
-        List<NmeaPosition> positions = new ArrayList<>();
+        ListPositionSink<NmeaPosition> sink = new ListPositionSink<>();
+        read(reader, context.getStartDate(), sink);
+        if (sink.getPositions().size() > 0)
+            context.appendRoute(createRoute(getCharacteristics(), null, sink.getPositions()));
+    }
 
-        CompactCalendar startDate = context.getStartDate();
+    public boolean isSupportsStreamingReading() {
+        return isSupportsReading();
+    }
+
+    public boolean isSupportsStreamingWriting() {
+        return isSupportsWriting();
+    }
+
+    public void read(InputStream source, CompactCalendar startDate, PositionSink<NmeaPosition> sink) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(source, ISO_LATIN1_ENCODING))) {
+            read(reader, startDate, sink);
+        }
+    }
+
+    private void read(BufferedReader reader, CompactCalendar startDate, PositionSink<NmeaPosition> sink) throws IOException {
         CompactCalendar originalStartDate = startDate;
         int lineCount = 0;
         NmeaPosition previous = null;
@@ -127,7 +136,11 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
                         position.setStartDate(startDate);
 
                     if (haveDifferentLongitudeAndLatitude(previous, position) || haveDifferentTime(previous, position) && !validStartDate) {
-                        positions.add(position);
+                        // the previous position is complete once a different one is found
+                        if (previous != null)
+                            sink.add(previous);
+                        else
+                            sink.begin(getCharacteristics(), null);
                         previous = position;
                     } else if (previous != null) {
                         mergePositions(previous, position, originalStartDate);
@@ -142,8 +155,10 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
             }
         }
 
-        if (positions.size() > 0)
-            context.appendRoute(createRoute(getCharacteristics(), null, positions));
+        if (previous != null) {
+            sink.add(previous);
+            sink.end();
+        }
     }
 
     boolean haveDifferentLongitudeAndLatitude(NmeaPosition predecessor, NmeaPosition successor) {
@@ -179,7 +194,7 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
             position.setLongitudeAsValueAndOrientation(toBeMergedInto.getLongitudeAsValueAndOrientation());
         if (toBeMergedInto.hasTime() &&
                 (!position.hasTime() || isStartDateEqual(position.getTime(), originalStartDate) ||
-                        position.getTime().getCalendar().before(toBeMergedInto.getTime().getCalendar())))
+                        position.getTime().before(toBeMergedInto.getTime())))
             position.setTime(toBeMergedInto.getTime());
         if (isEmpty(position.getHdop()) && !isEmpty(toBeMergedInto.getHdop()))
             position.setHdop(toBeMergedInto.getHdop());
@@ -194,16 +209,19 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     private boolean isStartDateEqual(CompactCalendar compactCalendar1, CompactCalendar compactCalendar2) {
         if (compactCalendar1 == null || compactCalendar2 == null)
             return false;
-        Calendar calendar1 = compactCalendar1.getCalendar();
-        Calendar calendar2 = compactCalendar2.getCalendar();
-        return calendar1.get(Calendar.YEAR) == calendar2.get(Calendar.YEAR) &&
-                calendar1.get(Calendar.MONTH) == calendar2.get(Calendar.MONTH) &&
-                calendar1.get(Calendar.DAY_OF_MONTH) == calendar2.get(Calendar.DAY_OF_MONTH);
+        return compactCalendar1.isSameDay(compactCalendar2);
     }
 
     protected boolean isValidLine(String line) {
-        Matcher matcher = LINE_PATTERN.matcher(line);
-        return matcher.matches();
+        // starts with @ or $ and contains no line terminators
+        if (line.length() == 0 || line.charAt(0) != '@' && line.charAt(0) != '$')
+            return false;
+        for (int i = 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029')
+                return false;
+        }
+        return true;
     }
 
     private byte computeChecksum(String line) {
@@ -239,10 +257,84 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
 
     protected abstract NmeaPosition parsePosition(String line);
 
+    private static int parseDigits(String string, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + c - '0';
+        }
+        return value;
+    }
+
+    /**
+     * Parses times like 130441 and 130441.89 as the time formats do but without
+     * their lenient field arithmetic. Like them, it takes 89 as milliseconds.
+     *
+     * @return the milliseconds of the day or -1 if the time is not of that form
+     */
+    private static long parseMillisOfDay(String time) {
+        int length = time.length();
+        if (length != 6 && (length < 8 || length > 10 || time.charAt(6) != '.'))
+            return -1;
+        int hours = parseDigits(time, 0, 2), minutes = parseDigits(time, 2, 4), seconds = parseDigits(time, 4, 6);
+        int milliSeconds = length > 6 ? parseDigits(time, 7, length) : 0;
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59 || milliSeconds < 0)
+            return -1;
+        return ((hours * 60 + minutes) * 60 + seconds) * 1000L + milliSeconds;
+    }
+
+    private static int getDaysOfMonth(int year, int month) {
+        return month == 2 ? (isLeapYear(year) ? 29 : 28) : month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * Resolves two digit years like the date formats that interpret them within
+     * 80 years before and 20 years after now.
+     *
+     * @return the year or -1 if the year is close to the limits
+     */
+    private static int resolveTwoDigitYear(int twoDigitYear) {
+        int centuryStartYear = fromMillis(currentTimeMillis()).getYear() - 80;
+        int ambiguousYear = centuryStartYear % 100;
+        // the date formats resolve years around the limits depending on the exact date
+        if (twoDigitYear == ambiguousYear || twoDigitYear == (ambiguousYear + 1) % 100 ||
+                twoDigitYear == (ambiguousYear + 99) % 100)
+            return -1;
+        return centuryStartYear / 100 * 100 + twoDigitYear + (twoDigitYear < ambiguousYear ? 100 : 0);
+    }
+
+    /**
+     * Parses dates like 160607 and 16062007 as the date formats do.
+     *
+     * @return the date or null if the date is not of that form
+     */
+    private static CompactCalendar parseDateAndMillisOfDay(String date, long millisOfDay) {
+        int length = date.length();
+        if (length != 6 && length != 8)
+            return null;
+        int day = parseDigits(date, 0, 2), month = parseDigits(date, 2, 4), year = parseDigits(date, 4, length);
+        if (day < 0 || month < 0 || year < 0)
+            return null;
+        if (length == 6)
+            year = resolveTwoDigitYear(year);
+        if (year < 1583 || month < 1 || month > 12 || day < 1 || day > getDaysOfMonth(year, month))
+            return null;
+        return fromDateAndMillisOfDay(year, month, day, millisOfDay);
+    }
+
     protected CompactCalendar parseTime(String time) {
         time = trim(time);
         if (time == null)
             return null;
+        long millisOfDay = parseMillisOfDay(time);
+        if (millisOfDay != -1)
+            return fromMillis(millisOfDay);
+        return parseTimeWithFormats(time);
+    }
+
+    CompactCalendar parseTimeWithFormats(String time) {
         // 130441.89
         try {
             Date parsed = createDateFormat(PRECISE_TIME_FORMAT).parse(time);
@@ -262,6 +354,18 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
         // workaround for broken CoPilot on Samsung Galaxy S5
         if(date.length() == 5)
             date = "0" + date;
+        if (time != null) {
+            long millisOfDay = parseMillisOfDay(time);
+            if (millisOfDay != -1) {
+                CompactCalendar result = parseDateAndMillisOfDay(date, millisOfDay);
+                if (result != null)
+                    return result;
+            }
+        }
+        return parseDateAndTimeWithFormats(date, time);
+    }
+
+    CompactCalendar parseDateAndTimeWithFormats(String date, String time) {
         String dateAndTime = date + " " + time;
         // date: 160607 time: 130441.89
         try {
@@ -297,13 +401,13 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     protected String formatLongitude(Double longitude) {
         if (longitude == null)
             return "";
-        return LONGITUDE_NUMBER_FORMAT.format(longitude);
+        return LONGITUDE_NUMBER_FORMAT.get().format(longitude);
     }
 
     protected String formatLatitude(Double latitude) {
         if (latitude == null)
             return "";
-        return LATITUDE_NUMBER_FORMAT.format(latitude);
+        return LATITUDE_NUMBER_FORMAT.get().format(latitude);
     }
 
     protected void writeSentence(PrintWriter writer, String sentence) {
@@ -330,4 +434,25 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
 
     protected void writeFooter(PrintWriter writer) {
     }
+
+    public PositionSink<NmeaPosition> createPositionSink(OutputStream target) throws IOException {
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(target, ISO_LATIN1_ENCODING));
+        return new PositionSink<NmeaPosition>() {
+            public void begin(RouteCharacteristics characteristics, String name) {
+                writeHeader(writer);
+            }
+
+            public void add(NmeaPosition position) {
+                writePosition(position, writer);
+            }
+
+            public void end() {
+                writeFooter(writer);
+                writer.flush();
+            }
+
+            public void close() {
+            }
+        };
+    }
 }
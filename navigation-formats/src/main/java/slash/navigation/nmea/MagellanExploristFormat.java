@@ -5,10 +5,8 @@ import slash.navigation.common.NavigationPosition;
 import slash.navigation.common.ValueAndOrientation;
 
 import java.io.PrintWriter;
-import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.List;
-import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,15 +36,7 @@ public class MagellanExploristFormat extends BaseNmeaFormat {
                     "(\\d*)" +                      // Date, ddmmyy
                     END_OF_LINE);
 
-    private static final NumberFormat ALTITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(Locale.US);
-
-    static {
-        ALTITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        ALTITUDE_NUMBER_FORMAT.setMinimumFractionDigits(0);
-        ALTITUDE_NUMBER_FORMAT.setMaximumFractionDigits(0);
-        ALTITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(6);
-        ALTITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(6);
-    }
+    private static final ThreadLocal<NumberFormat> ALTITUDE_NUMBER_FORMAT = createNumberFormat(6, 6, 0, 0);
 
     public String getExtension() {
         return ".log";
@@ -91,7 +81,7 @@ public class MagellanExploristFormat extends BaseNmeaFormat {
     private String formatAltitude(Double aDouble) {
         if (aDouble == null)
             return "0";
-        return ALTITUDE_NUMBER_FORMAT.format(aDouble);
+        return ALTITUDE_NUMBER_FORMAT.get().format(aDouble);
     }
 
     protected void writePosition(NmeaPosition position, PrintWriter writer) {
@@ -25,10 +25,8 @@ import slash.navigation.common.NavigationPosition;
 import slash.navigation.common.ValueAndOrientation;
 
 import java.io.PrintWriter;
-import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.List;
-import java.util.Locale;
 import java.util.prefs.Preferences;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -49,22 +47,9 @@ import static slash.navigation.base.RouteCharacteristics.Route;
 public class MagellanRouteFormat extends BaseNmeaFormat {
     private static final Preferences preferences = Preferences.userNodeForPackage(MagellanRouteFormat.class);
 
-    private static final NumberFormat LONGITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(Locale.US);
-    private static final NumberFormat LATITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(Locale.US);
-
-    static {
-        int maximumFractionDigits = preferences.getInt("magellanPositionMaximumFractionDigits", 5);
-        LONGITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LONGITUDE_NUMBER_FORMAT.setMinimumFractionDigits(5);
-        LONGITUDE_NUMBER_FORMAT.setMaximumFractionDigits(maximumFractionDigits);
-        LONGITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(5);
-        LONGITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(5);
-        LATITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LATITUDE_NUMBER_FORMAT.setMinimumFractionDigits(5);
-        LATITUDE_NUMBER_FORMAT.setMaximumFractionDigits(maximumFractionDigits);
-        LATITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(4);
-        LATITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(4);
-    }
+    private static final int POSITION_MAXIMUM_FRACTION_DIGITS = preferences.getInt("magellanPositionMaximumFractionDigits", 5);
+    private static final ThreadLocal<NumberFormat> LONGITUDE_NUMBER_FORMAT = createNumberFormat(5, 5, 5, POSITION_MAXIMUM_FRACTION_DIGITS);
+    private static final ThreadLocal<NumberFormat> LATITUDE_NUMBER_FORMAT = createNumberFormat(4, 4, 5, POSITION_MAXIMUM_FRACTION_DIGITS);
 
     private static final String HEADER_LINE = "$PMGNFMT,%RTE,NUM_MSG,ID,FLAG,NUM,NAME,WPT_NAME1,ICON1,WPT_NAME2,ICON2,CHKSUM ?%WPL,LAT,HEMI,LON,HEMI,ALT,UNIT,NAME,MSG,ICON,CHKSUM,%META,ASCII";
 
@@ -95,6 +80,11 @@ public class MagellanRouteFormat extends BaseNmeaFormat {
         return preferences.getInt("maximumMagellanRoutePositionCount", 49);
     }
 
+    public boolean isSupportsStreamingWriting() {
+        // the PMGNRTE sentences follow after all positions
+        return false;
+    }
+
     @SuppressWarnings({"unchecked"})
     public <P extends NavigationPosition> NmeaRoute createRoute(RouteCharacteristics characteristics, String name, List<P> positions) {
         return new NmeaRoute(this, characteristics, (List<NmeaPosition>) positions);
@@ -124,13 +114,13 @@ public class MagellanRouteFormat extends BaseNmeaFormat {
     protected String formatLongitude(Double longitude) {
         if (longitude == null)
             return "";
-        return LONGITUDE_NUMBER_FORMAT.format(longitude);
+        return LONGITUDE_NUMBER_FORMAT.get().format(longitude);
     }
 
     protected String formatLatitude(Double latitude) {
         if (latitude == null)
             return "";
-        return LATITUDE_NUMBER_FORMAT.format(latitude);
+        return LATITUDE_NUMBER_FORMAT.get().format(latitude);
     }
 
     String formatRouteName(String name) {
@@ -26,14 +26,12 @@ import slash.navigation.common.NavigationPosition;
 import slash.navigation.common.ValueAndOrientation;
 
 import java.io.PrintWriter;
-import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.prefs.Preferences;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static java.util.Locale.US;
 import static slash.common.io.Transfer.*;
 import static slash.common.type.CompactCalendar.createDateFormat;
 import static slash.navigation.common.UnitConversion.kiloMeterToNauticMiles;
@@ -50,15 +48,8 @@ import static slash.navigation.common.UnitConversion.nauticMilesToKiloMeter;
 public class NmeaFormat extends BaseNmeaFormat {
     private static final Preferences preferences = Preferences.userNodeForPackage(NmeaFormat.class);
 
-    private static final NumberFormat ALTITUDE_AND_SPEED_NUMBER_FORMAT = DecimalFormat.getNumberInstance(US);
-    static {
-        int maximumFractionDigits = preferences.getInt("altitudeSpeedMaximumFractionDigits", 1);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setGroupingUsed(false);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setMinimumFractionDigits(1);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setMaximumFractionDigits(maximumFractionDigits);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setMinimumIntegerDigits(1);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setMaximumIntegerDigits(6);
-    }
+    private static final ThreadLocal<NumberFormat> ALTITUDE_AND_SPEED_NUMBER_FORMAT = createNumberFormat(1, 6, 1,
+            preferences.getInt("altitudeSpeedMaximumFractionDigits", 1));
 
     private static final String DAY_FORMAT = "dd";
     private static final String MONTH_FORMAT = "MM";
@@ -201,7 +192,150 @@ public class NmeaFormat extends BaseNmeaFormat {
         return new NmeaRoute(this, characteristics, (List<NmeaPosition>) positions);
     }
 
+    // $GPRMC,time,A,latitude,N,longitude,E,speed,course,date,variation,E,mode,integrity
+    private static boolean isRmc(NmeaSentence sentence) {
+        int count = sentence.getFieldCount();
+        if (!(sentence.isSentence("RMC") && count >= 11 && count <= 13 &&
+                sentence.isDecimal(0) && sentence.isOneOf(1, "AV") &&
+                sentence.isCoordinate(2) && sentence.isOneOf(3, "NS") &&
+                sentence.isCoordinate(4) && sentence.isOneOf(5, "EW") &&
+                sentence.isDecimal(6) && sentence.isDecimal(7) && sentence.isDigits(8) &&
+                sentence.isDecimal(9) && sentence.isDecimal(10)))
+            return false;
+        if (count == 12)
+            return sentence.isEmpty(11) || sentence.isOneOf(11, "ADEMNSVW");
+        if (count == 13)
+            return (sentence.isEmpty(11) || sentence.isOneOf(11, "ADEW")) &&
+                    (sentence.isEmpty(12) || sentence.isOneOf(12, "ADEMNSV"));
+        return true;
+    }
+
+    private static String getRmcIntegrity(NmeaSentence sentence) {
+        int count = sentence.getFieldCount();
+        // a single mode like A, D or E is taken as the magnetic variation
+        if (count == 12 && sentence.isOneOf(11, "MNSV"))
+            return sentence.getString(11);
+        if (count == 13 && !sentence.isEmpty(12))
+            return sentence.getString(12);
+        return null;
+    }
+
+    // $GPGGA,time,latitude,N,longitude,E,fix,satellites,hdop,altitude,M,geoid,M,...
+    private static boolean isGga(NmeaSentence sentence) {
+        return sentence.isSentence("GGA") && sentence.getFieldCount() >= 13 &&
+                sentence.isDecimal(0) &&
+                sentence.isCoordinate(1) && sentence.isOneOf(2, "NS") &&
+                sentence.isCoordinate(3) && sentence.isOneOf(4, "WE") &&
+                sentence.isOneOf(5, "0123456789+") && sentence.isDigits(6) && sentence.isDecimal(7) &&
+                sentence.isSignedDecimal(8) && sentence.is(9, "M") &&
+                isGeoidSeparation(sentence, 10) && (sentence.isEmpty(11) || sentence.is(11, "M"));
+    }
+
+    private static boolean isGeoidSeparation(NmeaSentence sentence, int field) {
+        for (int i = 0; i < sentence.getLength(field); i++) {
+            char c = sentence.getChar(field, i);
+            if ((c < '0' || c > '9') && c != '.' && c != '-' && c != '?')
+                return false;
+        }
+        return true;
+    }
+
+    // $GPGLL,latitude,N,longitude,E,time,status...
+    private static boolean isGll(NmeaSentence sentence) {
+        return sentence.isSentence("GLL") && sentence.getFieldCount() >= 6 &&
+                sentence.isCoordinate(0) && sentence.isOneOf(1, "NS") &&
+                sentence.isCoordinate(2) && sentence.isOneOf(3, "WE") &&
+                !sentence.isEmpty(4) && sentence.isDecimal(4) &&
+                sentence.getLength(5) > 0 && "AVP".indexOf(sentence.getChar(5, 0)) != -1;
+    }
+
+    // $GNGNS,time,latitude,N,longitude,E,mode,satellites,hdop,height,geoid,age,station,...
+    private static boolean isGns(NmeaSentence sentence) {
+        if (!(sentence.isSentence("GNS") && sentence.getFieldCount() >= 13 &&
+                !sentence.isEmpty(0) && sentence.isDecimal(0) &&
+                sentence.isCoordinate(1) && sentence.isOneOf(2, "NS") &&
+                sentence.isCoordinate(3) && sentence.isOneOf(4, "WE") &&
+                !sentence.isEmpty(5) && sentence.isDigits(6) && sentence.isDecimal(7) &&
+                sentence.isDecimal(8) && sentence.isDecimal(9) && sentence.isDigits(10) && sentence.isDigits(11)))
+            return false;
+        for (int i = 0; i < sentence.getLength(5); i++) {
+            if ("NADPRFEMS".indexOf(sentence.getChar(5, i)) == -1)
+                return false;
+        }
+        return true;
+    }
+
+    // $GPWPL,latitude,N,longitude,E,description*22
+    private static boolean isWpl(NmeaSentence sentence) {
+        return sentence.isSentence("WPL") && sentence.getFieldCount() >= 5 &&
+                sentence.isCoordinate(0) && sentence.isOneOf(1, "NS") &&
+                sentence.isCoordinate(2) && sentence.isOneOf(3, "WE") &&
+                sentence.getRemainder(4).indexOf('*') == -1;
+    }
+
+    // $GPZDA,time,day,month,year,zone hours,zone minutes
+    private static boolean isZda(NmeaSentence sentence) {
+        return sentence.isSentence("ZDA") && sentence.getFieldCount() == 6 &&
+                sentence.isDecimal(0) && sentence.isDigits(1) && sentence.isDigits(2) && sentence.isDigits(3) &&
+                sentence.isDigits(4) && sentence.isDigits(5);
+    }
+
+    // $GPVTG,course,T,magnetic course,M,knots,N,kilometers,K,mode
+    private static boolean isVtg(NmeaSentence sentence) {
+        return sentence.isSentence("VTG") && sentence.getFieldCount() == 9 &&
+                sentence.isDecimal(0) && sentence.is(1, "T") && sentence.isDecimal(2) && sentence.is(3, "M") &&
+                sentence.isDecimal(4) && sentence.is(5, "N") && sentence.isDecimal(6) && sentence.is(7, "K") &&
+                sentence.isOneOf(8, "ADEN");
+    }
+
+    // $GPGSA,mode,fix,12 satellites,pdop,hdop,vdop
+    private static boolean isGsa(NmeaSentence sentence) {
+        if (!(sentence.isSentence("GSA") && sentence.getFieldCount() == 17 &&
+                sentence.isOneOf(0, "AM") && sentence.isOneOf(1, "123") &&
+                sentence.isDecimal(14) && sentence.isDecimal(15) && sentence.isDecimal(16)))
+            return false;
+        for (int i = 2; i < 14; i++) {
+            if (!sentence.isDigits(i))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean hasValidChecksum(String line, NmeaSentence sentence) {
+        return sentence.hasValidChecksum() || hasValidChecksum(line);
+    }
+
+    private boolean hasValidFix(String line, NmeaSentence sentence, int field, String valueThatIndicatesNoFix) {
+        return !sentence.is(field, valueThatIndicatesNoFix) || hasValidFix(line, valueThatIndicatesNoFix, valueThatIndicatesNoFix);
+    }
+
     protected boolean isPosition(String line) {
+        // the sentences of the tokenizer are a subset of the sentences of the regular expressions
+        NmeaSentence sentence = NmeaSentence.tokenize(line);
+        if (sentence != null) {
+            if (isRmc(sentence)) {
+                String integrity = getRmcIntegrity(sentence);
+                return hasValidChecksum(line, sentence) && hasValidFix(line, integrity, "N");
+            }
+            if (isGga(sentence))
+                return hasValidChecksum(line, sentence) && hasValidFix(line, sentence, 5, "0");
+            if (isGll(sentence)) {
+                String status = sentence.getChar(5, 0) == 'V' ? "V" : null;
+                return hasValidChecksum(line, sentence) && hasValidFix(line, status, "V");
+            }
+            if (isGns(sentence))
+                return hasValidChecksum(line, sentence) && hasValidFix(line, sentence, 5, "X");
+            if (isWpl(sentence) || isZda(sentence))
+                return hasValidChecksum(line, sentence);
+            if (isVtg(sentence))
+                return hasValidChecksum(line, sentence) && hasValidFix(line, sentence, 8, "N");
+            if (isGsa(sentence))
+                return hasValidChecksum(line, sentence) && hasValidFix(line, sentence, 1, "1");
+        }
+        return isPositionWithPatterns(line);
+    }
+
+    boolean isPositionWithPatterns(String line) {
         Matcher rmcMatcher = RMC_PATTERN.matcher(line);
         if (rmcMatcher.matches())
             return hasValidChecksum(line) && hasValidFix(line, rmcMatcher.group(9), "N");
@@ -234,7 +368,77 @@ public class NmeaFormat extends BaseNmeaFormat {
         return gsaMatcher.matches() && hasValidChecksum(line) && hasValidFix(line, gsaMatcher.group(1), "1");
     }
 
+    private Double parseSpeedInKnots(NmeaSentence sentence, int field) {
+        Double miles = sentence.getDouble(field);
+        return miles != null ? nauticMilesToKiloMeter(miles) : null;
+    }
+
+    private NmeaPosition parsePosition(NmeaSentence sentence) {
+        if (isRmc(sentence)) {
+            return new NmeaPosition(sentence.getDouble(4), sentence.getString(5), sentence.getDouble(2), sentence.getString(3),
+                    null, parseSpeedInKnots(sentence, 6), sentence.getDouble(7),
+                    parseDateAndTime(sentence.getString(8), sentence.getString(0)), null);
+        }
+
+        if (isGga(sentence)) {
+            NmeaPosition position = new NmeaPosition(sentence.getDouble(3), sentence.getString(4), sentence.getDouble(1), sentence.getString(2),
+                    sentence.getDouble(8), null, null, parseTime(sentence.getString(0)), null);
+            position.setSatellites(sentence.getInteger(6));
+            return position;
+        }
+
+        if (isGll(sentence)) {
+            return new NmeaPosition(sentence.getDouble(2), sentence.getString(3), sentence.getDouble(0), sentence.getString(1),
+                    null, null, null, parseTime(sentence.getString(4)), null);
+        }
+
+        if (isGns(sentence)) {
+            NmeaPosition position = new NmeaPosition(sentence.getDouble(3), sentence.getString(4), sentence.getDouble(1), sentence.getString(2),
+                    sentence.getDouble(8), null, null, parseTime(sentence.getString(0)), null);
+            position.setHdop(sentence.getDouble(7));
+            Integer satellites = sentence.getInteger(6);
+            position.setSatellites(satellites != null ? satellites : -1);
+            return position;
+        }
+
+        if (isWpl(sentence)) {
+            return new NmeaPosition(sentence.getDouble(2), sentence.getString(3), sentence.getDouble(0), sentence.getString(1),
+                    null, null, null, null, trim(sentence.getRemainder(4)));
+        }
+
+        if (isZda(sentence)) {
+            String date = sentence.getString(1) + sentence.getString(2) + sentence.getString(3);
+            return new NmeaPosition(null, null, null, null, null, null, null, parseDateAndTime(date, sentence.getString(0)), null);
+        }
+
+        if (isVtg(sentence)) {
+            Double speed = sentence.getDouble(6);
+            if (speed == null)
+                speed = parseSpeedInKnots(sentence, 4);
+            return new NmeaPosition(null, null, null, null, null, speed, sentence.getDouble(0), null, null);
+        }
+
+        if (isGsa(sentence)) {
+            NmeaPosition position = new NmeaPosition(null, null, null, null, null, null, null, null, null);
+            position.setPdop(sentence.getDouble(14));
+            position.setHdop(sentence.getDouble(15));
+            position.setVdop(sentence.getDouble(16));
+            return position;
+        }
+        return null;
+    }
+
     protected NmeaPosition parsePosition(String line) {
+        NmeaSentence sentence = NmeaSentence.tokenize(line);
+        if (sentence != null) {
+            NmeaPosition position = parsePosition(sentence);
+            if (position != null)
+                return position;
+        }
+        return parsePositionWithPatterns(line);
+    }
+
+    NmeaPosition parsePositionWithPatterns(String line) {
         Matcher rmcMatcher = RMC_PATTERN.matcher(line);
         if (rmcMatcher.matches()) {
             String time = rmcMatcher.group(1);
@@ -371,19 +575,19 @@ public class NmeaFormat extends BaseNmeaFormat {
     private String formatAltitude(Double altitude) {
         if (altitude == null)
             return "";
-        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.format(altitude);
+        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.get().format(altitude);
     }
 
     private String formatSpeed(Double speed) {
         if (speed == null)
             return "";
-        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.format(speed);
+        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.get().format(speed);
     }
 
     private String formatAccuracy(Double accuracy) {
         if (accuracy == null)
             return "";
-        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.format(accuracy);
+        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.get().format(accuracy);
     }
 
     protected void writePosition(NmeaPosition position, PrintWriter writer) {
@@ -0,0 +1,230 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import static slash.common.io.Transfer.parseDouble;
+
+/**
+ * Splits a NMEA sentence like <tt>$GPGGA,130441.89,5239.3154,N,...*6D</tt> into
+ * its fields without regular expressions and without creating strings for fields
+ * that are only checked.
+ *
+ * The checks of the fields mirror the character classes of the regular expressions
+ * of the {@link NmeaFormat} but accept a subset of what the expressions accept only.
+ *
+ * @author Christian Pesch
+ */
+
+class NmeaSentence {
+    private static final int MAXIMUM_FIELD_COUNT = 32;
+    // the offset of the first field after $GPGGA,
+    private static final int FIRST_FIELD = 7;
+
+    private final String line;
+    private final int end;
+    private final int[] starts = new int[MAXIMUM_FIELD_COUNT], ends = new int[MAXIMUM_FIELD_COUNT];
+    private int fieldCount;
+
+    private NmeaSentence(String line, int end) {
+        this.line = line;
+        this.end = end;
+    }
+
+    private static boolean isHexadecimal(char c) {
+        return c >= '0' && c <= '9' || c >= 'A' && c <= 'F' || c >= 'a' && c <= 'f';
+    }
+
+    private static int toHexadecimal(char c) {
+        return c <= '9' ? c - '0' : (c & ~0x20) - 'A' + 10;
+    }
+
+    /**
+     * Returns whether the line ends with a checksum like <tt>*6D</tt>.
+     */
+    static boolean hasChecksum(String line) {
+        int length = line.length();
+        return length > 3 && line.charAt(length - 3) == '*' &&
+                isHexadecimal(line.charAt(length - 2)) && isHexadecimal(line.charAt(length - 1));
+    }
+
+    /**
+     * Splits a sentence that starts with <tt>$GP</tt> or <tt>$GN</tt>, a sentence id
+     * and a separator and that ends with a checksum.
+     *
+     * @return the fields of the sentence or null if the line doesn't look like that
+     */
+    static NmeaSentence tokenize(String line) {
+        int length = line.length();
+        if (length < FIRST_FIELD + 3 || line.charAt(0) != '$' || line.charAt(1) != 'G' ||
+                !(line.charAt(2) == 'P' || line.charAt(2) == 'N') || line.charAt(FIRST_FIELD - 1) != ',' ||
+                !hasChecksum(line))
+            return null;
+
+        NmeaSentence sentence = new NmeaSentence(line, length - 3);
+        int start = FIRST_FIELD;
+        for (int i = FIRST_FIELD; i <= sentence.end; i++) {
+            if (i == sentence.end || line.charAt(i) == ',') {
+                if (sentence.fieldCount == MAXIMUM_FIELD_COUNT)
+                    return null;
+                sentence.starts[sentence.fieldCount] = start;
+                sentence.ends[sentence.fieldCount] = i;
+                sentence.fieldCount++;
+                start = i + 1;
+            }
+        }
+        return sentence;
+    }
+
+    boolean isSentence(String id) {
+        return line.regionMatches(3, id, 0, 3);
+    }
+
+    boolean hasValidChecksum() {
+        byte checksum = 0;
+        for (int i = 1; i < end; i++)
+            checksum ^= line.charAt(i);
+        int expected = toHexadecimal(line.charAt(end + 1)) << 4 | toHexadecimal(line.charAt(end + 2));
+        return (checksum & 0xff) == expected;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    int getLength(int field) {
+        return ends[field] - starts[field];
+    }
+
+    char getChar(int field, int index) {
+        return line.charAt(starts[field] + index);
+    }
+
+    /**
+     * Returns the field up to the end of the sentence regardless of separators.
+     */
+    String getRemainder(int field) {
+        return line.substring(starts[field], end);
+    }
+
+    String getString(int field) {
+        return line.substring(starts[field], ends[field]);
+    }
+
+    boolean isEmpty(int field) {
+        return starts[field] == ends[field];
+    }
+
+    boolean is(int field, String value) {
+        return getLength(field) == value.length() && line.regionMatches(starts[field], value, 0, value.length());
+    }
+
+    /**
+     * Returns whether the field is a single character out of the given ones.
+     */
+    boolean isOneOf(int field, String characters) {
+        return getLength(field) == 1 && characters.indexOf(getChar(field, 0)) != -1;
+    }
+
+    /**
+     * Returns whether the field matches <tt>\d*</tt>.
+     */
+    boolean isDigits(int field) {
+        for (int i = starts[field]; i < ends[field]; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the field matches <tt>[\d\.]*</tt>.
+     */
+    boolean isDecimal(int field) {
+        for (int i = starts[field]; i < ends[field]; i++) {
+            char c = line.charAt(i);
+            if ((c < '0' || c > '9') && c != '.')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the field matches <tt>-?[\d\.]*</tt>.
+     */
+    boolean isSignedDecimal(int field) {
+        if (isEmpty(field) || getChar(field, 0) != '-')
+            return isDecimal(field);
+        for (int i = starts[field] + 1; i < ends[field]; i++) {
+            char c = line.charAt(i);
+            if ((c < '0' || c > '9') && c != '.')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the field matches <tt>[\s\d\.]+</tt>.
+     */
+    boolean isCoordinate(int field) {
+        if (isEmpty(field))
+            return false;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            char c = line.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses a field that contains digits, dots and whitespace only.
+     *
+     * @return the value or null if the field contains whitespace only
+     */
+    Double getDouble(int field) {
+        int start = starts[field], end = ends[field];
+        while (start < end && line.charAt(start) <= ' ')
+            start++;
+        while (end > start && line.charAt(end - 1) <= ' ')
+            end--;
+        if (start == end)
+            return null;
+        return parseDouble(line, start, end);
+    }
+
+    /**
+     * Parses a field that contains digits only.
+     *
+     * @return the value or null if the field is empty
+     */
+    Integer getInteger(int field) {
+        if (isEmpty(field))
+            return null;
+        // avoid the overflow of more than nine digits in the exceptional case
+        if (getLength(field) > 9)
+            return Integer.parseInt(getString(field));
+        int value = 0;
+        for (int i = starts[field]; i < ends[field]; i++)
+            value = value * 10 + line.charAt(i) - '0';
+        return value;
+    }
+}
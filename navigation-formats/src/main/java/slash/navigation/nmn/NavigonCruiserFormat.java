@@ -19,6 +19,7 @@
 */
 package slash.navigation.nmn;
 
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.base.Wgs84Position;
@@ -87,6 +88,11 @@ public class NavigonCruiserFormat extends XmlNavigationFormat<NavigonCruiserRout
     }
 
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        // JSON instead of XML
+        return !signature.isXml();
+    }
+
     public void read(InputStream source, ParserContext<NavigonCruiserRoute> context) throws IOException {
         Root root = unmarshal(source);
         context.appendRoute(process(root.getRoute()));
@@ -60,6 +60,14 @@ public class Nmn7Format extends NmnFormat {
         return preferences.getInt("maximumNavigon7PositionCount", 48 /* ApplicationSettings.xml: <RouteTargets>50</RouteTargets> */);
     }
 
+    public boolean isSupportsStreamingReading() {
+        return false;
+    }
+
+    public boolean isSupportsStreamingWriting() {
+        return false;
+    }
+
     protected boolean isPosition(String line) {
         throw new UnsupportedOperationException();
     }
@@ -75,7 +75,7 @@ public class OvlRoute extends BaseRoute<Wgs84Position, OvlFormat> {
         this.symbol = symbol;
         this.overlay = overlay;
         this.mapLage = mapLage;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
         setName(name);
     }
 
@@ -118,10 +118,6 @@ public class OvlRoute extends BaseRoute<Wgs84Position, OvlFormat> {
         return positions.size();
     }
 
-    public void add(int index, Wgs84Position position) {
-        positions.add(index, position);
-    }
-
     public Wgs84Position createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new Wgs84Position(longitude, latitude, elevation, speed, time, description);
     }
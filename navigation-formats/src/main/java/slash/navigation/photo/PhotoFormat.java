@@ -40,7 +40,6 @@ import slash.navigation.common.NavigationPosition;
 
 import java.awt.*;
 import java.io.*;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
@@ -79,8 +78,6 @@ public class PhotoFormat extends SimpleFormat<Wgs84Route> {
     private static final Logger log = Logger.getLogger(PhotoFormat.class.getName());
     private static final String DATE_FORMAT = "yyyy:MM:dd";
     private static final String DATE_TIME_FORMAT = "yyyy:MM:dd HH:mm:ss";
-    private static final DecimalFormat XX_FORMAT = new DecimalFormat("00");
-    private static final DecimalFormat XXXX_FORMAT = new DecimalFormat("0000");
     private static final int READ_BUFFER_SIZE = 128 * 1024;
 
     public String getName() {
@@ -439,9 +436,9 @@ public class PhotoFormat extends SimpleFormat<Wgs84Route> {
                         RationalNumber.valueOf(calendar.get(HOUR_OF_DAY)),
                         RationalNumber.valueOf(calendar.get(MINUTE)),
                         RationalNumber.valueOf(calendar.get(SECOND)));
-                String dateStamp = XXXX_FORMAT.format(calendar.get(YEAR)) + ":" +
-                        XX_FORMAT.format(calendar.get(MONTH) + 1) + ":" +
-                        XX_FORMAT.format(calendar.get(DAY_OF_MONTH));
+                String dateStamp = formatIntAsString(calendar.get(YEAR), 4) + ":" +
+                        formatIntAsString(calendar.get(MONTH) + 1, 2) + ":" +
+                        formatIntAsString(calendar.get(DAY_OF_MONTH), 2);
                 gpsDirectory.add(GPS_TAG_GPS_DATE_STAMP, dateStamp);
             }
 
@@ -25,14 +25,13 @@ import slash.navigation.base.*;
 import slash.navigation.common.NavigationPosition;
 
 import java.io.PrintWriter;
-import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.List;
-import java.util.Locale;
 import java.util.prefs.Preferences;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static slash.common.io.Transfer.createNumberFormat;
 import static slash.common.io.Transfer.parseDouble;
 import static slash.common.io.Transfer.trim;
 import static slash.common.type.CompactCalendar.createDateFormat;
@@ -60,20 +59,8 @@ public class HaicomLoggerFormat extends SimpleLineBasedFormat<SimpleRoute> {
     private static final String DATE_AND_TIME_FORMAT = "yy/MM/dd HH:mm:ss";
     private static final String DATE_FORMAT = "yy/MM/dd";
     private static final String TIME_FORMAT = "HH:mm:ss";
-    private static final NumberFormat LONGITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(Locale.US);
-    private static final NumberFormat LATITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(Locale.US);
-
-    static {
-        int maximumFractionDigits = preferences.getInt("haicomPositionMaximumFractionDigits", 5);
-        LONGITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LONGITUDE_NUMBER_FORMAT.setMinimumFractionDigits(5);
-        LONGITUDE_NUMBER_FORMAT.setMaximumFractionDigits(maximumFractionDigits);
-        LONGITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(1);
-        LATITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LATITUDE_NUMBER_FORMAT.setMinimumFractionDigits(5);
-        LATITUDE_NUMBER_FORMAT.setMaximumFractionDigits(maximumFractionDigits);
-        LATITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(1);
-    }
+    private static final int POSITION_MAXIMUM_FRACTION_DIGITS = preferences.getInt("haicomPositionMaximumFractionDigits", 5);
+    private static final ThreadLocal<NumberFormat> POSITION_NUMBER_FORMAT = createNumberFormat(1, Integer.MAX_VALUE, 5, POSITION_MAXIMUM_FRACTION_DIGITS);
 
     private static final Pattern LINE_PATTERN = Pattern.
             compile("^" +
@@ -107,6 +94,10 @@ public class HaicomLoggerFormat extends SimpleLineBasedFormat<SimpleRoute> {
         return Track;
     }
 
+    protected boolean isSupportsParallelParsing() {
+        return true;
+    }
+
     protected boolean isValidLine(String line) {
         return isPosition(line) || isHeader(line);
     }
@@ -153,13 +144,13 @@ public class HaicomLoggerFormat extends SimpleLineBasedFormat<SimpleRoute> {
     private String formatLongitude(Double aDouble) {
         if (aDouble == null)
             return "";
-        return LONGITUDE_NUMBER_FORMAT.format(aDouble);
+        return POSITION_NUMBER_FORMAT.get().format(aDouble);
     }
 
     private String formatLatitude(Double aDouble) {
         if (aDouble == null)
             return "";
-        return LATITUDE_NUMBER_FORMAT.format(aDouble);
+        return POSITION_NUMBER_FORMAT.get().format(aDouble);
     }
 
     private String formatTime(CompactCalendar time) {
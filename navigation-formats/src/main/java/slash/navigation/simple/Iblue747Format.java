@@ -92,6 +92,10 @@ public class Iblue747Format extends SimpleLineBasedFormat<SimpleRoute> {
         return Track;
     }
 
+    protected boolean isSupportsParallelParsing() {
+        return true;
+    }
+
     protected boolean isValidLine(String line) {
         Matcher matcher = LINE_PATTERN.matcher(line);
         return matcher.matches() || line.startsWith(HEADER_LINE);
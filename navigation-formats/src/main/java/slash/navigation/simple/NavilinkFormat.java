@@ -37,6 +37,7 @@ import java.util.List;
 
 import static java.lang.Long.parseLong;
 import static java.util.Calendar.*;
+import static slash.common.io.InputOutput.readByteBuffer;
 import static slash.common.type.CompactCalendar.createDateFormat;
 import static slash.common.type.CompactCalendar.fromCalendar;
 import static slash.navigation.base.RouteCharacteristics.Track;
@@ -206,14 +207,15 @@ public class NavilinkFormat extends SimpleFormat<Wgs84Route> {
     public void read(InputStream source, ParserContext<Wgs84Route> context) throws IOException {
         byte[] header = new byte[HEADER_SIZE];
         if ((source.read(header) == HEADER_SIZE) && checkHeader(header)) {
-            ByteBuffer sbpRecordByteBuffer = ByteBuffer.allocate(SBP_RECORD_LENGTH);
-            sbpRecordByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer records = readByteBuffer(source);
 
             Wgs84Route activeRoute = null;
-            byte[] record = new byte[SBP_RECORD_LENGTH];
-            while (source.read(record) == SBP_RECORD_LENGTH) {
-                sbpRecordByteBuffer.position(0);
-                sbpRecordByteBuffer.put(record);
+            while (records.remaining() >= SBP_RECORD_LENGTH) {
+                // a view of the record since the decoding starts at position 0
+                ByteBuffer sbpRecordByteBuffer = records.slice();
+                sbpRecordByteBuffer.limit(SBP_RECORD_LENGTH);
+                sbpRecordByteBuffer.order(ByteOrder.LITTLE_ENDIAN);
+                records.position(records.position() + SBP_RECORD_LENGTH);
 
                 Wgs84Position position = decodePosition(sbpRecordByteBuffer);
                 if ((activeRoute == null) || (isTrackStart(sbpRecordByteBuffer))) {
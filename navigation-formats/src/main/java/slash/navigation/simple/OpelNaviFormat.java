@@ -21,6 +21,7 @@
 package slash.navigation.simple;
 
 import slash.common.io.Transfer;
+import slash.common.type.CompactCalendar;
 import slash.navigation.base.*;
 import slash.navigation.common.NavigationPosition;
 
@@ -75,6 +76,14 @@ public class OpelNaviFormat extends SimpleLineBasedFormat<SimpleRoute> {
         write(route, target, UTF8_ENCODING, startIndex, endIndex);
     }
 
+    public void read(InputStream source, CompactCalendar startDate, PositionSink<Wgs84Position> sink) throws IOException {
+        read(source, UTF8_ENCODING, startDate, sink);
+    }
+
+    public PositionSink<Wgs84Position> createPositionSink(OutputStream target) throws IOException {
+        return createPositionSink(target, UTF8_ENCODING);
+    }
+
     @SuppressWarnings("unchecked")
     public <P extends NavigationPosition> SimpleRoute createRoute(RouteCharacteristics characteristics, String name, List<P> positions) {
         return new Wgs84Route(this, characteristics, (List<Wgs84Position>) positions);
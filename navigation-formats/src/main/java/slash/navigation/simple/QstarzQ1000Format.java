@@ -94,6 +94,10 @@ public class QstarzQ1000Format extends SimpleLineBasedFormat<SimpleRoute> {
         return Track;
     }
 
+    protected boolean isSupportsParallelParsing() {
+        return true;
+    }
+
     protected boolean isValidLine(String line) {
         Matcher matcher = LINE_PATTERN.matcher(line);
         return matcher.matches() || line.startsWith(HEADER_LINE);
@@ -19,7 +19,9 @@
 */
 package slash.navigation.simple;
 
+import slash.common.type.CompactCalendar;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionSink;
 import slash.navigation.base.SimpleRoute;
 import slash.navigation.base.Wgs84Position;
 
@@ -56,6 +58,14 @@ public class SygicUnicodeFormat extends SygicFormat {
         write(route, target, UTF16LE_ENCODING, startIndex, endIndex);
     }
 
+    public void read(InputStream source, CompactCalendar startDate, PositionSink<Wgs84Position> sink) throws IOException {
+        read(source, UTF16_ENCODING, startDate, sink);
+    }
+
+    public PositionSink<Wgs84Position> createPositionSink(OutputStream target) throws IOException {
+        return createPositionSink(target, UTF16LE_ENCODING);
+    }
+
     protected void writeHeader(PrintWriter writer, SimpleRoute route) {
         // with UTF-16LE no BOM is written, UnicodeLittle would write one by is not supported
         // (see http://java.sun.com/j2se/1.4.2/docs/guide/intl/encoding.doc.html)
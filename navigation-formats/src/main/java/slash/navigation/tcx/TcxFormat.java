@@ -54,6 +54,10 @@ public abstract class TcxFormat extends XmlNavigationFormat<TcxRoute> implements
         return true;
     }
 
+    protected boolean isSupportsRootElement(String rootElement) {
+        return "TrainingCenterDatabase".equals(rootElement);
+    }
+
     public boolean isWritingRouteCharacteristics() {
         return true;
     }
@@ -70,7 +70,7 @@ public class TcxRoute extends BaseRoute<Wgs84Position, TcxFormat> {
     public TcxRoute(TcxFormat format, RouteCharacteristics characteristics, String name, List<Wgs84Position> positions) {
         super(format, characteristics);
         this.name = name;
-        this.positions = positions;
+        this.positions = asPositionList(positions);
     }
 
     public String getName() {
@@ -93,10 +93,6 @@ public class TcxRoute extends BaseRoute<Wgs84Position, TcxFormat> {
         return positions.size();
     }
 
-    public void add(int index, Wgs84Position position) {
-        positions.add(index, position);
-    }
-
     public Wgs84Position createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         return new Wgs84Position(longitude, latitude, elevation, speed, time, description);
     }
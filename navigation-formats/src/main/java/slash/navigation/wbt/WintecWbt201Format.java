@@ -33,6 +33,7 @@ import static java.lang.Long.parseLong;
 import static java.nio.ByteBuffer.allocate;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.Calendar.*;
+import static slash.common.io.InputOutput.readByteBuffer;
 import static slash.common.type.CompactCalendar.*;
 import static slash.navigation.base.RouteCharacteristics.Track;
 import static slash.navigation.base.RouteCharacteristics.Waypoints;
@@ -97,17 +98,8 @@ public abstract class WintecWbt201Format extends SimpleFormat<Wgs84Route> {
             headerBuffer.put(header);
 
             if (checkFormatDescriptor(headerBuffer)) {
-                // read whole file in ByteBuffer with a size limit of about 2 MB
-                int available = source.available();
-                ByteBuffer sourceBuffer = allocate(header.length + available);
-                byte[] data = new byte[available];
-                if (source.read(data) != available)
-                    throw new IOException("Could not read " + available + " bytes");
-
-                sourceBuffer.position(0);
-                sourceBuffer.put(header);
-                sourceBuffer.put(data);
-
+                // view or read the whole file including the header into a ByteBuffer
+                ByteBuffer sourceBuffer = readByteBuffer(source, header);
                 context.appendRoutes(internalRead(sourceBuffer));
             }
         }
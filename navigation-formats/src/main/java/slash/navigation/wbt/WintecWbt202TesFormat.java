@@ -28,7 +28,6 @@ import java.util.List;
 
 import static java.lang.Math.abs;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
-import static java.util.Calendar.YEAR;
 
 /**
  * Reads and writes Wintec WBT-202 (.tes) files.
@@ -74,7 +73,7 @@ public class WintecWbt202TesFormat extends WintecWbt201Format {
                     position.getElevation() < 15000.0 &&
                     abs(position.getLatitude()) > 0.00001 &&
                     abs(position.getLongitude()) > 0.00001 &&
-                    position.getTime().getCalendar().get(YEAR) > 1990;
+                    position.getTime().getYear() > 1990;
 
             if (valid && previousPosition != null) {
                 Double speed = position.calculateSpeed(previousPosition);
@@ -24,6 +24,7 @@ import slash.common.io.Files;
 import slash.common.io.NotClosingUnderlyingInputStream;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.NavigationFormatSignature;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.common.NavigationPosition;
@@ -45,6 +46,7 @@ import java.util.zip.ZipInputStream;
 
 public class ZipFormat extends BaseNavigationFormat<BaseRoute> {
     private static final Logger log = Logger.getLogger(ZipFormat.class.getName());
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
     static {
         System.setProperty("sun.zip.encoding", "default");
     }
@@ -77,6 +79,10 @@ public class ZipFormat extends BaseNavigationFormat<BaseRoute> {
         throw new UnsupportedOperationException();
     }
 
+    public boolean isSupportsSignature(NavigationFormatSignature signature) {
+        return signature.isZip();
+    }
+
     public void read(InputStream source, ParserContext<BaseRoute> context) throws IOException {
         try (ZipInputStream zip = new ZipInputStream(source)) {
             ZipEntry entry;
@@ -85,7 +91,8 @@ public class ZipFormat extends BaseNavigationFormat<BaseRoute> {
                     continue;
 
                 NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(zip));
-                int size = (int) entry.getSize() + 1;
+                // the size is unknown for entries with a data descriptor
+                int size = entry.getSize() != -1 ? (int) entry.getSize() + 1 : READ_BUFFER_SIZE;
                 buffer.mark(size);
                 context.parse(buffer, context.getStartDate(), Files.getExtension(entry.getName()));
                 zip.closeEntry();
@@ -0,0 +1,111 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.NavigationPosition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.NavigationFormatConverter.convertPositions;
+import static slash.navigation.base.NavigationFormatConverter.getPositionMethodName;
+
+/**
+ * Converts a mix of position classes to every write format with the cached method handles
+ * of {@link NavigationFormatConverter#convertPositions} and compares the results with
+ * looking up and invoking the as...() method by reflection for each position.
+ */
+public class NavigationFormatConverterIT {
+    private static final int POSITIONS = 10000;
+
+    private List<NavigationPosition> createPositions() {
+        List<NavigationPosition> positions = new ArrayList<>(POSITIONS);
+        for (int i = 0; i < POSITIONS; i++) {
+            Wgs84Position position = new Wgs84Position(11.0 + i * 0.00001, 47.0 + i * 0.00001, (double) (i % 1000), null,
+                    fromMillis(1500000000000L + i * 1000L), "Position " + i);
+            // runs of the same class with changes in between like in a merged route
+            switch (i / 100 % 4) {
+                case 0:
+                    positions.add(position);
+                    break;
+                case 1:
+                    positions.add(position.asGpxPosition());
+                    break;
+                case 2:
+                    positions.add(position.asNmeaPosition());
+                    break;
+                default:
+                    positions.add(position.asCsvPosition());
+            }
+        }
+        return positions;
+    }
+
+    private List<BaseNavigationPosition> convertPositionsByReflection(List<NavigationPosition> positions, NavigationFormat format) {
+        List<BaseNavigationPosition> result = new ArrayList<>(positions.size());
+        for (NavigationPosition position : positions) {
+            try {
+                result.add((BaseNavigationPosition) position.getClass().getMethod(getPositionMethodName(format)).invoke(position));
+            } catch (ReflectiveOperationException e) {
+                // the format has no as...() method or it does not support the position
+                return null;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testConvertPositions() throws IOException {
+        List<NavigationPosition> positions = createPositions();
+        for (NavigationFormat format : new NavigationFormatRegistry().getWriteFormats()) {
+            List<BaseNavigationPosition> reflected = convertPositionsByReflection(positions, format);
+            if (reflected == null) {
+                try {
+                    convertPositions(positions, format);
+                    fail(format.getName() + " cannot convert all positions by reflection");
+                } catch (IOException e) {
+                    // expected
+                }
+                continue;
+            }
+
+            List<BaseNavigationPosition> converted = convertPositions(positions, format);
+            assertEquals(positions.size(), converted.size());
+
+            for (int i = 0; i < positions.size(); i++) {
+                BaseNavigationPosition expected = reflected.get(i);
+                BaseNavigationPosition actual = converted.get(i);
+                String message = format.getName() + " position " + i;
+                assertEquals(message, expected.getClass(), actual.getClass());
+                // projected positions calculate their coordinates with Math functions whose last bit may vary
+                assertEquals(message, expected.getLongitude(), actual.getLongitude(), 0.000000001);
+                assertEquals(message, expected.getLatitude(), actual.getLatitude(), 0.000000001);
+                assertEquals(message, expected.getElevation(), actual.getElevation());
+                assertEquals(message, expected.getTime(), actual.getTime());
+                assertEquals(message, expected.getDescription(), actual.getDescription());
+            }
+        }
+    }
+}
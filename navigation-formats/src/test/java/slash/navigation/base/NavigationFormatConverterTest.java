@@ -0,0 +1,83 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.NavigationPosition;
+import slash.navigation.gpx.Gpx10Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+import slash.navigation.nmea.NmeaFormat;
+import slash.navigation.nmea.NmeaPosition;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static slash.navigation.base.NavigationFormatConverter.*;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class NavigationFormatConverterTest {
+    private static class UnknownFormat extends Gpx10Format {
+    }
+
+    private final Wgs84Position position = new Wgs84Position(11.0, 47.0, 500.0, 10.0, null, "position");
+
+    @Test
+    public void testAsFormat() throws IOException {
+        BaseNavigationPosition gpx = asFormat(position, new Gpx10Format());
+        assertTrue(gpx instanceof GpxPosition);
+        assertEquals("position", gpx.getDescription());
+        BaseNavigationPosition nmea = asFormat(gpx, new NmeaFormat());
+        assertTrue(nmea instanceof NmeaPosition);
+        assertEquals(11.0, nmea.getLongitude(), 0.0);
+        assertEquals(47.0, nmea.getLatitude(), 0.0);
+    }
+
+    @Test
+    public void testConvertPositionsOfMixedClasses() throws IOException {
+        List<NavigationPosition> positions = new ArrayList<>();
+        positions.add(position);
+        positions.add(asFormat(position, new NmeaFormat()));
+        positions.add(position);
+        List<BaseNavigationPosition> converted = convertPositions(positions, new Gpx10Format());
+        assertEquals(3, converted.size());
+        for (BaseNavigationPosition gpx : converted)
+            assertTrue(gpx instanceof GpxPosition);
+    }
+
+    @Test
+    public void testConvertRoute() throws IOException {
+        Wgs84Route route = new Wgs84Route(new OpelNaviFormat(), Track, new ArrayList<>(asList(position)));
+        List<BaseRoute> converted = convertRoute(asList((BaseRoute) route), new Gpx10Format());
+        assertEquals(1, converted.size());
+        assertTrue(converted.get(0) instanceof GpxRoute);
+        assertEquals(1, converted.get(0).getPositionCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testAsFormatWithoutMethod() throws IOException {
+        asFormat(position, new UnknownFormat());
+    }
+}
@@ -130,6 +130,52 @@ public class NavigationFormatParserIT {
         assertEquals(result3.getFormat().getClass(), TomTom5RouteFormat.class);
     }
 
+    @Test
+    public void testReadParallel() throws IOException {
+        List<NavigationFormat> formats = new ArrayList<>();
+        formats.add(new NmnUrlFormat());
+        formats.add(new TomTom5RouteFormat());
+        formats.add(new TomTom8RouteFormat());
+        parser.setReadParallelism(4);
+        try {
+            ParserResult result1 = parser.read(new File(TEST_PATH + "from.itn"), formats);
+            assertTrue(result1.isSuccessful());
+            assertEquals(46, result1.getTheRoute().getPositions().size());
+            assertEquals(result1.getFormat().getClass(), TomTom5RouteFormat.class);
+
+            readRoute(TEST_PATH + "from11.gpx", 3, 1, 3, 4);
+            readTrack(TEST_PATH + "from11trk.gpx", 4, 5, 3, 4, 5);
+            read(TEST_PATH + "from.nmea");
+        } finally {
+            parser.setReadParallelism(1);
+        }
+    }
+
+    @Test
+    public void testReadParallelLikeSequential() throws IOException {
+        String[] testFileNames = {"from.itn", "from10.gpx", "from11trk.gpx", "from.nmea", "from.kml",
+                "from-mtp0607.bcr", "from.ov2", "from.tk"};
+        for (String testFileName : testFileNames) {
+            File source = new File(TEST_PATH + testFileName);
+            ParserResult sequential = parser.read(source);
+            parser.setReadParallelism(8);
+            try {
+                ParserResult parallel = parser.read(source);
+                assertEquals(sequential.isSuccessful(), parallel.isSuccessful());
+                if (!sequential.isSuccessful())
+                    continue;
+                assertEquals(testFileName, sequential.getFormat().getClass(), parallel.getFormat().getClass());
+                assertEquals(testFileName, sequential.getAllRoutes().size(), parallel.getAllRoutes().size());
+                for (int i = 0; i < sequential.getAllRoutes().size(); i++) {
+                    assertEquals(testFileName, sequential.getAllRoutes().get(i).getPositions(),
+                            parallel.getAllRoutes().get(i).getPositions());
+                }
+            } finally {
+                parser.setReadParallelism(1);
+            }
+        }
+    }
+
     @Test
     public void testIsValidBcr() throws IOException {
         read(TEST_PATH + "from-mtp0607.bcr");
@@ -0,0 +1,421 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.After;
+import org.junit.Test;
+import slash.navigation.csv.CsvSemicolonFormat;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.binding11.GpxType;
+import slash.navigation.itn.TomTom5RouteFormat;
+import slash.navigation.itn.TomTomPosition;
+import slash.navigation.itn.TomTomRoute;
+import slash.navigation.nmea.NmeaFormat;
+import slash.navigation.zip.ZipFormat;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.io.File.createTempFile;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static slash.common.TestCase.assertDoubleEquals;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+import static slash.common.io.Transfer.UTF8_ENCODING;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.gpx.GpxUtil.GPX_11_NAMESPACE_URI;
+import static slash.navigation.gpx.GpxUtil.unmarshal11;
+
+public class NavigationFormatParserTest {
+    private static final byte[] SOURCE = "first line\nsecond line\n".getBytes();
+    private NavigationFormatParser parser = new NavigationFormatParser(new NavigationFormatRegistry());
+
+    @After
+    public void tearDown() {
+        parser.setReadParallelism(1);
+    }
+
+    private static class TestFormat extends TomTom5RouteFormat {
+        private final String name;
+
+        private TestFormat(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isSupportsSignature(NavigationFormatSignature signature) {
+            return true;
+        }
+
+        public void read(InputStream source, ParserContext<TomTomRoute> context) throws IOException {
+            while (source.read() != -1) {
+                // consume the source like a format that doesn't find anything
+            }
+        }
+
+        void readRoute(ParserContext<TomTomRoute> context) {
+            context.appendRoute(createRoute(RouteCharacteristics.Route, name,
+                    singletonList(new TomTomPosition(10.0, 50.0, null, null, null, name))));
+        }
+
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class FailingFormat extends TestFormat {
+        private FailingFormat(String name) {
+            super(name);
+        }
+
+        public void read(InputStream source, ParserContext<TomTomRoute> context) throws IOException {
+            throw new IOException("cannot read " + getName());
+        }
+    }
+
+    private static class RouteFormat extends TestFormat {
+        private final long delay;
+
+        private RouteFormat(String name, long delay) {
+            super(name);
+            this.delay = delay;
+        }
+
+        public void read(InputStream source, ParserContext<TomTomRoute> context) throws IOException {
+            super.read(source, context);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            readRoute(context);
+        }
+    }
+
+    private static class BlockingFormat extends TestFormat {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private final AtomicReference<IOException> stoppedBy = new AtomicReference<>();
+
+        private BlockingFormat(String name) {
+            super(name);
+        }
+
+        public void read(InputStream source, ParserContext<TomTomRoute> context) throws IOException {
+            started.countDown();
+            try {
+                // reads until the attempt is cancelled
+                while (true) {
+                    if (source.read() == -1)
+                        source.reset();
+                }
+            } catch (IOException e) {
+                stoppedBy.set(e);
+                throw e;
+            } finally {
+                stopped.countDown();
+            }
+        }
+    }
+
+    private static class WaitingRouteFormat extends TestFormat {
+        private final CountDownLatch latch;
+
+        private WaitingRouteFormat(String name, CountDownLatch latch) {
+            super(name);
+            this.latch = latch;
+        }
+
+        public void read(InputStream source, ParserContext<TomTomRoute> context) throws IOException {
+            try {
+                assertTrue(latch.await(5, SECONDS));
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            readRoute(context);
+        }
+    }
+
+    private List<String> read(List<NavigationFormat> formats, int parallelism, List<ParserResult> results) throws IOException {
+        final List<String> reading = new CopyOnWriteArrayList<>();
+        NavigationFormatParserListener listener = new NavigationFormatParserListener() {
+            public void reading(NavigationFormat<BaseRoute> format) {
+                reading.add(format.getName());
+            }
+        };
+        parser.addNavigationFileParserListener(listener);
+        parser.setReadParallelism(parallelism);
+        try {
+            results.add(parser.read(new ByteArrayInputStream(SOURCE), formats));
+        } finally {
+            parser.removeNavigationFileParserListener(listener);
+        }
+        return reading;
+    }
+
+    private List<ParserResult> assertReadLikeSequential(List<NavigationFormat> formats,
+                                                        List<String> expectedReading) throws IOException {
+        List<ParserResult> results = new ArrayList<>();
+        assertEquals(expectedReading, read(formats, 1, results));
+        assertEquals(expectedReading, read(formats, formats.size(), results));
+        return results;
+    }
+
+    private void assertReadRoute(String expectedFormat, List<ParserResult> results) {
+        for (ParserResult result : results) {
+            assertTrue(result.isSuccessful());
+            // the route is named after the format that read it
+            assertEquals(expectedFormat, result.getTheRoute().getName());
+        }
+    }
+
+    @Test
+    public void testWinnerHasHighestPriority() throws IOException {
+        List<NavigationFormat> formats = asList(new TestFormat("empty"), new RouteFormat("slow", 200),
+                new RouteFormat("fast", 0), new RouteFormat("faster", 0));
+        assertReadRoute("slow", assertReadLikeSequential(formats, asList("empty", "slow")));
+    }
+
+    @Test
+    public void testConcurrentFailures() throws IOException {
+        List<NavigationFormat> formats = asList(new FailingFormat("first"), new TestFormat("empty"),
+                new FailingFormat("second"), new RouteFormat("route", 50), new FailingFormat("third"));
+        assertReadRoute("route", assertReadLikeSequential(formats, asList("first", "empty", "second", "route")));
+    }
+
+    @Test
+    public void testAllFailuresTakeFirstSuccessfulFormat() throws IOException {
+        List<NavigationFormat> formats = asList(new FailingFormat("first"), new TestFormat("empty"),
+                new FailingFormat("second"), new TestFormat("other"));
+        List<ParserResult> results = assertReadLikeSequential(formats, asList("first", "empty", "second", "other"));
+        for (ParserResult result : results) {
+            assertEquals("empty", result.getFormat().getName());
+        }
+    }
+
+    @Test
+    public void testCancelsRunningAttemptsWithLowerPriority() throws Exception {
+        BlockingFormat blocking = new BlockingFormat("blocking");
+        List<NavigationFormat> formats = asList(new WaitingRouteFormat("route", blocking.started), blocking);
+
+        List<ParserResult> results = new ArrayList<>();
+        assertEquals(singletonList("route"), read(formats, 2, results));
+        assertReadRoute("route", results);
+
+        assertTrue("attempt has not been cancelled", blocking.stopped.await(5, SECONDS));
+        assertTrue(blocking.stoppedBy.get() instanceof InterruptedIOException);
+    }
+
+    @Test(timeout = 60000)
+    public void testReadNestedFilesInParallel() throws IOException {
+        List<String> names = asList("first", "second", "third");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name + ".gpx"));
+                zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<gpx version=\"1.1\" creator=\"test\" xmlns=\"" + GPX_11_NAMESPACE_URI + "\">" +
+                        "<rte><name>" + name + "</name><rtept lat=\"50.0\" lon=\"10.0\"/>" +
+                        "<rtept lat=\"50.1\" lon=\"10.1\"/></rte></gpx>").getBytes(UTF8_ENCODING));
+                zip.closeEntry();
+            }
+        }
+
+        // both threads are busy with formats that read the entries with several formats each
+        parser.setReadParallelism(2);
+        ParserResult result = parser.read(new ByteArrayInputStream(bytes.toByteArray()),
+                asList(new ZipFormat(), new ZipFormat()));
+        assertTrue(result.isSuccessful());
+        assertEquals(names.size(), result.getAllRoutes().size());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals(names.get(i), result.getAllRoutes().get(i).getName());
+            assertEquals(2, result.getAllRoutes().get(i).getPositionCount());
+        }
+    }
+
+    private File createFile(String content) throws IOException {
+        return createFile(content, ISO_LATIN1_ENCODING);
+    }
+
+    private File createFile(String content, String encoding) throws IOException {
+        File file = createTempFile("convert", ".tmp");
+        file.deleteOnExit();
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(content.getBytes(encoding));
+        }
+        return file;
+    }
+
+    @Test
+    public void testReadLargeFile() throws IOException {
+        StringBuilder gpx = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<gpx version=\"1.1\" creator=\"test\" xmlns=\"" + GPX_11_NAMESPACE_URI + "\"><rte>\n");
+        int count = 0;
+        while (gpx.length() <= 1024 * 1024) {
+            gpx.append("<rtept lat=\"50.0\" lon=\"10.").append(count++).append("\"/>\n");
+        }
+        File source = createFile(gpx.append("</rte></gpx>").toString());
+
+        ParserResult result = parser.read(source);
+        assertTrue(result.isSuccessful());
+        assertEquals(Gpx11Format.class, result.getFormat().getClass());
+        assertEquals(count, result.getTheRoute().getPositionCount());
+        assertTrue("file is still open", source.delete());
+    }
+
+    @Test
+    public void testConvertNmeaToGpx() throws IOException {
+        File source = createFile("$GPGGA,134012.000,4837.4374,N,00903.4036,E,1,08,00.0,-48.7654,M,00.0,M,,*47\n" +
+                "$GPRMC,134012.000,A,4837.4374,N,00903.4036,E,3.00,0.00,260707,,*06\n" +
+                "$GPGGA,134013.000,4837.4380,N,00903.4040,E,1,08,00.0,-48.7654,M,00.0,M,,*4C\n");
+        File target = createFile("");
+
+        assertEquals(2, parser.convert(source, new NmeaFormat(), target, new Gpx11Format()));
+
+        ParserResult result = parser.read(target);
+        assertTrue(result.isSuccessful());
+        assertEquals(Gpx11Format.class, result.getFormat().getClass());
+        assertEquals(Track, result.getTheRoute().getCharacteristics());
+        assertEquals(2, result.getTheRoute().getPositionCount());
+        assertDoubleEquals(9.0567267, result.getTheRoute().getPosition(0).getLongitude());
+        assertDoubleEquals(48.6239567, result.getTheRoute().getPosition(0).getLatitude());
+        assertDoubleEquals(9.0567333, result.getTheRoute().getPosition(1).getLongitude());
+    }
+
+    @Test
+    public void testDetermineStreamingFormat() throws IOException {
+        File nmea = createFile("$GPGGA,134012.000,4837.4374,N,00903.4036,E,1,08,00.0,-48.7654,M,00.0,M,,*47\n" +
+                "$GPRMC,134012.000,A,4837.4374,N,00903.4036,E,3.00,0.00,260707,,*06\n");
+        assertEquals(NmeaFormat.class, parser.determineStreamingFormat(nmea).getClass());
+
+        File csv = createFile("Breite;L\u00e4nge;Beschreibung\n48.1;9.1;K\u00f6ln\n");
+        assertEquals(CsvSemicolonFormat.class, parser.determineStreamingFormat(csv).getClass());
+
+        File kml = createFile("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Placemark><Point>" +
+                "<coordinates>9.1,48.1,0</coordinates></Point></Placemark></kml>");
+        assertNull(parser.determineStreamingFormat(kml));
+    }
+
+    @Test
+    public void testDetermineStreamingFormatFromBeginningOfLargeGpx() throws IOException {
+        StringBuilder gpx = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<gpx version=\"1.1\" creator=\"test\" xmlns=\"" + GPX_11_NAMESPACE_URI + "\"><trk><trkseg>\n");
+        int count = 0;
+        while (gpx.length() <= 256 * 1024) {
+            gpx.append("<trkpt lat=\"50.0\" lon=\"10.").append(count++).append("\"/>\n");
+        }
+        File source = createFile(gpx.append("</trkseg></trk></gpx>").toString());
+
+        assertEquals(Gpx11Format.class, parser.determineStreamingFormat(source).getClass());
+    }
+
+    @Test
+    public void testConvertEmptySourceWritesEmptyRoute() throws IOException {
+        File source = createFile("");
+        File target = createFile("");
+
+        assertEquals(0, parser.convert(source, new NmeaFormat(), target, new Gpx11Format()));
+
+        try (InputStream inputStream = new FileInputStream(target)) {
+            GpxType gpxType = unmarshal11(inputStream);
+            assertEquals(0, gpxType.getWpt().size());
+            assertEquals(0, gpxType.getRte().size());
+            assertEquals(0, gpxType.getTrk().size());
+        }
+    }
+
+    @Test
+    public void testConvertCsvInBothEncodings() throws IOException {
+        String csv = "Breite;L\u00e4nge;Beschreibung\n48.1;9.1;K\u00f6ln\n48.2;9.2;M\u00fcnchen\n";
+        for (String encoding : asList(UTF8_ENCODING, ISO_LATIN1_ENCODING)) {
+            File source = createFile(csv, encoding);
+            File target = createFile("");
+
+            assertEquals(2, parser.convert(source, new CsvSemicolonFormat(), target, new Gpx11Format()));
+
+            ParserResult result = parser.read(target);
+            assertTrue(result.isSuccessful());
+            assertEquals(2, result.getTheRoute().getPositionCount());
+            assertDoubleEquals(9.1, result.getTheRoute().getPosition(0).getLongitude());
+            assertEquals("K\u00f6ln", result.getTheRoute().getPosition(0).getDescription());
+            assertEquals("M\u00fcnchen", result.getTheRoute().getPosition(1).getDescription());
+        }
+    }
+
+    @Test
+    public void testConvertFirstRouteOfGpx() throws IOException {
+        File source = createFile("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<gpx version=\"1.1\" creator=\"test\" xmlns=\"" + GPX_11_NAMESPACE_URI + "\">\n" +
+                "<wpt lat=\"48.1\" lon=\"9.1\"><name>A</name></wpt>\n" +
+                "<wpt lat=\"48.2\" lon=\"9.2\"><name>B</name></wpt>\n" +
+                "<trk><name>Track</name><trkseg><trkpt lat=\"48.3\" lon=\"9.3\"/><trkpt lat=\"48.4\" lon=\"9.4\"/>" +
+                "<trkpt lat=\"48.5\" lon=\"9.5\"/></trkseg></trk>\n" +
+                "</gpx>");
+        File target = createFile("");
+
+        assertEquals(2, parser.convert(source, new Gpx11Format(), target, new NmeaFormat()));
+
+        ParserResult result = parser.read(target);
+        assertTrue(result.isSuccessful());
+        assertEquals(2, result.getTheRoute().getPositionCount());
+        assertDoubleEquals(9.1, result.getTheRoute().getPosition(0).getLongitude());
+        assertDoubleEquals(48.2, result.getTheRoute().getPosition(1).getLatitude());
+    }
+
+    @Test
+    public void testConvertAllRoutesOfGpx() throws IOException {
+        File source = createFile("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<gpx version=\"1.1\" creator=\"test\" xmlns=\"" + GPX_11_NAMESPACE_URI + "\">\n" +
+                "<wpt lat=\"48.1\" lon=\"9.1\"><name>A</name></wpt>\n" +
+                "<rte><name>Route</name><rtept lat=\"48.2\" lon=\"9.2\"/><rtept lat=\"48.3\" lon=\"9.3\"/></rte>\n" +
+                "<trk><name>Track</name><trkseg><trkpt lat=\"48.4\" lon=\"9.4\"/><trkpt lat=\"48.5\" lon=\"9.5\"/>" +
+                "<trkpt lat=\"48.6\" lon=\"9.6\"/></trkseg></trk>\n" +
+                "</gpx>");
+        File target = createFile("");
+
+        assertEquals(6, parser.convert(source, new Gpx11Format(), target, new Gpx11Format()));
+
+        ParserResult result = parser.read(target);
+        assertTrue(result.isSuccessful());
+        assertEquals(Gpx11Format.class, result.getFormat().getClass());
+        List<BaseRoute> routes = result.getAllRoutes();
+        assertEquals(3, routes.size());
+        assertEquals(RouteCharacteristics.Waypoints, routes.get(0).getCharacteristics());
+        assertEquals(1, routes.get(0).getPositionCount());
+        assertEquals(RouteCharacteristics.Route, routes.get(1).getCharacteristics());
+        assertEquals(2, routes.get(1).getPositionCount());
+        assertDoubleEquals(48.3, routes.get(1).getPosition(1).getLatitude());
+        assertEquals(Track, routes.get(2).getCharacteristics());
+        assertEquals(3, routes.get(2).getPositionCount());
+        assertDoubleEquals(9.6, routes.get(2).getPosition(2).getLongitude());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.babel.GeoCachingFormat;
+import slash.navigation.babel.NationalGeographicTopo3Format;
+import slash.navigation.babel.OziExplorerTrackFormat;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.kml.Kml20Format;
+import slash.navigation.kml.Kml22Format;
+import slash.navigation.kml.Kmz22Format;
+import slash.navigation.nmea.NmeaFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+import static slash.navigation.base.NavigationFormatSignature.readSignature;
+
+public class NavigationFormatSignatureTest {
+
+    private NavigationFormatSignature signature(byte[] bytes) throws IOException {
+        return readSignature(new ByteArrayInputStream(bytes));
+    }
+
+    private NavigationFormatSignature signature(String string) throws IOException {
+        return signature(string.getBytes(UTF_8));
+    }
+
+    @Test
+    public void testXmlRootElement() throws IOException {
+        NavigationFormatSignature signature = signature("\ufeff<?xml version=\"1.0\"?>\n<!-- comment -->\n" +
+                "<!DOCTYPE gpx [ <!ENTITY a \"b\"> ]>\n<gpx:gpx xmlns:gpx=\"http://www.topografix.com/GPX/1/1\">");
+        assertTrue(signature.isXml());
+        assertEquals("gpx", signature.getRootElement());
+        assertTrue(new Gpx11Format().isSupportsSignature(signature));
+        assertFalse(new Kml22Format().isSupportsSignature(signature));
+        assertTrue(new NmeaFormat().isSupportsSignature(signature));
+    }
+
+    @Test
+    public void testUtf16XmlRootElement() throws IOException {
+        NavigationFormatSignature signature = signature("<kml>".getBytes(UTF_16LE));
+        assertTrue(signature.isXml());
+        assertEquals("kml", signature.getRootElement());
+    }
+
+    @Test
+    public void testTruncatedRootElement() throws IOException {
+        NavigationFormatSignature signature = signature("<?xml version=\"1.0\"?><Doc");
+        assertTrue(signature.isXml());
+        assertNull(signature.getRootElement());
+        assertTrue(new Kml22Format().isSupportsSignature(signature));
+    }
+
+    @Test
+    public void testKml20RootElements() throws IOException {
+        NavigationFormatSignature signature = signature("<Document><name>a</name></Document>");
+        assertTrue(new Kml20Format().isSupportsSignature(signature));
+        assertFalse(new Kml22Format().isSupportsSignature(signature));
+    }
+
+    @Test
+    public void testText() throws IOException {
+        NavigationFormatSignature signature = signature("$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6D");
+        assertFalse(signature.isXml());
+        assertNull(signature.getRootElement());
+        assertFalse(new Gpx11Format().isSupportsSignature(signature));
+        assertFalse(new Kmz22Format().isSupportsSignature(signature));
+        assertTrue(new NmeaFormat().isSupportsSignature(signature));
+    }
+
+    @Test
+    public void testZip() throws IOException {
+        NavigationFormatSignature signature = signature(new byte[]{'P', 'K', 3, 4, 20, 0});
+        assertTrue(signature.isZip());
+        assertTrue(new Kmz22Format().isSupportsSignature(signature));
+        assertFalse(new Kml22Format().isSupportsSignature(signature));
+    }
+
+    @Test
+    public void testBabelFormats() throws IOException {
+        NavigationFormatSignature gpx = signature("<?xml version=\"1.0\"?><gpx version=\"1.1\">");
+        NavigationFormatSignature loc = signature("<?xml version=\"1.0\"?><loc version=\"1.0\">");
+        NavigationFormatSignature ozi = signature("OziExplorer Track Point File Version 2.1\r\nWGS 84\r\n");
+        NavigationFormatSignature binary = signature(new byte[]{1, 2, 3, 4});
+        NavigationFormatSignature zip = signature(new byte[]{'P', 'K', 3, 4, 20, 0});
+
+        assertFalse(new NationalGeographicTopo3Format().isSupportsSignature(gpx));
+        assertFalse(new NationalGeographicTopo3Format().isSupportsSignature(zip));
+        assertTrue(new NationalGeographicTopo3Format().isSupportsSignature(binary));
+        assertFalse(new GeoCachingFormat().isSupportsSignature(gpx));
+        assertTrue(new GeoCachingFormat().isSupportsSignature(loc));
+        assertFalse(new GeoCachingFormat().isSupportsSignature(binary));
+        assertTrue(new OziExplorerTrackFormat().isSupportsSignature(ozi));
+        assertFalse(new OziExplorerTrackFormat().isSupportsSignature(binary));
+        assertFalse(new NationalGeographicTopo3Format().isSupportsSignature(signature(new byte[0])));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        NavigationFormatSignature signature = signature(new byte[0]);
+        assertTrue(signature.isEmpty());
+        assertFalse(signature.isXml());
+        assertFalse(signature.isZip());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.common.DistanceCalculation.Automatic;
+
+/**
+ * Compares {@link BaseRoute#getClosestPosition(double, double, double)} with a linear scan
+ * over all positions as it happens for map clicks, before and after the route changes.
+ */
+public class PositionGridIT {
+    private static final int POSITIONS = 200000;
+    private static final int QUERIES = 200;
+    private static final double THRESHOLD = 50.0;
+
+    private int getClosestPositionLinear(Wgs84Route route, double longitude, double latitude) {
+        Wgs84Position target = new Wgs84Position(longitude, latitude, null, null, null, null);
+        int closestIndex = -1;
+        double closestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < route.getPositionCount(); i++) {
+            Double distance = route.getPosition(i).calculateDistance(target, Automatic);
+            if (distance != null && distance < closestDistance && distance <= THRESHOLD) {
+                closestDistance = distance;
+                closestIndex = i;
+            }
+        }
+        return closestIndex;
+    }
+
+    private void assertClosestPositions(Wgs84Route route, Random random) {
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            Wgs84Position position = route.getPosition(random.nextInt(route.getPositionCount()));
+            // from clicks on a position to clicks a few hundred meters away from the track
+            double spread = i % 2 == 0 ? 0.0002 : 0.01;
+            double longitude = position.getLongitude() + (random.nextDouble() - 0.5) * spread;
+            double latitude = position.getLatitude() + (random.nextDouble() - 0.5) * spread;
+
+            int expected = getClosestPositionLinear(route, longitude, latitude);
+            assertEquals(longitude + "," + latitude, expected, route.getClosestPosition(longitude, latitude, THRESHOLD));
+            if (expected != -1)
+                found++;
+        }
+        // both sides of the threshold are covered
+        assertTrue(found > 0 && found < QUERIES);
+    }
+
+    @Test
+    public void testGetClosestPosition() {
+        Random random = new Random(11);
+        List<Wgs84Position> positions = new ArrayList<>(POSITIONS);
+        double longitude = 11.0, latitude = 47.0;
+        for (int i = 0; i < POSITIONS; i++) {
+            longitude += (random.nextDouble() - 0.3) * 0.0001;
+            latitude += (random.nextDouble() - 0.5) * 0.0001;
+            positions.add(new Wgs84Position(longitude, latitude, null, null, null, null));
+        }
+        Wgs84Route route = new Wgs84Route(new OpelNaviFormat(), Track, positions);
+        assertClosestPositions(route, random);
+
+        // positions inserted in the middle and appended beyond the former bounds of the grid
+        for (int i = 0; i < 1000; i++) {
+            Wgs84Position position = route.getPosition(random.nextInt(route.getPositionCount()));
+            route.add(random.nextInt(route.getPositionCount()), new Wgs84Position(position.getLongitude() + 0.0003,
+                    position.getLatitude() - 0.0003, null, null, null, null));
+        }
+        for (int i = 0; i < 1000; i++)
+            route.add(route.getPositionCount(), new Wgs84Position(longitude + i * 0.0001, latitude + i * 0.0001, null, null, null, null));
+        route.removeAll(new int[]{0, 1, 2, POSITIONS / 2});
+        assertClosestPositions(route, random);
+    }
+}
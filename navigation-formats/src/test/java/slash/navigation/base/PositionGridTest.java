@@ -0,0 +1,134 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.BoundingBox;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.common.DistanceCalculation.Automatic;
+
+public class PositionGridTest {
+    private final Random random = new Random(7);
+
+    private Wgs84Route createRoute(int count) {
+        List<Wgs84Position> positions = new ArrayList<>(count);
+        double longitude = 11.0, latitude = 47.0;
+        for (int i = 0; i < count; i++) {
+            longitude += (random.nextDouble() - 0.3) * 0.0005;
+            latitude += (random.nextDouble() - 0.5) * 0.0005;
+            positions.add(i % 100 == 50 ? new Wgs84Position(null, null, null, null, null, null) :
+                    new Wgs84Position(longitude, latitude, null, null, null, null));
+        }
+        return new Wgs84Route(new OpelNaviFormat(), Track, positions);
+    }
+
+    private int getClosestPositionLinear(Wgs84Route route, double longitude, double latitude, double threshold) {
+        Wgs84Position target = new Wgs84Position(longitude, latitude, null, null, null, null);
+        int closestIndex = -1;
+        double closestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < route.getPositionCount(); i++) {
+            Double distance = route.getPosition(i).calculateDistance(target, Automatic);
+            if (distance != null && distance < closestDistance && distance <= threshold) {
+                closestDistance = distance;
+                closestIndex = i;
+            }
+        }
+        return closestIndex;
+    }
+
+    private int[] getContainedPositionsLinear(Wgs84Route route, BoundingBox boundingBox) {
+        List<Integer> result = new ArrayList<>();
+        for (int i = 0; i < route.getPositionCount(); i++) {
+            Wgs84Position position = route.getPosition(i);
+            if (position.hasCoordinates() && boundingBox.contains(position))
+                result.add(i);
+        }
+        int[] array = new int[result.size()];
+        for (int i = 0; i < array.length; i++)
+            array[i] = result.get(i);
+        return array;
+    }
+
+    private void assertQueries(Wgs84Route route) {
+        for (int i = 0; i < 25; i++) {
+            Wgs84Position position = route.getPosition(random.nextInt(route.getPositionCount()));
+            if (!position.hasCoordinates())
+                continue;
+            double longitude = position.getLongitude() + (random.nextDouble() - 0.5) * 0.001;
+            double latitude = position.getLatitude() + (random.nextDouble() - 0.5) * 0.001;
+            double threshold = random.nextDouble() * 200.0;
+            assertEquals(getClosestPositionLinear(route, longitude, latitude, threshold),
+                    route.getClosestPosition(longitude, latitude, threshold));
+
+            BoundingBox boundingBox = new BoundingBox(longitude + 0.005, latitude + 0.003, longitude, latitude);
+            assertArrayEquals(getContainedPositionsLinear(route, boundingBox), route.getContainedPositions(boundingBox));
+        }
+    }
+
+    @Test
+    public void testQueries() {
+        assertQueries(createRoute(5000));
+    }
+
+    @Test
+    public void testQueriesOnSmallRoute() {
+        assertQueries(createRoute(100));
+    }
+
+    @Test
+    public void testQueriesWithLargeThreshold() {
+        Wgs84Route route = createRoute(5000);
+        assertEquals(getClosestPositionLinear(route, 11.0, 47.0, 1.0E7), route.getClosestPosition(11.0, 47.0, 1.0E7));
+    }
+
+    @Test
+    public void testQueriesAfterChanges() {
+        Wgs84Route route = createRoute(5000);
+        assertQueries(route);
+
+        route.getPosition(4000).setLongitude(route.getPosition(100).getLongitude());
+        route.getPosition(4000).setLatitude(route.getPosition(100).getLatitude());
+        route.invalidateCaches(4000);
+        assertQueries(route);
+
+        route.add(2000, new Wgs84Position(route.getPosition(10).getLongitude(), route.getPosition(10).getLatitude(), null, null, null, null));
+        route.invalidateCaches(2000);
+        assertQueries(route);
+
+        route.remove(1000);
+        assertQueries(route);
+
+        // not announced
+        route.getPositions().remove(0);
+        assertQueries(route);
+
+        route.revert();
+        assertQueries(route);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+/**
+ * Compares {@link BaseRoute#getIndex} with {@link List#indexOf} while the positions
+ * selected in the map are edited, inserted and removed.
+ */
+public class PositionIndexIT {
+    private static final int POSITIONS = 100000;
+    private static final int EDITS = 5000;
+
+    private static Wgs84Position createPosition(int i) {
+        return new Wgs84Position(11.0 + i * 0.00001, 47.0, null, null, null, "Position " + i);
+    }
+
+    @Test
+    public void testGetIndex() {
+        List<Wgs84Position> positions = new ArrayList<>(POSITIONS);
+        for (int i = 0; i < POSITIONS; i++)
+            positions.add(createPosition(i));
+        Wgs84Route route = new Wgs84Route(new OpelNaviFormat(), Track, positions);
+
+        Random random = new Random(5);
+        for (int i = 0; i < EDITS; i++) {
+            Wgs84Position selected = route.getPosition(random.nextInt(route.getPositionCount()));
+            int index = route.getIndex(selected);
+            assertEquals(route.getPositions().indexOf(selected), index);
+
+            switch (i % 4) {
+                case 0:
+                    // the map moves the position, which announces the change from its index on
+                    selected.setElevation((double) i);
+                    route.invalidateCaches(index);
+                    break;
+                case 1:
+                    route.add(index, createPosition(POSITIONS + i));
+                    break;
+                case 2:
+                    route.remove(index);
+                    break;
+                default:
+                    route.set(index, createPosition(POSITIONS + i));
+            }
+        }
+
+        for (int i = 0; i < route.getPositionCount(); i += 97) {
+            Wgs84Position position = route.getPosition(i);
+            assertEquals(route.getPositions().indexOf(position), route.getIndex(position));
+        }
+
+        Wgs84Position first = route.getPosition(0);
+        Wgs84Position equal = new Wgs84Position(first.getLongitude(), first.getLatitude(), first.getElevation(),
+                first.getSpeed(), first.getTime(), first.getDescription());
+        assertEquals(0, route.getIndex(equal));
+        assertEquals(-1, route.getIndex(createPosition(-1)));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class PositionIndexTest {
+    private Wgs84Route createRoute(int count) {
+        List<Wgs84Position> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            positions.add(new Wgs84Position(10.0 + i * 0.001, 50.0, null, null, null, "Position " + i));
+        return new Wgs84Route(new OpelNaviFormat(), Track, positions);
+    }
+
+    private void assertIndices(Wgs84Route route) {
+        List<Wgs84Position> positions = route.getPositions();
+        for (int i = 0; i < positions.size(); i++)
+            assertEquals(i, route.getIndex(positions.get(i)));
+    }
+
+    @Test
+    public void testGetIndex() {
+        Wgs84Route route = createRoute(100);
+        assertIndices(route);
+        assertEquals(-1, route.getIndex(new Wgs84Position(0.0, 0.0, null, null, null, null)));
+        assertEquals(5, route.getIndex(new Wgs84Position(10.005, 50.0, null, null, null, "Position 5")));
+    }
+
+    @Test
+    public void testGetIndexWithDuplicates() {
+        Wgs84Route route = createRoute(10);
+        route.add(8, new Wgs84Position(10.002, 50.0, null, null, null, "Position 2"));
+        route.invalidateCaches(8);
+        assertEquals(8, route.getIndex(route.getPosition(8)));
+        assertEquals(2, route.getIndex(new Wgs84Position(10.002, 50.0, null, null, null, "Position 2")));
+
+        route.remove(2);
+        assertEquals(7, route.getIndex(route.getPosition(7)));
+        assertEquals(7, route.getIndex(new Wgs84Position(10.002, 50.0, null, null, null, "Position 2")));
+        assertIndices(route);
+    }
+
+    @Test
+    public void testGetSuccessor() {
+        Wgs84Route route = createRoute(10);
+        assertSame(route.getPosition(4), route.getSuccessor(route.getPosition(3)));
+        assertNull(route.getSuccessor(route.getPosition(9)));
+        assertNull(route.getSuccessor(new Wgs84Position(0.0, 0.0, null, null, null, null)));
+    }
+
+    @Test
+    public void testGetIndexAfterChanges() {
+        Wgs84Route route = createRoute(100);
+        assertIndices(route);
+
+        route.move(10, 90);
+        assertIndices(route);
+
+        route.top(50, 0);
+        assertIndices(route);
+
+        route.bottom(20, 0);
+        assertIndices(route);
+
+        route.getPosition(30).setDescription("changed");
+        route.invalidateCaches(30);
+        assertIndices(route);
+
+        // not announced
+        route.getPosition(40).setDescription("changed again");
+        assertIndices(route);
+        route.getPositions().add(0, new Wgs84Position(0.0, 0.0, null, null, null, null));
+        assertIndices(route);
+        route.getPositions().set(60, route.getPositions().set(61, route.getPosition(60)));
+        assertIndices(route);
+
+        route.revert();
+        assertIndices(route);
+    }
+}
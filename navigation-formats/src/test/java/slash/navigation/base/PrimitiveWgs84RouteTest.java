@@ -0,0 +1,236 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static slash.common.TestCase.assertDoubleEquals;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.common.type.CompactCalendar.fromMillisAndTimeZone;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class PrimitiveWgs84RouteTest {
+    private List<Wgs84Position> createPositions() {
+        List<Wgs84Position> positions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Double elevation = i % 7 == 0 ? null : (double) (i % 10) * 10;
+            positions.add(new Wgs84Position(11.0 + i * 0.001, 47.0 + i * 0.001, elevation, null,
+                    i % 5 == 0 ? null : fromMillis(1000000L + i * 1000L), null));
+        }
+        positions.add(new Wgs84Position(null, null, 5.0, null, fromMillis(2000000L), null));
+        return positions;
+    }
+
+    private Wgs84Route createWgs84Route() {
+        return new Wgs84Route(new OpelNaviFormat(), Track, createPositions());
+    }
+
+    private PrimitiveWgs84Route createPrimitiveRoute() {
+        return new PrimitiveWgs84Route(new OpelNaviFormat(), Track, createPositions());
+    }
+
+    @Test
+    public void testCalculationsMatchWgs84Route() {
+        Wgs84Route expected = createWgs84Route();
+        PrimitiveWgs84Route actual = createPrimitiveRoute();
+        int last = expected.getPositionCount() - 1;
+
+        assertEquals(expected.getPositions(), actual.getPositions());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertDoubleEquals(expected.getDistance(), actual.getDistance());
+        assertDoubleEquals(expected.getDistance(3, 17), actual.getDistance(3, 17));
+        assertArrayEquals(expected.getDistancesFromStart(5, last), actual.getDistancesFromStart(5, last), 0.000001);
+        assertArrayEquals(expected.getTimesFromStart(0, last), actual.getTimesFromStart(0, last));
+        assertArrayEquals(expected.getTimesFromStart(7, 20), actual.getTimesFromStart(7, 20));
+        assertDoubleEquals(expected.getElevationAscend(0, last), actual.getElevationAscend(0, last));
+        assertDoubleEquals(expected.getElevationDescend(0, last), actual.getElevationDescend(0, last));
+    }
+
+    @Test
+    public void testChangesWriteThrough() {
+        PrimitiveWgs84Route route = createPrimitiveRoute();
+        Wgs84Position position = route.getPosition(3);
+        position.setLongitude(12.0);
+        position.setElevation(null);
+        position.setTime(fromMillisAndTimeZone(5000L, "Europe/Berlin"));
+
+        Wgs84Position read = route.getPosition(3);
+        assertDoubleEquals(12.0, read.getLongitude());
+        assertNull(read.getElevation());
+        assertEquals(fromMillisAndTimeZone(5000L, "Europe/Berlin"), read.getTime());
+        assertEquals(position, read);
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        PrimitiveWgs84Route route = createPrimitiveRoute();
+        Wgs84Position added = new Wgs84Position(1.0, 2.0, 3.0, 4.0, fromMillis(6000L), "added");
+        route.add(0, added);
+        assertEquals(52, route.getPositionCount());
+        assertEquals(added, route.getPosition(0));
+        assertDoubleEquals(4.0, route.getPosition(0).getSpeed());
+
+        Wgs84Position removed = route.remove(0);
+        assertEquals(added, removed);
+        assertEquals(51, route.getPositionCount());
+        assertEquals(createPositions(), route.getPositions());
+    }
+
+    @Test
+    public void testPositionsKeepTheirIdentity() {
+        PrimitiveWgs84Route route = createPrimitiveRoute();
+        Wgs84Position position = route.getPosition(1);
+        assertSame(position, route.getPosition(1));
+
+        route.add(0, new Wgs84Position(1.0, 2.0, null, null, null, null));
+        assertSame(position, route.getPosition(2));
+        assertEquals(2, route.getIndex(position));
+
+        position.setLongitude(0.0);
+        assertDoubleEquals(0.0, route.getPosition(2).getLongitude());
+        assertEquals(route.getPositions().get(1).calculateDistance(position), route.getDistance(1, 2), 0.000001);
+
+        route.removeAll(new int[]{0, 1});
+        assertSame(position, route.getPosition(0));
+        route.getPositions().subList(3, 10).clear();
+        assertSame(position, route.getPosition(0));
+        assertEquals(43, route.getPositionCount());
+    }
+
+    @Test
+    public void testCreatedPositionKeepsItsIdentity() {
+        PrimitiveWgs84Route route = createPrimitiveRoute();
+        Wgs84Position created = route.createPosition(1.0, 2.0, 3.0, null, fromMillis(6000L), "created");
+        route.add(5, created);
+        assertSame(created, route.getPosition(5));
+
+        created.setElevation(4.0);
+        assertDoubleEquals(4.0, route.getPosition(5).getElevation());
+        assertDoubleEquals(-createPositions().get(4).calculateElevation(created), route.getElevationDescend(4, 5));
+
+        Wgs84Position removed = route.remove(5);
+        assertSame(created, removed);
+        created.setElevation(5.0);
+        assertEquals(createPositions(), route.getPositions());
+
+        route.add(0, created);
+        assertSame(created, route.getPosition(0));
+        assertDoubleEquals(5.0, route.getPosition(0).getElevation());
+    }
+
+    @Test
+    public void testReplacedPositionKeepsItsValues() {
+        PrimitiveWgs84Route route = createPrimitiveRoute();
+        Wgs84Position replaced = route.getPosition(3);
+        Wgs84Position replacement = new Wgs84Position(1.0, 2.0, null, null, null, null);
+        assertSame(replaced, route.set(3, replacement));
+        assertEquals(replacement, route.getPosition(3));
+
+        replaced.setLongitude(0.0);
+        assertEquals(replacement, route.getPosition(3));
+        assertDoubleEquals(0.0, replaced.getLongitude());
+        assertDoubleEquals(createPositions().get(3).getLatitude(), replaced.getLatitude());
+    }
+
+    @Test
+    public void testRemoveAllMatchesWgs84Route() {
+        Wgs84Route expected = createWgs84Route();
+        PrimitiveWgs84Route actual = createPrimitiveRoute();
+        actual.getPosition(12).setHeading(45.0);
+        expected.getPosition(12).setHeading(45.0);
+        Wgs84Position stored = actual.getPosition(12);
+        int[] indices = new int[]{40, 0, 1, 2, 13, 11, 50, 2};
+
+        List<Wgs84Position> expectedRemoved = expected.removeAll(indices);
+        List<Wgs84Position> actualRemoved = actual.removeAll(indices);
+        assertEquals(7, expectedRemoved.size());
+        assertEquals(expectedRemoved, actualRemoved);
+        assertEquals(expected.getPositions(), actual.getPositions());
+        assertDoubleEquals(expected.getDistance(), actual.getDistance());
+        assertDoubleEquals(45.0, actual.getPosition(8).getHeading());
+
+        // stored positions keep writing through, removed ones are detached
+        stored.setLongitude(1.0);
+        expected.getPosition(8).setLongitude(1.0);
+        actualRemoved.get(0).setLongitude(2.0);
+        assertEquals(expected.getPositions(), actual.getPositions());
+    }
+
+    @Test
+    public void testFurtherAttributesAreKept() {
+        PrimitiveWgs84Route route = createPrimitiveRoute();
+        Wgs84Position position = route.getPosition(10);
+        position.setHeading(90.0);
+        position.setHeartBeatRate((short) 120);
+        assertSame(position, route.getPosition(10));
+
+        route.add(0, new Wgs84Position(1.0, 2.0, null, null, null, null));
+        Wgs84Position moved = route.getPosition(11);
+        assertSame(position, moved);
+        assertDoubleEquals(90.0, moved.getHeading());
+        assertEquals(Short.valueOf((short) 120), moved.getHeartBeatRate());
+
+        position.setLatitude(50.0);
+        assertDoubleEquals(50.0, route.getPosition(11).getLatitude());
+        assertEquals(route.getDistance(10, 11), createWgs84RouteWithLatitude().getDistance(9, 10), 0.000001);
+    }
+
+    private Wgs84Route createWgs84RouteWithLatitude() {
+        Wgs84Route route = createWgs84Route();
+        route.getPosition(10).setLatitude(50.0);
+        return route;
+    }
+
+    @Test
+    public void testRevert() {
+        Wgs84Route expected = createWgs84Route();
+        PrimitiveWgs84Route actual = createPrimitiveRoute();
+        Wgs84Position first = actual.getPosition(0);
+        Wgs84Position middle = actual.getPosition(25);
+        expected.revert();
+        actual.revert();
+        assertEquals(expected.getPositions(), actual.getPositions());
+        assertDoubleEquals(expected.getDistance(), actual.getDistance());
+        assertSame(first, actual.getPosition(50));
+        assertSame(middle, actual.getPosition(25));
+    }
+
+    @Test
+    public void testMove() {
+        Wgs84Route expected = createWgs84Route();
+        PrimitiveWgs84Route actual = createPrimitiveRoute();
+        Wgs84Position moved = actual.getPosition(10);
+        expected.top(10, 0);
+        actual.top(10, 0);
+        expected.move(3, 7);
+        actual.move(3, 7);
+        expected.bottom(2, 0);
+        actual.bottom(2, 0);
+        assertEquals(expected.getPositions(), actual.getPositions());
+        assertDoubleEquals(expected.getDistance(), actual.getDistance());
+        assertSame(moved, actual.getPosition(0));
+    }
+}
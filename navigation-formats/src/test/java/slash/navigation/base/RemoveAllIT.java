@@ -0,0 +1,104 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+/**
+ * Compares {@link BaseRoute#removeAll(int[])} with removing the positions one by one
+ * in decreasing order as the positions model did.
+ */
+public class RemoveAllIT {
+    private static final int POSITIONS = 100000;
+
+    private Wgs84Route createRoute() {
+        List<Wgs84Position> positions = new ArrayList<>(POSITIONS);
+        for (int i = 0; i < POSITIONS; i++)
+            positions.add(new Wgs84Position(11.0 + i * 0.00001, 47.0 + (i % 7) * 0.00001, null, null, null, null));
+        return new Wgs84Route(new OpelNaviFormat(), Track, positions);
+    }
+
+    private void assertRemoveAll(int[] indices) {
+        Wgs84Route expected = createRoute();
+        // fills the caches that the removal has to invalidate
+        expected.getDistancesFromStart(0, POSITIONS - 1);
+        BitSet distinct = new BitSet();
+        for (int index : indices)
+            distinct.set(index);
+        List<Wgs84Position> expectedRemoved = new ArrayList<>();
+        for (int index = distinct.previousSetBit(POSITIONS - 1); index != -1; index = distinct.previousSetBit(index - 1))
+            expectedRemoved.add(0, expected.remove(index));
+
+        Wgs84Route actual = createRoute();
+        actual.getDistancesFromStart(0, POSITIONS - 1);
+        List<Wgs84Position> actualRemoved = actual.removeAll(indices);
+
+        assertEquals(expectedRemoved, actualRemoved);
+        assertEquals(expected.getPositions(), actual.getPositions());
+        if (actual.getPositionCount() > 0) {
+            int last = actual.getPositionCount() - 1;
+            assertArrayEquals(expected.getDistancesFromStart(0, last), actual.getDistancesFromStart(0, last), 0.0);
+        }
+    }
+
+    @Test
+    public void testRemoveEveryOther() {
+        int[] indices = new int[POSITIONS / 2];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = POSITIONS - 1 - i * 2;
+        assertRemoveAll(indices);
+    }
+
+    @Test
+    public void testRemoveBlock() {
+        int[] indices = new int[POSITIONS / 10];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = POSITIONS / 2 + i;
+        assertRemoveAll(indices);
+    }
+
+    @Test
+    public void testRemoveUnorderedWithDuplicates() {
+        Random random = new Random(3);
+        int[] indices = new int[POSITIONS / 20];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = random.nextInt(POSITIONS);
+        assertRemoveAll(indices);
+    }
+
+    @Test
+    public void testRemoveNothingAndEverything() {
+        assertRemoveAll(new int[0]);
+        int[] indices = new int[POSITIONS];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = i;
+        assertRemoveAll(indices);
+    }
+}
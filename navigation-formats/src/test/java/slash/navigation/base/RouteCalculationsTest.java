@@ -0,0 +1,112 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.lang.Math.abs;
+import static org.junit.Assert.*;
+import static slash.navigation.base.RouteCalculations.getSignificantPositions;
+
+public class RouteCalculationsTest {
+    // roughly 1000 meters at the equator
+    private static final double KILOMETER = 0.009;
+
+    private List<Wgs84Position> createLine(int count) {
+        List<Wgs84Position> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            positions.add(new Wgs84Position(i * 0.0001, 0.0, null, null, null, null));
+        return positions;
+    }
+
+    @Test
+    public void testEmptyAndSinglePosition() {
+        assertArrayEquals(new int[0], getSignificantPositions(createLine(0), 10.0));
+        assertArrayEquals(new int[]{0}, getSignificantPositions(createLine(1), 10.0));
+        assertArrayEquals(new int[]{0, 1}, getSignificantPositions(createLine(2), 10.0));
+    }
+
+    @Test
+    public void testStraightLine() {
+        assertArrayEquals(new int[]{0, 999}, getSignificantPositions(createLine(1000), 1.0));
+    }
+
+    @Test
+    public void testBump() {
+        List<Wgs84Position> positions = createLine(1000);
+        positions.get(400).setLatitude(KILOMETER);
+        assertArrayEquals(new int[]{0, 399, 400, 401, 999}, getSignificantPositions(positions, 500.0));
+        assertArrayEquals(new int[]{0, 999}, getSignificantPositions(positions, 1500.0));
+    }
+
+    @Test
+    public void testPositionsWithoutCoordinates() {
+        List<Wgs84Position> positions = createLine(100);
+        positions.get(50).setLatitude(KILOMETER);
+        positions.get(30).setLongitude(null);
+        positions.get(30).setLatitude(null);
+        assertArrayEquals(new int[]{0, 50, 99}, getSignificantPositions(positions, 500.0));
+
+        positions.get(99).setLongitude(null);
+        positions.get(99).setLatitude(null);
+        assertArrayEquals(new int[]{0, 99}, getSignificantPositions(positions, 500.0));
+    }
+
+    @Test
+    public void testLoop() {
+        List<Wgs84Position> positions = new ArrayList<>();
+        positions.add(new Wgs84Position(0.0, 0.0, null, null, null, null));
+        positions.add(new Wgs84Position(KILOMETER, 0.0, null, null, null, null));
+        positions.add(new Wgs84Position(KILOMETER, KILOMETER, null, null, null, null));
+        positions.add(new Wgs84Position(KILOMETER / 2, KILOMETER / 2, null, null, null, null));
+        positions.add(new Wgs84Position(0.0, 0.0, null, null, null, null));
+        assertArrayEquals(new int[]{0, 1, 2, 4}, getSignificantPositions(positions, 500.0));
+    }
+
+    @Test
+    public void testLargeTrackInParallel() {
+        int count = 200000;
+        Random random = new Random(42);
+        List<Wgs84Position> positions = new ArrayList<>(count);
+        double latitude = 47.0;
+        for (int i = 0; i < count; i++) {
+            latitude += (random.nextDouble() - 0.5) * 0.0001;
+            positions.add(new Wgs84Position(11.0 + i * 0.0001, latitude, null, null, null, null));
+        }
+
+        int[] significant = getSignificantPositions(positions, 5.0);
+        assertEquals(0, significant[0]);
+        assertEquals(count - 1, significant[significant.length - 1]);
+        assertTrue(significant.length < count);
+        for (int i = 1; i < significant.length; i++) {
+            int from = significant[i - 1], to = significant[i];
+            assertTrue(from < to);
+            for (int j = from + 1; j < to; j++) {
+                double distance = positions.get(j).calculateOrthogonalDistance(positions.get(from), positions.get(to));
+                assertTrue("Position " + j + " is " + distance + " meters away", abs(distance) <= 5.01);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.BoundingBox;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class RouteStatisticsTest {
+    private Wgs84Route createRoute(int count, long seed) {
+        Random random = new Random(seed);
+        List<Wgs84Position> positions = new ArrayList<>();
+        double longitude = 10.0, latitude = 50.0, elevation = 100.0;
+        long millis = 1000000000L;
+        for (int i = 0; i < count; i++) {
+            longitude += random.nextDouble() * 0.002 - 0.001;
+            latitude += random.nextDouble() * 0.002 - 0.001;
+            elevation += random.nextDouble() * 10.0 - 5.0;
+            millis += random.nextInt(20000);
+            positions.add(new Wgs84Position(longitude, latitude, i % 7 != 0 ? elevation : null, null,
+                    i % 5 != 0 ? fromMillis(millis) : null, null));
+        }
+        return new Wgs84Route(new OpelNaviFormat(), Track, positions);
+    }
+
+    private void assertStatistics(Wgs84Route route) {
+        RouteStatistics statistics = route.getStatistics();
+        assertEquals(route.getPositionCount(), statistics.getPositionCount());
+        assertEquals(route.getDistance(), statistics.getDistance(), 0.0001);
+        assertEquals(route.getTime(), statistics.getTime());
+        int last = route.getPositionCount() - 1;
+        assertEquals(route.getElevationAscend(0, last), statistics.getElevationAscend(), 0.0001);
+        assertEquals(route.getElevationDescend(0, last), statistics.getElevationDescend(), 0.0001);
+        assertTrue(statistics.getMovingTime() <= statistics.getTime());
+
+        BoundingBox expected = new BoundingBox(route.getPositions());
+        BoundingBox actual = statistics.getBoundingBox();
+        assertEquals(expected.getNorthEast().getLongitude(), actual.getNorthEast().getLongitude());
+        assertEquals(expected.getNorthEast().getLatitude(), actual.getNorthEast().getLatitude());
+        assertEquals(expected.getSouthWest().getLongitude(), actual.getSouthWest().getLongitude());
+        assertEquals(expected.getSouthWest().getLatitude(), actual.getSouthWest().getLatitude());
+    }
+
+    @Test
+    public void testEmptyRoute() {
+        RouteStatistics statistics = createRoute(0, 1).getStatistics();
+        assertEquals(0, statistics.getPositionCount());
+        assertEquals(0.0, statistics.getDistance(), 0.0);
+        assertEquals(0, statistics.getTime());
+        assertNull(statistics.getMinimumElevation());
+        assertNull(statistics.getMaximumSpeed());
+        assertNull(statistics.getAverageSpeed());
+        assertNull(statistics.getBoundingBox());
+    }
+
+    @Test
+    public void testSinglePass() {
+        assertStatistics(createRoute(1, 2));
+        assertStatistics(createRoute(RouteStatisticsCalculator.BLOCK_SIZE, 3));
+        assertStatistics(createRoute(5 * RouteStatisticsCalculator.BLOCK_SIZE + 17, 4));
+    }
+
+    @Test
+    public void testMinimumAndMaximum() {
+        Wgs84Route route = createRoute(3, 5);
+        route.getPosition(0).setElevation(50.0);
+        route.getPosition(1).setElevation(150.0);
+        route.getPosition(2).setElevation(100.0);
+        route.getPosition(0).setTime(fromMillis(0));
+        route.getPosition(1).setTime(fromMillis(3600 * 1000));
+        route.getPosition(2).setTime(fromMillis(3600 * 1000));
+        route.invalidateCaches(0);
+
+        RouteStatistics statistics = route.getStatistics();
+        assertEquals(50.0, statistics.getMinimumElevation(), 0.0);
+        assertEquals(150.0, statistics.getMaximumElevation(), 0.0);
+        assertEquals(100.0, statistics.getElevationAscend(), 0.0001);
+        assertEquals(50.0, statistics.getElevationDescend(), 0.0001);
+        assertEquals(3600 * 1000, statistics.getTime());
+        // the distance of the first segment in kilometers per hour
+        assertEquals(route.getDistance(0, 1) / 1000.0, statistics.getMaximumSpeed(), 0.0001);
+    }
+
+    @Test
+    public void testInPlaceChanges() {
+        Wgs84Route route = createRoute(4 * RouteStatisticsCalculator.BLOCK_SIZE, 6);
+        assertStatistics(route);
+
+        int index = 2 * RouteStatisticsCalculator.BLOCK_SIZE - 1;
+        route.getPosition(index).setLongitude(12.0);
+        route.getPosition(index).setElevation(2000.0);
+        route.getPosition(index).setTime(fromMillis(2000000000L));
+        route.invalidateCaches(index, index);
+        assertStatistics(route);
+
+        route.getPosition(0).setLatitude(45.0);
+        route.getPosition(0).setTime(null);
+        route.invalidateCaches(0, 0);
+        assertStatistics(route);
+    }
+
+    @Test
+    public void testStructuralChanges() {
+        Wgs84Route route = createRoute(3 * RouteStatisticsCalculator.BLOCK_SIZE, 7);
+        assertStatistics(route);
+
+        route.remove(RouteStatisticsCalculator.BLOCK_SIZE + 10);
+        assertStatistics(route);
+
+        route.add(5, route.createPosition(11.0, 51.0, 500.0, null, fromMillis(0), null));
+        assertStatistics(route);
+
+        // changes through the list of positions without announcing them
+        route.getPositions().remove(route.getPositionCount() - 1);
+        assertStatistics(route);
+    }
+
+    @Test(timeout = 10000)
+    public void testInvalidateDuringCalculation() throws Exception {
+        final CountDownLatch calculating = new CountDownLatch(1), proceed = new CountDownLatch(1);
+        final AtomicBoolean blocking = new AtomicBoolean(true);
+        Wgs84Route template = createRoute(2 * RouteStatisticsCalculator.BLOCK_SIZE, 8);
+        final Wgs84Route route = new Wgs84Route(template.getFormat(), Track, template.getPositions()) {
+            protected double getDistanceBetween(int firstIndex, int secondIndex) {
+                if (blocking.compareAndSet(true, false)) {
+                    calculating.countDown();
+                    try {
+                        proceed.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return super.getDistanceBetween(firstIndex, secondIndex);
+            }
+        };
+
+        ExecutorService executor = newSingleThreadExecutor();
+        try {
+            Future<RouteStatistics> background = executor.submit(route::getStatistics);
+            calculating.await();
+
+            // returns while the calculation is in progress, which has already passed the first position
+            route.getPosition(0).setElevation(5000.0);
+            route.invalidateCaches(0, 0);
+            proceed.countDown();
+            background.get(5, SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        // the calculation that missed the invalidation is not reused
+        assertEquals(5000.0, route.getStatistics().getMaximumElevation(), 0.0);
+        assertStatistics(route);
+    }
+}
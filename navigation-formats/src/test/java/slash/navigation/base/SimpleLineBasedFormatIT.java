@@ -0,0 +1,78 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.simple.HaicomLoggerFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+/**
+ * Checks that reading a Haicom logger file in parallel chunks of lines yields the
+ * positions of reading it line by line in the same order.
+ */
+public class SimpleLineBasedFormatIT {
+    private static final int POSITIONS = 300000;
+
+    private static class SequentialFormat extends HaicomLoggerFormat {
+        protected boolean isSupportsParallelParsing() {
+            return false;
+        }
+    }
+
+    private byte[] createFile() throws IOException {
+        List<Wgs84Position> positions = new ArrayList<>(POSITIONS);
+        for (int i = 0; i < POSITIONS; i++)
+            positions.add(new Wgs84Position(10.0 + i * 0.00001, 50.0 + i * 0.00001, 100.0 + i % 50, 20.0,
+                    fromMillis(1500000000000L + i * 1000L), null));
+        HaicomLoggerFormat format = new HaicomLoggerFormat();
+        StringWriter writer = new StringWriter();
+        format.write(new Wgs84Route(format, Track, positions), new PrintWriter(writer), 0, POSITIONS);
+        return writer.toString().getBytes(ISO_LATIN1_ENCODING);
+    }
+
+    private List<Wgs84Position> read(SimpleLineBasedFormat<?> format, byte[] bytes) throws IOException {
+        ListPositionSink<Wgs84Position> sink = new ListPositionSink<>();
+        format.read(new ByteArrayInputStream(bytes), null, sink);
+        return sink.getPositions();
+    }
+
+    @Test
+    public void testParallelParsing() throws IOException {
+        byte[] bytes = createFile();
+        List<Wgs84Position> sequential = read(new SequentialFormat(), bytes);
+        List<Wgs84Position> parallel = read(new HaicomLoggerFormat(), bytes);
+
+        assertEquals(POSITIONS, sequential.size());
+        assertEquals(sequential, parallel);
+        for (int i = 0; i < POSITIONS; i += 1000)
+            assertEquals(sequential.get(i).getTime(), parallel.get(i).getTime());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.simple.HaicomLoggerFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class SimpleLineBasedFormatTest {
+    private static final int CHUNK_LINES = 100;
+
+    private static class SequentialFormat extends HaicomLoggerFormat {
+        protected boolean isSupportsParallelParsing() {
+            return false;
+        }
+    }
+
+    private static class ParallelFormat extends HaicomLoggerFormat {
+        int getParallelChunkLines() {
+            return CHUNK_LINES;
+        }
+    }
+
+    private List<String> createLines(int count) {
+        List<Wgs84Position> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            positions.add(new Wgs84Position(10.0 + i * 0.0001, 50.0 + i * 0.0001, 100.0 + i % 50, 20.0,
+                    fromMillis(1500000000000L + i * 1000L), null));
+        HaicomLoggerFormat format = new HaicomLoggerFormat();
+        StringWriter writer = new StringWriter();
+        format.write(new Wgs84Route(format, Track, positions), new PrintWriter(writer), 0, count);
+
+        List<String> lines = new ArrayList<>();
+        for (String line : writer.toString().split("\\r?\\n"))
+            lines.add(line);
+        return lines;
+    }
+
+    private static class Result {
+        private final ListPositionSink<Wgs84Position> sink = new ListPositionSink<>();
+        private IOException exception;
+    }
+
+    private Result read(SimpleLineBasedFormat<?> format, List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines)
+            builder.append(line).append("\n");
+        Result result = new Result();
+        try {
+            format.read(new ByteArrayInputStream(builder.toString().getBytes(ISO_LATIN1_ENCODING)), null, result.sink);
+        } catch (IOException e) {
+            result.exception = e;
+        }
+        return result;
+    }
+
+    private void assertSameAsSequential(List<String> lines) {
+        Result expected = read(new SequentialFormat(), lines);
+        Result actual = read(new ParallelFormat(), lines);
+
+        assertEquals(expected.sink.getCharacteristics(), actual.sink.getCharacteristics());
+        List<Wgs84Position> expectedPositions = expected.sink.getPositions();
+        List<Wgs84Position> actualPositions = actual.sink.getPositions();
+        assertEquals(expectedPositions.size(), actualPositions.size());
+        for (int i = 0; i < expectedPositions.size(); i++) {
+            assertEquals(expectedPositions.get(i).getLongitude(), actualPositions.get(i).getLongitude());
+            assertEquals(expectedPositions.get(i).getLatitude(), actualPositions.get(i).getLatitude());
+            assertEquals(expectedPositions.get(i).getElevation(), actualPositions.get(i).getElevation());
+            assertEquals(expectedPositions.get(i).getTime(), actualPositions.get(i).getTime());
+        }
+        assertEquals(expected.exception != null ? expected.exception.getMessage() : null,
+                actual.exception != null ? actual.exception.getMessage() : null);
+    }
+
+    @Test
+    public void testSmallFile() {
+        assertSameAsSequential(createLines(CHUNK_LINES / 2));
+    }
+
+    @Test
+    public void testChunks() {
+        List<String> lines = createLines(CHUNK_LINES * 25 + 7);
+        assertSameAsSequential(lines);
+
+        Result result = read(new ParallelFormat(), lines);
+        assertNull(result.exception);
+        assertEquals(CHUNK_LINES * 25 + 7, result.sink.getPositions().size());
+    }
+
+    @Test
+    public void testEmptyLines() {
+        List<String> lines = createLines(CHUNK_LINES * 3);
+        for (int i = lines.size() - 1; i > 0; i -= 7)
+            lines.add(i, "");
+        assertSameAsSequential(lines);
+    }
+
+    @Test
+    public void testAllowedGarble() {
+        List<String> lines = createLines(CHUNK_LINES * 5);
+        lines.add(CHUNK_LINES * 3 + 5, "garble");
+        assertSameAsSequential(lines);
+    }
+
+    @Test
+    public void testTooMuchGarble() {
+        List<String> lines = createLines(CHUNK_LINES * 10);
+        lines.add(CHUNK_LINES * 2 + 5, "garble");
+        lines.add(CHUNK_LINES * 7 + 3, "garble");
+        assertSameAsSequential(lines);
+
+        Result result = read(new ParallelFormat(), lines);
+        assertNotNull(result.exception);
+        // the positions before the second garbled line have been added
+        assertEquals(CHUNK_LINES * 7 + 1, result.sink.getPositions().size());
+    }
+}
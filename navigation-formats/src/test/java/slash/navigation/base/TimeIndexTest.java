@@ -0,0 +1,149 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.NavigationPosition;
+import slash.navigation.simple.OpelNaviFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.lang.Math.abs;
+import static org.junit.Assert.*;
+import static slash.common.TestCase.assertDoubleEquals;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class TimeIndexTest {
+    private Wgs84Route createRoute(long... millis) {
+        List<Wgs84Position> positions = new ArrayList<>();
+        for (int i = 0; i < millis.length; i++)
+            positions.add(new Wgs84Position(10.0 + i, 50.0 + i, 100.0 + i * 10, null,
+                    millis[i] >= 0 ? fromMillis(millis[i]) : null, null));
+        return new Wgs84Route(new OpelNaviFormat(), Track, positions);
+    }
+
+    private int getClosestPositionLinear(Wgs84Route route, long time, long threshold) {
+        int closestIndex = -1;
+        long closestDistance = Long.MAX_VALUE;
+        for (int i = 0; i < route.getPositionCount(); ++i) {
+            Wgs84Position position = route.getPosition(i);
+            if (!position.hasTime())
+                continue;
+            long distance = abs(position.getTime().getTimeInMillis() - time);
+            if (distance < closestDistance && distance <= threshold) {
+                closestDistance = distance;
+                closestIndex = i;
+            }
+        }
+        return closestIndex;
+    }
+
+    @Test
+    public void testGetClosestPosition() {
+        Wgs84Route route = createRoute(1000, 2000, -1, 3000, 4000);
+        assertEquals(0, route.getClosestPosition(fromMillis(0), 1000));
+        assertEquals(-1, route.getClosestPosition(fromMillis(0), 999));
+        assertEquals(1, route.getClosestPosition(fromMillis(2400), 1000));
+        assertEquals(3, route.getClosestPosition(fromMillis(2600), 1000));
+        assertEquals(4, route.getClosestPosition(fromMillis(9000), 5000));
+        assertEquals(-1, route.getClosestPosition(fromMillis(9000), 4999));
+    }
+
+    @Test
+    public void testGetClosestPositionWithSameDistance() {
+        Wgs84Route route = createRoute(3000, 1000, 2000, 1000, 3000);
+        assertEquals(1, route.getClosestPosition(fromMillis(1000), 0));
+        assertEquals(0, route.getClosestPosition(fromMillis(3000), 0));
+        assertEquals(1, route.getClosestPosition(fromMillis(1500), 500));
+        assertEquals(0, route.getClosestPosition(fromMillis(2500), 500));
+    }
+
+    @Test
+    public void testGetIndexAtOrBeforeWithSameTimes() {
+        Wgs84Route route = createRoute(1000, 2000, 2000, -1, 2000, 3000);
+        TimeIndex index = new TimeIndex(route.getPositions());
+        assertEquals(-1, index.getIndexAtOrBefore(999));
+        assertEquals(0, index.getIndexAtOrBefore(1000));
+        assertEquals(0, index.getIndexAtOrBefore(1999));
+        assertEquals(4, index.getIndexAtOrBefore(2000));
+        assertEquals(4, index.getIndexAtOrBefore(2500));
+        assertEquals(5, index.getIndexAtOrBefore(Long.MAX_VALUE));
+        assertEquals(5, index.getIndexAfter(2000));
+        assertEquals(1, index.getIndexAfter(1000));
+    }
+
+    @Test
+    public void testGetClosestPositionOnUnsortedRoute() {
+        Random random = new Random(3);
+        long[] millis = new long[2000];
+        for (int i = 0; i < millis.length; i++)
+            millis[i] = i % 17 == 0 ? -1 : random.nextInt(100000);
+        Wgs84Route route = createRoute(millis);
+
+        for (int i = 0; i < 500; i++) {
+            long time = random.nextInt(110000) - 5000;
+            long threshold = random.nextInt(200);
+            assertEquals(getClosestPositionLinear(route, time, threshold), route.getClosestPosition(fromMillis(time), threshold));
+        }
+    }
+
+    @Test
+    public void testGetClosestPositionAfterChanges() {
+        Wgs84Route route = createRoute(1000, 2000, 3000);
+        assertEquals(1, route.getClosestPosition(fromMillis(2000), 0));
+
+        route.getPosition(1).setTime(fromMillis(5000));
+        route.invalidateCaches(1);
+        assertEquals(-1, route.getClosestPosition(fromMillis(2000), 0));
+        assertEquals(1, route.getClosestPosition(fromMillis(5000), 0));
+
+        route.add(0, new Wgs84Position(0.0, 0.0, null, null, fromMillis(2000), null));
+        assertEquals(0, route.getClosestPosition(fromMillis(2000), 0));
+    }
+
+    @Test
+    public void testGetInterpolatedPosition() {
+        Wgs84Route route = createRoute(1000, 2000, -1, 4000);
+
+        NavigationPosition exact = route.getInterpolatedPosition(fromMillis(2000), 100);
+        assertDoubleEquals(11.0, exact.getLongitude());
+        assertDoubleEquals(51.0, exact.getLatitude());
+        assertDoubleEquals(110.0, exact.getElevation());
+        assertEquals(fromMillis(2000), exact.getTime());
+
+        NavigationPosition interpolated = route.getInterpolatedPosition(fromMillis(2500), 2000);
+        assertDoubleEquals(11.5, interpolated.getLongitude());
+        assertDoubleEquals(51.5, interpolated.getLatitude());
+        assertDoubleEquals(115.0, interpolated.getElevation());
+        assertEquals(fromMillis(2500), interpolated.getTime());
+
+        NavigationPosition closest = route.getInterpolatedPosition(fromMillis(2500), 1000);
+        assertDoubleEquals(11.0, closest.getLongitude());
+        assertDoubleEquals(51.0, closest.getLatitude());
+
+        assertNull(route.getInterpolatedPosition(fromMillis(3000), 999));
+        assertNull(route.getInterpolatedPosition(fromMillis(5000), 999));
+        assertDoubleEquals(13.0, route.getInterpolatedPosition(fromMillis(5000), 1000).getLongitude());
+    }
+}
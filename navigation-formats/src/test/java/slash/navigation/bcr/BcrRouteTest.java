@@ -25,14 +25,20 @@ import slash.common.type.CompactCalendar;
 import slash.navigation.gpx.GpxPosition;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.List;
 
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static slash.common.TestCase.*;
 import static slash.common.type.CompactCalendar.fromMillis;
 
 public class BcrRouteTest {
+    // distances that do not start at the first position are the difference of the distances
+    // from the first position and may differ from summing up their parts by rounding errors
+    private static final double ROUNDING_ERROR = 1.0e-12;
     private BcrRoute route = new BcrRoute(new MTP0607Format(), "r", null, new ArrayList<>());
     private BcrPosition a = new BcrPosition(1, 1, 0, "a");
     private BcrPosition b = new BcrPosition(2, 1, 0, "b");
@@ -211,6 +217,22 @@ public class BcrRouteTest {
         assertPositions();
     }
 
+    @Test
+    public void testRemoveAll() {
+        initialize();
+        route.add(3, d);
+        route.add(4, e);
+        assertPositions(a, b, c, d, e);
+        assertEquals(asList(b, d), route.removeAll(new int[]{3, 1}));
+        assertPositions(a, c, e);
+        assertEquals(asList(), route.removeAll(new int[0]));
+        assertPositions(a, c, e);
+        BitSet all = new BitSet();
+        all.set(0, 3);
+        assertEquals(asList(a, c, e), route.removeAll(all));
+        assertPositions();
+    }
+
     @Test
     public void testCalculateDistance() {
         assertDoubleEquals(1.1131, a.calculateDistance(b));
@@ -239,9 +261,36 @@ public class BcrRouteTest {
         assertDoubleEquals(1.1131, route.getDistance(0, 1));
         assertDoubleEquals(1.1131 + 1.569, route.getDistance(0, 2));
         assertDoubleEquals(1.1131 + 1.569 + 2.4858, route.getDistance(0, 3));
-        assertDoubleEquals(1.569 + 2.4858, route.getDistance(1, 3));
-        assertDoubleEquals(route.getDistance(1, 2) + route.getDistance(2, 3), route.getDistance(1, 3));
-        assertDoubleEquals(2.4858, route.getDistance(2, 3));
+        assertEquals(1.569 + 2.4858, route.getDistance(1, 3), ROUNDING_ERROR);
+        assertEquals(route.getDistance(1, 2) + route.getDistance(2, 3), route.getDistance(1, 3), ROUNDING_ERROR);
+        assertEquals(2.4858, route.getDistance(2, 3), ROUNDING_ERROR);
+    }
+
+    @Test
+    public void testGetDistanceAfterChanges() {
+        initialize();
+        assertDoubleEquals(1.1131 + 1.569, route.getDistance());
+
+        route.move(0, 2);
+        assertPositions(c, b, a);
+        assertDoubleEquals(1.569 + 1.1131, route.getDistance());
+
+        route.add(3, d);
+        assertDoubleEquals(1.569 + 1.1131 + a.calculateDistance(d), route.getDistance(0, 3));
+
+        route.remove(3);
+        route.set(2, d);
+        assertDoubleEquals(route.getDistance(0, 1) + d.calculateDistance(b), route.getDistance());
+
+        // replacing through the list of positions invalidates, too
+        route.getPositions().set(2, a);
+        assertEquals(route.getDistance(0, 1) + a.calculateDistance(b), route.getDistance(), ROUNDING_ERROR);
+        route.getPositions().set(2, d);
+
+        // a position changed in place is announced like the positions model does
+        c.setTime(calendar(2015, 10, 5, 1, 2, 30, 0));
+        route.invalidateCaches(0, 0);
+        assertArrayEquals(new long[]{0, -15000, 0}, route.getTimesFromStart(0, 2));
     }
 
     @Test
@@ -259,9 +308,9 @@ public class BcrRouteTest {
         assertDoubleEquals(1.1131 + 1.569, route.getDistance(0, 2));
         assertDoubleEquals(1.1131 + 1.569, route.getDistance(0, 3));
         assertDoubleEquals(1.1131 + 1.569 + 2.4858, route.getDistance(0, 4));
-        assertDoubleEquals(1.569 + 2.4858, route.getDistance(1, 4));
-        assertDoubleEquals(route.getDistance(1, 2) + route.getDistance(2, 3) + route.getDistance(3, 4), route.getDistance(1, 4));
-        assertDoubleEquals(2.4858, route.getDistance(2, 4));
+        assertEquals(1.569 + 2.4858, route.getDistance(1, 4), ROUNDING_ERROR);
+        assertEquals(route.getDistance(1, 2) + route.getDistance(2, 3) + route.getDistance(3, 4), route.getDistance(1, 4), ROUNDING_ERROR);
+        assertEquals(2.4858, route.getDistance(2, 4), ROUNDING_ERROR);
     }
 
     @Test
@@ -284,6 +333,18 @@ public class BcrRouteTest {
         assertDoubleArrayEquals(new double[]{1.1131+1.569+2.4858}, route.getDistancesFromStart(3, 3));
     }
 
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetDistancesFromStartBeyondLastPosition() {
+        initialize();
+        route.getDistancesFromStart(1, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetTimesFromStartBeyondLastPosition() {
+        initialize();
+        route.getTimesFromStart(0, 3);
+    }
+
     @Test
     public void testGetDistancesFromStartSamePositionTwiceInTheMiddle() {
         BcrRoute route = new BcrRoute(new MTP0607Format(), "?", null, new ArrayList<>());
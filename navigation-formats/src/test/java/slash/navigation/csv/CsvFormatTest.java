@@ -0,0 +1,107 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.csv;
+
+import org.junit.Test;
+import slash.navigation.base.ListPositionSink;
+import slash.navigation.base.PositionSink;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static slash.common.TestCase.assertDoubleEquals;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+import static slash.common.io.Transfer.UTF8_ENCODING;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class CsvFormatTest {
+    private static CsvPosition createPosition(String... keysAndValues) {
+        Map<String, String> rowAsMap = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+            rowAsMap.put(keysAndValues[i], keysAndValues[i + 1]);
+        return new CsvPosition(rowAsMap);
+    }
+
+    @Test
+    public void testPositionSinkWritesColumnsOfLaterPositions() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PositionSink<CsvPosition> sink = new CsvSemicolonFormat().createPositionSink(outputStream);
+        sink.begin(Track, null);
+        sink.add(createPosition("Longitude", "9.1", "Latitude", "48.1"));
+        sink.add(createPosition("Longitude", "9.2", "Latitude", "48.2", "Elevation", "100", "Heading", null));
+        sink.end();
+        sink.close();
+
+        assertEquals("Elevation;Heading;Latitude;Longitude\n;;\"48.1\";\"9.1\"\n\"100\";;\"48.2\";\"9.2\"\n",
+                outputStream.toString(ISO_LATIN1_ENCODING));
+    }
+
+    private List<CsvPosition> read(byte[] bytes) throws IOException {
+        ListPositionSink<CsvPosition> sink = new ListPositionSink<>();
+        new CsvSemicolonFormat().read(new ByteArrayInputStream(bytes), null, sink);
+        return sink.getPositions();
+    }
+
+    @Test
+    public void testReadDetectsEncodingOnceForAllValues() throws IOException {
+        // the bytes of the first description are valid UTF-8 but the file is ISO-8859-1
+        String csv = "Breite;L\u00e4nge;Beschreibung\n48.1;9.1;\u00c3\u00a4\n48.2;9.2;K\u00f6ln\n";
+        List<CsvPosition> latin1 = read(csv.getBytes(ISO_LATIN1_ENCODING));
+        assertEquals(2, latin1.size());
+        assertEquals("\u00c3\u00a4", latin1.get(0).getDescription());
+        assertEquals("K\u00f6ln", latin1.get(1).getDescription());
+
+        List<CsvPosition> utf8 = read(csv.getBytes(UTF8_ENCODING));
+        assertEquals("\u00c3\u00a4", utf8.get(0).getDescription());
+        assertEquals("K\u00f6ln", utf8.get(1).getDescription());
+        assertDoubleEquals(9.2, utf8.get(1).getLongitude());
+    }
+
+    @Test
+    public void testReadSkipsUtf8ByteOrderMark() throws IOException {
+        byte[] csv = "\ufeffBreite;L\u00e4nge\n48.1;9.1\n".getBytes(UTF8_ENCODING);
+        List<CsvPosition> positions = read(csv);
+        assertEquals(1, positions.size());
+        assertDoubleEquals(48.1, positions.get(0).getLatitude());
+    }
+
+    @Test
+    public void testPositionSinkFailsForColumnAfterHeader() throws IOException {
+        PositionSink<CsvPosition> sink = new CsvSemicolonFormat().createPositionSink(new ByteArrayOutputStream());
+        sink.begin(Track, null);
+        for (int i = 0; i < CsvFormat.HEADER_POSITION_COUNT; i++)
+            sink.add(createPosition("Longitude", "9.1", "Latitude", "48.1"));
+        // an empty value fits into any header
+        sink.add(createPosition("Longitude", "9.2", "Latitude", "48.2", "Elevation", null));
+        try {
+            sink.add(createPosition("Longitude", "9.3", "Latitude", "48.3", "Elevation", "100"));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Elevation"));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gpx;
+
+import org.junit.Test;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+
+import java.io.*;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static java.lang.String.format;
+import static java.util.Locale.US;
+import static org.junit.Assert.*;
+import static slash.navigation.gpx.GpxUtil.*;
+
+public class GpxStreamingReadIT {
+    private static final int TRACK_POINTS = 200000;
+
+    private File createGpx(String version) throws IOException {
+        File file = createTempFile("streaming", ".gpx");
+        file.deleteOnExit();
+        String namespace = "1.1".equals(version) ? GPX_11_NAMESPACE_URI : GPX_10_NAMESPACE_URI;
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            writer.println("<gpx version=\"" + version + "\" creator=\"test\" xmlns=\"" + namespace + "\"" +
+                    " xmlns:gpxtpx=\"" + GARMIN_TRACKPOINT_EXTENSIONS_1_NAMESPACE_URI + "\">");
+            writer.println("<wpt lat=\"47.0\" lon=\"11.0\"><name>Start</name><cmt>Comment</cmt></wpt>");
+            writer.println("<rte><name>Route</name><rtept lat=\"47.0\" lon=\"11.0\"/><rtept lat=\"47.1\" lon=\"11.1\"/></rte>");
+            writer.println("<trk><name>Track</name><trkseg>");
+            for (int i = 0; i < TRACK_POINTS; i++) {
+                if (i == TRACK_POINTS / 2)
+                    writer.println("</trkseg><trkseg>");
+                writer.print(format(US, "<trkpt lat=\"%.6f\" lon=\"%.6f\"><ele>%d</ele><time>2018-01-01T10:%02d:%02dZ</time>",
+                        47.0 + i * 0.00001, 11.0 + i * 0.00001, i % 1000, (i / 60) % 60, i % 60));
+                if ("1.1".equals(version) && i % 100 == 0)
+                    writer.print("<extensions><gpxtpx:TrackPointExtension><gpxtpx:hr>" + (60 + i % 100) +
+                            "</gpxtpx:hr></gpxtpx:TrackPointExtension></extensions>");
+                writer.println("</trkpt>");
+            }
+            writer.println("</trkseg></trk>");
+            writer.println("</gpx>");
+        }
+        return file;
+    }
+
+    private long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private List<GpxRoute> read(GpxFormat format, File file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            ParserContext<GpxRoute> context = new ParserContextImpl<>();
+            format.read(inputStream, context);
+            return context.getRoutes();
+        }
+    }
+
+    private List<GpxRoute> unmarshal(Gpx11Format format, File file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            ParserContext<GpxRoute> context = new ParserContextImpl<>();
+            format.process(unmarshal11(inputStream), context);
+            return context.getRoutes();
+        }
+    }
+
+    private List<GpxRoute> unmarshal(Gpx10Format format, File file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            ParserContext<GpxRoute> context = new ParserContextImpl<>();
+            format.process(unmarshal10(inputStream), context);
+            return context.getRoutes();
+        }
+    }
+
+    private void assertRoutesEquals(List<GpxRoute> expected, List<GpxRoute> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            GpxRoute expectedRoute = expected.get(i);
+            GpxRoute actualRoute = actual.get(i);
+            assertEquals(expectedRoute.getCharacteristics(), actualRoute.getCharacteristics());
+            assertEquals(expectedRoute.getName(), actualRoute.getName());
+            assertEquals(expectedRoute.getPositions(), actualRoute.getPositions());
+            for (int j = 0; j < expectedRoute.getPositionCount(); j++)
+                assertEquals(expectedRoute.getPosition(j).getHeartBeatRate(), actualRoute.getPosition(j).getHeartBeatRate());
+        }
+    }
+
+    private void assertStreamedPositions(List<GpxRoute> streamed, boolean extensions) {
+        assertEquals(3, streamed.size());
+        assertNotNull(streamed.get(0).getPosition(0).getOrigin());
+        List<GpxPosition> positions = streamed.get(2).getPositions();
+        assertEquals(TRACK_POINTS, positions.size());
+        for (int i = 0; i < positions.size(); i++)
+            assertEquals(extensions && i % 100 == 0, positions.get(i).getOrigin() != null);
+    }
+
+    @Test
+    public void testGpx11() throws IOException {
+        File file = createGpx("1.1");
+        Gpx11Format format = new Gpx11Format();
+
+        long before = usedMemory();
+        List<GpxRoute> streamed = read(format, file);
+        long streamedMemory = usedMemory() - before;
+        List<GpxRoute> unmarshalled = unmarshal(format, file);
+        long unmarshalledMemory = usedMemory() - before - streamedMemory;
+
+        assertStreamedPositions(streamed, true);
+        assertRoutesEquals(unmarshalled, streamed);
+        assertTrue("streamed " + streamedMemory + " bytes, unmarshalled " + unmarshalledMemory + " bytes",
+                streamedMemory < unmarshalledMemory / 2);
+    }
+
+    @Test
+    public void testGpx10() throws IOException {
+        File file = createGpx("1.0");
+        Gpx10Format format = new Gpx10Format();
+
+        long before = usedMemory();
+        List<GpxRoute> streamed = read(format, file);
+        long streamedMemory = usedMemory() - before;
+        List<GpxRoute> unmarshalled = unmarshal(format, file);
+        long unmarshalledMemory = usedMemory() - before - streamedMemory;
+
+        assertStreamedPositions(streamed, false);
+        assertRoutesEquals(unmarshalled, streamed);
+        assertTrue("streamed " + streamedMemory + " bytes, unmarshalled " + unmarshalledMemory + " bytes",
+                streamedMemory < unmarshalledMemory / 2);
+    }
+}
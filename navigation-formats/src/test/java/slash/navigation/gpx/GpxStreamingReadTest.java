@@ -0,0 +1,299 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.gpx;
+
+import org.junit.Test;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.PositionSink;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.gpx.binding11.WptType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.gpx.GpxUtil.*;
+
+public class GpxStreamingReadTest {
+    private static final String GPX_11_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<gpx version=\"1.1\" creator=\"test\" xmlns=\"" + GPX_11_NAMESPACE_URI + "\"" +
+            " xmlns:gpxx=\"" + GARMIN_EXTENSIONS_3_NAMESPACE_URI + "\"" +
+            " xmlns:gpxtpx=\"" + GARMIN_TRACKPOINT_EXTENSIONS_1_NAMESPACE_URI + "\">\n";
+    private static final String GPX_10_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<gpx version=\"1.0\" creator=\"%s\" xmlns=\"" + GPX_10_NAMESPACE_URI + "\" xmlns:x=\"urn:x\">\n";
+
+    private static InputStream asStream(String string) {
+        return new ByteArrayInputStream(string.getBytes());
+    }
+
+    private List<GpxRoute> unmarshal(Gpx11Format format, String gpx) throws IOException {
+        ParserContext<GpxRoute> context = new ParserContextImpl<>();
+        format.process(unmarshal11(asStream(gpx)), context);
+        return context.getRoutes();
+    }
+
+    private List<GpxRoute> unmarshal(Gpx10Format format, String gpx) throws IOException {
+        ParserContext<GpxRoute> context = new ParserContextImpl<>();
+        format.process(unmarshal10(asStream(gpx)), context);
+        return context.getRoutes();
+    }
+
+    private List<GpxRoute> read(GpxFormat format, String gpx) throws IOException {
+        ParserContext<GpxRoute> context = new ParserContextImpl<>();
+        format.read(asStream(gpx), context);
+        return context.getRoutes();
+    }
+
+    private void assertRoutesEquals(List<GpxRoute> expected, List<GpxRoute> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            GpxRoute expectedRoute = expected.get(i);
+            GpxRoute actualRoute = actual.get(i);
+            assertEquals(expectedRoute.getCharacteristics(), actualRoute.getCharacteristics());
+            assertEquals(expectedRoute.getName(), actualRoute.getName());
+            assertEquals(expectedRoute.getPositionCount(), actualRoute.getPositionCount());
+            // compares what a position reports since the unmarshalled one keeps a heading parsed from
+            // its description that is hidden by its extension
+            for (int j = 0; j < expectedRoute.getPositionCount(); j++) {
+                GpxPosition expectedPosition = expectedRoute.getPosition(j);
+                GpxPosition actualPosition = actualRoute.getPosition(j);
+                assertEquals(expectedPosition.getLongitude(), actualPosition.getLongitude());
+                assertEquals(expectedPosition.getLatitude(), actualPosition.getLatitude());
+                assertEquals(expectedPosition.getElevation(), actualPosition.getElevation());
+                assertEquals(expectedPosition.getTime(), actualPosition.getTime());
+                assertEquals(expectedPosition.getDescription(), actualPosition.getDescription());
+                assertEquals(expectedPosition.getHdop(), actualPosition.getHdop());
+                assertEquals(expectedPosition.getVdop(), actualPosition.getVdop());
+                assertEquals(expectedPosition.getPdop(), actualPosition.getPdop());
+                assertEquals(expectedPosition.getSatellites(), actualPosition.getSatellites());
+                assertEquals(expectedPosition.getHeading(), actualPosition.getHeading());
+                assertEquals(expectedPosition.getSpeed(), actualPosition.getSpeed());
+                assertEquals(expectedPosition.getTemperature(), actualPosition.getTemperature());
+                assertEquals(expectedPosition.getHeartBeatRate(), actualPosition.getHeartBeatRate());
+            }
+        }
+    }
+
+    private String write(Gpx11Format format, GpxRoute route) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        format.write(route, outputStream, 0, route.getPositionCount());
+        // the metadata contains the time of writing
+        return outputStream.toString().replaceAll("(?s)<metadata>.*</metadata>", "");
+    }
+
+    @Test
+    public void testSimplePointsAreNotUnmarshalled() throws IOException {
+        String gpx = GPX_11_HEADER +
+                "<trk><name>Track</name><trkseg>\n" +
+                "<trkpt lat=\"47.1\" lon=\"11.1\"><ele>100.5</ele><time>2018-01-01T10:00:00Z</time><name>A &amp; B</name></trkpt>\n" +
+                "<trkpt lat=\" 47.2 \" lon=\"+11.2\">\n<!-- comment --><ele>\n101\n</ele><time>2018-01-01T10:00:01.5+01:00</time>" +
+                "<name><![CDATA[C]]>D</name><hdop>1.5</hdop><vdop>2.5</vdop><pdop>3.5</pdop><sat>7</sat></trkpt>\n" +
+                "<trkpt lat=\"47.3\" lon=\"11.3\"><name>Course 97 : Barmbek-Nord</name></trkpt>\n" +
+                "<trkpt lat=\"47.4\" lon=\"11.4\"><name></name></trkpt>\n" +
+                "</trkseg></trk></gpx>";
+        Gpx11Format format = new Gpx11Format();
+        List<GpxRoute> streamed = read(format, gpx);
+        assertRoutesEquals(unmarshal(format, gpx), streamed);
+
+        List<GpxPosition> positions = streamed.get(0).getPositions();
+        assertEquals(4, positions.size());
+        for (GpxPosition position : positions)
+            assertNull(position.getOrigin());
+        assertEquals("A & B", positions.get(0).getDescription());
+        assertEquals("CD", positions.get(1).getDescription());
+        assertEquals(7, positions.get(1).getSatellites().intValue());
+    }
+
+    @Test
+    public void testPointsWithOtherElementsAreUnmarshalled() throws IOException {
+        String gpx = GPX_11_HEADER +
+                "<wpt lat=\"47.0\" lon=\"11.0\"><name>Start</name><cmt>Comment</cmt><sym>Flag</sym></wpt>\n" +
+                "<wpt lat=\"47.5\" lon=\"11.5\"><name>Name</name><desc>Description</desc></wpt>\n" +
+                "<trk><trkseg>\n" +
+                "<trkpt lat=\"47.1\" lon=\"11.1\"><ele>100</ele><time>2018-01-01T10:00:00Z</time>" +
+                "<extensions><gpxtpx:TrackPointExtension><gpxtpx:atemp>21.5</gpxtpx:atemp><gpxtpx:hr>120</gpxtpx:hr>" +
+                "</gpxtpx:TrackPointExtension></extensions></trkpt>\n" +
+                "<trkpt lat=\"47.2\" lon=\"11.2\"><ele>invalid</ele></trkpt>\n" +
+                "<trkpt lat=\"47.3\" lon=\"11.3\"><ele></ele></trkpt>\n" +
+                "<trkpt lat=\"47.4\" lon=\"11.4\"><name>Nested <b>element</b> name</name><ele>102</ele></trkpt>\n" +
+                "<trkpt lat=\"47.5\" lon=\"11.5\" xmlns:y=\"urn:y\"><ele>103</ele></trkpt>\n" +
+                "</trkseg></trk></gpx>";
+        Gpx11Format format = new Gpx11Format();
+        List<GpxRoute> streamed = read(format, gpx);
+        List<GpxRoute> unmarshalled = unmarshal(format, gpx);
+        assertRoutesEquals(unmarshalled, streamed);
+
+        for (GpxRoute route : streamed) {
+            for (GpxPosition position : route.getPositions())
+                assertNotNull(position.getOrigin(WptType.class));
+        }
+        assertEquals("Flag", streamed.get(0).getPosition(0).getOrigin(WptType.class).getSym());
+        assertEquals("Comment", streamed.get(0).getPosition(0).getOrigin(WptType.class).getCmt());
+        GpxPosition extended = streamed.get(1).getPosition(0);
+        assertEquals(120, extended.getHeartBeatRate().intValue());
+        assertEquals(21.5, extended.getTemperature(), 0.0);
+
+        assertEquals(write(format, unmarshalled.get(0)), write(format, streamed.get(0)));
+        assertEquals(write(format, unmarshalled.get(1)), write(format, streamed.get(1)));
+    }
+
+    @Test
+    public void testRouteWithGarminExtensions() throws IOException {
+        String gpx = GPX_11_HEADER +
+                "<rte><name>Route</name><extensions><gpxx:RouteExtension><gpxx:IsAutoNamed>false</gpxx:IsAutoNamed>" +
+                "</gpxx:RouteExtension></extensions>\n" +
+                "<rtept lat=\"47.0\" lon=\"11.0\"><name>A</name><extensions><gpxx:RoutePointExtension>" +
+                "<gpxx:rpt lat=\"47.05\" lon=\"11.05\"/></gpxx:RoutePointExtension></extensions></rtept>\n" +
+                "<rtept lat=\"47.1\" lon=\"11.1\"><name>B</name></rtept>\n" +
+                "</rte>\n" +
+                "<rte><name>Plain</name><rtept lat=\"48.0\" lon=\"12.0\"/><rtept lat=\"48.1\" lon=\"12.1\"/></rte>\n" +
+                "</gpx>";
+        Gpx11Format format = new Gpx11Format();
+        List<GpxRoute> streamed = read(format, gpx);
+        assertRoutesEquals(unmarshal(format, gpx), streamed);
+
+        assertEquals(3, streamed.size());
+        assertEquals(Track, streamed.get(1).getCharacteristics());
+        assertEquals(3, streamed.get(1).getPositionCount());
+        assertNull(streamed.get(2).getPosition(0).getOrigin());
+    }
+
+    @Test
+    public void testGpx10() throws IOException {
+        for (String creator : new String[]{"test", "Holux Utility"}) {
+            String gpx = String.format(GPX_10_HEADER, creator) +
+                    "<wpt lat=\"47.0\" lon=\"11.0\"><name>Start</name><course>90.5</course><speed>10</speed></wpt>\n" +
+                    "<wpt lat=\"47.1\" lon=\"11.1\"><name>Speed</name><cmt>Speed: 12 Km/h</cmt></wpt>\n" +
+                    "<rte><rtept lat=\"47.0\" lon=\"11.0\"><speed>2.5</speed></rtept><rtept lat=\"47.1\" lon=\"11.1\"><x:any>1</x:any></rtept></rte>\n" +
+                    "<trk><trkseg><trkpt lat=\"47.1\" lon=\"11.1\"><ele>100</ele><time>2018-01-01T10:00:00Z</time><sat>5</sat></trkpt></trkseg>" +
+                    "<trkseg><trkpt lat=\"47.2\" lon=\"11.2\"><speed>5</speed><course>180</course></trkpt></trkseg></trk>\n" +
+                    "</gpx>";
+            Gpx10Format format = new Gpx10Format();
+            List<GpxRoute> streamed = read(format, gpx);
+            assertRoutesEquals(unmarshal(format, gpx), streamed);
+
+            assertNull(streamed.get(0).getPosition(0).getOrigin());
+            assertNotNull(streamed.get(0).getPosition(1).getOrigin());
+            assertNull(streamed.get(1).getPosition(0).getOrigin());
+            assertNotNull(streamed.get(1).getPosition(1).getOrigin());
+            assertEquals(2, streamed.get(2).getPositionCount());
+        }
+    }
+
+    private static class RouteSink implements PositionSink<GpxPosition> {
+        private final Gpx11Format format;
+        private final List<GpxRoute> routes = new ArrayList<>();
+        private GpxRoute route;
+
+        private RouteSink(Gpx11Format format) {
+            this.format = format;
+        }
+
+        public void begin(RouteCharacteristics characteristics, String name) {
+            assertNull(route);
+            route = format.createRoute(characteristics, name, new ArrayList<GpxPosition>());
+        }
+
+        public void add(GpxPosition position) {
+            route.getPositions().add(position);
+        }
+
+        public void end() {
+            routes.add(route);
+            route = null;
+        }
+
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testReadIntoSink() throws IOException {
+        String gpx = GPX_11_HEADER +
+                "<metadata><name>Waypoints</name></metadata>\n" +
+                "<wpt lat=\"47.0\" lon=\"11.0\"><name>Start</name><cmt>Comment</cmt></wpt>\n" +
+                "<wpt lat=\"47.1\" lon=\"11.1\"><name>End</name></wpt>\n" +
+                "<rte><name>Route</name><rtept lat=\"47.0\" lon=\"11.0\"/><rtept lat=\"47.1\" lon=\"11.1\"/></rte>\n" +
+                "<trk><name>Empty</name></trk>\n" +
+                "<trk><name>Track</name><trkseg><trkpt lat=\"47.2\" lon=\"11.2\"><ele>100</ele></trkpt></trkseg>" +
+                "<trkseg><trkpt lat=\"47.3\" lon=\"11.3\"><time>2018-01-01T10:00:00Z</time></trkpt></trkseg></trk>\n" +
+                "</gpx>";
+        Gpx11Format format = new Gpx11Format();
+        RouteSink sink = new RouteSink(format);
+        format.read(asStream(gpx), null, sink);
+
+        List<GpxRoute> expected = read(format, gpx);
+        // routes without positions are not passed to the sink
+        expected.remove(2);
+        assertRoutesEquals(expected, sink.routes);
+        assertEquals("Waypoints", sink.routes.get(0).getName());
+        assertEquals("Comment", sink.routes.get(0).getPosition(0).getOrigin(WptType.class).getCmt());
+        assertEquals(2, sink.routes.get(2).getPositionCount());
+    }
+
+    @Test
+    public void testReadOtherVersionIntoSink() throws IOException {
+        String gpx = String.format(GPX_10_HEADER, "test") + "<wpt lat=\"47.0\" lon=\"11.0\"/></gpx>";
+        Gpx11Format format = new Gpx11Format();
+        RouteSink sink = new RouteSink(format);
+        try {
+            format.read(asStream(gpx), null, sink);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("no gpx element"));
+        }
+        assertEquals(0, sink.routes.size());
+    }
+
+    @Test
+    public void testPositionSinkLeavesTargetOpen() throws IOException {
+        final boolean[] closed = new boolean[1];
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        Gpx11Format format = new Gpx11Format();
+        GpxPosition first = new GpxPosition(11.0, 47.0, 100.0, null, null, "First");
+        GpxPosition second = new GpxPosition(11.1, 47.1, 101.0, null, null, "Second");
+
+        PositionSink<GpxPosition> sink = format.createPositionSink(outputStream);
+        sink.begin(Track, "Track");
+        sink.add(first);
+        sink.add(second);
+        sink.end();
+        sink.close();
+        assertFalse(closed[0]);
+
+        List<GpxRoute> routes = read(format, outputStream.toString());
+        assertEquals(1, routes.size());
+        assertEquals(Track, routes.get(0).getCharacteristics());
+        assertEquals("Track", routes.get(0).getName());
+        assertEquals(asList(first, second), routes.get(0).getPositions());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.gpx;
+
+import org.junit.Test;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.common.io.Transfer.roundFraction;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.RouteCharacteristics.*;
+import static slash.navigation.gpx.GpxUtil.unmarshal11;
+
+public class GpxStreamingWriteIT {
+    private static final int TRACK_POINTS = 500000;
+
+    private List<GpxPosition> createPositions(int count) {
+        List<GpxPosition> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // rounded to the 5 fraction digits of the step since GpxPosition compares coordinates exactly
+            GpxPosition position = new GpxPosition(roundFraction(11.0 + i * 0.00001, 5), roundFraction(47.0 + i * 0.00001, 5), (double) (i % 1000),
+                    null, fromMillis(1514800800000L + i * 1000L), "Position " + i);
+            position.setHeartBeatRate((short) (60 + i % 100));
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Samples the heap once the first megabytes are written, which is long after
+     * marshalling a whole document tree would have built the elements for all points.
+     */
+    private static class SamplingOutputStream extends FilterOutputStream {
+        private static final long SAMPLE_AFTER_BYTES = 10 * 1024 * 1024;
+        private long written;
+        private long sample = -1;
+
+        SamplingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            written += length;
+            if (sample == -1 && written > SAMPLE_AFTER_BYTES)
+                sample = usedMemory();
+        }
+
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+    }
+
+    private List<GpxRoute> unmarshal(Gpx11Format format, File file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            ParserContext<GpxRoute> context = new ParserContextImpl<>();
+            format.process(unmarshal11(inputStream), context);
+            return context.getRoutes();
+        }
+    }
+
+    private void assertPositionsEquals(List<GpxPosition> expected, GpxRoute actual, int startIndex, int endIndex) {
+        assertEquals(endIndex - startIndex, actual.getPositionCount());
+        for (int i = startIndex; i < endIndex; i++) {
+            GpxPosition expectedPosition = expected.get(i);
+            GpxPosition actualPosition = actual.getPosition(i - startIndex);
+            assertEquals(expectedPosition, actualPosition);
+            assertEquals(expectedPosition.getDescription(), actualPosition.getDescription());
+            assertEquals(expectedPosition.getHeartBeatRate(), actualPosition.getHeartBeatRate());
+        }
+    }
+
+    @Test
+    public void testWriteTrack() throws IOException {
+        Gpx11Format format = new Gpx11Format();
+        long beforePositions = usedMemory();
+        List<GpxPosition> positions = createPositions(TRACK_POINTS);
+        GpxRoute route = new GpxRoute(format, Track, "Track", null, positions);
+        long beforeWrite = usedMemory();
+        long positionsMemory = beforeWrite - beforePositions;
+
+        File file = createTempFile("streaming", ".gpx");
+        file.deleteOnExit();
+        SamplingOutputStream outputStream = new SamplingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            format.write(singletonList(route), outputStream);
+        } finally {
+            outputStream.close();
+        }
+        long writeMemory = outputStream.sample - beforeWrite;
+
+        List<GpxRoute> routes = unmarshal(format, file);
+        assertEquals(1, routes.size());
+        assertEquals(Track, routes.get(0).getCharacteristics());
+        assertEquals("Track", routes.get(0).getName());
+        assertPositionsEquals(positions, routes.get(0), 0, TRACK_POINTS);
+        assertTrue("positions take " + positionsMemory + " bytes, writing took " + writeMemory + " bytes",
+                writeMemory < positionsMemory / 4);
+    }
+
+    @Test
+    public void testWriteRange() throws IOException {
+        Gpx11Format format = new Gpx11Format();
+        List<GpxPosition> positions = createPositions(100);
+        GpxRoute route = new GpxRoute(format, Track, "Range", null, positions);
+        File file = createTempFile("streaming", ".gpx");
+        file.deleteOnExit();
+
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            format.write(route, outputStream, 10, 20);
+        }
+
+        List<GpxRoute> routes = unmarshal(format, file);
+        assertEquals(3, routes.size());
+        assertEquals(Waypoints, routes.get(0).getCharacteristics());
+        assertEquals(Route, routes.get(1).getCharacteristics());
+        assertEquals(Track, routes.get(2).getCharacteristics());
+        for (GpxRoute read : routes)
+            assertPositionsEquals(positions, read, 10, 20);
+    }
+}
@@ -138,4 +138,66 @@ public class Kml22FormatTest {
         assertNull(position.getSpeed());
         assertDoubleEquals(0.0, position.getElevation());
     }
+
+    @Test
+    public void testTrackCoordinatesAndTimes() throws Exception {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:gx=\"http://www.google.com/kml/ext/2.2\">\n" +
+                "<Document><Placemark><name>Track</name><gx:Track>\n" +
+                "<when>2010-05-28T02:02:09Z</when><when>2010-05-28T02:02:35Z</when>\n" +
+                "<gx:coord>-122.207881 37.371915 156.000000</gx:coord>\n" +
+                "<gx:coord>-122.205712 37.373288 152.000000</gx:coord>\n" +
+                "</gx:Track></Placemark></Document></kml>";
+        ParserContext<KmlRoute> context = new ParserContextImpl<>();
+        format.read(new ByteArrayInputStream(string.getBytes()), context);
+        List<KmlRoute> routes = context.getRoutes();
+        assertEquals(1, routes.size());
+        KmlRoute route = routes.get(0);
+        assertEquals(2, route.getPositionCount());
+        KmlPosition position = route.getPositions().get(1);
+        assertDoubleEquals(-122.205712, position.getLongitude());
+        assertDoubleEquals(37.373288, position.getLatitude());
+        assertDoubleEquals(152.0, position.getElevation());
+        assertEquals(format.parseTime("2010-05-28T02:02:35Z"), position.getTime());
+    }
+
+    @Test
+    public void testStreamingVsUnmarshal() throws Exception {
+        String string = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n" +
+                "<Document><name>Document</name><description>Text</description>" +
+                "<Style id=\"style\"><LineStyle><width>3</width></LineStyle></Style>\n" +
+                "<Folder><name>Folder</name>" +
+                "<Placemark><name>Point 1</name><TimeStamp><when>2010-05-28T02:02:09Z</when></TimeStamp>" +
+                "<Point><coordinates>1,2,3</coordinates></Point></Placemark>\n" +
+                "<Folder><name>Speed [Km/h]</name><Placemark><Point><coordinates>7,8,9</coordinates></Point></Placemark></Folder>" +
+                "<Placemark><name>Line</name><MultiGeometry><LineString><coordinates>1,1,0 2,2,0</coordinates></LineString>" +
+                "<Polygon><outerBoundaryIs><LinearRing><coordinates>9,9,0 8,8,0</coordinates></LinearRing></outerBoundaryIs></Polygon>" +
+                "</MultiGeometry></Placemark>\n" +
+                "<Placemark><name>Point 2</name><Point><coordinates>4,5,6</coordinates></Point></Placemark>" +
+                "</Folder>\n" +
+                "<Document><name>Nested</name><Placemark><name>Point 3</name><Point><coordinates>5,5</coordinates></Point></Placemark></Document>" +
+                "</Document></kml>";
+
+        ParserContext<KmlRoute> streamed = new ParserContextImpl<>();
+        format.read(new ByteArrayInputStream(string.getBytes()), streamed);
+        ParserContext<KmlRoute> unmarshalled = new ParserContextImpl<>();
+        format.process(KmlUtil.unmarshal22(new ByteArrayInputStream(string.getBytes())), unmarshalled);
+
+        List<KmlRoute> streamedRoutes = streamed.getRoutes();
+        List<KmlRoute> unmarshalledRoutes = unmarshalled.getRoutes();
+        assertEquals(3, streamedRoutes.size());
+        assertEquals(unmarshalledRoutes.size(), streamedRoutes.size());
+        for (int i = 0; i < unmarshalledRoutes.size(); i++) {
+            KmlRoute expected = unmarshalledRoutes.get(i);
+            KmlRoute actual = streamedRoutes.get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getCharacteristics(), actual.getCharacteristics());
+            assertEquals(expected.getPositions(), actual.getPositions());
+            for (int j = 0; j < expected.getPositionCount(); j++) {
+                assertEquals(expected.getPosition(j).getDescription(), actual.getPosition(j).getDescription());
+                assertEquals(expected.getPosition(j).getTime(), actual.getPosition(j).getTime());
+            }
+        }
+    }
 }
@@ -22,18 +22,27 @@ package slash.navigation.nmea;
 
 import org.junit.Test;
 import slash.common.type.CompactCalendar;
+import slash.navigation.base.ListPositionSink;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.PositionSink;
 import slash.navigation.base.SimpleRoute;
 
 import java.io.*;
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.junit.Assert.*;
 import static slash.common.TestCase.assertDoubleEquals;
 import static slash.common.TestCase.calendar;
+import static slash.common.type.CompactCalendar.fromMillis;
 import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+import static slash.navigation.base.RouteCharacteristics.Track;
 import static slash.navigation.common.UnitConversion.nauticMilesToKiloMeter;
 
 public class NmeaFormatTest {
@@ -528,6 +537,59 @@ public class NmeaFormatTest {
         assertNull(position2.getDescription());
     }
 
+    @Test
+    public void testStreamingReadAndWrite() throws IOException {
+        String lines = "$GPGGA,134012.000,4837.4374,N,00903.4036,E,1,08,00.0,-48.7654,M,00.0,M,,*47\n" +
+                "$GPRMC,134012.000,A,4837.4374,N,00903.4036,E,3.00,0.00,260707,,*06\n" +
+                "$GPGGA,134013.000,4837.4380,N,00903.4040,E,1,08,00.0,-48.7654,M,00.0,M,,*4E\n";
+        ParserContext<NmeaRoute> context = new ParserContextImpl<>();
+        format.read(new BufferedReader(new StringReader(lines)), ISO_LATIN1_ENCODING, context);
+        NmeaRoute route = context.getRoutes().get(0);
+
+        ListPositionSink<NmeaPosition> sink = new ListPositionSink<>();
+        format.read(new ByteArrayInputStream(lines.getBytes(ISO_LATIN1_ENCODING)), null, sink);
+        assertEquals(Track, sink.getCharacteristics());
+        assertEquals(route.getPositionCount(), sink.getPositions().size());
+
+        StringWriter expected = new StringWriter();
+        format.write(route, new PrintWriter(expected), 0, route.getPositionCount());
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        PositionSink<NmeaPosition> writer = format.createPositionSink(actual);
+        writer.begin(Track, null);
+        for (NmeaPosition position : sink.getPositions())
+            writer.add(position);
+        writer.end();
+        assertEquals(expected.getBuffer().toString(), new String(actual.toByteArray(), ISO_LATIN1_ENCODING));
+    }
+
+    @Test
+    public void testWriteFromSeveralThreads() throws Exception {
+        List<NmeaPosition> positions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            positions.add(new NmeaPosition(-179.0 + i * 0.1234567, -89.0 + i * 0.0876543, i * 1.55 - 400.0, i * 0.37,
+                    fromMillis(1185457212000L + i * 1000L), null));
+        final NmeaRoute route = new NmeaRoute(format, Track, positions);
+        StringWriter expected = new StringWriter();
+        format.write(route, new PrintWriter(expected), 0, route.getPositionCount());
+
+        ExecutorService executor = newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+                futures.add(executor.submit(new Callable<String>() {
+                    public String call() {
+                        StringWriter writer = new StringWriter();
+                        format.write(route, new PrintWriter(writer), 0, route.getPositionCount());
+                        return writer.toString();
+                    }
+                }));
+            for (Future<String> future : futures)
+                assertEquals(expected.toString(), future.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testWestEastNorthSouthProblem() {
         NmeaPosition position = format.parsePosition("$GPRMC,062801.724,A,2608.6661,N,02758.8546,W,0.00,,160907,,,A*6B");
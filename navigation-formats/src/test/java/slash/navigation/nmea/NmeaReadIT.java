@@ -0,0 +1,123 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.nmea;
+
+import org.junit.Test;
+import slash.common.type.CompactCalendar;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Calendar;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.util.Calendar.*;
+import static org.junit.Assert.assertEquals;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+
+/**
+ * Checks the {@link NmeaSentence} tokenizer against the regular expressions it replaced
+ * and the date checks with epoch arithmetic against {@link Calendar}s for a long recording.
+ */
+public class NmeaReadIT {
+    private static final int POSITIONS = 100000;
+
+    private static String withChecksum(String sentence) {
+        byte checksum = 0;
+        for (int i = 0; i < sentence.length(); i++)
+            checksum ^= sentence.charAt(i);
+        return format("$%s*%02X\n", sentence, checksum);
+    }
+
+    private static String createSentences(int count, boolean variants) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int seconds = i % 86400;
+            String time = format("%02d%02d%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+            int day = 1 + i / 86400 % 28;
+            String latitude = format("48%07.4f", 37.4374 + i % 1000 * 0.001);
+            String longitude = format("009%07.4f", 3.4036 + i % 1000 * 0.001);
+            builder.append(withChecksum(format("GPRMC,%s,A,%s,N,%s,E,000.0,000.0,%02d0713,,,A", time, latitude, longitude, day)));
+            builder.append(withChecksum(format("GPGGA,%s,%s,N,%s,E,1,08,1.25,16.76,M,46.79,M,,", time, latitude, longitude)));
+            if (variants) {
+                builder.append(withChecksum(format("GPGLL,%s,N,%s,E,%s,A,A", latitude, longitude, time)));
+                builder.append(withChecksum(format("GPVTG,%05.1f,T,,M,%05.1f,N,%05.1f,K,A", i % 360 * 1.0, i % 20 * 1.0, i % 20 * 1.852)));
+                builder.append(withChecksum(format("GPZDA,%s,%02d,07,2013,,", time, day)));
+                // without fix and with a broken checksum
+                builder.append(withChecksum(format("GPGGA,%s,%s,N,%s,E,0,00,,,M,,M,,", time, latitude, longitude)));
+                builder.append(withChecksum(format("GPRMC,%s,A,%s,N,%s,E,000.0,000.0,%02d0713,,,A", time, latitude, longitude, day)).replace('*', '#'));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static List<NmeaRoute> read(String sentences) throws IOException {
+        ParserContext<NmeaRoute> context = new ParserContextImpl<>();
+        new NmeaFormat().read(new BufferedReader(new StringReader(sentences)), ISO_LATIN1_ENCODING, context);
+        return context.getRoutes();
+    }
+
+    private static boolean hasDateDefinedWithCalendar(CompactCalendar compactCalendar) {
+        Calendar calendar = compactCalendar.getCalendar();
+        return !(calendar.get(YEAR) == 1970 && calendar.get(DAY_OF_YEAR) == 1);
+    }
+
+    private static boolean isSameDayWithCalendar(CompactCalendar compactCalendar1, CompactCalendar compactCalendar2) {
+        Calendar calendar1 = compactCalendar1.getCalendar();
+        Calendar calendar2 = compactCalendar2.getCalendar();
+        return calendar1.get(YEAR) == calendar2.get(YEAR) &&
+                calendar1.get(MONTH) == calendar2.get(MONTH) &&
+                calendar1.get(DAY_OF_MONTH) == calendar2.get(DAY_OF_MONTH);
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        List<NmeaRoute> routes = read(createSentences(POSITIONS, false));
+        assertEquals(1, routes.size());
+        List<NmeaPosition> positions = routes.get(0).getPositions();
+        assertEquals(POSITIONS, positions.size());
+
+        NmeaPosition last = positions.get(POSITIONS - 1);
+        assertEquals(9.0 + (3.4036 + 0.999) / 60.0, last.getLongitude(), 0.0000001);
+        assertEquals(48.0 + (37.4374 + 0.999) / 60.0, last.getLatitude(), 0.0000001);
+        assertEquals(16.76, last.getElevation(), 0.0);
+
+        for (int i = 1; i < positions.size(); i++) {
+            CompactCalendar previous = positions.get(i - 1).getTime();
+            CompactCalendar time = positions.get(i).getTime();
+            assertEquals(hasDateDefinedWithCalendar(time), time.hasDateDefined());
+            assertEquals(isSameDayWithCalendar(previous, time), previous.isSameDay(time));
+        }
+    }
+
+    @Test
+    public void testTokenizerAgainstPatterns() {
+        NmeaFormat format = new NmeaFormat();
+        for (String line : createSentences(POSITIONS / 10, true).split("\n")) {
+            boolean position = format.isPositionWithPatterns(line);
+            assertEquals(line, position, format.isPosition(line));
+            if (position)
+                assertEquals(line, format.parsePositionWithPatterns(line), format.parsePosition(line));
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import org.junit.Test;
+import slash.common.type.CompactCalendar;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NmeaSentenceTest {
+    private static final String[] SENTENCES = {
+            "$GNGGA,162622.00,4857.29112,N,00850.57680,E,2,12,0.65,265.2,M,47.5,M,,0000*41",
+            "$GNGLL,4857.29146,N,00850.57722,E,162621.00,A,D*7C",
+            "$GNGLL,4857.32825,N,00850.59955,E,162349.00,A,A*74",
+            "$GNGNS,184113.00,5215.46773,N,01021.80963,E,AAAN,17,0.73,73.9,45.8,,,V*21",
+            "$GNGNS,184113.00,5215.46773,N,01021.80963,N,AAAN,17,0.73,73.9,45.8,,,V*21",
+            "$GNGSA,A,3,12,15,17,19,24,06,25,,,,,,1.24,0.65,1.06,1*0C",
+            "$GNRMC,162622.00,A,4857.29112,N,00850.57680,E,0.813,251.19,160217,,,D,V*0D",
+            "$GNVTG,251.19,T,,M,0.813,N,1.506,K,D*20",
+            "$GNZDA,184113.00,23,02,2017,00,00*71",
+            "$GPGGA,,4837.5339,N,00903.4040,E,1,08,0,0,M,0,M,,*6A",
+            "$GPGGA,060901.64,0000.0000,N,00000.0000,E,,2,60.000,0,M,0,M,0,*55",
+            "$GPGGA,060901.64,0000.0000,N,00000.0000,E,0,2,60.000,0,M,0,M,0,*65",
+            "$GPGGA,060901.64,0000.0000,N,00000.0000,E,1,2,60.000,0,M,0,M,0,*64",
+            "$GPGGA,060915.64,4512.4901,N,01541.0840,E,,3,60.000,-0.000,M,0,M,0,*61",
+            "$GPGGA,061014.64,5119.8979,N,01219.1497,E,1,5,1.892,144.426,M,42.396,M,0,*63",
+            "$GPGGA,100436,4300.898329,N,00948.227878,E,1,,,203.0821,M,,M,,*4B",
+            "$GPGGA,123613.957,,,,,0,00,,,M,0.0,M,,0000*59",
+            "$GPGGA,130441,4837.4374,N,00903.4036,E,1,08,1.25,16.76,M,46.79,M,,*42",
+            "$GPGGA,130441,5239,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6F",
+            "$GPGGA,130441.89,4837.4374,S,00903.4036,E,1,08,1.25,16.76,M,46.79,M,,*6D",
+            "$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6D",
+            "$GPGGA,132713,5509.7861,N,00140.5854,W,1,07,1.0,98.9,M,,M,,*7d",
+            "$GPGGA,134012,4837.4374,N,903.4036,E,1,,,-48.0,M,,M,,*61",
+            "$GPGGA,134012.000,4837.4374,N,00903.4036,E,1,08,00.0,-48.7654,M,00.0,M,,*47",
+            "$GPGGA,134012.000,4837.4374,N,00903.4036,E,1,8,,-48.8,M,,M,,*4F",
+            "$GPGGA,134013.000,4837.4380,N,00903.4040,E,1,08,00.0,-48.7654,M,00.0,M,,*4E",
+            "$GPGGA,140404.000,4837.5339,N,00903.4040,E,1,08,0,0,M,0,M,,*71",
+            "$GPGGA,140404.000,4837.5339,N,00903.4040,E,1,08,00.0,0,M,0,M,,*5F",
+            "$GPGGA,140404.000,4837.5339,N,00903.4040,E,1,08,00.0,484.0,M,0,M,,*49",
+            "$GPGGA,140404.000,4837.5339,N,00903.4040,E,1,08,00.0,484.0,M,00.0,M,,*67",
+            "$GPGGA,145524.054,,,,,0,00,,,M,0.0,M,,0000*54",
+            "$GPGGA,162611,3554.2367,N,10619.4966,W,1,03,06.7,02300.3,M,-022.4,M,,*7F",
+            "$GPGGA,171247,4737.266541,N,00814.066563,E,1,,,416,M,,,*00",
+            "$GPGGA,171247,4737.266541,N,00814.066563,E,1,,,416,M,,,,*2C",
+            "$GPGGA,171624,5341.1395,N, 951.2163,E,1,00,0.0,173.773102,M,0.0,M,,*66",
+            "$GPGGA,175947.000,4812.0597,N,01136.4663,E,1,07,1.4,495.3,M,,,,*09",
+            "$GPGGA,180114,4808.9490,N,00928.9610,E,1,05,12.6,00616.6,M,048.0,M,,*49",
+            "$GPGLL,4916.45,N,12311.12,W,220433.11,A*1A",
+            "$GPGLL,4916.45,N,12311.12,W,220433.11,A*6D",
+            "$GPGLL,4916.45,N,12311.12,W,220433.11,V*OD",
+            "$GPGLL,4916.45,N,12311.12,W,225444,A",
+            "$GPGSA,A,1,05,09,12,14,22,,,,,,,,19.9,12.6,15.3*09",
+            "$GPGSA,A,3,,,,15,17,18,23,,,,,,4.7,4.4,1.5*3F",
+            "$GPGSA,A,3,05,09,12,14,22,,,,,,,,19.9,12.6,15.3*0B",
+            "$GPGSV,2,1,08,05,40,250,50,09,85,036,51,22,16,285,36,17,,,00*4F",
+            "$GPRMC,,A,4808.9490,N,00928.9610,E,,,,,,A*7D",
+            "$GPRMC,060900.64,V,0000.0000,N,00000.0000,E,0,0,160709,0,W,N*25",
+            "$GPRMC,060914.64,V,4508.3662,N,01543.0320,E,0,0,160709,0,W,N*2A",
+            "$GPRMC,061013.64,A,5119.8979,N,01219.1497,E,0,0,160709,0,W,A*34",
+            "$GPRMC,062801.724,A,2608.6661,N,02758.8546,E,0.00,,160907,,,A*6B",
+            "$GPRMC,062801.724,A,2608.6661,N,02758.8546,W,0.00,,160907,,,A*6B",
+            "$GPRMC,062801.724,A,2608.6661,S,02758.8546,E,0.00,,160907,,,A*6B",
+            "$GPRMC,062801.724,A,2608.6661,S,02758.8546,W,0.00,,160907,,,A*6B",
+            "$GPRMC,100436,A,4300.898329,N,00948.227878,E,0.0000,,290713,,A*4F",
+            "$GPRMC,123613.957,V,,,,,,,170807,,*29",
+            "$GPRMC,130441,A,4837.4374,N,00903.4036,E,000.0,000.0,290713,,,A*7A",
+            "$GPRMC,132713,A,5509.7861,N,00140.5854,W,2.1,278.3,010110,,*e",
+            "$GPRMC,134012,A,4837.4374,N,903.4036,E,,,260707,,A*5A",
+            "$GPRMC,134012.000,A,4837.4374,N,00903.4036,E,3.0,,260707,,A*69",
+            "$GPRMC,134012.000,A,4837.4374,N,00903.4036,E,3.00,0.00,260707,,*06",
+            "$GPRMC,140403.000,A,4837.5194,N,00903.4022,E,15.00,0.00,260707,,*3E",
+            "$GPRMC,141159.000,A,4706.0698,N,00719.6955,E,12.42,242.10,41217,,,A*64",
+            "$GPRMC,145524.054,V,,,,,,,300807,,*21",
+            "$GPRMC,171624,A,5341.1395,N, 951.2163,E,1.285115,0.000000,150711,,*34",
+            "$GPRMC,172103.38,V,4424.5358,N,06812.3754,W,0.000,0.000,101010,0,W,A*35",
+            "$GPRMC,172103.38,V,4424.5358,N,06812.3754,W,0.000,0.000,101010,0,W,N*3A",
+            "$GPRMC,175947.000,A,4812.0597,N,01136.4663,E,0.0,163.8,010907,,,A*62",
+            "$GPRMC,180114,A,4808.9490,N,00928.9610,E,,,,,,A*70",
+            "$GPRMC,180114,A,4808.9490,N,00928.9610,E,000.0,,,,,A*5E",
+            "$GPRMC,180114,A,4808.9490,N,00928.9610,E,000.0,000.0,,,,A*70",
+            "$GPRMC,180114,A,4808.9490,N,00928.9610,E,000.0,000.0,160607,,,A*76",
+            "$GPRMC,180114,A,4837.4374,N,00903.4036,E,14.32,000.0,160607,,,A*76",
+            "$GPVTG,,T,,M,0.0000,N,19.3175,K,A*1B",
+            "$GPVTG,,T,,M,3.0,N,5.6,K,A*23",
+            "$GPVTG,0.00,T,,M,1.531,N,2.835,K,A*37",
+            "$GPVTG,000.0,T,,M,000.0,N,000.0,K,A*0D",
+            "$GPVTG,32.19,T,,M,1.531,N,2.835,K,A*37",
+            "$GPWPL,1924.823,N,08728.572,W,P28298_240104_0715",
+            "$GPWPL,1924.823,N,08728.572,W,P28298_240104_0715*00",
+            "$GPWPL,1924.823,N,08728.572,W,P28298_240104_0715*32",
+            "$GPWPL,3018.000,S,15309.000,E,Coffs Harbor (Sidney)",
+            "$GPWPL,4300.898329,N,00948.227878,E,Position 3*62",
+            "$GPWPL,4837.4374,N,903.4036,E,*4C",
+            "$GPWPL,5334.169,N,01001.920,E,STATN1*22",
+            "$GPZDA,032910,07,08,2004,00,00*48",
+            "$GPZDA,032910.331,07,08,2004,00,00*48",
+            "$GPZDA,032910.542,07,08,2004,00,00*48",
+            "$GPZDA,100436,29,07,2013,,*44",
+            "$GPZDA,130441,29,07,2013,00,00*47",
+            "$GPZDA,134012,26,07,07,,*49",
+            "$GPZDA,134012.000,26,07,2007,,*55"
+    };
+    private final NmeaFormat format = new NmeaFormat();
+
+    @Test
+    public void testTokenize() {
+        NmeaSentence sentence = NmeaSentence.tokenize("$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6D");
+        assertNotNull(sentence);
+        assertTrue(sentence.isSentence("GGA"));
+        assertTrue(sentence.hasValidChecksum());
+        assertEquals(14, sentence.getFieldCount());
+        assertEquals("130441.89", sentence.getString(0));
+        assertEquals(5239.3154, sentence.getDouble(1), 0.0);
+        assertEquals(Integer.valueOf(8), sentence.getInteger(6));
+        assertTrue(sentence.isEmpty(13));
+
+        assertNull(NmeaSentence.tokenize("$GPGGA,130441.89,5239.3154,N"));
+        assertNull(NmeaSentence.tokenize("@GPGGA,130441.89*6D"));
+        assertNull(NmeaSentence.tokenize("$GPWPL,3018.000,S,15309.000,E,Coffs Harbor (Sidney)"));
+        assertFalse(NmeaSentence.tokenize("$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6E").hasValidChecksum());
+    }
+
+    private static String withChecksum(String line) {
+        int end = line.lastIndexOf('*');
+        byte checksum = 0;
+        for (int i = 1; i < end; i++)
+            checksum ^= line.charAt(i);
+        return line.substring(0, end) + String.format("*%02X", checksum);
+    }
+
+    private void assertPositionEquals(NmeaPosition expected, NmeaPosition actual) {
+        assertEquals(expected.getLongitudeAsValueAndOrientation(), actual.getLongitudeAsValueAndOrientation());
+        assertEquals(expected.getLatitudeAsValueAndOrientation(), actual.getLatitudeAsValueAndOrientation());
+        assertEquals(expected.getElevation(), actual.getElevation());
+        assertEquals(expected.getSpeed(), actual.getSpeed());
+        assertEquals(expected.getHeading(), actual.getHeading());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getSatellites(), actual.getSatellites());
+        assertEquals(expected.getHdop(), actual.getHdop());
+        assertEquals(expected.getPdop(), actual.getPdop());
+        assertEquals(expected.getVdop(), actual.getVdop());
+    }
+
+    private void assertSameAsPatterns(String line) {
+        boolean expected;
+        try {
+            expected = format.isPositionWithPatterns(line);
+        } catch (RuntimeException e) {
+            try {
+                format.isPosition(line);
+                fail("Expected " + e + " for " + line);
+            } catch (RuntimeException e2) {
+                assertEquals(line, e.getClass(), e2.getClass());
+            }
+            return;
+        }
+        assertEquals(line, expected, format.isPosition(line));
+        if (!expected)
+            return;
+
+        NmeaPosition expectedPosition;
+        try {
+            expectedPosition = format.parsePositionWithPatterns(line);
+        } catch (RuntimeException e) {
+            try {
+                format.parsePosition(line);
+                fail("Expected " + e + " for " + line);
+            } catch (RuntimeException e2) {
+                assertEquals(line, e.getClass(), e2.getClass());
+            }
+            return;
+        }
+        assertPositionEquals(expectedPosition, format.parsePosition(line));
+    }
+
+    @Test
+    public void testSameAsPatterns() {
+        for (String sentence : SENTENCES)
+            assertSameAsPatterns(sentence);
+    }
+
+    @Test
+    public void testMutatedSentencesSameAsPatterns() {
+        String characters = "0123456789.,-+ *ADEKMNPSTVWXa";
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder builder = new StringBuilder(SENTENCES[random.nextInt(SENTENCES.length)]);
+            int mutations = 1 + random.nextInt(3);
+            for (int j = 0; j < mutations; j++) {
+                int index = 7 + random.nextInt(builder.length() - 7);
+                char c = characters.charAt(random.nextInt(characters.length()));
+                switch (random.nextInt(3)) {
+                    case 0:
+                        builder.setCharAt(index, c);
+                        break;
+                    case 1:
+                        builder.insert(index, c);
+                        break;
+                    default:
+                        if (builder.length() > 8)
+                            builder.deleteCharAt(index);
+                }
+            }
+            String line = builder.toString();
+            assertSameAsPatterns(line);
+            if (line.lastIndexOf('*') > 0)
+                assertSameAsPatterns(withChecksum(line));
+        }
+    }
+
+    @Test
+    public void testTimesSameAsDateFormats() {
+        Random random = new Random(42);
+        String[] dates = {"160607", "290713", "010100", "311299", "290200", "290201", "310413", "000713", "011313",
+                "16062007", "29022000", "29021900", "01011583", "15101582", "1606207"};
+        for (int i = 0; i < 5000; i++) {
+            String time = String.format("%02d%02d%02d", random.nextInt(26), random.nextInt(62), random.nextInt(62));
+            if (random.nextBoolean()) {
+                StringBuilder fraction = new StringBuilder(".");
+                int digits = random.nextInt(5);
+                for (int j = 0; j < digits; j++)
+                    fraction.append(random.nextInt(10));
+                time += fraction;
+            }
+            CompactCalendar expected = format.parseTimeWithFormats(time);
+            assertEquals(time, expected, format.parseTime(time));
+
+            String date = random.nextInt(4) == 0 ? dates[random.nextInt(dates.length)] :
+                    String.format("%02d%02d%02d", 1 + random.nextInt(31), 1 + random.nextInt(12), random.nextInt(100));
+            expected = format.parseDateAndTimeWithFormats(date, time);
+            assertEquals(date + " " + time, expected, format.parseDateAndTime(date, time));
+        }
+    }
+}
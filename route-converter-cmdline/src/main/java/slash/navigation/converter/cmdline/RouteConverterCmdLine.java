@@ -30,8 +30,11 @@ import java.util.List;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.String.format;
 import static java.lang.System.exit;
 import static slash.common.io.Files.*;
+import static slash.common.io.Transfer.formatDuration;
 import static slash.common.system.Platform.*;
 import static slash.common.system.Version.parseVersionFromManifest;
 import static slash.navigation.base.NavigationFormatParser.getNumberOfFilesToWriteFor;
@@ -70,6 +73,13 @@ public class RouteConverterCmdLine {
         return null;
     }
 
+    private void logStatistics(BaseRoute route) {
+        RouteStatistics statistics = route.getStatistics();
+        log.info(format("Read '%s' with %d positions: %.2f km in %s, %.0f m ascend, %.0f m descend",
+                route.getName(), statistics.getPositionCount(), statistics.getDistance() / 1000.0,
+                formatDuration(statistics.getTime()), statistics.getElevationAscend(), statistics.getElevationDescend()));
+    }
+
     private int run(String[] args) {
         Version version = parseVersionFromManifest();
         log.info("Started RouteConverter " + version.getVersion() + " from " + version.getDate() +
@@ -110,14 +120,31 @@ public class RouteConverterCmdLine {
         return 0;
     }
 
+    private boolean isStreamingWritable(NavigationFormat format) {
+        // streaming does not split into several files
+        return format instanceof StreamingNavigationFormat && ((StreamingNavigationFormat) format).isSupportsStreamingWriting() &&
+                format.getMaximumPositionCount() == MAX_VALUE;
+    }
+
     private void convert(File source, NavigationFormat format, File target) throws IOException {
         NavigationFormatParser parser = new NavigationFormatParser(new NavigationFormatRegistry());
+        if (isStreamingWritable(format)) {
+            StreamingNavigationFormat sourceFormat = parser.determineStreamingFormat(source);
+            if (sourceFormat != null) {
+                parser.convert(source, sourceFormat, target, (StreamingNavigationFormat) format);
+                return;
+            }
+        }
+
+        parser.setReadParallelism(Runtime.getRuntime().availableProcessors());
         ParserResult result = parser.read(source);
         if (!result.isSuccessful()) {
             log.severe("Could not read source '" + source.getAbsolutePath() + "'");
             logFormatNames(true);
             exit(20);
         }
+        for (BaseRoute route : result.getAllRoutes())
+            logStatistics(route);
 
         if (format.isSupportsMultipleRoutes()) {
             parser.write(result.getAllRoutes(), (MultipleRoutesFormat) format, target);
@@ -20,11 +20,11 @@
 
 package slash.navigation.converter.gui.helpers;
 
-import slash.common.type.CompactCalendar;
+import slash.navigation.base.BaseRoute;
 import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.RouteStatistics;
 import slash.navigation.common.DistanceAndTime;
 import slash.navigation.common.DistanceAndTimeAggregator;
-import slash.navigation.common.NavigationPosition;
 import slash.navigation.converter.gui.models.CharacteristicsModel;
 import slash.navigation.converter.gui.models.PositionsModel;
 
@@ -34,12 +34,10 @@ import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
-import static java.lang.Math.max;
 import static java.lang.System.currentTimeMillis;
 import static javax.swing.event.TableModelEvent.ALL_COLUMNS;
 import static javax.swing.event.TableModelEvent.UPDATE;
 import static slash.common.helpers.ThreadHelper.safeJoin;
-import static slash.common.io.Transfer.isEmpty;
 import static slash.navigation.base.RouteCharacteristics.Route;
 import static slash.navigation.base.RouteCharacteristics.Waypoints;
 import static slash.navigation.common.DistanceAndTime.ZERO;
@@ -133,40 +131,15 @@ public class LengthCalculator {
     }
 
     private void recalculateDistance() {
-        fireCalculatedDistance(ZERO);
-
-        double aggregatedDistance = 0.0;
-        long aggregatedTime = 0;
-        CompactCalendar minimumTime = null, maximumTime = null;
-        NavigationPosition previous = null;
-        for (int i = 0; i < positionsModel.getRowCount(); i++) {
-            NavigationPosition next = positionsModel.getPosition(i);
-            if (previous != null) {
-                Double distance = previous.calculateDistance(next);
-                if (!isEmpty(distance))
-                    aggregatedDistance += distance;
-                Long time = previous.calculateTime(next);
-                if (time != null && time > 0)
-                    aggregatedTime += time;
-            }
-
-            CompactCalendar time = next.getTime();
-            if (time != null) {
-                if (minimumTime == null || time.before(minimumTime))
-                    minimumTime = time;
-                if (maximumTime == null || time.after(maximumTime))
-                    maximumTime = time;
-            }
-
-            if (i > 0 && i % 100 == 0)
-                fireCalculatedDistance(new DistanceAndTime(aggregatedDistance, aggregatedTime > 0 ? aggregatedTime : 0));
-
-            previous = next;
+        BaseRoute route = positionsModel.getRoute();
+        if (route == null) {
+            fireCalculatedDistance(ZERO);
+            return;
         }
 
-        long summedUp = aggregatedTime > 0 ? aggregatedTime : 0;
-        long maxMinusMin = minimumTime != null ? (maximumTime.getTimeInMillis() - minimumTime.getTimeInMillis()) : 0;
-        fireCalculatedDistance(new DistanceAndTime(aggregatedDistance, max(maxMinusMin, summedUp)));
+        // recalculates the changed parts of the route only
+        RouteStatistics statistics = route.getStatistics();
+        fireCalculatedDistance(new DistanceAndTime(statistics.getDistance(), statistics.getTime()));
     }
 
     private void initialize() {
@@ -21,6 +21,7 @@
 package slash.navigation.converter.gui.models;
 
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
@@ -73,8 +74,8 @@ public class ElevationToJLabelAdapter extends PositionsModelToDocumentAdapter {
 
         BaseRoute route = getDelegate().getRoute();
         if (route != null) {
-            updateLabel(route.getElevationAscend(0, route.getPositionCount() - 1),
-                        route.getElevationDescend(0, route.getPositionCount() - 1));
+            RouteStatistics statistics = route.getStatistics();
+            updateLabel(statistics.getElevationAscend(), statistics.getElevationDescend());
         } else {
             updateLabel(0, 0);
         }
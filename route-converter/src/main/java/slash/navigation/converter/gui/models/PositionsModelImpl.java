@@ -29,9 +29,7 @@ import slash.navigation.common.NavigationPosition;
 import slash.navigation.common.UnitSystem;
 import slash.navigation.converter.gui.RouteConverter;
 import slash.navigation.converter.gui.helpers.PositionHelper;
-import slash.navigation.gui.events.ContinousRange;
 import slash.navigation.gui.events.Range;
-import slash.navigation.gui.events.RangeOperation;
 
 import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
@@ -43,6 +41,7 @@ import java.text.ParseException;
 import java.util.*;
 
 import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.max;
 import static java.util.Calendar.*;
 import static java.util.Collections.singletonList;
 import static javax.swing.JOptionPane.ERROR_MESSAGE;
@@ -198,6 +197,7 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
                 int columnIndex = columnToValues.getColumnIndices().get(i);
                 editCell(rowIndex, columnIndex, columnToValues.getNextValues().get(i));
             }
+            getRoute().invalidateCaches(rowIndex, rowIndex);
         }
 
         if (fireEvent) {
@@ -399,21 +399,31 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
         remove(rowIndices, true);
     }
 
-    public void remove(int[] rows, final boolean fireEvent) {
-        new ContinousRange(rows, new RangeOperation() {
-            public void performOnIndex(int index) {
-                getRoute().remove(index);
-            }
+    public void remove(int[] rows, boolean fireEvent) {
+        BitSet indices = new BitSet(getRowCount());
+        for (int row : rows)
+            indices.set(row);
 
-            public void performOnRange(int firstIndex, int lastIndex) {
-                if (fireEvent)
-                    fireTableRowsDeleted(firstIndex, lastIndex);
-            }
+        int rowCountBeforeRemoval = getRowCount();
+        int removedRowCount = getRoute().removeAll(indices).size();
+        if (fireEvent && removedRowCount > 0)
+            fireTableRowsDeleted(indices.nextSetBit(0), indices.length() - 1, removedRowCount, rowCountBeforeRemoval, false);
+    }
 
-            public boolean isInterrupted() {
-                return false;
-            }
-        }).performMonotonicallyDecreasing();
+    /**
+     * Fires the deletion of rows between the first and the last row as one range. If not all
+     * rows in between have been deleted, all rows from the first row on are deleted and the
+     * remaining ones are inserted again.
+     */
+    public void fireTableRowsDeleted(int firstRow, int lastRow, int deletedRowCount, int rowCountBeforeDeletion,
+                                     boolean continousRange) {
+        int lastDeletedRow = lastRow - firstRow + 1 == deletedRowCount ? lastRow : rowCountBeforeDeletion - 1;
+        if (continousRange)
+            fireTableRowsDeletedInContinousRange(firstRow, lastDeletedRow);
+        else
+            fireTableRowsDeleted(firstRow, lastDeletedRow);
+        if (lastDeletedRow != lastRow && firstRow < getRowCount())
+            fireTableRowsInserted(firstRow, getRowCount() - 1);
     }
 
     @SuppressWarnings("unchecked")
@@ -493,6 +503,14 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
     private TableModelEvent currentEvent;
 
     public void fireTableChanged(TableModelEvent e) {
+        // positions may have been changed without the route
+        if (getRoute() != null) {
+            // updates within the positions change them in place
+            if (e.getType() == UPDATE && e.getFirstRow() >= 0 && e.getLastRow() < getRowCount())
+                getRoute().invalidateCaches(e.getFirstRow(), e.getLastRow());
+            else
+                getRoute().invalidateCaches(max(e.getFirstRow(), 0));
+        }
         this.currentEvent = e;
         super.fireTableChanged(e);
         this.currentEvent = null;
@@ -512,6 +512,7 @@ public class ConvertPanel implements PanelInTab {
         startWaitCursor(r.getFrame().getRootPane());
         openExecutor.execute(() -> {
             NavigationFormatParser parser = new NavigationFormatParser(getNavigationFormatRegistry());
+            parser.setReadParallelism(Runtime.getRuntime().availableProcessors());
             NavigationFormatParserListener listener = format -> invokeLater(() -> formatAndRoutesModel.setFormat(format));
             parser.addNavigationFileParserListener(listener);
 
@@ -567,11 +568,12 @@ public class ConvertPanel implements PanelInTab {
     private void appendPositionList(final int row, final List<URL> urls) {
         final RouteConverter r = RouteConverter.getInstance();
         openExecutor.execute(() -> {
+            NavigationFormatParser parser = new NavigationFormatParser(getNavigationFormatRegistry());
+            parser.setReadParallelism(Runtime.getRuntime().availableProcessors());
             try {
                 for (URL url : urls) {
                     String path = createReadablePath(url);
 
-                    NavigationFormatParser parser = new NavigationFormatParser(getNavigationFormatRegistry());
                     final ParserResult result = parser.read(url);
                     if (result.isSuccessful()) {
                         log.info("Appended: " + path);
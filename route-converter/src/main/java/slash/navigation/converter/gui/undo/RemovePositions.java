@@ -45,9 +45,12 @@ class RemovePositions extends AbstractUndoableEdit {
         this.positionsModel = positionsModel;
     }
 
+    /**
+     * Adds the positions removed from the given row on; rows are added in ascending order.
+     */
     public void add(int row, List<NavigationPosition> positions) {
-        rowList.add(0, row);
-        positionsList.add(0, positions);
+        rowList.add(row);
+        positionsList.add(positions);
     }
 
     public String getUndoPresentationName() {
@@ -29,18 +29,18 @@ import slash.navigation.common.NavigationPosition;
 import slash.navigation.converter.gui.models.PositionColumnValues;
 import slash.navigation.converter.gui.models.PositionsModel;
 import slash.navigation.converter.gui.models.PositionsModelImpl;
-import slash.navigation.gui.events.ContinousRange;
 import slash.navigation.gui.events.Range;
-import slash.navigation.gui.events.RangeOperation;
 import slash.navigation.gui.undo.UndoManager;
 
 import javax.swing.event.TableModelListener;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
 
 import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.min;
 import static java.util.Collections.singletonList;
 import static slash.common.io.Transfer.trim;
 
@@ -222,14 +222,7 @@ public class UndoPositionsModel implements PositionsModel {
     }
 
     public void remove(int[] rowIndices) {
-        // speed up deletion of positions in large tracks
-        if (rowIndices.length > 1000) {
-            int rowCountBeforeRemoval = getRowCount() - 1;
-            remove(rowIndices, false, true);
-            delegate.fireTableRowsDeletedInContinousRange(0, rowCountBeforeRemoval);
-            delegate.fireTableRowsInserted(0, getRowCount() - 1);
-        } else
-            remove(rowIndices, true, true);
+        remove(rowIndices, true, true);
     }
 
     void remove(int from, int to, boolean fireEvent, boolean trackUndo) {
@@ -237,33 +230,32 @@ public class UndoPositionsModel implements PositionsModel {
         remove(rows, fireEvent, trackUndo);
     }
 
-    void remove(int[] rows, final boolean fireEvent, final boolean trackUndo) {
-        final RemovePositions edit = new RemovePositions(this);
-
-        new ContinousRange(rows, new RangeOperation() {
-            private List<NavigationPosition> removed = new ArrayList<>();
+    @SuppressWarnings("unchecked")
+    void remove(int[] rows, boolean fireEvent, boolean trackUndo) {
+        BitSet indices = new BitSet(getRowCount());
+        for (int row : rows)
+            indices.set(row);
 
-            public void performOnIndex(int index) {
-                removed.add(0, getRoute().remove(index));
-            }
+        int rowCountBeforeRemoval = getRowCount();
+        List<NavigationPosition> removed = getRoute().removeAll(indices);
 
-            public void performOnRange(int firstIndex, int lastIndex) {
-                if (fireEvent)
-                    delegate.fireTableRowsDeletedInContinousRange(firstIndex, lastIndex);
-                if (trackUndo)
-                    edit.add(firstIndex, removed);
-                removed = new ArrayList<>();
-            }
+        if (fireEvent) {
+            if (removed.size() > 0)
+                delegate.fireTableRowsDeleted(indices.nextSetBit(0), indices.length() - 1, removed.size(), rowCountBeforeRemoval, true);
+            fireTableRowsUpdated(0, MAX_VALUE, CONTINOUS_RANGE_FINAL_EVENT);
+        }
 
-            public boolean isInterrupted() {
-                return false;
+        if (trackUndo) {
+            RemovePositions edit = new RemovePositions(this);
+            int offset = 0;
+            for (int from = indices.nextSetBit(0); from != -1 && offset < removed.size(); ) {
+                int to = min(indices.nextClearBit(from), from + removed.size() - offset);
+                edit.add(from, new ArrayList<>(removed.subList(offset, offset + to - from)));
+                offset += to - from;
+                from = indices.nextSetBit(to);
             }
-        }).performMonotonicallyDecreasing();
-
-        if (fireEvent)
-            fireTableRowsUpdated(0, MAX_VALUE, CONTINOUS_RANGE_FINAL_EVENT);
-        if (trackUndo)
             undoManager.addEdit(edit);
+        }
     }
 
     public void sort(Comparator<NavigationPosition> comparator) {